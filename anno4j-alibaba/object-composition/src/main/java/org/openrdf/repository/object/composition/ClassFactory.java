@@ -28,6 +28,7 @@
  */
 package org.openrdf.repository.object.composition;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -214,6 +215,9 @@ public class ClassFactory extends ClassLoader {
 
 	@Override
 	protected Class<?> findClass(String name) throws ClassNotFoundException {
+		Class<?> stored = findStoredClass(name);
+		if (stored != null)
+			return stored;
 		try {
 			return super.findClass(name);
 		} catch (ClassNotFoundException e) {
@@ -230,6 +234,42 @@ public class ClassFactory extends ClassLoader {
 		}
 	}
 
+	/**
+	 * Defines a class from the bytecode saved in the output directory, e.g.
+	 * by a previous run using the same persistent output directory.
+	 * 
+	 * @return the class or null if no (valid) bytecode is stored for it
+	 */
+	private Class<?> findStoredClass(String name) {
+		File file = new File(output, name.replace('.', '/') + ".class");
+		if (!file.isFile())
+			return null;
+		try {
+			byte[] bytecode = readResource(file);
+			return defineClass(name, bytecode, 0, bytecode.length);
+		} catch (IOException e) {
+			return null;
+		} catch (ClassFormatError e) {
+			file.delete();
+			return null;
+		}
+	}
+
+	private byte[] readResource(File file) throws IOException {
+		InputStream in = new FileInputStream(file);
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream((int) file.length());
+			byte[] buffer = new byte[4096];
+			int read;
+			while ((read = in.read(buffer)) >= 0) {
+				out.write(buffer, 0, read);
+			}
+			return out.toByteArray();
+		} finally {
+			in.close();
+		}
+	}
+
 	public void appendClassLoader(ClassLoader cl) {
 		synchronized (alternatives) {
 			alternatives.add(cl);
@@ -303,12 +343,21 @@ public class ClassFactory extends ClassLoader {
 		try {
 			File file = new File(output, fileName);
 			file.getParentFile().mkdirs();
-			FileOutputStream out = new FileOutputStream(file);
+			// write to a temporary file first, so that concurrent readers of
+			// a shared output directory never see partially written classes
+			File tmp = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+			FileOutputStream out = new FileOutputStream(tmp);
 			try {
 				out.write(bytecode);
 			} finally {
 				out.close();
 			}
+			if (!tmp.renameTo(file)) {
+				file.delete();
+				if (!tmp.renameTo(file)) {
+					tmp.delete();
+				}
+			}
 		} catch (IOException e) {
 			throw new AssertionError(e);
 		}
@@ -32,6 +32,7 @@ import org.openrdf.model.URI;
 import org.openrdf.repository.object.composition.helpers.BehaviourConstructor;
 import org.openrdf.repository.object.composition.helpers.BehaviourProviderService;
 import org.openrdf.repository.object.composition.helpers.ClassComposer;
+import org.openrdf.repository.object.composition.helpers.ProxyCache;
 import org.openrdf.repository.object.exceptions.ObjectCompositionException;
 import org.openrdf.repository.object.exceptions.ObjectStoreConfigException;
 import org.openrdf.repository.object.managers.PropertyMapper;
@@ -92,13 +93,34 @@ public class ClassResolver {
 		this(mapper, new PropertyMapper(cl, mapper.isNamedTypePresent()), cl);
 	}
 
+	/**
+	 * @param cache
+	 *            directory in which the composed classes are kept across
+	 *            restarts or null to compose them into a temporary directory
+	 */
+	public ClassResolver(RoleMapper mapper, ClassLoader cl, File cache)
+			throws ObjectStoreConfigException {
+		this(mapper, new PropertyMapper(cl, mapper.isNamedTypePresent()), cl, cache);
+	}
+
 	public ClassResolver(RoleMapper mapper, PropertyMapper properties,
 			ClassLoader cl) throws ObjectStoreConfigException {
+		this(mapper, properties, cl, null);
+	}
+
+	public ClassResolver(RoleMapper mapper, PropertyMapper properties,
+			ClassLoader cl, File cache) throws ObjectStoreConfigException {
 		this.mapper = mapper;
 		this.properties = properties;
 		try {
-			File dir = DirUtil.createTempDir("classes");
-			DirUtil.deleteOnExit(dir);
+			File dir;
+			if (cache == null) {
+				dir = DirUtil.createTempDir("classes");
+				DirUtil.deleteOnExit(dir);
+			} else {
+				dir = ProxyCache.getDirectory(cache, mapper.getRoleClasses());
+				logger.debug("Using proxy cache {}", dir);
+			}
 			this.cp = new ClassFactory(dir, cl);
 			behaviourService = BehaviourProviderService.newInstance(cp);
 			Collection<Class<?>> baseClassRoles = mapper.getConceptClasses();
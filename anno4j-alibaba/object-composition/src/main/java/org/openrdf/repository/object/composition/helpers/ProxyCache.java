@@ -0,0 +1,128 @@
+package org.openrdf.repository.object.composition.helpers;
+
+import org.openrdf.repository.object.composition.AbstractClassFactory;
+import org.openrdf.repository.object.managers.helpers.DirUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.TreeMap;
+
+/**
+ * Manages a directory in which the composed proxy and behaviour classes are kept across restarts.
+ * Within the cache directory the classes are stored in a sub-directory named after a fingerprint
+ * of the concept and behaviour classes (their names and bytecode) and of the composition library itself.
+ * If any of these classes change, a new sub-directory is used.
+ * The cache directory may be shared by JVMs running other versions of the roles, so the sub-directories of other
+ * fingerprints are only deleted once they were not used for {@link #GRACE_PERIOD}. Sub-directories of versions that
+ * are still running longer than that are recreated on their next start. Stale sub-directories can be removed
+ * manually at any time while no JVM uses the cache directory.
+ * Within a sub-directory the proxies are keyed by the role-set hash that is part of their class name.
+ */
+public class ProxyCache {
+
+    private static final String DIRECTORY_PREFIX = "proxies-";
+
+    /**
+     * The time in milliseconds after which the sub-directory of another fingerprint is considered unused.
+     */
+    public static final long GRACE_PERIOD = 7L * 24 * 60 * 60 * 1000;
+
+    private static final Logger logger = LoggerFactory.getLogger(ProxyCache.class);
+
+    /**
+     * Returns the directory holding the cached classes for the given roles and removes directories of
+     * other fingerprints that were not used for {@link #GRACE_PERIOD}.
+     * Note that roles registered after this call are not part of the fingerprint.
+     * @param cache The cache directory.
+     * @param roles The concepts and behaviours which are composed.
+     * @return Returns the directory for the current fingerprint.
+     * @throws IOException Thrown if the bytecode of the roles can't be read.
+     */
+    public static File getDirectory(File cache, Collection<Class<?>> roles) throws IOException {
+        String fingerprint = fingerprint(roles);
+        long now = System.currentTimeMillis();
+
+        File[] existing = cache.listFiles();
+        if (existing != null) {
+            for (File dir : existing) {
+                if (dir.isDirectory() && dir.getName().startsWith(DIRECTORY_PREFIX)
+                        && !dir.getName().equals(DIRECTORY_PREFIX + fingerprint)
+                        && now - dir.lastModified() > GRACE_PERIOD) {
+                    logger.debug("Removing stale proxy cache {}", dir);
+                    DirUtil.delete(dir);
+                }
+            }
+        }
+
+        File dir = new File(cache, DIRECTORY_PREFIX + fingerprint);
+        dir.mkdirs();
+        // Mark the directory as used, so that other versions sharing the cache don't remove it:
+        dir.setLastModified(now);
+        return dir;
+    }
+
+    /**
+     * Computes a fingerprint of the given classes, their super types and the composition library.
+     * @param roles The roles to fingerprint.
+     * @return Returns the fingerprint as hex string.
+     * @throws IOException Thrown if the bytecode of a class can't be read.
+     */
+    static String fingerprint(Collection<Class<?>> roles) throws IOException {
+        // Sort by name so that the fingerprint is independent of the registration order:
+        TreeMap<String, Class<?>> classes = new TreeMap<String, Class<?>>();
+        for (Class<?> role : roles) {
+            addWithSuperTypes(role, classes);
+        }
+        classes.put(ClassComposer.class.getName(), ClassComposer.class);
+        classes.put(AbstractClassFactory.class.getName(), AbstractClassFactory.class);
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] buffer = new byte[4096];
+            for (Class<?> clazz : classes.values()) {
+                digest.update(clazz.getName().getBytes("UTF-8"));
+
+                ClassLoader cl = clazz.getClassLoader();
+                InputStream in = (cl != null) ? cl.getResourceAsStream(clazz.getName().replace('.', '/') + ".class") : null;
+                if (in != null) {
+                    try {
+                        int read;
+                        while ((read = in.read(buffer)) >= 0) {
+                            digest.update(buffer, 0, read);
+                        }
+                    } finally {
+                        in.close();
+                    }
+                }
+            }
+            return toHexString(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static void addWithSuperTypes(Class<?> clazz, TreeMap<String, Class<?>> classes) {
+        if (clazz == null || clazz.getClassLoader() == null || classes.containsKey(clazz.getName())) {
+            return;
+        }
+        classes.put(clazz.getName(), clazz);
+        addWithSuperTypes(clazz.getSuperclass(), classes);
+        for (Class<?> face : clazz.getInterfaces()) {
+            addWithSuperTypes(face, classes);
+        }
+    }
+
+    private static String toHexString(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
@@ -119,6 +119,13 @@ public class RoleMapper implements Cloneable {
 		return conceptClasses;
 	}
 
+	/**
+	 * @return All concepts and behaviours that are mapped to an rdf:type.
+	 */
+	public Collection<Class<?>> getRoleClasses() {
+		return new HashSet<Class<?>>(roleMapper.findAllRoles());
+	}
+
 	public Collection<Class<?>> findIndividualRoles(URI instance,
 			Collection<Class<?>> classes) {
 		List<Class<?>> list = instances.get(instance);
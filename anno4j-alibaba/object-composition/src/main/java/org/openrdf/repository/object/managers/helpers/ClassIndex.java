@@ -0,0 +1,43 @@
+package org.openrdf.repository.object.managers.helpers;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Set;
+
+/**
+ * Index of the annotated types, methods and fields available on the classpath.
+ * The index is either read from the build-time index files (see {@link StaticClassIndex}) or
+ * obtained by scanning the classpath at runtime (see {@link ReflectionsClassIndex}).
+ */
+public interface ClassIndex {
+
+    /**
+     * Returns the types that are directly annotated with the given annotation.
+     * @param annotation The annotation to look up.
+     * @return Returns the annotated types. Subtypes of annotated types are not included,
+     * unless they are annotated themselves.
+     */
+    Set<Class<?>> getTypesAnnotatedWith(Class<? extends Annotation> annotation);
+
+    /**
+     * Returns the methods that are annotated with the given annotation.
+     * @param annotation The annotation to look up.
+     * @return Returns the annotated methods.
+     */
+    Set<Method> getMethodsAnnotatedWith(Class<? extends Annotation> annotation);
+
+    /**
+     * Returns the fields that are annotated with the given annotation.
+     * @param annotation The annotation to look up.
+     * @return Returns the annotated fields.
+     */
+    Set<Field> getFieldsAnnotatedWith(Class<? extends Annotation> annotation);
+
+    /**
+     * Returns the names of the indexed classes, i.e. the classes that are annotated themselves
+     * or declare annotated methods or fields.
+     * @return Returns the binary names of the indexed classes.
+     */
+    Set<String> getClassNames();
+}
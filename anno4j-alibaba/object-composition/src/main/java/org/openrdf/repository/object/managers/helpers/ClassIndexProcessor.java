@@ -0,0 +1,169 @@
+package org.openrdf.repository.object.managers.helpers;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.*;
+import java.util.*;
+
+/**
+ * Annotation processor that writes the build-time index read by {@link StaticClassIndex}.
+ * It records the types, methods and fields annotated with {@link org.openrdf.annotations.Iri},
+ * as well as the Anno4j <code>@Partial</code> behaviours and <code>@Evaluator</code> classes.
+ * The processor is registered as a service and therefore runs for every module compiled against Anno4j.
+ * Entries of previous (incremental) compilations are kept, so that the index covers the whole module.
+ * The index files of modules merged into a shaded JAR must be appended to each other, see {@link StaticClassIndex}.
+ */
+@SupportedAnnotationTypes({
+        "org.openrdf.annotations.Iri",
+        "com.github.anno4j.annotations.Partial",
+        "com.github.anno4j.annotations.Evaluator"
+})
+public class ClassIndexProcessor extends AbstractProcessor {
+
+    /**
+     * The index entries by the name of their annotation.
+     */
+    private final Map<String, Set<String>> entries = new TreeMap<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            if (!entries.isEmpty()) {
+                writeIndex();
+            }
+            return false;
+        }
+
+        for (TypeElement annotation : annotations) {
+            String annotationName = processingEnv.getElementUtils().getBinaryName(annotation).toString();
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                String entry = toEntry(element);
+                if (entry != null) {
+                    if (!entries.containsKey(annotationName)) {
+                        entries.put(annotationName, new TreeSet<String>());
+                    }
+                    entries.get(annotationName).add(entry);
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the index entry for an annotated element.
+     * @param element The annotated element.
+     * @return Returns the entry or null if the element is not indexed (e.g. parameters and packages).
+     */
+    private String toEntry(Element element) {
+        switch (element.getKind()) {
+            case CLASS:
+            case INTERFACE:
+            case ENUM:
+            case ANNOTATION_TYPE:
+                return binaryName(element);
+
+            case METHOD:
+                StringBuilder method = new StringBuilder(binaryName(element.getEnclosingElement()))
+                        .append('#')
+                        .append(element.getSimpleName())
+                        .append('(');
+                List<? extends VariableElement> parameters = ((ExecutableElement) element).getParameters();
+                for (int i = 0; i < parameters.size(); i++) {
+                    if (i > 0) {
+                        method.append(',');
+                    }
+                    method.append(typeName(parameters.get(i).asType()));
+                }
+                return method.append(')').toString();
+
+            case FIELD:
+            case ENUM_CONSTANT:
+                return binaryName(element.getEnclosingElement()) + "#" + element.getSimpleName();
+
+            default:
+                return null;
+        }
+    }
+
+    private String binaryName(Element type) {
+        return processingEnv.getElementUtils().getBinaryName((TypeElement) type).toString();
+    }
+
+    /**
+     * Returns the name of the erasure of the given type as expected by {@link StaticClassIndex}.
+     * @param type The type.
+     * @return Returns the binary name of the type. Arrays are denoted by appending <code>[]</code>.
+     */
+    private String typeName(TypeMirror type) {
+        TypeMirror erasure = processingEnv.getTypeUtils().erasure(type);
+        if (erasure.getKind() == TypeKind.ARRAY) {
+            return typeName(((ArrayType) erasure).getComponentType()) + "[]";
+        } else if (erasure.getKind() == TypeKind.DECLARED) {
+            return binaryName(((DeclaredType) erasure).asElement());
+        } else {
+            return erasure.toString();
+        }
+    }
+
+    private void writeIndex() {
+        readExistingIndex();
+
+        try {
+            FileObject index = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", StaticClassIndex.INDEX_RESOURCE);
+            Writer writer = new OutputStreamWriter(index.openOutputStream(), "UTF-8");
+            try {
+                for (Map.Entry<String, Set<String>> annotated : entries.entrySet()) {
+                    for (String entry : annotated.getValue()) {
+                        writer.write(annotated.getKey() + " " + entry + "\n");
+                    }
+                }
+            } finally {
+                writer.close();
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "Could not write class index: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Merges the entries of an index that was written by a previous compilation into the current entries.
+     */
+    private void readExistingIndex() {
+        try {
+            FileObject existing = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", StaticClassIndex.INDEX_RESOURCE);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(existing.openInputStream(), "UTF-8"));
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    int separator = line.indexOf(' ');
+                    if (separator > 0) {
+                        String annotation = line.substring(0, separator);
+                        if (!entries.containsKey(annotation)) {
+                            entries.put(annotation, new TreeSet<String>());
+                        }
+                        entries.get(annotation).add(line.substring(separator + 1).trim());
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            // There is no index from a previous compilation.
+        }
+    }
+}
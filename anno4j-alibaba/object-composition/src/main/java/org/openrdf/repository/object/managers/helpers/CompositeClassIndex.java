@@ -0,0 +1,58 @@
+package org.openrdf.repository.object.managers.helpers;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * {@link ClassIndex} that merges the results of several indexes, e.g. the build-time index
+ * and the scan of additional JARs that were not compiled with the {@link ClassIndexProcessor}.
+ */
+public class CompositeClassIndex implements ClassIndex {
+
+    private final List<ClassIndex> indexes;
+
+    public CompositeClassIndex(ClassIndex... indexes) {
+        this.indexes = Arrays.asList(indexes);
+    }
+
+    @Override
+    public Set<Class<?>> getTypesAnnotatedWith(Class<? extends Annotation> annotation) {
+        Set<Class<?>> types = new HashSet<>();
+        for (ClassIndex index : indexes) {
+            types.addAll(index.getTypesAnnotatedWith(annotation));
+        }
+        return types;
+    }
+
+    @Override
+    public Set<Method> getMethodsAnnotatedWith(Class<? extends Annotation> annotation) {
+        Set<Method> methods = new HashSet<>();
+        for (ClassIndex index : indexes) {
+            methods.addAll(index.getMethodsAnnotatedWith(annotation));
+        }
+        return methods;
+    }
+
+    @Override
+    public Set<Field> getFieldsAnnotatedWith(Class<? extends Annotation> annotation) {
+        Set<Field> fields = new HashSet<>();
+        for (ClassIndex index : indexes) {
+            fields.addAll(index.getFieldsAnnotatedWith(annotation));
+        }
+        return fields;
+    }
+
+    @Override
+    public Set<String> getClassNames() {
+        Set<String> names = new HashSet<>();
+        for (ClassIndex index : indexes) {
+            names.addAll(index.getClassNames());
+        }
+        return names;
+    }
+}
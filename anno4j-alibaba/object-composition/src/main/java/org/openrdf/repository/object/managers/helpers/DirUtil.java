@@ -74,6 +74,13 @@ public class DirUtil {
 		}
 	}
 
+	/**
+	 * Deletes the given file or directory including its contents.
+	 */
+	public static void delete(File dir) {
+		deleteFileOrDir(dir, 256);
+	}
+
 	static void deleteFileOrDir(File dir, int max) {
 		File[] listFiles = dir.listFiles();
 		if (listFiles != null && max > 0) {
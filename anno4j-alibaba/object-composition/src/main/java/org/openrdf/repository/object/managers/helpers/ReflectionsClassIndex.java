@@ -0,0 +1,110 @@
+package org.openrdf.repository.object.managers.helpers;
+
+import org.reflections.Reflections;
+import org.reflections.Store;
+import org.reflections.scanners.FieldAnnotationsScanner;
+import org.reflections.scanners.MethodAnnotationsScanner;
+import org.reflections.scanners.SubTypesScanner;
+import org.reflections.scanners.TypeAnnotationsScanner;
+import org.reflections.util.ClasspathHelper;
+import org.reflections.util.ConfigurationBuilder;
+import org.reflections.util.FilterBuilder;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * {@link ClassIndex} that is backed by a runtime classpath scan with {@link Reflections}.
+ * This is the fallback if no build-time index is available.
+ */
+public class ReflectionsClassIndex implements ClassIndex {
+
+    private final Reflections reflections;
+
+    /**
+     * @param reflections The reflections object. It must have been created with a {@link TypeAnnotationsScanner},
+     *                    a {@link MethodAnnotationsScanner} and a {@link FieldAnnotationsScanner}.
+     */
+    public ReflectionsClassIndex(Reflections reflections) {
+        this.reflections = reflections;
+    }
+
+    /**
+     * Returns the roots of the whole classpath, i.e. the URLs of the context class loader, the java class path,
+     * the manifest class paths and the roots of the default package.
+     * @return Returns the classpath roots.
+     */
+    public static Set<URL> getClasspathRoots() {
+        Set<URL> roots = new HashSet<>();
+        roots.addAll(ClasspathHelper.forClassLoader());
+        roots.addAll(ClasspathHelper.forJavaClassPath());
+        roots.addAll(ClasspathHelper.forManifest());
+        roots.addAll(ClasspathHelper.forPackage(""));
+        return roots;
+    }
+
+    /**
+     * Scans the given classpath for annotated types, methods and fields.
+     * @param classpath The URLs to scan.
+     * @return Returns the index of the scanned classpath.
+     */
+    public static ReflectionsClassIndex scan(Set<URL> classpath) {
+        Reflections reflections = new Reflections(new ConfigurationBuilder()
+                .setUrls(classpath)
+                .useParallelExecutor()
+                .filterInputsBy(FilterBuilder.parsePackages("-java, -javax, -sun, -com.sun"))
+                .setScanners(new SubTypesScanner(), new TypeAnnotationsScanner(), new MethodAnnotationsScanner(), new FieldAnnotationsScanner()));
+
+        // Bugfix: Searching for Reflections creates a lot ot Threads, that are not closed at the end by themselves,
+        // so we close them manually.
+        reflections.getConfiguration().getExecutorService().shutdown();
+
+        return new ReflectionsClassIndex(reflections);
+    }
+
+    /**
+     * @return Returns the underlying reflections object.
+     */
+    public Reflections getReflections() {
+        return reflections;
+    }
+
+    @Override
+    public Set<Class<?>> getTypesAnnotatedWith(Class<? extends Annotation> annotation) {
+        return reflections.getTypesAnnotatedWith(annotation, true);
+    }
+
+    @Override
+    public Set<Method> getMethodsAnnotatedWith(Class<? extends Annotation> annotation) {
+        return reflections.getMethodsAnnotatedWith(annotation);
+    }
+
+    @Override
+    public Set<Field> getFieldsAnnotatedWith(Class<? extends Annotation> annotation) {
+        return reflections.getFieldsAnnotatedWith(annotation);
+    }
+
+    @Override
+    public Set<String> getClassNames() {
+        Set<String> names = new HashSet<>();
+        Store store = reflections.getStore();
+        if (store.keySet().contains(TypeAnnotationsScanner.class.getSimpleName())) {
+            names.addAll(store.get(TypeAnnotationsScanner.class.getSimpleName()).values());
+        }
+        // Members are stored as <class>.<method>(<parameters>) or <class>.<field>:
+        for (Class<?> scanner : new Class<?>[]{MethodAnnotationsScanner.class, FieldAnnotationsScanner.class}) {
+            if (store.keySet().contains(scanner.getSimpleName())) {
+                for (String member : store.get(scanner.getSimpleName()).values()) {
+                    int parenthesis = member.indexOf('(');
+                    String name = (parenthesis < 0) ? member : member.substring(0, parenthesis);
+                    names.add(name.substring(0, name.lastIndexOf('.')));
+                }
+            }
+        }
+        return names;
+    }
+}
@@ -37,7 +37,6 @@ import org.openrdf.repository.object.managers.RoleMapper;
 import org.reflections.Reflections;
 import org.reflections.scanners.SubTypesScanner;
 import org.reflections.scanners.TypeAnnotationsScanner;
-import org.reflections.util.ClasspathHelper;
 import org.reflections.util.ConfigurationBuilder;
 import org.reflections.util.FilterBuilder;
 import org.slf4j.Logger;
@@ -63,10 +62,23 @@ public class RoleClassLoader {
 
 	private RoleMapper roleMapper;
 
+	private boolean scanUnindexedRoots = Boolean.getBoolean(StaticClassIndex.SCAN_UNINDEXED_PROPERTY);
+
 	public RoleClassLoader(RoleMapper roleMapper) {
 		this.roleMapper = roleMapper;
 	}
 
+	/**
+	 * Scans the classpath roots without a class index for concepts, if a class
+	 * index is present. Otherwise only the indexed concepts and the ones listed
+	 * in the classpath are registered. Defaults to the system property
+	 * {@value StaticClassIndex#SCAN_UNINDEXED_PROPERTY}. The whole classpath is
+	 * scanned if there is no class index at all.
+	 */
+	public void setScanUnindexedRoots(boolean scanUnindexedRoots) {
+		this.scanUnindexedRoots = scanUnindexedRoots;
+	}
+
 	/**
 	 * Loads and registers roles listed in resource.
 	 * 
@@ -83,7 +95,7 @@ public class RoleClassLoader {
 			loaded = load(new CheckForBehaviour(first), first, "behaviours", BEHAVIOURS, false, new HashSet<URL>());
 			loaded = load(new CheckForBehaviour(cl), cl, "behaviours", BEHAVIOURS, false, loaded);
 
-            scanConceptsWithReflections();
+            scanConcepts(cl);
 
             Collection<Class<?>> concepts = roleMapper.getConceptClasses();
             for(Class<?> conceptClass : concepts) {
@@ -113,21 +125,37 @@ public class RoleClassLoader {
 		}
 	}
 
-    private void scanConceptsWithReflections() throws ObjectStoreConfigException {
+    private void scanConcepts(ClassLoader cl) throws IOException, ObjectStoreConfigException {
+        Set<URL> classpath = ReflectionsClassIndex.getClasspathRoots();
+
+        StaticClassIndex index = StaticClassIndex.load(cl != null ? cl : RoleClassLoader.class.getClassLoader());
+        if (index != null) {
+            logger.debug("Read concepts from class index");
+            registerConcepts(index.getTypesAnnotatedWith(Iri.class));
+            if (scanUnindexedRoots) {
+                classpath = index.getUnindexedRoots(classpath);
+            } else {
+                classpath = Collections.emptySet();
+            }
+        }
+        if (!classpath.isEmpty()) {
+            scanConceptsWithReflections(classpath);
+        }
+    }
+
+    private void scanConceptsWithReflections(Set<URL> classpath) throws ObjectStoreConfigException {
         logger.debug("Search for concepts with reflections");
-        Set<URL> classpath = new HashSet<>();
-        classpath.addAll(ClasspathHelper.forClassLoader());
-        classpath.addAll(ClasspathHelper.forJavaClassPath());
-        classpath.addAll(ClasspathHelper.forManifest());
-        classpath.addAll(ClasspathHelper.forPackage(""));
         Reflections reflections = new Reflections(new ConfigurationBuilder()
                 .setUrls(classpath)
 				.useParallelExecutor()
 				.filterInputsBy(FilterBuilder.parsePackages("-java, -javax, -sun, -com.sun"))
                 .setScanners(new SubTypesScanner(), new TypeAnnotationsScanner()));
 
-        Set<Class<?>> annotated = reflections.getTypesAnnotatedWith(Iri.class, true);
-        logger.debug("Search for concepts with reflections resulted in " + annotated.size() + " classes");
+        registerConcepts(reflections.getTypesAnnotatedWith(Iri.class, true));
+    }
+
+    private void registerConcepts(Set<Class<?>> annotated) throws ObjectStoreConfigException {
+        logger.debug("Search for concepts resulted in " + annotated.size() + " classes");
         for (Class clazz : annotated) {
             logger.debug("Found concept class: " + clazz.getCanonicalName());
             roleMapper.addConcept(clazz);
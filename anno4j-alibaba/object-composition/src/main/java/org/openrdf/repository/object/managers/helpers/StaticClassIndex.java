@@ -0,0 +1,271 @@
+package org.openrdf.repository.object.managers.helpers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.util.*;
+
+/**
+ * {@link ClassIndex} that is read from the index files written by the {@link ClassIndexProcessor} at build time.
+ * Every JAR (or class directory) compiled with the processor contains a file at {@link #INDEX_RESOURCE}.
+ * Each line of this file has the form <code>&lt;annotation&gt; &lt;element&gt;</code>, where the element is
+ * either a binary class name (<code>com.example.Foo</code>), a method (<code>com.example.Foo#bar(java.lang.String)</code>)
+ * or a field (<code>com.example.Foo#baz</code>).
+ * Entries that can't be resolved any more (e.g. stale entries left by incremental compilation) are ignored.
+ * <br/>
+ * Classpath roots compiled without the processor have no index file. Their classes are only found if scanning them
+ * is enabled by the system property {@value #SCAN_UNINDEXED_PROPERTY}, see {@link #getUnindexedRoots(Collection)}.
+ * <br/>
+ * When several JARs are merged into a single shaded or fat JAR, their index files have the same name and overwrite
+ * each other. They must be concatenated instead, e.g. by the <code>AppendingTransformer</code> of the Maven Shade
+ * Plugin with the resource {@value #INDEX_RESOURCE}. The lines of the files can be appended in any order.
+ */
+public class StaticClassIndex implements ClassIndex {
+
+    /**
+     * The location of the index files in the classpath.
+     */
+    public static final String INDEX_RESOURCE = "META-INF/anno4j/class.index";
+
+    /**
+     * System property enabling the scan of the classpath roots without an index file, if an index file is present.
+     * Disabled by default, so that only indexed classes and the explicitly configured roots are considered.
+     */
+    public static final String SCAN_UNINDEXED_PROPERTY = "anno4j.scanUnindexedRoots";
+
+    private static final Map<String, Class<?>> PRIMITIVES = new HashMap<>();
+
+    static {
+        for (Class<?> primitive : new Class<?>[]{boolean.class, byte.class, char.class, short.class,
+                int.class, long.class, float.class, double.class, void.class}) {
+            PRIMITIVES.put(primitive.getName(), primitive);
+        }
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(StaticClassIndex.class);
+
+    private final ClassLoader cl;
+
+    /**
+     * The raw index entries by the name of their annotation.
+     */
+    private final Map<String, Set<String>> entries;
+
+    /**
+     * The normalized URLs of the classpath roots containing an index file.
+     */
+    private final Set<String> indexedRoots;
+
+    private StaticClassIndex(ClassLoader cl, Map<String, Set<String>> entries, Set<String> indexedRoots) {
+        this.cl = cl;
+        this.entries = entries;
+        this.indexedRoots = indexedRoots;
+    }
+
+    /**
+     * Reads all index files that are visible to the given class loader.
+     * @param cl The class loader to read the index files from and to load the indexed classes with.
+     * @return Returns the merged index of all index files or null if there is no index file in the classpath.
+     * @throws IOException Thrown if an index file can't be read.
+     */
+    public static StaticClassIndex load(ClassLoader cl) throws IOException {
+        Enumeration<URL> resources = cl.getResources(INDEX_RESOURCE);
+        if (!resources.hasMoreElements()) {
+            return null;
+        }
+
+        Map<String, Set<String>> entries = new HashMap<>();
+        Set<String> indexedRoots = new HashSet<>();
+        while (resources.hasMoreElements()) {
+            URL url = resources.nextElement();
+            read(url, entries);
+            indexedRoots.add(getRoot(url));
+        }
+        return new StaticClassIndex(cl, entries, indexedRoots);
+    }
+
+    /**
+     * Returns the classpath roots that have no index file, i.e. JARs and class directories that were compiled
+     * without the {@link ClassIndexProcessor} and must be scanned.
+     * @param classpath The roots of the classpath, e.g. as returned by
+     *                  {@link org.reflections.util.ClasspathHelper#forClassLoader(ClassLoader...)}.
+     * @return Returns the roots of the given classpath without an index file.
+     */
+    public Set<URL> getUnindexedRoots(Collection<URL> classpath) {
+        Set<URL> unindexed = new HashSet<>();
+        for (URL root : classpath) {
+            if (!indexedRoots.contains(normalize(root.toExternalForm()))) {
+                unindexed.add(root);
+            }
+        }
+        return unindexed;
+    }
+
+    /**
+     * Returns the normalized URL of the classpath root the index file was read from, e.g. <code>file:/lib/a.jar</code>
+     * for <code>jar:file:/lib/a.jar!/META-INF/anno4j/class.index</code>.
+     */
+    private static String getRoot(URL index) {
+        String url = index.toExternalForm();
+        return normalize(url.substring(0, url.length() - INDEX_RESOURCE.length()));
+    }
+
+    private static String normalize(String url) {
+        if (url.startsWith("jar:") && url.endsWith("!/")) {
+            url = url.substring("jar:".length(), url.length() - "!/".length());
+        }
+        while (url.endsWith("/")) {
+            url = url.substring(0, url.length() - 1);
+        }
+        return url;
+    }
+
+    private static void read(URL url, Map<String, Set<String>> entries) throws IOException {
+        InputStream in = url.openStream();
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, "UTF-8"));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                int separator = line.indexOf(' ');
+                if (line.isEmpty() || line.startsWith("#") || separator < 0) {
+                    continue;
+                }
+                String annotation = line.substring(0, separator);
+                if (!entries.containsKey(annotation)) {
+                    entries.put(annotation, new HashSet<String>());
+                }
+                entries.get(annotation).add(line.substring(separator + 1).trim());
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    @Override
+    public Set<Class<?>> getTypesAnnotatedWith(Class<? extends Annotation> annotation) {
+        Set<Class<?>> types = new HashSet<>();
+        for (String entry : getEntries(annotation)) {
+            if (entry.indexOf('#') < 0) {
+                Class<?> type = forName(entry);
+                if (type != null && type.isAnnotationPresent(annotation)) {
+                    types.add(type);
+                }
+            }
+        }
+        return types;
+    }
+
+    @Override
+    public Set<Method> getMethodsAnnotatedWith(Class<? extends Annotation> annotation) {
+        Set<Method> methods = new HashSet<>();
+        for (String entry : getEntries(annotation)) {
+            int hash = entry.indexOf('#');
+            int parenthesis = entry.indexOf('(');
+            if (hash > 0 && parenthesis > hash && entry.endsWith(")")) {
+                Class<?> owner = forName(entry.substring(0, hash));
+                Class<?>[] parameterTypes = parameterTypes(entry.substring(parenthesis + 1, entry.length() - 1));
+                if (owner != null && parameterTypes != null) {
+                    try {
+                        Method method = owner.getDeclaredMethod(entry.substring(hash + 1, parenthesis), parameterTypes);
+                        if (method.isAnnotationPresent(annotation)) {
+                            methods.add(method);
+                        }
+                    } catch (NoSuchMethodException | NoClassDefFoundError e) {
+                        logger.debug("Ignoring stale index entry {}", entry);
+                    }
+                }
+            }
+        }
+        return methods;
+    }
+
+    @Override
+    public Set<Field> getFieldsAnnotatedWith(Class<? extends Annotation> annotation) {
+        Set<Field> fields = new HashSet<>();
+        for (String entry : getEntries(annotation)) {
+            int hash = entry.indexOf('#');
+            if (hash > 0 && entry.indexOf('(') < 0) {
+                Class<?> owner = forName(entry.substring(0, hash));
+                if (owner != null) {
+                    try {
+                        Field field = owner.getDeclaredField(entry.substring(hash + 1));
+                        if (field.isAnnotationPresent(annotation)) {
+                            fields.add(field);
+                        }
+                    } catch (NoSuchFieldException | NoClassDefFoundError e) {
+                        logger.debug("Ignoring stale index entry {}", entry);
+                    }
+                }
+            }
+        }
+        return fields;
+    }
+
+    @Override
+    public Set<String> getClassNames() {
+        Set<String> names = new HashSet<>();
+        for (Set<String> annotated : entries.values()) {
+            for (String entry : annotated) {
+                int hash = entry.indexOf('#');
+                names.add(hash < 0 ? entry : entry.substring(0, hash));
+            }
+        }
+        return names;
+    }
+
+    private Set<String> getEntries(Class<? extends Annotation> annotation) {
+        Set<String> annotated = entries.get(annotation.getName());
+        if (annotated != null) {
+            return annotated;
+        } else {
+            return Collections.emptySet();
+        }
+    }
+
+    private Class<?>[] parameterTypes(String parameters) {
+        if (parameters.isEmpty()) {
+            return new Class<?>[0];
+        }
+        String[] names = parameters.split(",");
+        Class<?>[] types = new Class<?>[names.length];
+        for (int i = 0; i < names.length; i++) {
+            types[i] = forName(names[i].trim());
+            if (types[i] == null) {
+                return null;
+            }
+        }
+        return types;
+    }
+
+    /**
+     * Loads the class with the given binary name without initializing it.
+     * Array types are given by their component type followed by <code>[]</code>.
+     * @param name The name of the class.
+     * @return Returns the class or null if it can't be loaded.
+     */
+    private Class<?> forName(String name) {
+        if (name.endsWith("[]")) {
+            Class<?> component = forName(name.substring(0, name.length() - 2));
+            return (component != null) ? Array.newInstance(component, 0).getClass() : null;
+        }
+        if (PRIMITIVES.containsKey(name)) {
+            return PRIMITIVES.get(name);
+        }
+        try {
+            return Class.forName(name, false, cl);
+        } catch (ClassNotFoundException | NoClassDefFoundError e) {
+            logger.debug("Ignoring stale index entry {}", name);
+            return null;
+        }
+    }
+}
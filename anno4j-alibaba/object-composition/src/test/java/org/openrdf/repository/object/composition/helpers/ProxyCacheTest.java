@@ -0,0 +1,58 @@
+package org.openrdf.repository.object.composition.helpers;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+import junit.framework.TestCase;
+
+import org.openrdf.repository.object.LangString;
+import org.openrdf.repository.object.concepts.Message;
+import org.openrdf.repository.object.managers.helpers.DirUtil;
+
+public class ProxyCacheTest extends TestCase {
+	private File cache;
+
+	public void setUp() throws Exception {
+		cache = DirUtil.createTempDir("proxy-cache");
+	}
+
+	public void tearDown() throws Exception {
+		DirUtil.delete(cache);
+	}
+
+	public void testFingerprintIsOrderIndependent() throws Exception {
+		Collection<Class<?>> roles = Arrays.<Class<?>> asList(Message.class, LangString.class);
+		Collection<Class<?>> reversed = Arrays.<Class<?>> asList(LangString.class, Message.class);
+		assertEquals(ProxyCache.fingerprint(roles), ProxyCache.fingerprint(reversed));
+	}
+
+	public void testFingerprintDependsOnRoles() throws Exception {
+		Collection<Class<?>> roles = Collections.<Class<?>> singleton(Message.class);
+		Collection<Class<?>> others = Collections.<Class<?>> singleton(LangString.class);
+		assertFalse(ProxyCache.fingerprint(roles).equals(ProxyCache.fingerprint(others)));
+	}
+
+	public void testSameDirectoryForSameRoles() throws Exception {
+		Collection<Class<?>> roles = Collections.<Class<?>> singleton(Message.class);
+		File dir = ProxyCache.getDirectory(cache, roles);
+		assertTrue(dir.isDirectory());
+		assertEquals(dir, ProxyCache.getDirectory(cache, roles));
+	}
+
+	public void testStaleDirectoryIsRemoved() throws Exception {
+		File stale = ProxyCache.getDirectory(cache, Collections.<Class<?>> singleton(Message.class));
+		stale.setLastModified(System.currentTimeMillis() - ProxyCache.GRACE_PERIOD - 60000);
+		File current = ProxyCache.getDirectory(cache, Collections.<Class<?>> singleton(LangString.class));
+		assertFalse(stale.exists());
+		assertTrue(current.isDirectory());
+	}
+
+	public void testRecentlyUsedDirectoryIsKept() throws Exception {
+		File other = ProxyCache.getDirectory(cache, Collections.<Class<?>> singleton(Message.class));
+		File current = ProxyCache.getDirectory(cache, Collections.<Class<?>> singleton(LangString.class));
+		assertTrue(other.isDirectory());
+		assertTrue(current.isDirectory());
+	}
+}
@@ -0,0 +1,102 @@
+package org.openrdf.repository.object.managers.helpers;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import junit.framework.TestCase;
+
+import org.openrdf.annotations.Iri;
+
+public class StaticClassIndexTest extends TestCase {
+
+	@Iri("urn:test:Unindexed")
+	public interface Unindexed {
+	}
+
+	private File dir;
+
+	public void setUp() throws Exception {
+		dir = DirUtil.createTempDir("class-index");
+	}
+
+	public void tearDown() throws Exception {
+		DirUtil.delete(dir);
+	}
+
+	public void testRootWithoutIndexIsScanned() throws Exception {
+		File indexed = new File(dir, "indexed");
+		write(new File(indexed, StaticClassIndex.INDEX_RESOURCE), "# no entries\n");
+		File plain = new File(dir, "plain");
+		String name = Unindexed.class.getName().replace('.', '/') + ".class";
+		copy(Unindexed.class.getClassLoader().getResource(name), new File(plain, name));
+
+		URL indexedUrl = indexed.toURI().toURL();
+		URL plainUrl = plain.toURI().toURL();
+		ClassLoader cl = new URLClassLoader(new URL[]{indexedUrl, plainUrl}, getClass().getClassLoader());
+		StaticClassIndex index = StaticClassIndex.load(cl);
+		assertNotNull(index);
+		assertFalse(index.getTypesAnnotatedWith(Iri.class).contains(Unindexed.class));
+
+		Set<URL> unindexed = index.getUnindexedRoots(Arrays.asList(indexedUrl, plainUrl));
+		assertEquals(Collections.singleton(plainUrl), unindexed);
+
+		ClassIndex combined = new CompositeClassIndex(index, ReflectionsClassIndex.scan(unindexed));
+		assertTrue(combined.getTypesAnnotatedWith(Iri.class).contains(Unindexed.class));
+	}
+
+	public void testIndexedJarIsNotScanned() throws Exception {
+		File jar = new File(dir, "indexed.jar");
+		JarOutputStream out = new JarOutputStream(new FileOutputStream(jar));
+		try {
+			out.putNextEntry(new JarEntry(StaticClassIndex.INDEX_RESOURCE));
+			out.write("# no entries\n".getBytes("UTF-8"));
+			out.closeEntry();
+		} finally {
+			out.close();
+		}
+
+		URL jarUrl = jar.toURI().toURL();
+		ClassLoader cl = new URLClassLoader(new URL[]{jarUrl}, getClass().getClassLoader());
+		StaticClassIndex index = StaticClassIndex.load(cl);
+		assertNotNull(index);
+		assertTrue(index.getUnindexedRoots(Collections.singleton(jarUrl)).isEmpty());
+	}
+
+	private void write(File file, String content) throws Exception {
+		file.getParentFile().mkdirs();
+		OutputStream out = new FileOutputStream(file);
+		try {
+			out.write(content.getBytes("UTF-8"));
+		} finally {
+			out.close();
+		}
+	}
+
+	private void copy(URL source, File target) throws Exception {
+		target.getParentFile().mkdirs();
+		InputStream in = source.openStream();
+		try {
+			OutputStream out = new FileOutputStream(target);
+			try {
+				byte[] buffer = new byte[4096];
+				int read;
+				while ((read = in.read(buffer)) > 0) {
+					out.write(buffer, 0, read);
+				}
+			} finally {
+				out.close();
+			}
+		} finally {
+			in.close();
+		}
+	}
+}
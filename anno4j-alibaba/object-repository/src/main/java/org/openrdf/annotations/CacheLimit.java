@@ -0,0 +1,17 @@
+package org.openrdf.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * The number of values of a property that an object keeps once they were
+ * read, 10 if not annotated. The values of larger properties are kept as RDF
+ * terms instead and converted into objects a page at a time when iterated.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target( { ElementType.METHOD, ElementType.FIELD })
+public @interface CacheLimit {
+	int value();
+}
@@ -0,0 +1,160 @@
+package org.openrdf.repository.object;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openrdf.model.URI;
+import org.openrdf.model.impl.URIImpl;
+import org.openrdf.model.vocabulary.RDF;
+
+/**
+ * The property paths to load together with objects, similar to an entity graph
+ * in JPA. Each path is a sequence of predicates starting at the loaded objects,
+ * e.g. <code>oa:hasTarget / oa:hasSelector</code>. All paths are loaded by a
+ * single query per chunk of objects and the results are used to populate the
+ * properties of the objects and of the objects they refer to, so walking the
+ * paths afterwards does not access the store.
+ * <p>
+ * Only properties whose name is mapped to the same predicate by every concept
+ * of an object are populated, other properties are read on demand.
+ *
+ * @see ObjectConnection#fetch(FetchPlan, java.util.Collection)
+ */
+public class FetchPlan {
+	/** variable the loaded objects are bound to */
+	static final String VAR_PREFIX = "root";
+
+	private final Node root = new Node();
+
+	/**
+	 * Adds a path to load.
+	 *
+	 * @param predicates
+	 *            the IRIs of the predicates to follow, starting at the loaded
+	 *            objects
+	 * @return this plan
+	 */
+	public FetchPlan path(String... predicates) {
+		URI[] uris = new URI[predicates.length];
+		for (int i = 0; i < predicates.length; i++) {
+			uris[i] = new URIImpl(predicates[i]);
+		}
+		return path(uris);
+	}
+
+	/**
+	 * Adds a path to load.
+	 *
+	 * @param predicates
+	 *            the predicates to follow, starting at the loaded objects
+	 * @return this plan
+	 */
+	public FetchPlan path(URI... predicates) {
+		if (predicates.length == 0)
+			throw new IllegalArgumentException("A path needs a predicate");
+		Node node = root;
+		for (URI predicate : predicates) {
+			node = node.add(predicate);
+		}
+		return this;
+	}
+
+	/**
+	 * True if no path was added.
+	 */
+	public boolean isEmpty() {
+		return root.isLeaf();
+	}
+
+	Node getRoot() {
+		return root;
+	}
+
+	/**
+	 * Creates the query loading the paths of <code>size</code> objects bound
+	 * to <code>$root0</code> to <code>$root{size-1}</code>. Each result
+	 * describes an edge of the plan by <code>?node ?pred ?value</code> and the
+	 * types of the value in <code>?value_class</code>.
+	 */
+	String createQuery(int size) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("SELECT REDUCED ?node ?pred ?value ?value_class\nWHERE {\n{");
+		for (int i = 0; i < size; i++) {
+			if (i > 0) {
+				sb.append(" UNION");
+			}
+			sb.append(" { BIND ($").append(VAR_PREFIX).append(i);
+			sb.append(" AS ?").append(VAR_PREFIX).append(") }");
+		}
+		sb.append(" }\n{");
+		List<URI> path = new ArrayList<URI>();
+		appendEdges(sb, root, path, new int[1]);
+		sb.append("\n}\nOPTIONAL { ?value <").append(RDF.TYPE);
+		sb.append("> ?value_class }\n}");
+		return sb.toString();
+	}
+
+	private void appendEdges(StringBuilder sb, Node node, List<URI> path,
+			int[] count) {
+		for (Map.Entry<URI, Node> edge : node.getChildren().entrySet()) {
+			path.add(edge.getKey());
+			if (count[0]++ > 0) {
+				sb.append("\nUNION");
+			}
+			appendEdge(sb, path, count[0]);
+			appendEdges(sb, edge.getValue(), path, count);
+			path.remove(path.size() - 1);
+		}
+	}
+
+	private void appendEdge(StringBuilder sb, List<URI> path, int branch) {
+		String subj = "?" + VAR_PREFIX;
+		sb.append("\n{ ");
+		for (int i = 0; i < path.size() - 1; i++) {
+			String obj = "?e" + branch + "_" + i;
+			sb.append(subj).append(" <").append(path.get(i)).append("> ");
+			sb.append(obj).append(" . ");
+			subj = obj;
+		}
+		URI pred = path.get(path.size() - 1);
+		sb.append(subj).append(" <").append(pred).append("> ?value .");
+		sb.append(" BIND (").append(subj).append(" AS ?node)");
+		sb.append(" BIND (<").append(pred).append("> AS ?pred) }");
+	}
+
+	@Override
+	public String toString() {
+		return root.toString();
+	}
+
+	/**
+	 * A position in the plan reached by a sequence of predicates.
+	 */
+	static class Node {
+		private final Map<URI, Node> children = new LinkedHashMap<URI, Node>();
+
+		Node add(URI predicate) {
+			Node child = children.get(predicate);
+			if (child == null) {
+				children.put(predicate, child = new Node());
+			}
+			return child;
+		}
+
+		Map<URI, Node> getChildren() {
+			return Collections.unmodifiableMap(children);
+		}
+
+		boolean isLeaf() {
+			return children.isEmpty();
+		}
+
+		@Override
+		public String toString() {
+			return children.toString();
+		}
+	}
+}
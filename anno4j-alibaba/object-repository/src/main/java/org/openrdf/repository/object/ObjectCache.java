@@ -0,0 +1,282 @@
+package org.openrdf.repository.object;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.openrdf.model.Resource;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.query.BindingSet;
+import org.openrdf.query.impl.MapBindingSet;
+
+/**
+ * Repository-wide, size-bounded cache of the rdf:types and functional property
+ * values of resources, shared by all {@link ObjectConnection}s of an
+ * {@link ObjectRepository}. The least recently used resources are evicted
+ * first. The entries are kept per set of read contexts, since connections may
+ * read different graphs.
+ * <p>
+ * Connections invalidate exactly the subjects they modified once their changes
+ * are committed. Every invalidation advances the version of the cache; values
+ * that were read before the latest invalidation are not cached, so that a
+ * concurrent commit can't be overwritten by stale values.
+ */
+public class ObjectCache {
+
+	private final int maxSize;
+	private final LinkedHashMap<Resource, Map<List<URI>, Entry>> entries;
+	private long version;
+	private long hits;
+	private long misses;
+	private long evictions;
+	private long invalidations;
+
+	/**
+	 * @param maxSize
+	 *            the maximum number of resources to keep
+	 */
+	public ObjectCache(final int maxSize) {
+		if (maxSize < 1)
+			throw new IllegalArgumentException("Cache size must be positive");
+		this.maxSize = maxSize;
+		this.entries = new LinkedHashMap<Resource, Map<List<URI>, Entry>>(
+				Math.min(maxSize, 1024), 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(
+					Map.Entry<Resource, Map<List<URI>, Entry>> eldest) {
+				if (size() > maxSize) {
+					evictions++;
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * The current version of the cache. It must be read before the values to
+	 * cache are read from the store and passed to
+	 * {@link #put(Resource, URI[], Set, String, List, long)}.
+	 */
+	public synchronized long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Returns the cached types and properties of the given resource.
+	 *
+	 * @param resource
+	 *            the subject
+	 * @param contexts
+	 *            the read contexts of the connection
+	 * @return the cached entry or null if the types of the resource are not
+	 *         cached
+	 */
+	public synchronized Entry get(Resource resource, URI[] contexts) {
+		Map<List<URI>, Entry> map = entries.get(resource);
+		Entry entry = map == null ? null : map.get(Arrays.asList(contexts));
+		if (entry == null || entry.types == null) {
+			misses++;
+			return null;
+		}
+		hits++;
+		return entry;
+	}
+
+	/**
+	 * Caches the types and properties of a resource. Only the bindings of the
+	 * functional properties of the resource itself are kept, since bindings
+	 * of nested objects can't be invalidated by their subject.
+	 *
+	 * @param resource
+	 *            the subject
+	 * @param contexts
+	 *            the read contexts of the connection
+	 * @param types
+	 *            the rdf:types of the resource or null if unknown
+	 * @param binding
+	 *            the variable the resource is bound to in the properties
+	 * @param properties
+	 *            the rows loading the properties of the resource or null
+	 * @param version
+	 *            the version of the cache read before the values were read
+	 */
+	public synchronized void put(Resource resource, URI[] contexts,
+			Set<URI> types, String binding, List<BindingSet> properties,
+			long version) {
+		if (version != this.version)
+			return;
+		List<URI> key = Arrays.asList(contexts.clone());
+		Map<List<URI>, Entry> map = entries.get(resource);
+		if (map == null) {
+			entries.put(resource, map = new HashMap<List<URI>, Entry>(2));
+		}
+		Entry entry = map.get(key);
+		if (entry == null) {
+			entry = new Entry(null, null, null);
+		}
+		if (types != null) {
+			types = Collections.unmodifiableSet(new HashSet<URI>(types));
+			entry = new Entry(types, entry.binding, entry.properties);
+		}
+		if (properties != null && !properties.isEmpty()) {
+			entry = new Entry(entry.types, binding, project(binding, properties));
+		}
+		map.put(key, entry);
+	}
+
+	/**
+	 * Removes the given subjects from the cache.
+	 */
+	public synchronized void invalidate(Collection<? extends Resource> subjects) {
+		version++;
+		for (Resource subject : subjects) {
+			if (entries.remove(subject) != null) {
+				invalidations++;
+			}
+		}
+	}
+
+	/**
+	 * Removes all resources from the cache. The statistics are kept.
+	 */
+	public synchronized void clear() {
+		version++;
+		invalidations += entries.size();
+		entries.clear();
+	}
+
+	/**
+	 * The maximum number of resources kept.
+	 */
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * The number of cached resources.
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * The number of lookups answered from the cache.
+	 */
+	public synchronized long getHitCount() {
+		return hits;
+	}
+
+	/**
+	 * The number of lookups that had to read the store.
+	 */
+	public synchronized long getMissCount() {
+		return misses;
+	}
+
+	/**
+	 * The fraction of lookups answered from the cache, 0 if there was no
+	 * lookup yet.
+	 */
+	public synchronized double getHitRatio() {
+		long lookups = hits + misses;
+		return lookups == 0 ? 0 : (double) hits / lookups;
+	}
+
+	/**
+	 * The number of resources removed because the cache was full.
+	 */
+	public synchronized long getEvictionCount() {
+		return evictions;
+	}
+
+	/**
+	 * The number of resources removed because they were modified.
+	 */
+	public synchronized long getInvalidationCount() {
+		return invalidations;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "ObjectCache{size=" + entries.size() + ", maxSize=" + maxSize
+				+ ", hits=" + hits + ", misses=" + misses + ", hitRatio="
+				+ getHitRatio() + ", evictions=" + evictions
+				+ ", invalidations=" + invalidations + "}";
+	}
+
+	private List<BindingSet> project(String binding, List<BindingSet> properties) {
+		String prefix = binding + "_";
+		Set<BindingSet> result = new LinkedHashSet<BindingSet>(properties.size());
+		for (BindingSet row : properties) {
+			MapBindingSet projected = new MapBindingSet();
+			for (String name : row.getBindingNames()) {
+				if (isSubjectProperty(name, prefix)) {
+					Value value = row.getValue(name);
+					if (value != null) {
+						projected.addBinding(name, value);
+					}
+				}
+			}
+			result.add(projected);
+		}
+		return Collections.unmodifiableList(new ArrayList<BindingSet>(result));
+	}
+
+	private boolean isSubjectProperty(String name, String prefix) {
+		if (!name.startsWith(prefix))
+			return false;
+		String property = name.substring(prefix.length());
+		// subj_class and subj_prop_class or subj_prop_eager belong to other
+		// subjects than the cached one
+		return property.length() > 0 && property.indexOf('_') < 0
+				&& !property.equals("class");
+	}
+
+	/**
+	 * The cached state of a resource.
+	 */
+	public static class Entry {
+		private final Set<URI> types;
+		private final String binding;
+		private final List<BindingSet> properties;
+
+		Entry(Set<URI> types, String binding, List<BindingSet> properties) {
+			this.types = types;
+			this.binding = binding;
+			this.properties = properties;
+		}
+
+		/**
+		 * The rdf:types of the resource.
+		 */
+		public Set<URI> getTypes() {
+			return types;
+		}
+
+		/**
+		 * The variable the resource is bound to in the properties.
+		 */
+		public String getBinding() {
+			return binding;
+		}
+
+		/**
+		 * The bindings of the functional properties or null if not cached.
+		 */
+		public List<BindingSet> getProperties() {
+			return properties;
+		}
+	}
+}
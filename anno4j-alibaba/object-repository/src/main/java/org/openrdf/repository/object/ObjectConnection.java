@@ -29,15 +29,28 @@
 package org.openrdf.repository.object;
 
 import info.aduna.iteration.CloseableIteration;
+import info.aduna.iteration.CloseableIteratorIteration;
+import info.aduna.iteration.Iteration;
 import info.aduna.iteration.LookAheadIteration;
+import org.openrdf.IsolationLevel;
+import org.openrdf.IsolationLevels;
 import org.openrdf.idGenerator.IDGenerator;
 import org.openrdf.model.*;
+import org.openrdf.model.impl.StatementImpl;
+import org.openrdf.query.BindingSet;
+import org.openrdf.query.Dataset;
 import org.openrdf.query.MalformedQueryException;
 import org.openrdf.query.QueryEvaluationException;
 import org.openrdf.query.QueryLanguage;
 import org.openrdf.query.TupleQuery;
+import org.openrdf.query.TupleQueryResult;
+import org.openrdf.query.Update;
+import org.openrdf.query.UpdateExecutionException;
+import org.openrdf.query.impl.ListBindingSet;
 import org.openrdf.repository.RepositoryConnection;
 import org.openrdf.repository.RepositoryException;
+import org.openrdf.repository.RepositoryReadOnlyException;
+import org.openrdf.repository.RepositoryResult;
 import org.openrdf.repository.contextaware.ContextAwareConnection;
 import org.openrdf.repository.object.exceptions.BlobConflictException;
 import org.openrdf.repository.object.exceptions.BlobStoreException;
@@ -45,17 +58,24 @@ import org.openrdf.repository.object.exceptions.ObjectPersistException;
 import org.openrdf.repository.object.managers.helpers.WeakValueMap;
 import org.openrdf.repository.object.result.ObjectIterator;
 import org.openrdf.repository.object.traits.Mergeable;
+import org.openrdf.repository.object.traits.PropertyConsumer;
 import org.openrdf.repository.object.traits.RDFObjectBehaviour;
 import org.openrdf.repository.object.traits.Refreshable;
 import org.openrdf.result.Result;
 import org.openrdf.result.impl.ResultImpl;
+import org.openrdf.rio.RDFFormat;
+import org.openrdf.rio.RDFParseException;
 import org.openrdf.store.blob.BlobObject;
 import org.openrdf.store.blob.BlobStore;
 import org.openrdf.store.blob.BlobVersion;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.net.URL;
 import java.util.*;
 
 import static org.openrdf.query.QueryLanguage.SPARQL;
@@ -76,6 +96,18 @@ public class ObjectConnection extends ContextAwareConnection {
 		ObjectIterator.close(iter);
 	}
 
+	/**
+	 * The number of resources loaded per query by
+	 * {@link #findObjects(Class, Collection)}, smallest first.
+	 */
+	private static final int[] CHUNK_SIZES = { 1, 8, 64 };
+
+	/**
+	 * The number of query strings whose prepared queries are kept by
+	 * {@link #getPreparedTupleQuery(String)}.
+	 */
+	private static final int PREPARED_QUERIES = 64;
+
 	final Logger logger = LoggerFactory.getLogger(ObjectConnection.class);
 	private final ObjectRepository repository;
 	private String language;
@@ -84,10 +116,35 @@ public class ObjectConnection extends ContextAwareConnection {
 	private final Map<Object, Resource> assigned = new IdentityHashMap<Object, Resource>();
 	private final Set<Resource> merged = new HashSet<Resource>();
 	private final Map<Class<?>, Map<Integer, ObjectQuery>> queries = new HashMap<Class<?>, Map<Integer, ObjectQuery>>();
+	private final Map<Class<?>, Map<Integer, ObjectQuery>> chunkQueries = new HashMap<Class<?>, Map<Integer, ObjectQuery>>();
+	private final Map<String, TupleQuery> fetchQueries = new HashMap<String, TupleQuery>();
+	/** the queries prepared by {@link #getPreparedTupleQuery(String)}, least recently used first */
+	private final Map<String, TupleQuery> preparedQueries = new LinkedHashMap<String, TupleQuery>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, TupleQuery> eldest) {
+			return size() > PREPARED_QUERIES;
+		}
+	};
+	private TupleQuery countQuery;
 	private final BlobStore blobs;
 	private URI versionBundle;
 	private BlobVersion blobVersion;
 	private final Map<Resource, RDFObject> cachedObjects = new WeakValueMap<Resource, RDFObject>(512);
+	/** the second-level cache of the repository or null */
+	private final ObjectCache objectCache;
+	/** subjects modified since the last commit */
+	private final Set<Resource> touched = new HashSet<Resource>();
+	/** true if unknown subjects were modified since the last commit */
+	private boolean touchedAll;
+	/** changes of the current transaction not yet written in write-behind mode */
+	private final WriteBuffer buffer = new WriteBuffer();
+	private volatile boolean writeBehind;
+	/** the objects bound to this connection while tracking is enabled or null */
+	private volatile ObjectTracker tracker;
+	/** the isolation level of the snapshot of a read-only connection or null */
+	private volatile IsolationLevel snapshot;
 
 	protected ObjectConnection(ObjectRepository repository,
 			RepositoryConnection connection, ObjectFactory factory,
@@ -97,6 +154,7 @@ public class ObjectConnection extends ContextAwareConnection {
 		this.of = factory;
 		this.types = types;
 		this.blobs = blobs;
+		this.objectCache = repository.getObjectCache();
 		types.setConnection(this);
 		factory.setObjectConnection(this);
 	}
@@ -110,6 +168,7 @@ public class ObjectConnection extends ContextAwareConnection {
         this.of.setIdGenerator(idGenerator);
         this.types = types;
         this.blobs = blobs;
+        this.objectCache = repository.getObjectCache();
         types.setConnection(this);
         factory.setObjectConnection(this);
     }
@@ -149,17 +208,61 @@ public class ObjectConnection extends ContextAwareConnection {
 		return uri.stringValue();
 	}
 
+	/**
+	 * True if this connection rejects all modifications and reads from a
+	 * snapshot of the store.
+	 *
+	 * @see ObjectRepository#getReadOnlyConnection()
+	 */
+	public boolean isReadOnly() {
+		return snapshot != null;
+	}
+
+	/**
+	 * Makes this connection read-only. All reads are evaluated against a
+	 * single snapshot of the store, which is taken now and renewed on
+	 * {@link #begin()}, {@link #commit()} and {@link #rollback()}. Since
+	 * nothing is written, no objects are merged or assigned and the
+	 * second-level cache is bypassed, as it may be newer than the snapshot.
+	 *
+	 * @param level
+	 *            the isolation level of the snapshot
+	 */
+	void setReadOnly(IsolationLevel level) throws RepositoryException {
+		snapshot = level;
+		super.begin(level);
+	}
+
+	@Override
+	public synchronized void begin() throws RepositoryException {
+		if (isReadOnly()) {
+			renewSnapshot();
+		} else {
+			super.begin();
+		}
+	}
+
 	@Override
 	public void close() throws RepositoryException {
 		try {
+			if (isReadOnly() && isActive()) {
+				super.rollback();
+			}
 			super.close();
 		} finally {
 			cachedObjects.clear();
+			types.clearCache();
+			discardBuffer();
+			discardTouched();
 		}
 	}
 
 	@Override
 	public synchronized void rollback() throws RepositoryException {
+		if (isReadOnly()) {
+			renewSnapshot();
+			return;
+		}
 		if (blobVersion != null) {
 			try {
 				blobVersion.rollback();
@@ -167,12 +270,34 @@ public class ObjectConnection extends ContextAwareConnection {
 				throw new RepositoryException(e.toString(), e);
 			}
 		}
+		discardBuffer();
 		super.rollback();
 		cachedObjects.clear();
+		types.clearCache();
+		discardTouched();
+	}
+
+	@Override
+	public void setReadContexts(URI... readContexts) {
+		boolean changed = !Arrays.equals(getReadContexts(), readContexts);
+		super.setReadContexts(readContexts);
+		types.clearCache();
+		if (changed) {
+			// the dataset of prepared queries is set when they are prepared
+			synchronized (this) {
+				countQuery = null;
+				preparedQueries.clear();
+			}
+		}
 	}
 
 	@Override
 	public synchronized void commit() throws RepositoryException {
+		if (isReadOnly()) {
+			renewSnapshot();
+			return;
+		}
+		flush();
 		try {
 			try {
 				if (blobVersion != null) {
@@ -183,6 +308,7 @@ public class ObjectConnection extends ContextAwareConnection {
 					}
 				}
 				super.commit();
+				invalidateTouched();
 				if (blobVersion != null) {
 					blobVersion.commit();
 					blobVersion = null;
@@ -199,6 +325,12 @@ public class ObjectConnection extends ContextAwareConnection {
 
 	@Override
 	public synchronized void setAutoCommit(boolean auto) throws RepositoryException {
+		if (isReadOnly()) {
+			if (auto) {
+				renewSnapshot();
+			}
+			return;
+		}
 		if (!auto && isAutoCommit()) {
 			try {
 				try {
@@ -224,7 +356,378 @@ public class ObjectConnection extends ContextAwareConnection {
 				throw new BlobStoreException(e);
 			}
 		} else {
+			boolean committing = auto && !isAutoCommit();
+			if (committing) {
+				flush();
+			}
 			super.setAutoCommit(auto);
+			if (committing) {
+				invalidateTouched();
+			}
+		}
+	}
+
+	@Override
+	public void add(Resource subject, URI predicate, Value object,
+			Resource... contexts) throws RepositoryException {
+		checkWritable();
+		touch(subject, predicate);
+		if (isBuffering()) {
+			buffer.add(subject, predicate, object, resolveAddContexts(null, contexts));
+			return;
+		}
+		super.add(subject, predicate, object, contexts);
+		autoInvalidate();
+	}
+
+	@Override
+	public void add(Statement st, Resource... contexts)
+			throws RepositoryException {
+		checkWritable();
+		touch(st.getSubject(), st.getPredicate());
+		if (isBuffering()) {
+			buffer.add(st.getSubject(), st.getPredicate(), st.getObject(),
+					resolveAddContexts(st, contexts));
+			return;
+		}
+		super.add(st, contexts);
+		autoInvalidate();
+	}
+
+	@Override
+	public void add(Iterable<? extends Statement> statements,
+			Resource... contexts) throws RepositoryException {
+		checkWritable();
+		touch(statements);
+		if (isBuffering()) {
+			for (Statement st : statements) {
+				buffer.add(st.getSubject(), st.getPredicate(), st.getObject(),
+						resolveAddContexts(st, contexts));
+			}
+			return;
+		}
+		super.add(statements, contexts);
+		autoInvalidate();
+	}
+
+	@Override
+	public <E extends Exception> void add(
+			Iteration<? extends Statement, E> statements, Resource... contexts)
+			throws RepositoryException, E {
+		checkWritable();
+		touch(null, null);
+		if (isBuffering()) {
+			while (statements.hasNext()) {
+				Statement st = statements.next();
+				buffer.add(st.getSubject(), st.getPredicate(), st.getObject(),
+						resolveAddContexts(st, contexts));
+			}
+			return;
+		}
+		super.add(statements, contexts);
+		autoInvalidate();
+	}
+
+	@Override
+	public void add(InputStream in, String baseURI, RDFFormat dataFormat,
+			Resource... contexts) throws IOException, RDFParseException,
+			RepositoryException {
+		checkWritable();
+		touch(null, null);
+		flush();
+		super.add(in, baseURI, dataFormat, contexts);
+		autoInvalidate();
+	}
+
+	@Override
+	public void add(Reader reader, String baseURI, RDFFormat dataFormat,
+			Resource... contexts) throws IOException, RDFParseException,
+			RepositoryException {
+		checkWritable();
+		touch(null, null);
+		flush();
+		super.add(reader, baseURI, dataFormat, contexts);
+		autoInvalidate();
+	}
+
+	@Override
+	public void add(URL url, String baseURI, RDFFormat dataFormat,
+			Resource... contexts) throws IOException, RDFParseException,
+			RepositoryException {
+		checkWritable();
+		touch(null, null);
+		flush();
+		super.add(url, baseURI, dataFormat, contexts);
+		autoInvalidate();
+	}
+
+	@Override
+	public void add(File file, String baseURI, RDFFormat dataFormat,
+			Resource... contexts) throws IOException, RDFParseException,
+			RepositoryException {
+		checkWritable();
+		touch(null, null);
+		flush();
+		super.add(file, baseURI, dataFormat, contexts);
+		autoInvalidate();
+	}
+
+	@Override
+	public void remove(Resource subject, URI predicate, Value object,
+			Resource... contexts) throws RepositoryException {
+		checkWritable();
+		touch(subject, predicate);
+		if (isBuffering()) {
+			buffer.remove(subject, predicate, object, resolveRemoveContexts(null, contexts));
+			return;
+		}
+		super.remove(subject, predicate, object, contexts);
+		autoInvalidate();
+	}
+
+	@Override
+	public void remove(Statement st, Resource... contexts)
+			throws RepositoryException {
+		checkWritable();
+		touch(st.getSubject(), st.getPredicate());
+		if (isBuffering()) {
+			buffer.remove(st.getSubject(), st.getPredicate(), st.getObject(),
+					resolveRemoveContexts(st, contexts));
+			return;
+		}
+		super.remove(st, contexts);
+		autoInvalidate();
+	}
+
+	@Override
+	public void remove(Iterable<? extends Statement> statements,
+			Resource... contexts) throws RepositoryException {
+		checkWritable();
+		touch(statements);
+		if (isBuffering()) {
+			for (Statement st : statements) {
+				buffer.remove(st.getSubject(), st.getPredicate(),
+						st.getObject(), resolveRemoveContexts(st, contexts));
+			}
+			return;
+		}
+		super.remove(statements, contexts);
+		autoInvalidate();
+	}
+
+	@Override
+	public <E extends Exception> void remove(
+			Iteration<? extends Statement, E> statements, Resource... contexts)
+			throws RepositoryException, E {
+		checkWritable();
+		touch(null, null);
+		if (isBuffering()) {
+			while (statements.hasNext()) {
+				Statement st = statements.next();
+				buffer.remove(st.getSubject(), st.getPredicate(),
+						st.getObject(), resolveRemoveContexts(st, contexts));
+			}
+			return;
+		}
+		super.remove(statements, contexts);
+		autoInvalidate();
+	}
+
+	@Override
+	public void clear(Resource... contexts) throws RepositoryException {
+		checkWritable();
+		touch(null, null);
+		flush();
+		super.clear(contexts);
+		autoInvalidate();
+	}
+
+	@Override
+	public RepositoryResult<Statement> getStatements(Resource subj, URI pred,
+			Value obj, Resource... contexts) throws RepositoryException {
+		return getStatements(subj, pred, obj, isIncludeInferred(), contexts);
+	}
+
+	@Override
+	public RepositoryResult<Statement> getStatements(Resource subj, URI pred,
+			Value obj, boolean includeInferred, Resource... contexts)
+			throws RepositoryException {
+		RepositoryResult<Statement> stored = super.getStatements(subj, pred,
+				obj, includeInferred, contexts);
+		synchronized (buffer) {
+			if (buffer.isEmpty())
+				return stored;
+			Resource[] read = contexts.length > 0 ? contexts : getReadContexts();
+			List<Statement> list = buffer.overlay(stored, subj, pred, obj, read);
+			return new RepositoryResult<Statement>(
+					new CloseableIteratorIteration<Statement, RepositoryException>(
+							list.iterator()));
+		}
+	}
+
+	@Override
+	public boolean hasStatement(Resource subj, URI pred, Value obj,
+			Resource... contexts) throws RepositoryException {
+		return hasStatement(subj, pred, obj, isIncludeInferred(), contexts);
+	}
+
+	@Override
+	public boolean hasStatement(Resource subj, URI pred, Value obj,
+			boolean includeInferred, Resource... contexts)
+			throws RepositoryException {
+		synchronized (buffer) {
+			if (buffer.isEmpty())
+				return super.hasStatement(subj, pred, obj, includeInferred,
+						contexts);
+		}
+		RepositoryResult<Statement> result = getStatements(subj, pred, obj,
+				includeInferred, contexts);
+		try {
+			return result.hasNext();
+		} finally {
+			result.close();
+		}
+	}
+
+	@Override
+	public Update prepareUpdate(QueryLanguage ql, String update, String baseURI)
+			throws MalformedQueryException, RepositoryException {
+		checkWritable();
+		return new InvalidatingUpdate(super.prepareUpdate(ql, update, baseURI));
+	}
+
+	/**
+	 * True if statements added or removed within a transaction are buffered
+	 * until the transaction is committed.
+	 */
+	public boolean isWriteBehind() {
+		return writeBehind;
+	}
+
+	/**
+	 * Buffers the statements added and removed within a transaction in memory
+	 * and writes the net changes in one batch when the transaction is
+	 * committed, or earlier by {@link #flush()}. Statements read by
+	 * {@link #getStatements(Resource, URI, Value, boolean, Resource...)} and
+	 * {@link #hasStatement(Resource, URI, Value, boolean, Resource...)}, and
+	 * objects counted by {@link #countObjects(Resource, URI)}, include the
+	 * buffered changes, so reading properties of objects does not write the
+	 * buffer.
+	 * Only the evaluation of SPARQL, i.e. object queries, fetch plans and
+	 * updates of this connection, flushes the buffer first, because the store
+	 * evaluates them. Other queries only see the buffered changes after a
+	 * flush. Loading RDF documents and clearing contexts also write the buffer
+	 * first. In auto-commit mode, statements are written immediately.
+	 *
+	 * @param writeBehind
+	 *            true to buffer changes, false to write the buffered changes
+	 *            and stop buffering
+	 */
+	public void setWriteBehind(boolean writeBehind) throws RepositoryException {
+		if (!writeBehind) {
+			flush();
+		}
+		this.writeBehind = writeBehind;
+	}
+
+	/**
+	 * Writes the changes buffered in write-behind mode to the store. All
+	 * removes are written first, then the added statements of each context
+	 * with a single add.
+	 */
+	public void flush() throws RepositoryException {
+		synchronized (buffer) {
+			if (buffer.isEmpty())
+				return;
+			removeBuffered(buffer.getRemoved());
+			for (Map.Entry<Resource, List<Statement>> e : buffer.getAdded()
+					.entrySet()) {
+				super.add(e.getValue(), new Resource[] { e.getKey() });
+			}
+			buffer.clear();
+		}
+	}
+
+	/**
+	 * Removes the buffered patterns from the store with as few calls as
+	 * possible. Patterns matching single statements are removed with one
+	 * call per set of contexts. The statements matched by several patterns
+	 * of the same subject are read from the store once and removed along with
+	 * them. Other patterns are removed one by one.
+	 */
+	private void removeBuffered(Collection<WriteBuffer.Pattern> patterns)
+			throws RepositoryException {
+		Map<List<Resource>, List<WriteBuffer.Pattern>> bySubject = new LinkedHashMap<List<Resource>, List<WriteBuffer.Pattern>>();
+		Map<List<Resource>, Set<Statement>> statements = new LinkedHashMap<List<Resource>, Set<Statement>>();
+		for (WriteBuffer.Pattern p : patterns) {
+			if (p.isConcrete()) {
+				addRemoved(statements, p.contexts, new StatementImpl(p.subj, p.pred, p.obj));
+			} else if (p.subj != null) {
+				List<Resource> key = new ArrayList<Resource>(Arrays.asList(p.contexts));
+				key.add(0, p.subj);
+				List<WriteBuffer.Pattern> list = bySubject.get(key);
+				if (list == null) {
+					bySubject.put(key, list = new ArrayList<WriteBuffer.Pattern>());
+				}
+				list.add(p);
+			} else {
+				super.remove(p.subj, p.pred, p.obj, p.contexts);
+			}
+		}
+		for (List<WriteBuffer.Pattern> list : bySubject.values()) {
+			WriteBuffer.Pattern first = list.get(0);
+			if (list.size() == 1) {
+				super.remove(first.subj, first.pred, first.obj, first.contexts);
+				continue;
+			}
+			// the patterns already resolved the remove contexts, so read the
+			// same contexts without applying the read contexts
+			RepositoryResult<Statement> stored = getDelegate().getStatements(
+					first.subj, null, null, false, first.contexts);
+			try {
+				while (stored.hasNext()) {
+					Statement st = stored.next();
+					for (WriteBuffer.Pattern p : list) {
+						if (p.matches(st)) {
+							addRemoved(statements, first.contexts, new StatementImpl(
+									st.getSubject(), st.getPredicate(), st.getObject()));
+							break;
+						}
+					}
+				}
+			} finally {
+				stored.close();
+			}
+		}
+		for (Map.Entry<List<Resource>, Set<Statement>> e : statements.entrySet()) {
+			Resource[] contexts = e.getKey().toArray(new Resource[e.getKey().size()]);
+			super.remove(e.getValue(), contexts);
+		}
+	}
+
+	private void addRemoved(Map<List<Resource>, Set<Statement>> statements,
+			Resource[] contexts, Statement st) {
+		List<Resource> key = Arrays.asList(contexts);
+		Set<Statement> set = statements.get(key);
+		if (set == null) {
+			statements.put(key, set = new LinkedHashSet<Statement>());
+		}
+		set.add(st);
+	}
+
+	/**
+	 * Records a resource that was just generated by the object factory. While
+	 * changes are buffered, its statements are only in the buffer, so removes
+	 * of its statements are not written to the store.
+	 */
+	void created(Resource resource) {
+		try {
+			if (isBuffering()) {
+				buffer.created(resource);
+			}
+		} catch (RepositoryException e) {
+			// the removes of the resource are written like any other
+			logger.debug(e.toString(), e);
 		}
 	}
 
@@ -265,6 +768,7 @@ public class ObjectConnection extends ContextAwareConnection {
 	 *         representation
 	 */
 	public Value addObject(Object instance) throws RepositoryException {
+		checkWritable();
 		if (instance instanceof RDFObjectBehaviour) {
 			RDFObjectBehaviour support = (RDFObjectBehaviour) instance;
 			Object entity = support.getBehaviourDelegate();
@@ -302,6 +806,7 @@ public class ObjectConnection extends ContextAwareConnection {
 	 */
 	public void addObject(Resource resource, Object entity)
 			throws RepositoryException {
+		checkWritable();
 		if (entity instanceof RDFObjectBehaviour) {
 			RDFObjectBehaviour support = (RDFObjectBehaviour) entity;
 			Object delegate = support.getBehaviourDelegate();
@@ -521,7 +1026,145 @@ public class ObjectConnection extends ContextAwareConnection {
 		RDFObject cached = cached(resource);
 		if (cached != null)
 			return cached;
-		return cache(of.createObject(resource, types.getTypes(resource)));
+		ObjectCache.Entry entry = getCachedEntry(resource);
+		if (entry != null)
+			return createObject(resource, entry);
+		long version = getObjectCacheVersion();
+		boolean read = !types.isCached(resource);
+		Set<URI> list = types.getTypes(resource);
+		if (read) {
+			// types cached by this connection may predate the version
+			cacheObject(resource, list, null, null, version);
+		}
+		return cache(of.createObject(resource, list));
+	}
+
+	/**
+	 * Counts the distinct objects of the given subject and predicate by a
+	 * SPARQL COUNT. If changes buffered in write-behind mode affect them, the
+	 * objects are read with the buffered changes applied instead, so the
+	 * buffer is not written.
+	 */
+	public synchronized int countObjects(Resource subject, URI predicate)
+			throws RepositoryException {
+		if (isBuffering() && buffer.affects(subject, predicate)) {
+			Set<Value> objects = new HashSet<Value>();
+			RepositoryResult<Statement> stmts = getStatements(subject, predicate, null);
+			try {
+				while (stmts.hasNext()) {
+					objects.add(stmts.next().getObject());
+				}
+			} finally {
+				stmts.close();
+			}
+			return objects.size();
+		}
+		try {
+			if (countQuery == null) {
+				countQuery = prepareTupleQuery(SPARQL,
+						"SELECT (COUNT(DISTINCT ?obj) AS ?count)\nWHERE { $subj $pred ?obj }");
+			}
+			countQuery.setBinding("subj", subject);
+			countQuery.setBinding("pred", predicate);
+			TupleQueryResult result = countQuery.evaluate();
+			try {
+				if (!result.hasNext())
+					return 0;
+				Value count = result.next().getValue("count");
+				return count == null ? 0 : ((Literal) count).intValue();
+			} finally {
+				result.close();
+			}
+		} catch (MalformedQueryException e) {
+			throw new AssertionError(e);
+		} catch (QueryEvaluationException e) {
+			throw new RepositoryException(e);
+		}
+	}
+
+	/**
+	 * True if the objects created by this connection are tracked, so that
+	 * {@link #hasLiveObjects()} tells whether it is still used by them.
+	 */
+	public boolean isTrackingObjects() {
+		return tracker != null;
+	}
+
+	/**
+	 * Tracks the objects created by this connection and the ones passed to
+	 * {@link #track(Object)} by weak references. Enabling it again forgets the
+	 * objects tracked so far. Used by connection pools to keep a connection
+	 * out of the pool while objects bound to it are reachable.
+	 *
+	 * @param tracking
+	 *            true to track the objects, false to stop tracking
+	 */
+	public void setTrackingObjects(boolean tracking) {
+		tracker = tracking ? new ObjectTracker() : null;
+	}
+
+	/**
+	 * Counts the given object, which uses this connection, as live while it
+	 * is reachable. Does nothing unless tracking is enabled.
+	 */
+	public void track(Object object) {
+		ObjectTracker t = tracker;
+		if (t != null) {
+			t.track(object);
+		}
+	}
+
+	/**
+	 * Stops counting the given object as live, when it will not use this
+	 * connection anymore.
+	 */
+	public void untrack(Object object) {
+		ObjectTracker t = tracker;
+		if (t != null) {
+			t.untrack(object);
+		}
+	}
+
+	/**
+	 * True if tracking is enabled and any tracked object is still reachable.
+	 */
+	public boolean hasLiveObjects() {
+		ObjectTracker t = tracker;
+		return t != null && !t.isEmpty();
+	}
+
+	/**
+	 * Removes the given objects from the objects kept by this connection, so
+	 * that they can be garbage collected as soon as the caller drops them.
+	 * Loading their resources again creates new objects.
+	 */
+	public void release(Collection<?> objects) {
+		for (Object object : objects) {
+			if (object instanceof RDFObject) {
+				Resource resource = ((RDFObject) object).getResource();
+				if (cachedObjects.get(resource) == object) {
+					cachedObjects.remove(resource);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads the rdf:types of the given resources by as few queries as
+	 * possible, so that loading them by {@link #getObject(Value)} afterwards
+	 * does not read their types one by one.
+	 */
+	public void loadTypes(Collection<? extends Resource> resources)
+			throws RepositoryException {
+		List<Resource> list = new ArrayList<Resource>(resources.size());
+		for (Resource resource : resources) {
+			if (cached(resource) == null) {
+				list.add(resource);
+			}
+		}
+		if (!list.isEmpty()) {
+			types.getTypes(list);
+		}
 	}
 
 	/**
@@ -559,6 +1202,9 @@ public class ObjectConnection extends ContextAwareConnection {
 	 * Finds a single object of given concept and uri.
 	 */
 	public synchronized <T> T findObject(Class<T> concept, Resource resource) throws RepositoryException, QueryEvaluationException {
+		T found = findCachedObject(concept, resource);
+		if (found != null)
+			return found;
 		try {
 			ObjectQuery query = getObjectQuery(concept, 0);
 			query.setBinding("subj", resource);
@@ -598,6 +1244,238 @@ public class ObjectConnection extends ContextAwareConnection {
 		return getObjects(concept, resources);
 	}
 
+	/**
+	 * Finds the objects of the given concept for the given resources. The
+	 * resources are loaded in chunks of fixed sizes, so that one prepared query
+	 * per chunk size is reused regardless of the number of resources.
+	 * Resources that are not of the given concept are not contained in the
+	 * result.
+	 * 
+	 * @return the objects found indexed by their resource, in the order of
+	 *         the given resources
+	 */
+	public synchronized <T> Map<Resource, T> findObjects(Class<T> concept,
+			Collection<? extends Resource> resources)
+			throws RepositoryException, QueryEvaluationException {
+		Map<Resource, T> found = new HashMap<Resource, T>(resources.size());
+		List<Resource> list = new ArrayList<Resource>(resources.size());
+		for (Resource resource : new LinkedHashSet<Resource>(resources)) {
+			T cached = findCachedObject(concept, resource);
+			if (cached == null) {
+				list.add(resource);
+			} else {
+				found.put(resource, cached);
+			}
+		}
+		try {
+			for (int start = 0; start < list.size();) {
+				int size = getChunkSize(list.size() - start);
+				ObjectQuery query = getObjectChunkQuery(concept, size);
+				for (int i = 0; i < size; i++) {
+					// unused variables are bound to the last resource again
+					int index = Math.min(start + i, list.size() - 1);
+					query.setBinding(ObjectFactory.VAR_PREFIX + i, list.get(index));
+				}
+				Result<T> result = query.evaluate(concept);
+				try {
+					while (result.hasNext()) {
+						T next = result.next();
+						found.put(((RDFObject) next).getResource(), next);
+					}
+				} finally {
+					result.close();
+				}
+				start += size;
+			}
+		} catch (MalformedQueryException e) {
+			throw new AssertionError(e);
+		}
+
+		Map<Resource, T> ordered = new LinkedHashMap<Resource, T>(found.size());
+		for (Resource resource : resources) {
+			if (found.containsKey(resource)) {
+				ordered.put(resource, found.get(resource));
+			}
+		}
+		return ordered;
+	}
+
+	/**
+	 * Loads the property paths of the given plan for the given objects and
+	 * the objects they refer to. The paths of up to 64 objects are loaded by a
+	 * single query.
+	 * 
+	 * @param plan
+	 *            the property paths to load
+	 * @param objects
+	 *            objects created by this connection
+	 */
+	public synchronized void fetch(FetchPlan plan, Collection<?> objects)
+			throws RepositoryException, QueryEvaluationException {
+		if (plan.isEmpty() || objects.isEmpty())
+			return;
+		flush();
+		Map<Resource, RDFObject> beans = new LinkedHashMap<Resource, RDFObject>();
+		for (Object object : objects) {
+			if (object instanceof RDFObject) {
+				RDFObject bean = (RDFObject) object;
+				beans.put(bean.getResource(), bean);
+			}
+		}
+		List<Resource> list = new ArrayList<Resource>(beans.keySet());
+		Map<Resource, Map<URI, Map<Value, Set<URI>>>> graph;
+		graph = new HashMap<Resource, Map<URI, Map<Value, Set<URI>>>>();
+		try {
+			for (int start = 0; start < list.size();) {
+				int size = getChunkSize(list.size() - start);
+				TupleQuery query = getFetchQuery(plan, size);
+				for (int i = 0; i < size; i++) {
+					// unused variables are bound to the last resource again
+					int index = Math.min(start + i, list.size() - 1);
+					query.setBinding(FetchPlan.VAR_PREFIX + i, list.get(index));
+				}
+				readFetchResult(query.evaluate(), graph);
+				start += size;
+			}
+		} catch (MalformedQueryException e) {
+			throw new AssertionError(e);
+		}
+		for (RDFObject bean : beans.values()) {
+			if (bean instanceof PropertyConsumer) {
+				List<Map<String, Value>> rows = new ArrayList<Map<String, Value>>();
+				addFetchRows(bean.getResource(), bean.getClass(),
+						plan.getRoot(), FetchPlan.VAR_PREFIX, graph, rows);
+				if (!rows.isEmpty()) {
+					((PropertyConsumer) bean).usePropertyBindings(
+							FetchPlan.VAR_PREFIX, toBindingSets(rows));
+				}
+			}
+		}
+	}
+
+	private void readFetchResult(TupleQueryResult result,
+			Map<Resource, Map<URI, Map<Value, Set<URI>>>> graph)
+			throws QueryEvaluationException {
+		try {
+			while (result.hasNext()) {
+				BindingSet row = result.next();
+				Resource node = (Resource) row.getValue("node");
+				URI pred = (URI) row.getValue("pred");
+				Value value = row.getValue("value");
+				Map<URI, Map<Value, Set<URI>>> properties = graph.get(node);
+				if (properties == null) {
+					graph.put(node, properties = new HashMap<URI, Map<Value, Set<URI>>>());
+				}
+				Map<Value, Set<URI>> values = properties.get(pred);
+				if (values == null) {
+					properties.put(pred, values = new LinkedHashMap<Value, Set<URI>>());
+				}
+				Set<URI> types = values.get(value);
+				if (types == null) {
+					values.put(value, types = new LinkedHashSet<URI>());
+				}
+				Value type = row.getValue("value_class");
+				if (type instanceof URI) {
+					types.add((URI) type);
+				}
+			}
+		} finally {
+			result.close();
+		}
+	}
+
+	/**
+	 * Appends the rows populating the properties of the given subject for the
+	 * paths below the given node of a fetch plan to the rows of the subject.
+	 * Every row of the subject names all variables of its properties, so
+	 * properties without values are known to be empty.
+	 */
+	private void addFetchRows(Resource subject, Class<?> proxy,
+			FetchPlan.Node node, String prefix,
+			Map<Resource, Map<URI, Map<Value, Set<URI>>>> graph,
+			List<Map<String, Value>> rows) {
+		Set<String> vars = new LinkedHashSet<String>();
+		Map<URI, Map<Value, Set<URI>>> properties = graph.get(subject);
+		for (Map.Entry<URI, FetchPlan.Node> edge : node.getChildren().entrySet()) {
+			Map<Value, Set<URI>> values = properties == null ? null : properties.get(edge.getKey());
+			for (String name : of.findPropertyNames(proxy, edge.getKey())) {
+				String var = prefix + "_" + name;
+				vars.add(var);
+				if (values == null)
+					continue;
+				for (Map.Entry<Value, Set<URI>> value : values.entrySet()) {
+					List<Map<String, Value>> valueRows = new ArrayList<Map<String, Value>>();
+					for (URI type : value.getValue()) {
+						Map<String, Value> row = new LinkedHashMap<String, Value>();
+						row.put(var + "_class", type);
+						valueRows.add(row);
+					}
+					if (value.getKey() instanceof Resource
+							&& !edge.getValue().isLeaf()) {
+						Resource resource = (Resource) value.getKey();
+						Class<?> type = of.getObjectClass(resource, value.getValue());
+						addFetchRows(resource, type, edge.getValue(), var, graph, valueRows);
+					}
+					if (valueRows.isEmpty()) {
+						valueRows.add(new LinkedHashMap<String, Value>());
+					}
+					for (Map<String, Value> row : valueRows) {
+						row.put(var, value.getKey());
+					}
+					rows.addAll(valueRows);
+				}
+			}
+		}
+		if (vars.isEmpty())
+			return;
+		if (rows.isEmpty()) {
+			rows.add(new LinkedHashMap<String, Value>());
+		}
+		for (Map<String, Value> row : rows) {
+			for (String var : vars) {
+				if (!row.containsKey(var)) {
+					row.put(var, null);
+				}
+			}
+		}
+	}
+
+	private List<BindingSet> toBindingSets(List<Map<String, Value>> rows) {
+		List<BindingSet> result = new ArrayList<BindingSet>(rows.size());
+		for (Map<String, Value> row : rows) {
+			List<String> names = new ArrayList<String>(row.keySet());
+			List<Value> values = new ArrayList<Value>(row.values());
+			result.add(new ListBindingSet(names, values));
+		}
+		return result;
+	}
+
+	/** method and result synchronised on this */
+	private TupleQuery getFetchQuery(FetchPlan plan, int size)
+			throws MalformedQueryException, RepositoryException {
+		String sparql = plan.createQuery(size);
+		TupleQuery query = fetchQueries.get(sparql);
+		if (query == null) {
+			query = prepareTupleQuery(SPARQL, sparql);
+			fetchQueries.put(sparql, query);
+		}
+		return query;
+	}
+
+	/**
+	 * Returns the object of the given concept from the second-level cache, if
+	 * its functional properties are cached.
+	 */
+	private <T> T findCachedObject(Class<T> concept, Resource resource) {
+		ObjectCache.Entry entry = getCachedEntry(resource);
+		if (entry == null || entry.getProperties() == null)
+			return null;
+		RDFObject obj = createObject(resource, entry);
+		if (concept.isInstance(obj))
+			return concept.cast(obj);
+		return null;
+	}
+
 	/**
 	 * Loads the list of resources assumed to implement the given concept. The
 	 * concept must be a named concept and cannot be mapped to rdfs:Resource.
@@ -644,6 +1522,7 @@ public class ObjectConnection extends ContextAwareConnection {
 		if (object instanceof Refreshable) {
 			((Refreshable) object).refresh();
 		}
+		this.types.invalidate(resource, null);
 		Set<URI> types = this.types.getTypes(resource);
 		Class<?> proxy = of.getObjectClass(resource, types);
 		RDFObject cached = cached(resource);
@@ -706,6 +1585,33 @@ public class ObjectConnection extends ContextAwareConnection {
 		return createObjectQuery(prepareTupleQuery(query));
 	}
 
+	/**
+	 * Returns the SPARQL query prepared by this connection for the same query
+	 * string before, so that it is only parsed once per connection. The
+	 * bindings of the query are cleared. It must not be used any more once the
+	 * same query string is requested again.
+	 */
+	public synchronized TupleQuery getPreparedTupleQuery(String query)
+			throws MalformedQueryException, RepositoryException {
+		TupleQuery prepared = preparedQueries.get(query);
+		if (prepared == null) {
+			prepared = prepareTupleQuery(SPARQL, query);
+			preparedQueries.put(query, prepared);
+		} else {
+			prepared.clearBindings();
+		}
+		return prepared;
+	}
+
+	/**
+	 * Returns a query that returns object(s) for the SPARQL query prepared by
+	 * {@link #getPreparedTupleQuery(String)}.
+	 */
+	public ObjectQuery getPreparedObjectQuery(String query)
+			throws MalformedQueryException, RepositoryException {
+		return createObjectQuery(getPreparedTupleQuery(query));
+	}
+
 	RDFObject cache(RDFObject object) {
 		cachedObjects.put(object.getResource(), object);
 		return object;
@@ -715,6 +1621,169 @@ public class ObjectConnection extends ContextAwareConnection {
 		return cachedObjects.get(resource);
 	}
 
+	/**
+	 * The version of the second-level cache of the repository or -1 if the
+	 * cache is disabled. It must be read before reading values to pass to
+	 * {@link #cacheObject(Resource, Set, String, List, long)}.
+	 */
+	public long getObjectCacheVersion() {
+		return objectCache == null ? -1 : objectCache.getVersion();
+	}
+
+	/**
+	 * Stores the types and functional property values of a loaded resource in
+	 * the second-level cache of the repository. Nothing is stored while a
+	 * transaction is active or if the resource was modified by this
+	 * connection.
+	 * 
+	 * @param types
+	 *            the rdf:types of the resource or null if unknown
+	 * @param binding
+	 *            the variable the resource is bound to in the properties
+	 * @param properties
+	 *            the rows loading the properties or null
+	 * @param version
+	 *            the version returned by {@link #getObjectCacheVersion()}
+	 *            before the values were read
+	 */
+	public void cacheObject(Resource resource, Set<URI> types, String binding,
+			List<BindingSet> properties, long version)
+			throws RepositoryException {
+		if (objectCache != null && version >= 0 && isAutoCommit()
+				&& !isTouched(resource)) {
+			objectCache.put(resource, getReadContexts(), types, binding,
+					properties, version);
+		}
+	}
+
+	private ObjectCache.Entry getCachedEntry(Resource resource) {
+		if (objectCache == null || isReadOnly() || isTouched(resource))
+			return null;
+		return objectCache.get(resource, getReadContexts());
+	}
+
+	private RDFObject createObject(Resource resource, ObjectCache.Entry entry) {
+		RDFObject obj = (RDFObject) getObject(entry.getTypes(), resource);
+		if (entry.getProperties() != null && obj instanceof PropertyConsumer) {
+			((PropertyConsumer) obj).usePropertyBindings(entry.getBinding(),
+					entry.getProperties());
+		}
+		return obj;
+	}
+
+	private boolean isTouched(Resource resource) {
+		synchronized (touched) {
+			return touchedAll || touched.contains(resource);
+		}
+	}
+
+	/**
+	 * Records a subject to invalidate when the changes are committed and
+	 * forgets its types if they may have changed.
+	 * 
+	 * @param subject
+	 *            the modified subject or null if unknown
+	 * @param predicate
+	 *            the modified predicate or null if unknown
+	 */
+	private void touch(Resource subject, URI predicate) {
+		types.invalidate(subject, predicate);
+		if (objectCache == null)
+			return;
+		synchronized (touched) {
+			if (subject == null) {
+				touchedAll = true;
+			} else if (!touchedAll) {
+				touched.add(subject);
+			}
+		}
+	}
+
+	private void touch(Iterable<? extends Statement> statements) {
+		for (Statement st : statements) {
+			touch(st.getSubject(), st.getPredicate());
+		}
+	}
+
+	private void autoInvalidate() throws RepositoryException {
+		if (objectCache != null && isAutoCommit()) {
+			invalidateTouched();
+		}
+	}
+
+	private void invalidateTouched() {
+		if (objectCache == null)
+			return;
+		synchronized (touched) {
+			if (touchedAll) {
+				objectCache.clear();
+			} else if (!touched.isEmpty()) {
+				objectCache.invalidate(touched);
+			}
+			touched.clear();
+			touchedAll = false;
+		}
+	}
+
+	private void checkWritable() throws RepositoryReadOnlyException {
+		if (isReadOnly())
+			throw new RepositoryReadOnlyException("Connection is read-only");
+	}
+
+	/**
+	 * Ends the current snapshot of a read-only connection and takes a new one,
+	 * forgetting what was read from the old one.
+	 */
+	private void renewSnapshot() throws RepositoryException {
+		if (isActive()) {
+			super.rollback();
+		}
+		cachedObjects.clear();
+		types.clearCache();
+		super.begin(snapshot);
+	}
+
+	private boolean isBuffering() throws RepositoryException {
+		return writeBehind && !isAutoCommit();
+	}
+
+	private void discardBuffer() {
+		synchronized (buffer) {
+			buffer.clear();
+		}
+	}
+
+	/**
+	 * The contexts a statement is added to: the given ones, else the insert
+	 * context, else the context of the statement or the default context.
+	 */
+	private Resource[] resolveAddContexts(Statement st, Resource[] contexts) {
+		if (contexts.length > 0)
+			return contexts;
+		if (getInsertContext() != null)
+			return new Resource[] { getInsertContext() };
+		return new Resource[] { st == null ? null : st.getContext() };
+	}
+
+	/**
+	 * The contexts a statement is removed from: the given ones, else the
+	 * context of the statement, else the remove contexts.
+	 */
+	private Resource[] resolveRemoveContexts(Statement st, Resource[] contexts) {
+		if (contexts.length > 0)
+			return contexts;
+		if (st != null && st.getContext() != null)
+			return new Resource[] { st.getContext() };
+		return getRemoveContexts();
+	}
+
+	private void discardTouched() {
+		synchronized (touched) {
+			touched.clear();
+			touchedAll = false;
+		}
+	}
+
 	/** method and result synchronised on this */
 	private <T> ObjectQuery getObjectQuery(Class<T> concept,
 			int length) throws MalformedQueryException,
@@ -723,8 +1792,9 @@ public class ObjectConnection extends ContextAwareConnection {
 				&& queries.get(concept).containsKey(length)) {
 			return queries.get(concept).get(length);
 		} else {
-			String sparql = of.createObjectQuery(concept, length);
+			String sparql = repository.getObjectQueryCache().getObjectQuery(of, concept, length);
 			ObjectQuery query = prepareObjectQuery(SPARQL, sparql);
+			query.setObjectCaching(true);
 			Map<Integer, ObjectQuery> map = queries.get(concept);
 			if (map == null) {
 				queries.put(concept, map = new HashMap<Integer, ObjectQuery>());
@@ -734,6 +1804,35 @@ public class ObjectConnection extends ContextAwareConnection {
 		}
 	}
 
+	/** method and result synchronised on this */
+	private <T> ObjectQuery getObjectChunkQuery(Class<T> concept, int size)
+			throws MalformedQueryException, RepositoryException {
+		Map<Integer, ObjectQuery> map = chunkQueries.get(concept);
+		if (map == null) {
+			chunkQueries.put(concept, map = new HashMap<Integer, ObjectQuery>());
+		}
+		ObjectQuery query = map.get(size);
+		if (query == null) {
+			String sparql = repository.getObjectQueryCache().getObjectChunkQuery(of, concept, size);
+			query = prepareObjectQuery(SPARQL, sparql);
+			query.setObjectCaching(true);
+			map.put(size, query);
+		}
+		return query;
+	}
+
+	/**
+	 * The smallest chunk size that holds the given number of resources or the
+	 * largest chunk size.
+	 */
+	static int getChunkSize(int remaining) {
+		for (int size : CHUNK_SIZES) {
+			if (size >= remaining)
+				return size;
+		}
+		return CHUNK_SIZES[CHUNK_SIZES.length - 1];
+	}
+
 	private ObjectQuery createObjectQuery(TupleQuery query) {
 		return new ObjectQuery(this, query);
 	}
@@ -828,4 +1927,72 @@ public class ObjectConnection extends ContextAwareConnection {
     public Map<Resource, RDFObject> getCachedObjects() {
 		return cachedObjects;
 	}
+
+	/**
+	 * Writes the buffered changes before a SPARQL update is executed and
+	 * clears the cached types and the second-level cache afterwards, since
+	 * the modified subjects are unknown.
+	 */
+	private class InvalidatingUpdate implements Update {
+		private final Update delegate;
+
+		InvalidatingUpdate(Update delegate) {
+			this.delegate = delegate;
+		}
+
+		public void execute() throws UpdateExecutionException {
+			touch(null, null);
+			try {
+				flush();
+			} catch (RepositoryException e) {
+				throw new UpdateExecutionException(e);
+			}
+			delegate.execute();
+			try {
+				autoInvalidate();
+			} catch (RepositoryException e) {
+				throw new UpdateExecutionException(e);
+			}
+		}
+
+		public void setBinding(String name, Value value) {
+			delegate.setBinding(name, value);
+		}
+
+		public void removeBinding(String name) {
+			delegate.removeBinding(name);
+		}
+
+		public void clearBindings() {
+			delegate.clearBindings();
+		}
+
+		public BindingSet getBindings() {
+			return delegate.getBindings();
+		}
+
+		public void setDataset(Dataset dataset) {
+			delegate.setDataset(dataset);
+		}
+
+		public Dataset getDataset() {
+			return delegate.getDataset();
+		}
+
+		public void setIncludeInferred(boolean includeInferred) {
+			delegate.setIncludeInferred(includeInferred);
+		}
+
+		public boolean getIncludeInferred() {
+			return delegate.getIncludeInferred();
+		}
+
+		public void setMaxExecutionTime(int maxExecTime) {
+			delegate.setMaxExecutionTime(maxExecTime);
+		}
+
+		public int getMaxExecutionTime() {
+			return delegate.getMaxExecutionTime();
+		}
+	}
 }
@@ -56,6 +56,8 @@ public class ObjectFactory {
 	private ClassResolver resolver;
 	private ObjectConnection connection;
 	private Map<Class<?>, ObjectQueryFactory> factories;
+	/** property or field name to the predicates it is mapped to, by proxy class */
+	private final Map<Class<?>, Map<String, Set<String>>> propertyNames = new HashMap<Class<?>, Map<String, Set<String>>>();
     private IDGenerator idGenerator;
 
 	/**
@@ -119,6 +121,7 @@ public class ObjectFactory {
 		if (connection == null)
 			throw new IllegalStateException("No ObjectConnection");
 		BNode node = connection.getValueFactory().createBNode();
+		connection.created(node);
 		return createBean(node, resolver.resolveBlankEntity());
 
 	}
@@ -217,6 +220,9 @@ public class ObjectFactory {
                 throw new IllegalStateException("No ID generator available");
             } else {
                 resource = idGenerator.generateID(types);
+                if(connection != null) {
+                    connection.created(resource);
+                }
             }
         }
 
@@ -239,12 +245,81 @@ public class ObjectFactory {
 		return resolver.getRoleMapper().findType(concept);
 	}
 
+	/**
+	 * The names of the properties and fields of the given object class that
+	 * are mapped to the given predicate. Names that any concept of the class
+	 * maps to another predicate are not included.
+	 */
+	Collection<String> findPropertyNames(Class<?> proxy, URI predicate) {
+		Map<String, Set<String>> names;
+		synchronized (propertyNames) {
+			names = propertyNames.get(proxy);
+			if (names == null) {
+				names = new HashMap<String, Set<String>>();
+				findPropertyNames(proxy, names, new HashSet<Class<?>>());
+				propertyNames.put(proxy, names);
+			}
+		}
+		List<String> result = new ArrayList<String>(1);
+		for (Map.Entry<String, Set<String>> e : names.entrySet()) {
+			Set<String> predicates = e.getValue();
+			if (predicates.size() == 1
+					&& predicates.contains(predicate.stringValue())) {
+				result.add(e.getKey());
+			}
+		}
+		return result;
+	}
+
+	private void findPropertyNames(Class<?> type,
+			Map<String, Set<String>> names, Set<Class<?>> visited) {
+		if (type == null || !visited.add(type))
+			return;
+		for (PropertyDescriptor pd : resolver.getPropertyMapper().findProperties(type)) {
+			addPropertyName(pd.getName(), resolver.getPropertyMapper().findPredicate(pd), names);
+		}
+		for (Field f : resolver.getPropertyMapper().findFields(type)) {
+			addPropertyName(f.getName(), resolver.getPropertyMapper().findPredicate(f), names);
+		}
+		findPropertyNames(type.getSuperclass(), names, visited);
+		for (Class<?> face : type.getInterfaces()) {
+			findPropertyNames(face, names, visited);
+		}
+	}
+
+	private void addPropertyName(String name, String predicate,
+			Map<String, Set<String>> names) {
+		if (predicate == null)
+			return;
+		Set<String> predicates = names.get(name);
+		if (predicates == null) {
+			names.put(name, predicates = new HashSet<String>(1));
+		}
+		predicates.add(predicate);
+	}
+
 	protected void setObjectConnection(ObjectConnection connection) {
 		this.connection = connection;
 		factories = new HashMap<Class<?>, ObjectQueryFactory>();
 	}
 
 	protected String createObjectQuery(Class<?> concept, int bindings) {
+		return createObjectQuery(concept, bindings, 0);
+	}
+
+	/**
+	 * Creates a query loading up to <code>size</code> objects of the given
+	 * concept. The resources are bound to the variables <code>$subj0</code>
+	 * to <code>$subj{size-1}</code>, which are joined like a VALUES block.
+	 * Thus one prepared query serves any resources of a chunk. If there are
+	 * fewer resources than variables, the remaining variables may be bound to
+	 * one of the resources again.
+	 */
+	protected String createObjectChunkQuery(Class<?> concept, int size) {
+		return createObjectQuery(concept, 0, size);
+	}
+
+	private String createObjectQuery(Class<?> concept, int bindings, int chunk) {
 		Collection<PropertyDescriptor> subjectProperties = resolver.getPropertyMapper()
 				.findFunctionalProperties(concept);
 		Collection<Field> subjectFields = resolver.getPropertyMapper()
@@ -262,6 +337,17 @@ public class ObjectFactory {
 			select.append(" ?subj_class");
 		}
 		where.append("\nWHERE { ");
+		if (chunk > 0) {
+			// SPARQL does not allow variables in VALUES, so bind ?subj per branch
+			where.append("\n{");
+			for (int i = 0; i < chunk; i++) {
+				if (i > 0) {
+					where.append(" UNION");
+				}
+				where.append(" { BIND ($subj").append(i).append(" AS ?subj) }");
+			}
+			where.append(" }");
+		}
 		boolean typed = uri != null && bindings == 0;
 		if (typed) {
 			if(isTopConcept) {
@@ -339,7 +425,7 @@ public class ObjectFactory {
 			where.append(")");
 		}
 		where.append(" } ");
-		if (bindings > 1) {
+		if (bindings > 1 || chunk > 0) {
 			where.append("\nORDER BY ?subj");
 		}
 		return select.append(where).toString();
@@ -371,6 +457,7 @@ public class ObjectFactory {
 			Object obj = newInstance(proxy);
 			ManagedRDFObject bean = (ManagedRDFObject) obj;
 			bean.initRDFObject(resource, factory, connection);
+			connection.track(obj);
 			return (RDFObject) obj;
 		} catch (InstantiationException e) {
 			throw new ObjectCompositionException(e);
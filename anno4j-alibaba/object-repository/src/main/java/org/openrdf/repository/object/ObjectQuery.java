@@ -41,6 +41,7 @@ import org.openrdf.query.Query;
 import org.openrdf.query.QueryEvaluationException;
 import org.openrdf.query.TupleQuery;
 import org.openrdf.query.TupleQueryResult;
+import org.openrdf.repository.RepositoryException;
 import org.openrdf.repository.object.result.ObjectArrayCursor;
 import org.openrdf.repository.object.result.ObjectCursor;
 import org.openrdf.result.Result;
@@ -58,6 +59,9 @@ public class ObjectQuery implements Query {
 
 	protected TupleQuery query;
 
+	/** true if the loaded objects may be stored in the object cache */
+	private boolean objectCaching;
+
 	public ObjectQuery(ObjectConnection manager, TupleQuery query) {
 		assert manager != null;
 		assert query != null;
@@ -154,6 +158,7 @@ public class ObjectQuery implements Query {
 	 * if there is more than one binding.
 	 */
 	public Result<?> evaluate() throws QueryEvaluationException {
+		flush();
 		TupleQueryResult result = query.evaluate();
 		List<String> bindings = result.getBindingNames();
 		return new ResultImpl(createCursor(result, bindings));
@@ -164,6 +169,8 @@ public class ObjectQuery implements Query {
 	 * implement the given concept.
 	 */
 	public <T> Result<T> evaluate(Class<T> concept) throws QueryEvaluationException {
+		flush();
+		long version = objectCaching ? manager.getObjectCacheVersion() : -1;
 		TupleQueryResult tuple = query.evaluate();
 		List<String> bindings = tuple.getBindingNames();
 		if (concept.isArray() && !manager.getObjectFactory().isDatatype(concept)) {
@@ -173,6 +180,7 @@ public class ObjectQuery implements Query {
 		} else {
 			String binding = bindings.get(0);
 			ObjectCursor cursor = new ObjectCursor(manager, tuple, binding);
+			cursor.setObjectCacheVersion(version);
 			Result result = new ResultImpl(cursor, concept);
 			return (Result<T>) result;
 		}
@@ -183,17 +191,35 @@ public class ObjectQuery implements Query {
 	 */
 	public Result<Object[]> evaluate(Class<?>... concepts)
 			throws QueryEvaluationException {
+		flush();
 		TupleQueryResult tuple = query.evaluate();
 		List<String> bindings = tuple.getBindingNames();
 		bindings = bindings.subList(0, concepts.length);
 		return new ResultImpl(new ObjectArrayCursor(manager, tuple, bindings));
 	}
 
+	/**
+	 * Marks this query as generated by the {@link ObjectFactory}, so that the
+	 * types and functional properties it loads can be stored in the
+	 * {@link ObjectCache}.
+	 */
+	void setObjectCaching(boolean objectCaching) {
+		this.objectCaching = objectCaching;
+	}
+
 	@Override
 	public String toString() {
 		return query.toString();
 	}
 
+	private void flush() throws QueryEvaluationException {
+		try {
+			manager.flush();
+		} catch (RepositoryException e) {
+			throw new QueryEvaluationException(e);
+		}
+	}
+
 	private CloseableIteration<?, QueryEvaluationException> createCursor(
 			TupleQueryResult result, List<String> bindings)
 			throws QueryEvaluationException {
@@ -0,0 +1,131 @@
+package org.openrdf.repository.object;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Repository-wide cache of the SPARQL queries that load objects of a concept.
+ * The queries are generated by {@link ObjectFactory#createObjectQuery(Class, int)} and only depend on the
+ * concept, the number of bound resources and the roles of the {@link ObjectService}. Therefore they are shared
+ * by all {@link ObjectConnection}s of an {@link ObjectRepository}, instead of being generated again
+ * for every connection.
+ */
+public class ObjectQueryCache {
+
+	private final ConcurrentMap<Key, String> queries = new ConcurrentHashMap<Key, String>();
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * Returns the query loading objects of the given concept, generating it on the first request.
+	 * 
+	 * @param factory
+	 *            the factory used to generate the query on a cache miss
+	 * @param concept
+	 *            the concept of the objects to load
+	 * @param bindings
+	 *            the number of resources bound to the query, 0 for all
+	 *            objects of the concept
+	 * @return the SPARQL query
+	 */
+	public String getObjectQuery(ObjectFactory factory, Class<?> concept, int bindings) {
+		Key key = new Key(concept, bindings, false);
+		String sparql = queries.get(key);
+		if (sparql != null) {
+			hits.incrementAndGet();
+			return sparql;
+		}
+		misses.incrementAndGet();
+		return cache(key, factory.createObjectQuery(concept, bindings));
+	}
+
+	/**
+	 * Returns the query loading a chunk of objects of the given concept,
+	 * generating it on the first request.
+	 * 
+	 * @param factory
+	 *            the factory used to generate the query on a cache miss
+	 * @param concept
+	 *            the concept of the objects to load
+	 * @param size
+	 *            the number of resources per chunk
+	 * @return the SPARQL query
+	 * @see ObjectFactory#createObjectChunkQuery(Class, int)
+	 */
+	public String getObjectChunkQuery(ObjectFactory factory, Class<?> concept, int size) {
+		Key key = new Key(concept, size, true);
+		String sparql = queries.get(key);
+		if (sparql != null) {
+			hits.incrementAndGet();
+			return sparql;
+		}
+		misses.incrementAndGet();
+		return cache(key, factory.createObjectChunkQuery(concept, size));
+	}
+
+	private String cache(Key key, String sparql) {
+		String previous = queries.putIfAbsent(key, sparql);
+		return previous == null ? sparql : previous;
+	}
+
+	/**
+	 * The number of requests answered from the cache.
+	 */
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	/**
+	 * The number of requests that required the query to be generated.
+	 */
+	public long getMissCount() {
+		return misses.get();
+	}
+
+	/**
+	 * The number of cached queries.
+	 */
+	public int size() {
+		return queries.size();
+	}
+
+	/**
+	 * Removes all cached queries. The hit and miss counts are kept.
+	 */
+	public void clear() {
+		queries.clear();
+	}
+
+	@Override
+	public String toString() {
+		return "ObjectQueryCache{size=" + size() + ", hits=" + getHitCount()
+				+ ", misses=" + getMissCount() + "}";
+	}
+
+	private static class Key {
+		private final Class<?> concept;
+		private final int bindings;
+		private final boolean chunk;
+
+		Key(Class<?> concept, int bindings, boolean chunk) {
+			this.concept = concept;
+			this.bindings = bindings;
+			this.chunk = chunk;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Key))
+				return false;
+			Key other = (Key) o;
+			return concept.equals(other.concept) && bindings == other.bindings
+					&& chunk == other.chunk;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * (31 * concept.hashCode() + bindings) + (chunk ? 1 : 0);
+		}
+	}
+}
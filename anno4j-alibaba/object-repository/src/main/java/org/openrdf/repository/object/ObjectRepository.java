@@ -30,6 +30,8 @@
  */
 package org.openrdf.repository.object;
 
+import org.openrdf.IsolationLevel;
+import org.openrdf.IsolationLevels;
 import org.openrdf.idGenerator.IDGenerator;
 import org.openrdf.idGenerator.IDGeneratorAnno4jURN;
 import org.openrdf.model.ValueFactory;
@@ -58,6 +60,8 @@ public class ObjectRepository extends ContextAwareRepository {
 	private Map<String, String> blobStoreParameters;
 	private BlobStore blobs;
     private IDGenerator idGenerator = new IDGeneratorAnno4jURN();
+	private volatile ObjectQueryCache queryCache = new ObjectQueryCache();
+	private volatile ObjectCache objectCache;
 
 	public ObjectRepository() throws ObjectStoreConfigException {
 		this.service = new ObjectServiceImpl();
@@ -73,6 +77,42 @@ public class ObjectRepository extends ContextAwareRepository {
 
 	public void setObjectService(ObjectService service) {
 		this.service = service;
+		// the cached queries depend on the roles of the service
+		this.queryCache = new ObjectQueryCache();
+		ObjectCache cache = objectCache;
+		if (cache != null) {
+			cache.clear();
+		}
+	}
+
+	/**
+	 * The cache of object loading queries shared by all connections of this
+	 * repository.
+	 */
+	public ObjectQueryCache getObjectQueryCache() {
+		return queryCache;
+	}
+
+	/**
+	 * The cache of types and functional property values shared by all
+	 * connections of this repository, or null if disabled.
+	 */
+	public ObjectCache getObjectCache() {
+		return objectCache;
+	}
+
+	/**
+	 * Enables the second-level object cache shared by all connections of this
+	 * repository. Connections opened afterwards read through the cache and
+	 * invalidate the subjects they modified when their changes are committed.
+	 * Changes made by other applications to the underlying store are not
+	 * noticed.
+	 * 
+	 * @param objectCache
+	 *            the cache or null to disable it
+	 */
+	public void setObjectCache(ObjectCache objectCache) {
+		this.objectCache = objectCache;
 	}
 
 	public synchronized String getBlobStoreUrl() {
@@ -176,6 +216,39 @@ public class ObjectRepository extends ContextAwareRepository {
 		return con;
 	}
 
+	/**
+	 * Creates a new read-only ObjectConnection that will need to be closed by
+	 * the caller. All reads of the connection are evaluated against one
+	 * snapshot of the store, which is renewed by
+	 * {@link ObjectConnection#begin()}, {@link ObjectConnection#commit()} and
+	 * {@link ObjectConnection#rollback()}. Any modification is rejected with a
+	 * {@link org.openrdf.repository.RepositoryReadOnlyException}.
+	 */
+	public ObjectConnection getReadOnlyConnection() throws RepositoryException {
+		return getReadOnlyConnection(IsolationLevels.SNAPSHOT_READ);
+	}
+
+	/**
+	 * Creates a new read-only ObjectConnection that reads with the given
+	 * isolation level, or the closest one supported by the store.
+	 *
+	 * @see #getReadOnlyConnection()
+	 */
+	public ObjectConnection getReadOnlyConnection(IsolationLevel level)
+			throws RepositoryException {
+		ObjectConnection con = getConnection();
+		try {
+			con.setReadOnly(level);
+			return con;
+		} catch (RepositoryException e) {
+			con.close();
+			throw e;
+		} catch (RuntimeException e) {
+			con.close();
+			throw e;
+		}
+	}
+
 	protected TypeManager createTypeManager() {
 		return new TypeManager(true);
 	}
@@ -33,6 +33,17 @@ public class ObjectServiceImpl implements ObjectService {
 		resolver = new ClassResolver(mapper, cl);
 	}
 
+	/**
+	 * @param proxyCache
+	 *            directory in which the composed proxy classes are kept across
+	 *            restarts
+	 */
+	public ObjectServiceImpl(RoleMapper mapper, LiteralManager literalManager,
+			ClassLoader cl, File proxyCache) throws ObjectStoreConfigException {
+		this.literals = literalManager;
+		resolver = new ClassResolver(mapper, cl, proxyCache);
+	}
+
 	public ObjectFactory createObjectFactory() {
 		return new ObjectFactory(resolver, literals);
 	}
@@ -0,0 +1,43 @@
+package org.openrdf.repository.object;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * Weakly references the objects that are bound to a connection, so that it can
+ * be told whether any of them is still reachable by the application.
+ */
+class ObjectTracker {
+	private final ReferenceQueue<Object> queue = new ReferenceQueue<Object>();
+	private final Set<Reference<Object>> references = new HashSet<Reference<Object>>();
+
+	public synchronized void track(Object object) {
+		purge();
+		references.add(new WeakReference<Object>(object, queue));
+	}
+
+	public synchronized void untrack(Object object) {
+		Iterator<Reference<Object>> iter = references.iterator();
+		while (iter.hasNext()) {
+			if (iter.next().get() == object) {
+				iter.remove();
+			}
+		}
+	}
+
+	public synchronized boolean isEmpty() {
+		purge();
+		return references.isEmpty();
+	}
+
+	private void purge() {
+		Reference<?> ref;
+		while ((ref = queue.poll()) != null) {
+			references.remove(ref);
+		}
+	}
+}
@@ -28,8 +28,15 @@
  */
 package org.openrdf.repository.object;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.openrdf.model.Resource;
@@ -38,18 +45,40 @@ import org.openrdf.model.URI;
 import org.openrdf.model.Value;
 import org.openrdf.model.vocabulary.RDF;
 import org.openrdf.model.vocabulary.RDFS;
+import org.openrdf.query.BindingSet;
+import org.openrdf.query.MalformedQueryException;
+import org.openrdf.query.QueryEvaluationException;
+import org.openrdf.query.QueryLanguage;
+import org.openrdf.query.TupleQuery;
+import org.openrdf.query.TupleQueryResult;
 import org.openrdf.repository.RepositoryException;
 import org.openrdf.repository.RepositoryResult;
 
 /**
  * Reads and manages the rdf:type statements of objects.
+ * <p>
+ * The types read are cached for the lifetime of the connection, or until its
+ * read contexts change or its transaction is rolled back. Type statements
+ * added or removed through the connection update the cache.
  * 
  * @author James Leigh
  *
  */
 public class TypeManager {
+	private static final int CACHE_SIZE = 1024;
+	private static final String SUBJ = "subj";
 	private boolean readTypes;
 	private ObjectConnection conn;
+	private final Map<Resource, Set<URI>> cache = new LinkedHashMap<Resource, Set<URI>>(
+			64, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Resource, Set<URI>> eldest) {
+			return size() > CACHE_SIZE;
+		}
+	};
+	private final Map<Integer, TupleQuery> queries = new HashMap<Integer, TupleQuery>();
 
 	public TypeManager(boolean readTypes) {
 		this.readTypes = readTypes;
@@ -62,6 +91,120 @@ public class TypeManager {
 	public Set<URI> getTypes(Resource res) throws RepositoryException {
 		if (!readTypes)
 			return Collections.emptySet();
+		Set<URI> cached = getCachedTypes(res);
+		if (cached != null)
+			return cached;
+		return cacheTypes(res, readTypes(res));
+	}
+
+	/**
+	 * Reads the types of all given resources, using a single query for each
+	 * chunk of resources whose types are not cached yet.
+	 * 
+	 * @return the types of each resource, in the order given
+	 */
+	public Map<Resource, Set<URI>> getTypes(Collection<? extends Resource> resources)
+			throws RepositoryException {
+		Map<Resource, Set<URI>> result = new LinkedHashMap<Resource, Set<URI>>();
+		List<Resource> missing = new ArrayList<Resource>();
+		for (Resource res : new LinkedHashSet<Resource>(resources)) {
+			Set<URI> cached = readTypes ? getCachedTypes(res) : Collections.<URI> emptySet();
+			result.put(res, cached);
+			if (cached == null) {
+				missing.add(res);
+			}
+		}
+		for (int start = 0; start < missing.size();) {
+			int size = ObjectConnection.getChunkSize(missing.size() - start);
+			List<Resource> chunk = missing.subList(start,
+					Math.min(start + size, missing.size()));
+			if (chunk.size() == 1) {
+				Resource res = chunk.get(0);
+				result.put(res, getTypes(res));
+			} else {
+				result.putAll(readTypes(chunk, size));
+			}
+			start += chunk.size();
+		}
+		return result;
+	}
+
+	/**
+	 * Removes the given subject from the cache if the given predicate may be
+	 * rdf:type.
+	 * 
+	 * @param subject
+	 *            the modified subject or null if unknown
+	 * @param predicate
+	 *            the modified predicate or null if unknown
+	 */
+	public void invalidate(Resource subject, URI predicate) {
+		if (predicate != null && !RDF.TYPE.equals(predicate))
+			return;
+		synchronized (cache) {
+			if (subject == null) {
+				cache.clear();
+			} else {
+				cache.remove(subject);
+			}
+		}
+	}
+
+	/**
+	 * Removes all types from the cache, e.g. after the read contexts changed.
+	 */
+	public void clearCache() {
+		synchronized (cache) {
+			cache.clear();
+		}
+		synchronized (queries) {
+			queries.clear();
+		}
+	}
+
+	public void addTypeStatement(Resource resource, URI type)
+			throws RepositoryException {
+		if (!RDFS.RESOURCE.equals(type)) {
+			Set<URI> cached = getCachedTypes(resource);
+			conn.add(resource, RDF.TYPE, type);
+			if (cached != null) {
+				Set<URI> types = new HashSet<URI>(cached);
+				types.add(type);
+				cacheTypes(resource, types);
+			}
+		}
+	}
+
+	public void removeTypeStatement(Resource resource, URI type)
+			throws RepositoryException {
+		Set<URI> cached = getCachedTypes(resource);
+		conn.remove(resource, RDF.TYPE, type);
+		if (cached != null && type != null) {
+			Set<URI> types = new HashSet<URI>(cached);
+			types.remove(type);
+			cacheTypes(resource, types);
+		}
+	}
+
+	boolean isCached(Resource res) {
+		return readTypes && getCachedTypes(res) != null;
+	}
+
+	private Set<URI> getCachedTypes(Resource res) {
+		synchronized (cache) {
+			return cache.get(res);
+		}
+	}
+
+	private Set<URI> cacheTypes(Resource res, Set<URI> types) {
+		Set<URI> unmodifiable = Collections.unmodifiableSet(types);
+		synchronized (cache) {
+			cache.put(res, unmodifiable);
+		}
+		return unmodifiable;
+	}
+
+	private Set<URI> readTypes(Resource res) throws RepositoryException {
 		RepositoryResult<Statement> match = conn.getStatements(res, RDF.TYPE, null);
 		try {
 			if (!match.hasNext())
@@ -85,15 +228,65 @@ public class TypeManager {
 		}
 	}
 
-	public void addTypeStatement(Resource resource, URI type)
+	private Map<Resource, Set<URI>> readTypes(List<Resource> chunk, int size)
 			throws RepositoryException {
-		if (!RDFS.RESOURCE.equals(type)) {
-			conn.add(resource, RDF.TYPE, type);
+		Map<Resource, Set<URI>> result = new HashMap<Resource, Set<URI>>();
+		for (Resource res : chunk) {
+			result.put(res, new HashSet<URI>(4));
+		}
+		conn.flush();
+		try {
+			TupleQuery query = getTypesQuery(size);
+			query.clearBindings();
+			for (int i = 0; i < size; i++) {
+				// repeat the last resource to fill the chunk
+				Resource res = chunk.get(Math.min(i, chunk.size() - 1));
+				query.setBinding(SUBJ + i, res);
+			}
+			TupleQueryResult rows = query.evaluate();
+			try {
+				while (rows.hasNext()) {
+					BindingSet row = rows.next();
+					Value type = row.getValue("type");
+					Set<URI> types = result.get(row.getValue(SUBJ));
+					if (types != null && type instanceof URI) {
+						types.add((URI) type);
+					}
+				}
+			} finally {
+				rows.close();
+			}
+		} catch (MalformedQueryException e) {
+			throw new AssertionError(e);
+		} catch (QueryEvaluationException e) {
+			throw new RepositoryException(e);
 		}
+		for (Map.Entry<Resource, Set<URI>> e : result.entrySet()) {
+			e.setValue(cacheTypes(e.getKey(), e.getValue()));
+		}
+		return result;
 	}
 
-	public void removeTypeStatement(Resource resource, URI type)
-			throws RepositoryException {
-		conn.remove(resource, RDF.TYPE, type);
+	private TupleQuery getTypesQuery(int size) throws MalformedQueryException,
+			RepositoryException {
+		synchronized (queries) {
+			TupleQuery query = queries.get(size);
+			if (query == null) {
+				StringBuilder sb = new StringBuilder();
+				sb.append("SELECT REDUCED ?").append(SUBJ).append(" ?type\nWHERE {\n{");
+				for (int i = 0; i < size; i++) {
+					if (i > 0) {
+						sb.append(" UNION");
+					}
+					sb.append(" { BIND ($").append(SUBJ).append(i);
+					sb.append(" AS ?").append(SUBJ).append(") }");
+				}
+				sb.append(" }\n?").append(SUBJ).append(" <").append(RDF.TYPE);
+				sb.append("> ?type\n}");
+				query = conn.prepareTupleQuery(QueryLanguage.SPARQL, sb.toString());
+				queries.put(size, query);
+			}
+			return query;
+		}
 	}
 }
@@ -0,0 +1,273 @@
+package org.openrdf.repository.object;
+
+import info.aduna.iteration.CloseableIteration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.impl.ContextStatementImpl;
+import org.openrdf.model.impl.StatementImpl;
+import org.openrdf.repository.RepositoryException;
+
+/**
+ * The statements added and removed by a write-behind {@link ObjectConnection}
+ * that are not yet written to the store. Removes are kept as patterns and
+ * drop the buffered adds they match, so applying all removes before all adds
+ * results in the net changes. Removes of subjects that were created within the
+ * buffer only drop the buffered adds, because the store has no statements
+ * about them.
+ */
+class WriteBuffer {
+	private final Map<List<Value>, Statement> added = new LinkedHashMap<List<Value>, Statement>();
+	/** keys of the added statements by subject */
+	private final Map<Resource, Set<List<Value>>> subjects = new HashMap<Resource, Set<List<Value>>>();
+	private final Set<Pattern> removed = new LinkedHashSet<Pattern>();
+	/** the removed patterns by subject */
+	private final Map<Resource, List<Pattern>> removedBySubject = new HashMap<Resource, List<Pattern>>();
+	/** the removed patterns matching any subject */
+	private final List<Pattern> removedAnySubject = new ArrayList<Pattern>();
+	/** subjects that are not in the store, because they were created since the last flush */
+	private final Set<Resource> created = new HashSet<Resource>();
+
+	public synchronized boolean isEmpty() {
+		return added.isEmpty() && removed.isEmpty();
+	}
+
+	/**
+	 * Records a newly generated subject, which has no statements in the
+	 * store until the buffer is written.
+	 */
+	public synchronized void created(Resource subj) {
+		created.add(subj);
+	}
+
+	/**
+	 * @param contexts
+	 *            the contexts to add to, null for the default context
+	 */
+	public synchronized void add(Resource subj, URI pred, Value obj, Resource... contexts) {
+		for (Resource context : contexts) {
+			Statement st;
+			if (context == null) {
+				st = new StatementImpl(subj, pred, obj);
+			} else {
+				st = new ContextStatementImpl(subj, pred, obj, context);
+			}
+			List<Value> key = Arrays.asList(subj, pred, obj, context);
+			added.put(key, st);
+			Set<List<Value>> keys = subjects.get(subj);
+			if (keys == null) {
+				subjects.put(subj, keys = new HashSet<List<Value>>());
+			}
+			keys.add(key);
+		}
+	}
+
+	/**
+	 * @param contexts
+	 *            the contexts to remove from or none for all contexts
+	 */
+	public synchronized void remove(Resource subj, URI pred, Value obj, Resource... contexts) {
+		Pattern pattern = new Pattern(subj, pred, obj, contexts);
+		for (List<Value> key : getAddedKeys(subj)) {
+			if (pattern.matches(added.get(key))) {
+				added.remove(key);
+				subjects.get(key.get(0)).remove(key);
+			}
+		}
+		if (created.contains(subj) || !removed.add(pattern))
+			return;
+		if (subj == null) {
+			removedAnySubject.add(pattern);
+		} else {
+			List<Pattern> patterns = removedBySubject.get(subj);
+			if (patterns == null) {
+				removedBySubject.put(subj, patterns = new ArrayList<Pattern>());
+			}
+			patterns.add(pattern);
+		}
+	}
+
+	/**
+	 * True if the buffered changes may change the statements of the given
+	 * subject and predicate.
+	 */
+	public synchronized boolean affects(Resource subj, URI pred) {
+		for (List<Value> key : getAddedKeys(subj)) {
+			if (pred.equals(key.get(1)))
+				return true;
+		}
+		List<Pattern> patterns = removedBySubject.get(subj);
+		if (patterns != null) {
+			for (Pattern pattern : patterns) {
+				if (pattern.pred == null || pattern.pred.equals(pred))
+					return true;
+			}
+		}
+		for (Pattern pattern : removedAnySubject) {
+			if (pattern.pred == null || pattern.pred.equals(pred))
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * The patterns to remove, in the order they were removed.
+	 */
+	public synchronized Collection<Pattern> getRemoved() {
+		return new ArrayList<Pattern>(removed);
+	}
+
+	/**
+	 * The statements to add, grouped by their context.
+	 */
+	public synchronized Map<Resource, List<Statement>> getAdded() {
+		Map<Resource, List<Statement>> map = new LinkedHashMap<Resource, List<Statement>>();
+		for (Statement st : added.values()) {
+			List<Statement> list = map.get(st.getContext());
+			if (list == null) {
+				map.put(st.getContext(), list = new ArrayList<Statement>());
+			}
+			list.add(st);
+		}
+		return map;
+	}
+
+	public synchronized void clear() {
+		added.clear();
+		subjects.clear();
+		removed.clear();
+		removedBySubject.clear();
+		removedAnySubject.clear();
+		created.clear();
+	}
+
+	/**
+	 * Applies the buffered changes to the statements read from the store.
+	 *
+	 * @param stored
+	 *            the matching statements of the store, closed by this method
+	 * @param contexts
+	 *            the contexts read or none for all contexts
+	 */
+	public synchronized List<Statement> overlay(
+			CloseableIteration<? extends Statement, RepositoryException> stored,
+			Resource subj, URI pred, Value obj, Resource... contexts)
+			throws RepositoryException {
+		List<Statement> result = new ArrayList<Statement>();
+		Set<List<Value>> keys = new LinkedHashSet<List<Value>>();
+		try {
+			while (stored.hasNext()) {
+				Statement st = stored.next();
+				if (!isRemoved(st)) {
+					result.add(st);
+					keys.add(key(st));
+				}
+			}
+		} finally {
+			stored.close();
+		}
+		Pattern read = new Pattern(subj, pred, obj, contexts);
+		for (List<Value> key : getAddedKeys(subj)) {
+			Statement st = added.get(key);
+			if (read.matches(st) && !keys.contains(key)) {
+				result.add(st);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * A copy of the keys of the added statements of the subject or of all
+	 * added statements if the subject is null.
+	 */
+	private List<List<Value>> getAddedKeys(Resource subj) {
+		if (subj == null)
+			return new ArrayList<List<Value>>(added.keySet());
+		Set<List<Value>> keys = subjects.get(subj);
+		if (keys == null)
+			return Collections.emptyList();
+		return new ArrayList<List<Value>>(keys);
+	}
+
+	private boolean isRemoved(Statement st) {
+		List<Pattern> patterns = removedBySubject.get(st.getSubject());
+		if (patterns != null) {
+			for (Pattern pattern : patterns) {
+				if (pattern.matches(st))
+					return true;
+			}
+		}
+		for (Pattern pattern : removedAnySubject) {
+			if (pattern.matches(st))
+				return true;
+		}
+		return false;
+	}
+
+	private List<Value> key(Statement st) {
+		return Arrays.asList(st.getSubject(), st.getPredicate(), st.getObject(),
+				st.getContext());
+	}
+
+	/**
+	 * A statement pattern, null matches any value.
+	 */
+	static class Pattern {
+		final Resource subj;
+		final URI pred;
+		final Value obj;
+		final Resource[] contexts;
+
+		Pattern(Resource subj, URI pred, Value obj, Resource[] contexts) {
+			this.subj = subj;
+			this.pred = pred;
+			this.obj = obj;
+			this.contexts = contexts.clone();
+		}
+
+		/**
+		 * True if the pattern matches a single statement per context.
+		 */
+		boolean isConcrete() {
+			return subj != null && pred != null && obj != null;
+		}
+
+		boolean matches(Statement st) {
+			return (subj == null || subj.equals(st.getSubject()))
+					&& (pred == null || pred.equals(st.getPredicate()))
+					&& (obj == null || obj.equals(st.getObject()))
+					&& (contexts.length == 0 || Arrays.asList(contexts)
+							.contains(st.getContext()));
+		}
+
+		@Override
+		public int hashCode() {
+			return Arrays.hashCode(new Object[] { subj, pred, obj })
+					+ Arrays.hashCode(contexts);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Pattern))
+				return false;
+			Pattern o = (Pattern) obj;
+			return Arrays.equals(new Object[] { subj, pred, this.obj },
+					new Object[] { o.subj, o.pred, o.obj })
+					&& Arrays.equals(contexts, o.contexts);
+		}
+	}
+}
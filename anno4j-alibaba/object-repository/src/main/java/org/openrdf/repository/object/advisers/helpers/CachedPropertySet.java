@@ -36,7 +36,10 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.openrdf.model.Resource;
@@ -54,15 +57,24 @@ import org.openrdf.repository.object.traits.ManagedRDFObject;
 import org.openrdf.repository.object.traits.PropertyConsumer;
 
 /**
- * A set for a given getResource(), predicate.
+ * A set for a given getResource(), predicate. Up to a limit of values are
+ * cached as objects; the values of larger sets are cached as RDF terms once
+ * they were read completely and are converted into objects a page at a time.
  * 
  * @author James Leigh
  */
 public class CachedPropertySet extends RemotePropertySet implements
 		PropertyConsumer {
-	private static final int CACHE_LIMIT = 10;
+	/** number of objects cached if the property has no limit */
+	public static final int DEFAULT_CACHE_LIMIT = 10;
+	/** number of RDF terms cached for sets exceeding the limit */
+	private static final int VALUE_CACHE_LIMIT = 10000;
+	private static final int PAGE_SIZE = 64;
+	private int cacheLimit = DEFAULT_CACHE_LIMIT;
 	List<Object> cache;
 	boolean cached;
+	/** the values of a set too large to cache as objects or null */
+	private List<Value> values;
 	private ObjectQueryFactory factory;
 	private PropertySetFactory creator;
 	private String binding;
@@ -76,11 +88,47 @@ public class CachedPropertySet extends RemotePropertySet implements
 
 	public void setPropertySetFactory(PropertySetFactory creator) {
 		this.creator = creator;
+		this.cacheLimit = creator.getCacheLimit();
 	}
 
+	/**
+	 * Uses the given rows to load the values of this property. Rows that
+	 * don't bind the property are ignored; if no row binds it, the property
+	 * is known to be empty.
+	 */
 	public synchronized void usePropertyBindings(String binding, List<BindingSet> bindings) {
-		this.binding = binding;
-		this.bindings = bindings;
+		Map<Value, List<BindingSet>> groups = new LinkedHashMap<Value, List<BindingSet>>();
+		for (BindingSet row : bindings) {
+			Value value = row.getValue(binding);
+			if (value != null) {
+				List<BindingSet> group = groups.get(value);
+				if (group == null) {
+					groups.put(value, group = new ArrayList<BindingSet>());
+				}
+				group.add(row);
+			}
+		}
+		values = null;
+		if (groups.isEmpty()) {
+			this.binding = null;
+			this.bindings = null;
+			cache = Collections.EMPTY_LIST;
+			cached = true;
+		} else {
+			// rows of the same value must be consecutive for the ObjectCursor
+			this.binding = binding;
+			this.bindings = flatten(groups);
+			cache = null;
+			cached = false;
+		}
+	}
+
+	private List<BindingSet> flatten(Map<Value, List<BindingSet>> groups) {
+		List<BindingSet> rows = new ArrayList<BindingSet>();
+		for (List<BindingSet> group : groups.values()) {
+			rows.addAll(group);
+		}
+		return rows;
 	}
 
 	@Override
@@ -88,6 +136,7 @@ public class CachedPropertySet extends RemotePropertySet implements
 		super.refresh();
 		cached = false;
 		cache = null;
+		values = null;
 		binding = null;
 		bindings = null;
 	}
@@ -121,6 +170,7 @@ public class CachedPropertySet extends RemotePropertySet implements
 		}
 		cache = Collections.EMPTY_LIST;
 		cached = true;
+		values = null;
 	}
 
 	@Override
@@ -133,6 +183,7 @@ public class CachedPropertySet extends RemotePropertySet implements
 		if (!merged) {
 			cache = o == null ? EMPTY_LIST : Collections.singletonList(o);
 			cached = true;
+			values = null;
 		}
 	}
 
@@ -146,6 +197,7 @@ public class CachedPropertySet extends RemotePropertySet implements
 		if (!merged) {
 			cache = set == null ? EMPTY_LIST : new ArrayList<Object>(set);
 			cached = true;
+			values = null;
 		}
 	}
 
@@ -155,6 +207,14 @@ public class CachedPropertySet extends RemotePropertySet implements
 			return cache.contains(o);
 		if (cached && cache.contains(o))
 			return true;
+		List<Value> values = this.values;
+		if (values != null) {
+			try {
+				return values.contains(getValue(o));
+			} catch (RepositoryException e) {
+				throw new ObjectPersistException(e);
+			}
+		}
 		return super.contains(o);
 	}
 
@@ -199,6 +259,9 @@ public class CachedPropertySet extends RemotePropertySet implements
 	public int size() {
 		if (isCacheComplete())
 			return cache.size();
+		List<Value> values = this.values;
+		if (values != null)
+			return values.size();
 		return super.size();
 	}
 
@@ -222,6 +285,9 @@ public class CachedPropertySet extends RemotePropertySet implements
 				}
 			};
 		}
+		List<Value> values = this.values;
+		if (values != null)
+			return new ValueIterator(values);
 		return super.iterator();
 	}
 
@@ -229,6 +295,8 @@ public class CachedPropertySet extends RemotePropertySet implements
 	public Object[] toArray() {
 		if (isCacheComplete())
 			return cache.toArray();
+		if (values != null)
+			return toList().toArray();
 		return super.toArray();
 	}
 
@@ -236,9 +304,20 @@ public class CachedPropertySet extends RemotePropertySet implements
 	public <T> T[] toArray(T[] a) {
 		if (isCacheComplete())
 			return cache.toArray(a);
+		if (values != null)
+			return toList().toArray(a);
 		return super.toArray(a);
 	}
 
+	private List<Object> toList() {
+		List<Object> list = new ArrayList<Object>();
+		Iterator<Object> iter = iterator();
+		while (iter.hasNext()) {
+			list.add(iter.next());
+		}
+		return list;
+	}
+
 	protected void refreshCache() {
 		if (cached) {
 			for (Object e : cache) {
@@ -248,7 +327,7 @@ public class CachedPropertySet extends RemotePropertySet implements
 	}
 
 	private boolean isCacheComplete() {
-		return cached && cache.size() < CACHE_LIMIT;
+		return cached && cache.size() < cacheLimit;
 	}
 
 	@Override
@@ -292,19 +371,28 @@ public class CachedPropertySet extends RemotePropertySet implements
 	protected ObjectIterator<?, Object> getObjectIterator() {
 		try {
 			return new ObjectIterator<Object, Object>(getObjects()) {
-				private List<Object> list = new ArrayList<Object>(CACHE_LIMIT);
+				private List<Object> list = new ArrayList<Object>(Math.min(cacheLimit, PAGE_SIZE));
+				private List<Value> terms = new ArrayList<Value>();
 
 				@Override
 				protected Object convert(Object instance)
 						throws RepositoryException {
-					if (list != null && list.size() < CACHE_LIMIT)
+					if (list != null && list.size() < cacheLimit) {
 						list.add(instance);
+					}
+					if (terms != null && terms.size() < VALUE_CACHE_LIMIT) {
+						terms.add(getObjectConnection().getObjectFactory()
+								.createValue(instance));
+					} else {
+						terms = null;
+					}
 					return instance;
 				}
 
 				@Override
 				protected void remove(Object instance) {
 					list = null;
+					terms = null;
 					CachedPropertySet.this.remove(instance);
 				}
 
@@ -312,10 +400,14 @@ public class CachedPropertySet extends RemotePropertySet implements
 				public void close() {
 					try {
 						if (list != null
-								&& (!hasNext() || list.size() == CACHE_LIMIT)) {
+								&& (!hasNext() || list.size() == cacheLimit)) {
 							cache = list;
 							cached = true;
 						}
+						if (terms != null && terms.size() >= cacheLimit
+								&& !hasNext()) {
+							values = terms;
+						}
 					} finally {
 						super.close();
 					}
@@ -328,4 +420,53 @@ public class CachedPropertySet extends RemotePropertySet implements
 		}
 	}
 
+	/**
+	 * Converts the cached values into objects a page at a time, reading the
+	 * types of a page by one query.
+	 */
+	private class ValueIterator implements Iterator<Object> {
+		private final Iterator<Value> iter;
+		private final LinkedList<Object> page = new LinkedList<Object>();
+		private Object e;
+
+		ValueIterator(List<Value> values) {
+			this.iter = values.iterator();
+		}
+
+		public boolean hasNext() {
+			return !page.isEmpty() || iter.hasNext();
+		}
+
+		public Object next() {
+			if (page.isEmpty()) {
+				readPage();
+			}
+			return e = page.removeFirst();
+		}
+
+		public void remove() {
+			CachedPropertySet.this.remove(e);
+		}
+
+		private void readPage() {
+			ObjectConnection conn = getObjectConnection();
+			List<Value> values = new ArrayList<Value>(PAGE_SIZE);
+			List<Resource> resources = new ArrayList<Resource>(PAGE_SIZE);
+			while (iter.hasNext() && values.size() < PAGE_SIZE) {
+				Value value = iter.next();
+				values.add(value);
+				if (value instanceof Resource) {
+					resources.add((Resource) value);
+				}
+			}
+			try {
+				conn.loadTypes(resources);
+				for (Value value : values) {
+					page.add(conn.getObject(value));
+				}
+			} catch (RepositoryException exc) {
+				throw new ObjectPersistException(exc);
+			}
+		}
+	}
 }
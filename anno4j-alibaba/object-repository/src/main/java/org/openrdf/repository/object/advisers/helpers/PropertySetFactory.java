@@ -36,6 +36,7 @@ import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.Set;
 
+import org.openrdf.annotations.CacheLimit;
 import org.openrdf.annotations.Iri;
 import org.openrdf.model.URI;
 import org.openrdf.model.ValueFactory;
@@ -60,6 +61,8 @@ public class PropertySetFactory {
 
 	private PropertySetModifier modifier;
 
+	private int cacheLimit = CachedPropertySet.DEFAULT_CACHE_LIMIT;
+
 	public PropertySetFactory(Field field, String predicate) {
 		Iri rdf = field.getAnnotation(Iri.class);
 		if (predicate != null) {
@@ -68,6 +71,7 @@ public class PropertySetFactory {
 			setPredicate(rdf.value());
 		}
 		assert this.predicate != null;
+		setCacheLimit(field.getAnnotation(CacheLimit.class));
 		name = field.getName();
 		type = field.getType();
 		if (Set.class.equals(type)) {
@@ -92,6 +96,7 @@ public class PropertySetFactory {
 			setPredicate(rdf.value());
 		}
 		assert this.predicate != null;
+		setCacheLimit(getter.getAnnotation(CacheLimit.class));
 		name = property.getName();
 		type = property.getPropertyType();
 		if (Set.class.equals(type)) {
@@ -122,6 +127,13 @@ public class PropertySetFactory {
 		return readOnly;
 	}
 
+	/**
+	 * The number of values an object keeps once they were read.
+	 */
+	public int getCacheLimit() {
+		return cacheLimit;
+	}
+
 	public PropertySet createPropertySet(Object bean) {
 		CachedPropertySet property = createCachedPropertySet((ManagedRDFObject) bean);
 		property.setPropertySetFactory(this);
@@ -134,6 +146,12 @@ public class PropertySetFactory {
 		return new CachedPropertySet(bean, modifier);
 	}
 
+	private void setCacheLimit(CacheLimit limit) {
+		if (limit != null) {
+			cacheLimit = limit.value();
+		}
+	}
+
 	private void setPredicate(String uri) {
 		predicate = vf.createURI(uri);
 		modifier = new PropertySetModifier(predicate);
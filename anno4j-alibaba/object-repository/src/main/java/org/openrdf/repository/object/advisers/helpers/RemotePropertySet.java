@@ -319,18 +319,12 @@ public class RemotePropertySet implements PropertySet, Set<Object> {
 		}
 	}
 
+	/**
+	 * Counts the distinct values in the store instead of reading them.
+	 */
 	public int size() {
-		CloseableIteration<? extends Statement, RepositoryException> iter;
 		try {
-			iter = getStatements();
-			try {
-				int size;
-				for (size = 0; iter.hasNext(); size++)
-					iter.next();
-				return size;
-			} finally {
-				iter.close();
-			}
+			return getObjectConnection().countObjects(getResource(), getURI());
 		} catch (RepositoryException e) {
 			throw new ObjectStoreException(e);
 		}
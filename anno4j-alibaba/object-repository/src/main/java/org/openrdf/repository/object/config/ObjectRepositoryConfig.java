@@ -38,6 +38,8 @@ import static org.openrdf.repository.object.config.ObjectRepositorySchema.CONCEP
 import static org.openrdf.repository.object.config.ObjectRepositorySchema.CONCEPT_JAR;
 import static org.openrdf.repository.object.config.ObjectRepositorySchema.DATATYPE;
 import static org.openrdf.repository.object.config.ObjectRepositorySchema.KNOWN_AS;
+import static org.openrdf.repository.object.config.ObjectRepositorySchema.PROXY_CACHE;
+import static org.openrdf.repository.object.config.ObjectRepositorySchema.SCAN_UNINDEXED_ROOTS;
 
 import java.lang.reflect.Method;
 import java.net.MalformedURLException;
@@ -64,6 +66,7 @@ import org.openrdf.repository.config.RepositoryConfigException;
 import org.openrdf.repository.contextaware.config.ContextAwareConfig;
 import org.openrdf.repository.object.ObjectRepository;
 import org.openrdf.repository.object.exceptions.ObjectStoreConfigException;
+import org.openrdf.repository.object.managers.helpers.StaticClassIndex;
 
 /**
  * Defines the Scope of an {@link ObjectRepository} and its factory. This
@@ -85,6 +88,8 @@ public class ObjectRepositoryConfig extends ContextAwareConfig implements
 	private List<URL> behaviourJars = new ArrayList<URL>();
 	private Value blobStore;
 	private Set<Value> blobStoreParameters = new HashSet<Value>();
+	private Value proxyCache;
+	private Value scanUnindexedRoots;
 
 	public ObjectRepositoryConfig() {
 		super();
@@ -392,6 +397,51 @@ public class ObjectRepositoryConfig extends ContextAwareConfig implements
 		}
 	}
 
+	/**
+	 * @return The directory in which composed proxy classes are kept across
+	 *         restarts or null if they are composed into a temporary directory.
+	 */
+	public String getProxyCache() {
+		if (proxyCache == null)
+			return null;
+		return proxyCache.stringValue();
+	}
+
+	/**
+	 * Keeps the composed proxy classes in the given directory, so that they
+	 * don't need to be composed again after a restart. Entries are invalidated
+	 * automatically if the concepts or behaviours change.
+	 * 
+	 * @param proxyCache
+	 *            directory path or null to use a temporary directory
+	 */
+	public void setProxyCache(String proxyCache) {
+		this.proxyCache = proxyCache == null ? null : vf.createLiteral(proxyCache);
+	}
+
+	/**
+	 * @return true if the classpath roots without a class index are scanned
+	 *         for concepts, although a class index is present.
+	 */
+	public boolean isScanUnindexedRoots() {
+		if (scanUnindexedRoots == null)
+			return Boolean.getBoolean(StaticClassIndex.SCAN_UNINDEXED_PROPERTY);
+		return Boolean.parseBoolean(scanUnindexedRoots.stringValue());
+	}
+
+	/**
+	 * Scans the classpath roots compiled without the class index processor for
+	 * concepts. By default only the indexed concepts, the ones listed in the
+	 * classpath and the ones of the concept JARs are registered. The whole
+	 * classpath is scanned if there is no class index at all.
+	 * 
+	 * @param scanUnindexedRoots
+	 *            true to scan the roots without a class index
+	 */
+	public void setScanUnindexedRoots(boolean scanUnindexedRoots) {
+		this.scanUnindexedRoots = vf.createLiteral(scanUnindexedRoots);
+	}
+
 	public ObjectRepositoryConfig clone() {
 		try {
 			Object o = super.clone();
@@ -436,6 +486,12 @@ public class ObjectRepositoryConfig extends ContextAwareConfig implements
 		for (Value v : blobStoreParameters) {
 			model.add(subj, BLOB_STORE_PARAMETER, v);
 		}
+		if (proxyCache != null) {
+			model.add(subj, PROXY_CACHE, proxyCache);
+		}
+		if (scanUnindexedRoots != null) {
+			model.add(subj, SCAN_UNINDEXED_ROOTS, scanUnindexedRoots);
+		}
 		return subj;
 	}
 
@@ -459,6 +515,8 @@ public class ObjectRepositoryConfig extends ContextAwareConfig implements
 			blobStore = model.filter(subj, BLOB_STORE, null).objectValue();
 			blobStoreParameters.clear();
 			blobStoreParameters.addAll(model.filter(subj, BLOB_STORE_PARAMETER, null).objects());
+			proxyCache = model.filter(subj, PROXY_CACHE, null).objectValue();
+			scanUnindexedRoots = model.filter(subj, SCAN_UNINDEXED_ROOTS, null).objectValue();
 		} catch (MalformedURLException e) {
 			throw new ObjectStoreConfigException(e);
 		} catch (ModelException e) {
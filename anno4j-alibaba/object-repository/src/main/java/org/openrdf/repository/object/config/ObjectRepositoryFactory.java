@@ -28,6 +28,7 @@
  */
 package org.openrdf.repository.object.config;
 
+import java.io.File;
 import java.lang.reflect.Method;
 import java.net.URL;
 import java.net.URLClassLoader;
@@ -128,6 +129,13 @@ public class ObjectRepositoryFactory extends ContextAwareFactory {
 		return new ObjectRepository(new ObjectServiceImpl(mapper, literals, cl));
 	}
 
+	protected ObjectRepository createObjectRepository(RoleMapper mapper,
+			LiteralManager literals, ClassLoader cl, File proxyCache) throws ObjectStoreConfigException {
+		if (proxyCache == null)
+			return createObjectRepository(mapper, literals, cl);
+		return new ObjectRepository(new ObjectServiceImpl(mapper, literals, cl, proxyCache));
+	}
+
 	private ObjectRepository getRepository(ObjectRepositoryConfig config,
 			ValueFactory vf) throws ObjectStoreConfigException {
 		ObjectRepository repo = getObjectRepository(config, vf);
@@ -149,7 +157,8 @@ public class ObjectRepositoryFactory extends ContextAwareFactory {
 		ClassLoader cl = getClassLoader(module);
 		RoleMapper mapper = getRoleMapper(cl, vf, module);
 		LiteralManager literals = getLiteralManager(cl, vf, module);
-		ObjectRepository repo = createObjectRepository(mapper, literals, cl);
+		File proxyCache = module.getProxyCache() == null ? null : new File(module.getProxyCache());
+		ObjectRepository repo = createObjectRepository(mapper, literals, cl, proxyCache);
 		repo.setBlobStoreUrl(module.getBlobStore());
 		repo.setBlobStoreParameters(module.getBlobStoreParameters());
 		return repo;
@@ -171,6 +180,7 @@ public class ObjectRepositoryFactory extends ContextAwareFactory {
 		RoleMapper mapper = createRoleMapper(uf);
 		mapper.addBehaviour(RDFObjectImpl.class, RDFS.RESOURCE);
 		RoleClassLoader loader = new RoleClassLoader(mapper);
+		loader.setScanUnindexedRoots(module.isScanUnindexedRoots());
 		loader.loadRoles(cl);
 		if (module.getConceptJars() != null) {
 			for (URL url : module.getConceptJars()) {
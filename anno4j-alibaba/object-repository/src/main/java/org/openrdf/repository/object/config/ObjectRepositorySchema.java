@@ -70,6 +70,12 @@ public class ObjectRepositorySchema {
 	/** <tt>http://www.openrdf.org/config/repository/object#blobStoreParameter</tt> */
 	public final static URI BLOB_STORE_PARAMETER;
 
+	/** <tt>http://www.openrdf.org/config/repository/object#proxyCache</tt> */
+	public final static URI PROXY_CACHE;
+
+	/** <tt>http://www.openrdf.org/config/repository/object#scanUnindexedRoots</tt> */
+	public final static URI SCAN_UNINDEXED_ROOTS;
+
 	static {
 		ValueFactory vf = ValueFactoryImpl.getInstance();
 		DATATYPE = vf.createURI(NAMESPACE, "datatype");
@@ -80,5 +86,7 @@ public class ObjectRepositorySchema {
 		BEHAVIOUR_JAR = vf.createURI(NAMESPACE, "behaviourJar");
 		BLOB_STORE = vf.createURI(NAMESPACE, "blobStore");
 		BLOB_STORE_PARAMETER = vf.createURI(NAMESPACE, "blobStoreParameter");
+		PROXY_CACHE = vf.createURI(NAMESPACE, "proxyCache");
+		SCAN_UNINDEXED_ROOTS = vf.createURI(NAMESPACE, "scanUnindexedRoots");
 	}
 }
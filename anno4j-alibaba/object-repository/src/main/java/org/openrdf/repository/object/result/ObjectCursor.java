@@ -33,6 +33,7 @@ import info.aduna.iteration.LookAheadIteration;
 
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
 
@@ -48,17 +49,23 @@ import org.openrdf.repository.object.ObjectFactory;
 import org.openrdf.repository.object.traits.PropertyConsumer;
 
 /**
- * Converts a tuple cursor into an object cursor.
+ * Converts a tuple cursor into an object cursor. The results are read a page
+ * at a time, so that the types of resources without a <code>_class</code>
+ * binding are read by one query per page.
  * 
  * @author James Leigh
  *
  */
 public class ObjectCursor extends LookAheadIteration<Object, QueryEvaluationException> {
+	private static final int PAGE_SIZE = 64;
 	private String binding;
 	private CloseableIteration<BindingSet, QueryEvaluationException> result;
 	private BindingSet next;
+	/** the properties of each resource of the current page */
+	private final LinkedList<List<BindingSet>> page = new LinkedList<List<BindingSet>>();
 	private ObjectFactory of;
 	private ObjectConnection manager;
+	private long cacheVersion = -1;
 
 	public ObjectCursor(ObjectConnection manager, CloseableIteration<BindingSet, QueryEvaluationException> result,
 			String binding) throws QueryEvaluationException {
@@ -69,18 +76,53 @@ public class ObjectCursor extends LookAheadIteration<Object, QueryEvaluationExce
 		this.of = manager.getObjectFactory();
 	}
 
+	/**
+	 * Stores the loaded types and properties in the object cache.
+	 * 
+	 * @param version
+	 *            the version of the cache read before the query was
+	 *            evaluated, or -1 to not cache the objects
+	 */
+	public void setObjectCacheVersion(long version) {
+		this.cacheVersion = version;
+	}
+
 	@Override
 	public Object getNextElement() throws QueryEvaluationException {
-		if (next == null)
+		if (page.isEmpty()) {
+			readPage();
+		}
+		if (page.isEmpty())
 			return null;
-		List<BindingSet> properties;
-		Value resource = next.getValue(binding);
-		properties = readProperties();
+		List<BindingSet> properties = page.removeFirst();
+		Value resource = properties.get(0).getValue(binding);
 		if (resource == null)
 			return null;
 		return createRDFObject(resource, properties);
 	}
 
+	private void readPage() throws QueryEvaluationException {
+		List<Resource> untyped = new ArrayList<Resource>();
+		while (next != null && page.size() < PAGE_SIZE) {
+			Value resource = next.getValue(binding);
+			List<BindingSet> properties = readProperties();
+			page.add(properties);
+			if (resource == null)
+				break;
+			if (resource instanceof Resource
+					&& !properties.get(0).hasBinding(binding + "_class")) {
+				untyped.add((Resource) resource);
+			}
+		}
+		if (untyped.size() > 1) {
+			try {
+				manager.loadTypes(untyped);
+			} catch (RepositoryException e) {
+				throw new QueryEvaluationException(e);
+			}
+		}
+	}
+
 	private List<BindingSet> readProperties() throws QueryEvaluationException {
 		Value resource = next.getValue(binding);
 		List<BindingSet> properties = new ArrayList<BindingSet>();
@@ -102,8 +144,9 @@ public class ObjectCursor extends LookAheadIteration<Object, QueryEvaluationExce
 		if (value instanceof Literal)
 			return of.createObject((Literal) value);
 		Object obj;
+		Set<URI> list = null;
 		if (properties.get(0).hasBinding(binding + "_class")) {
-			Set<URI> list = new HashSet<URI>(properties.size());
+			list = new HashSet<URI>(properties.size());
 			for (BindingSet bindings : properties) {
 				Value t = bindings.getValue(binding + "_class");
 				if (t instanceof URI) {
@@ -121,6 +164,14 @@ public class ObjectCursor extends LookAheadIteration<Object, QueryEvaluationExce
 		if (obj instanceof PropertyConsumer) {
 			((PropertyConsumer) obj).usePropertyBindings(binding, properties);
 		}
+		if (cacheVersion >= 0) {
+			try {
+				manager.cacheObject((Resource) value, list, binding,
+						properties, cacheVersion);
+			} catch (RepositoryException e) {
+				throw new QueryEvaluationException(e);
+			}
+		}
 		return obj;
 	}
 
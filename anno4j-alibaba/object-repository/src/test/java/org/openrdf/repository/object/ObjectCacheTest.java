@@ -0,0 +1,129 @@
+package org.openrdf.repository.object;
+
+import java.util.Collections;
+
+import junit.framework.Test;
+
+import org.openrdf.annotations.Iri;
+import org.openrdf.model.URI;
+import org.openrdf.repository.object.base.ObjectRepositoryTestCase;
+
+public class ObjectCacheTest extends ObjectRepositoryTestCase {
+	private static final String BASE = "urn:test:";
+
+	public static Test suite() throws Exception {
+		return ObjectRepositoryTestCase.suite(ObjectCacheTest.class);
+	}
+
+	@Iri("urn:test:Person")
+	public interface Person {
+		@Iri("urn:test:name")
+		String getName();
+
+		void setName(String name);
+	}
+
+	private ObjectCache cache;
+	private URI alice;
+
+	public void testObjectsAreSharedByConnections() throws Exception {
+		assertEquals("alice", findName(alice));
+		long hits = cache.getHitCount();
+
+		assertEquals("alice", findName(alice));
+		assertEquals(hits + 1, cache.getHitCount());
+		assertTrue(cache.getHitRatio() > 0);
+	}
+
+	public void testCommitInvalidatesModifiedSubject() throws Exception {
+		URI bob = con.getValueFactory().createURI(BASE, "bob");
+		con.addDesignation(con.getObject(bob), Person.class).setName("bob");
+		assertEquals("alice", findName(alice));
+		assertEquals("bob", findName(bob));
+		assertEquals(2, cache.size());
+
+		con.begin();
+		con.findObject(Person.class, alice).setName("carol");
+		assertEquals("carol", con.findObject(Person.class, alice).getName());
+		assertEquals("alice", findName(alice));
+		con.commit();
+
+		assertEquals(1, cache.size());
+		assertEquals("carol", findName(alice));
+		assertEquals(2, cache.size());
+	}
+
+	public void testRollbackKeepsCache() throws Exception {
+		assertEquals("alice", findName(alice));
+
+		con.begin();
+		con.findObject(Person.class, alice).setName("carol");
+		con.rollback();
+
+		assertEquals(1, cache.size());
+		assertEquals("alice", findName(alice));
+	}
+
+	public void testUpdateClearsCache() throws Exception {
+		assertEquals("alice", findName(alice));
+
+		con.prepareUpdate(
+				"DELETE WHERE { <urn:test:alice> <urn:test:name> ?name }")
+				.execute();
+
+		assertEquals(0, cache.size());
+		assertNull(findName(alice));
+	}
+
+	public void testLeastRecentlyUsedIsEvicted() throws Exception {
+		ObjectCache small = new ObjectCache(2);
+		URI[] contexts = new URI[0];
+		URI a = con.getValueFactory().createURI(BASE, "a");
+		URI b = con.getValueFactory().createURI(BASE, "b");
+		URI c = con.getValueFactory().createURI(BASE, "c");
+		long version = small.getVersion();
+		small.put(a, contexts, Collections.<URI> emptySet(), null, null, version);
+		small.put(b, contexts, Collections.<URI> emptySet(), null, null, version);
+		assertNotNull(small.get(a, contexts));
+		small.put(c, contexts, Collections.<URI> emptySet(), null, null, version);
+
+		assertEquals(2, small.size());
+		assertEquals(1, small.getEvictionCount());
+		assertNotNull(small.get(a, contexts));
+		assertNull(small.get(b, contexts));
+	}
+
+	public void testStaleValuesAreNotCached() throws Exception {
+		URI[] contexts = new URI[0];
+		long version = cache.getVersion();
+		cache.invalidate(Collections.singleton(alice));
+		cache.put(alice, contexts, Collections.<URI> emptySet(), null, null, version);
+
+		assertNull(cache.get(alice, contexts));
+	}
+
+	private String findName(URI resource) throws Exception {
+		ObjectConnection other = con.getRepository().getConnection();
+		try {
+			return other.findObject(Person.class, resource).getName();
+		} finally {
+			other.close();
+		}
+	}
+
+	@Override
+	protected ObjectRepository getRepository() throws Exception {
+		ObjectRepository repository = super.getRepository();
+		cache = new ObjectCache(100);
+		repository.setObjectCache(cache);
+		return repository;
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		config.addConcept(Person.class);
+		super.setUp();
+		alice = con.getValueFactory().createURI(BASE, "alice");
+		con.addDesignation(con.getObject(alice), Person.class).setName("alice");
+	}
+}
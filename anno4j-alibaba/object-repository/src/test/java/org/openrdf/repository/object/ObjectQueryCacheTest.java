@@ -0,0 +1,56 @@
+package org.openrdf.repository.object;
+
+import junit.framework.Test;
+
+import org.openrdf.annotations.Iri;
+import org.openrdf.model.URI;
+import org.openrdf.repository.object.base.ObjectRepositoryTestCase;
+
+public class ObjectQueryCacheTest extends ObjectRepositoryTestCase {
+	private static final String BASE = "urn:test:";
+
+	public static Test suite() throws Exception {
+		return ObjectRepositoryTestCase.suite(ObjectQueryCacheTest.class);
+	}
+
+	@Iri("urn:test:MyClass")
+	public interface MyClass {}
+
+	public void testQueriesAreSharedByConnections() throws Exception {
+		ObjectRepository repository = con.getRepository();
+		ObjectQueryCache cache = repository.getObjectQueryCache();
+		URI resource = con.getValueFactory().createURI(BASE, "my-class");
+
+		assertEquals(1, con.getObjects(MyClass.class).asList().size());
+		long misses = cache.getMissCount();
+		long hits = cache.getHitCount();
+
+		ObjectConnection other = repository.getConnection();
+		try {
+			assertEquals(1, other.getObjects(MyClass.class).asList().size());
+			assertNotNull(other.findObject(MyClass.class, resource));
+		} finally {
+			other.close();
+		}
+		assertEquals(misses, cache.getMissCount());
+		assertEquals(hits + 1, cache.getHitCount());
+	}
+
+	public void testQueriesAreKeyedByBindings() throws Exception {
+		ObjectQueryCache cache = con.getRepository().getObjectQueryCache();
+		URI resource = con.getValueFactory().createURI(BASE, "my-class");
+		URI missing = con.getValueFactory().createURI(BASE, "missing");
+		int size = cache.size();
+
+		assertEquals(2, con.getObjects(MyClass.class, resource, missing).asList().size());
+		assertEquals(size + 1, cache.size());
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		config.addConcept(MyClass.class);
+		super.setUp();
+		URI myClass = con.getValueFactory().createURI(BASE, "my-class");
+		con.addDesignation(con.getObject(myClass), MyClass.class);
+	}
+}
@@ -0,0 +1,94 @@
+package org.openrdf.repository.object;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.Test;
+
+import org.openrdf.annotations.CacheLimit;
+import org.openrdf.annotations.Iri;
+import org.openrdf.model.URI;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.repository.object.base.ObjectRepositoryTestCase;
+
+public class PropertySetCacheTest extends ObjectRepositoryTestCase {
+	private static final String BASE = "urn:test:";
+	private static final int COUNT = 30;
+
+	public static Test suite() throws Exception {
+		return ObjectRepositoryTestCase.suite(PropertySetCacheTest.class);
+	}
+
+	@Iri("urn:test:Node")
+	public interface Node {
+		@Iri("urn:test:link")
+		Set<Node> getLinks();
+
+		void setLinks(Set<Node> links);
+
+		@CacheLimit(50)
+		@Iri("urn:test:child")
+		Set<Node> getChildren();
+
+		void setChildren(Set<Node> children);
+	}
+
+	private URI link;
+	private URI child;
+	private URI root;
+	private Node node;
+
+	public void testSizeIsCounted() throws Exception {
+		assertEquals(COUNT, node.getLinks().size());
+		assertEquals(COUNT, node.getChildren().size());
+	}
+
+	public void testAnnotatedLimitCachesObjects() throws Exception {
+		Set<Node> children = node.getChildren();
+		assertEquals(COUNT, new HashSet<Node>(children).size());
+		con.remove(root, child, null);
+
+		assertEquals(COUNT, children.size());
+		assertEquals(COUNT, new HashSet<Node>(children).size());
+	}
+
+	public void testLargeSetsAreCachedAsValues() throws Exception {
+		Set<Node> links = node.getLinks();
+		Set<Node> read = new HashSet<Node>(links);
+		assertEquals(COUNT, read.size());
+		con.remove(root, link, null);
+
+		assertEquals(COUNT, links.size());
+		Set<Node> again = new HashSet<Node>(links);
+		assertEquals(COUNT, again.size());
+		assertTrue(links.contains(read.iterator().next()));
+		for (Node n : again) {
+			assertNotNull(((RDFObject) n).getResource());
+		}
+	}
+
+	public void testModificationDropsCache() throws Exception {
+		Set<Node> links = node.getLinks();
+		assertEquals(COUNT, new HashSet<Node>(links).size());
+
+		links.add(con.addDesignation(con.getObject(BASE + "extra"), Node.class));
+		assertEquals(COUNT + 1, links.size());
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		config.addConcept(Node.class);
+		super.setUp();
+		ValueFactory vf = con.getValueFactory();
+		link = vf.createURI(BASE, "link");
+		child = vf.createURI(BASE, "child");
+		root = vf.createURI(BASE, "root");
+		node = con.addDesignation(con.getObject(root), Node.class);
+		for (int i = 0; i < COUNT; i++) {
+			URI n = vf.createURI(BASE, "node" + i);
+			con.addDesignation(con.getObject(n), Node.class);
+			con.add(root, link, n);
+			con.add(root, child, n);
+		}
+	}
+}
@@ -0,0 +1,107 @@
+package org.openrdf.repository.object;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import junit.framework.Test;
+
+import org.openrdf.annotations.Iri;
+import org.openrdf.model.BNode;
+import org.openrdf.model.Resource;
+import org.openrdf.model.URI;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.vocabulary.RDF;
+import org.openrdf.repository.object.base.ObjectRepositoryTestCase;
+
+public class TypeManagerTest extends ObjectRepositoryTestCase {
+	private static final String BASE = "urn:test:";
+
+	public static Test suite() throws Exception {
+		return ObjectRepositoryTestCase.suite(TypeManagerTest.class);
+	}
+
+	@Iri("urn:test:Person")
+	public interface Person {
+		@Iri("urn:test:name")
+		String getName();
+
+		void setName(String name);
+	}
+
+	private TypeManager types;
+	private URI person;
+	private URI agent;
+	private URI alice;
+	private URI bob;
+	private BNode carol;
+
+	public void testBatchedTypes() throws Exception {
+		URI dave = con.getValueFactory().createURI(BASE, "dave");
+		List<Resource> resources = Arrays.<Resource> asList(alice, bob, carol,
+				dave, alice);
+		Map<Resource, Set<URI>> result = types.getTypes(resources);
+
+		assertEquals(Arrays.asList(alice, bob, carol, dave),
+				Arrays.asList(result.keySet().toArray()));
+		assertEquals(set(person), result.get(alice));
+		assertEquals(set(person, agent), result.get(bob));
+		assertEquals(set(person), result.get(carol));
+		assertEquals(set(), result.get(dave));
+	}
+
+	public void testTypesAreCached() throws Exception {
+		types.getTypes(Arrays.<Resource> asList(alice, bob));
+		con.add(alice, RDF.TYPE, agent);
+
+		assertEquals(set(person), types.getTypes(alice));
+		types.invalidate(alice, con.getValueFactory().createURI(BASE, "name"));
+		assertEquals(set(person), types.getTypes(alice));
+		types.invalidate(alice, RDF.TYPE);
+		assertEquals(set(person, agent), types.getTypes(alice));
+	}
+
+	public void testTypeStatementsUpdateCache() throws Exception {
+		assertEquals(set(person), types.getTypes(alice));
+
+		types.addTypeStatement(alice, agent);
+		assertEquals(set(person, agent), types.getTypes(alice));
+		types.removeTypeStatement(alice, person);
+		assertEquals(set(agent), types.getTypes(alice));
+	}
+
+	public void testCursorReadsTypesOfPage() throws Exception {
+		List<?> list = con.prepareObjectQuery(
+				"SELECT ?p WHERE { ?p <urn:test:name> ?name }").evaluate()
+				.asList();
+
+		assertEquals(3, list.size());
+		for (Object p : list) {
+			assertTrue(p instanceof Person);
+		}
+	}
+
+	private Set<URI> set(URI... uris) {
+		return new HashSet<URI>(Arrays.asList(uris));
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		config.addConcept(Person.class);
+		super.setUp();
+		ValueFactory vf = con.getValueFactory();
+		person = vf.createURI(BASE, "Person");
+		agent = vf.createURI(BASE, "Agent");
+		alice = vf.createURI(BASE, "alice");
+		bob = vf.createURI(BASE, "bob");
+		carol = vf.createBNode();
+		con.addDesignation(con.getObject(alice), Person.class).setName("alice");
+		con.addDesignation(con.getObject(bob), Person.class).setName("bob");
+		con.add(bob, RDF.TYPE, agent);
+		con.addDesignation(con.getObject(carol), Person.class).setName("carol");
+		types = new TypeManager(true);
+		types.setConnection(con);
+	}
+}
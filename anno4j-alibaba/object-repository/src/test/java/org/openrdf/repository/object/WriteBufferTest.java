@@ -0,0 +1,86 @@
+package org.openrdf.repository.object;
+
+import info.aduna.iteration.CloseableIteratorIteration;
+
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.impl.LiteralImpl;
+import org.openrdf.model.impl.StatementImpl;
+import org.openrdf.model.impl.URIImpl;
+import org.openrdf.repository.RepositoryException;
+
+public class WriteBufferTest extends TestCase {
+	private URI subj = new URIImpl("urn:test:subj");
+	private URI other = new URIImpl("urn:test:other");
+	private URI pred = new URIImpl("urn:test:pred");
+	private WriteBuffer buffer;
+
+	public void setUp() throws Exception {
+		buffer = new WriteBuffer();
+	}
+
+	public void testRemovesOfCreatedSubjectsAreNotRecorded() throws Exception {
+		buffer.created(subj);
+		buffer.add(subj, pred, new LiteralImpl("first"), new Resource[] { null });
+		buffer.remove(subj, pred, null);
+		buffer.add(subj, pred, new LiteralImpl("second"), new Resource[] { null });
+
+		assertTrue(buffer.getRemoved().isEmpty());
+		assertEquals(1, buffer.getAdded().get(null).size());
+	}
+
+	public void testRemovesOfStoredSubjectsAreRecorded() throws Exception {
+		buffer.remove(subj, pred, null);
+		buffer.remove(subj, pred, null);
+		assertEquals(1, buffer.getRemoved().size());
+
+		buffer.clear();
+		buffer.created(subj);
+		buffer.clear();
+		buffer.remove(subj, pred, null);
+		assertEquals(1, buffer.getRemoved().size());
+	}
+
+	public void testAffectsSubjectAndPredicateOfChanges() throws Exception {
+		URI unrelated = new URIImpl("urn:test:unrelated");
+		assertFalse(buffer.affects(subj, pred));
+
+		buffer.add(subj, pred, new LiteralImpl("value"), new Resource[] { null });
+		assertTrue(buffer.affects(subj, pred));
+		assertFalse(buffer.affects(subj, unrelated));
+		assertFalse(buffer.affects(other, pred));
+
+		buffer.remove(null, pred, null);
+		assertTrue(buffer.affects(other, pred));
+		assertFalse(buffer.affects(other, unrelated));
+
+		buffer.remove(other, null, null);
+		assertTrue(buffer.affects(other, unrelated));
+	}
+
+	public void testOverlayHidesRemovedStatements() throws Exception {
+		buffer.remove(subj, pred, null);
+		buffer.remove(null, pred, new LiteralImpl("any"));
+
+		List<Statement> result = buffer.overlay(stored(
+				new StatementImpl(subj, pred, new LiteralImpl("value")),
+				new StatementImpl(other, pred, new LiteralImpl("value")),
+				new StatementImpl(other, pred, new LiteralImpl("any"))),
+				null, pred, null);
+
+		assertEquals(Arrays.<Statement> asList(new StatementImpl(other, pred,
+				new LiteralImpl("value"))), result);
+	}
+
+	private CloseableIteratorIteration<Statement, RepositoryException> stored(
+			Statement... statements) {
+		return new CloseableIteratorIteration<Statement, RepositoryException>(
+				Arrays.asList(statements).iterator());
+	}
+}
@@ -2,8 +2,12 @@ package com.github.anno4j;
 
 import com.github.anno4j.annotations.Evaluator;
 import com.github.anno4j.annotations.Partial;
+import com.github.anno4j.model.Annotation;
+import com.github.anno4j.model.CascadingDelete;
 import com.github.anno4j.model.impl.ResourceObject;
+import com.github.anno4j.querying.QueryPlanCache;
 import com.github.anno4j.querying.QueryService;
+import com.github.anno4j.querying.StoreStatistics;
 import com.github.anno4j.querying.evaluation.LDPathEvaluatorConfiguration;
 import com.github.anno4j.querying.extension.QueryEvaluator;
 import com.github.anno4j.querying.extension.TestEvaluator;
@@ -11,7 +15,6 @@ import com.github.anno4j.schema.OWLSchemaPersistingManager;
 import com.github.anno4j.schema.SchemaPersistingManager;
 import com.google.common.collect.Sets;
 import org.apache.commons.lang3.ClassUtils;
-import org.apache.http.annotation.NotThreadSafe;
 import org.apache.marmotta.ldpath.api.functions.SelectorFunction;
 import org.apache.marmotta.ldpath.api.functions.TestFunction;
 import org.apache.marmotta.ldpath.api.selectors.NodeSelector;
@@ -21,33 +24,41 @@ import org.openrdf.idGenerator.IDGenerator;
 import org.openrdf.idGenerator.IDGeneratorAnno4jURN;
 import org.openrdf.model.Resource;
 import org.openrdf.model.URI;
+import org.openrdf.model.ValueFactory;
 import org.openrdf.query.MalformedQueryException;
 import org.openrdf.query.QueryEvaluationException;
 import org.openrdf.repository.Repository;
 import org.openrdf.repository.RepositoryException;
 import org.openrdf.repository.config.RepositoryConfigException;
+import org.openrdf.repository.object.FetchPlan;
+import org.openrdf.repository.object.ObjectCache;
 import org.openrdf.repository.object.ObjectConnection;
 import org.openrdf.repository.object.ObjectQuery;
 import org.openrdf.repository.object.ObjectRepository;
 import org.openrdf.repository.object.RDFObject;
 import org.openrdf.repository.object.config.ObjectRepositoryConfig;
 import org.openrdf.repository.object.config.ObjectRepositoryFactory;
+import org.openrdf.repository.object.exceptions.ObjectStoreConfigException;
+import org.openrdf.repository.object.managers.LiteralManager;
+import org.openrdf.repository.object.managers.RoleMapper;
+import org.openrdf.repository.object.managers.helpers.ClassIndex;
+import org.openrdf.repository.object.managers.helpers.CompositeClassIndex;
+import org.openrdf.repository.object.managers.helpers.ReflectionsClassIndex;
+import org.openrdf.repository.object.managers.helpers.StaticClassIndex;
 import org.openrdf.repository.sail.SailRepository;
 import org.openrdf.result.Result;
 import org.openrdf.sail.memory.MemoryStore;
-import org.reflections.Reflections;
-import org.reflections.scanners.FieldAnnotationsScanner;
-import org.reflections.scanners.MethodAnnotationsScanner;
-import org.reflections.scanners.SubTypesScanner;
-import org.reflections.scanners.TypeAnnotationsScanner;
-import org.reflections.util.ClasspathHelper;
-import org.reflections.util.ConfigurationBuilder;
-import org.reflections.util.FilterBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.net.URL;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 /**
@@ -55,11 +66,47 @@ import java.util.*;
  * <p/>
  * <br/><br/>Anno4j can be configured by using the specific setter-methodes (e.g. setIdGenerator, setRepository). A default configuration (in-memory SPARQL endpoint) will be used if no configuration is set.
  * <p/>
- * <br/><br/> Anno4j methods are not thread-safe. Use Anno4j transactions in threaded environment.
+ * <br/><br/> The convenience methods of Anno4j can be called by multiple threads. Each call uses a connection of its own,
+ * or one borrowed from a bounded pool if enabled by {@link #setConnectionPool(int, long)}. The objects and query
+ * services returned by a call keep using its connection, so they must only be used by the thread that obtained them.
+ * A {@link Transaction} spanning several operations is obtained by {@link #createTransaction()}.
+ * <p/>
+ * <br/><br/> The annotated classes are read from the build-time class index written by the annotation processor of
+ * Anno4j. Classes compiled without it are only found if their location is passed as additional classes or if scanning
+ * the classpath roots without an index is enabled, see
+ * {@link #Anno4j(Repository, IDGenerator, URI, boolean, Set, boolean)}.
+ * <p/>
+ * <br/><br/> The composed proxy classes can be kept across restarts by setting the system property
+ * {@value #PROXY_CACHE_PROPERTY} to a directory.
+ * <p/>
+ * <br/><br/> The types and functional property values of loaded objects can be shared across connections
+ * by a second-level cache, see {@link #setObjectCache(int)}.
+ * <p/>
+ * <br/><br/> The duration of the startup phases is available by {@link #getStartupReport()} and
+ * reported to {@link StartupListener}s.
  */
-@NotThreadSafe
 public class Anno4j implements TransactionCommands {
 
+    /**
+     * System property specifying the directory in which composed proxy classes are kept across restarts.
+     */
+    public static final String PROXY_CACHE_PROPERTY = "anno4j.proxyCache";
+
+    /**
+     * System property specifying the default maximum number of resources in the second-level object cache.
+     */
+    public static final String OBJECT_CACHE_SIZE_PROPERTY = "anno4j.objectCacheSize";
+
+    /**
+     * The maximum time in milliseconds a query of a single context waits for a pooled read-only connection.
+     */
+    private static final long CONTEXT_QUERY_MAX_WAIT_MILLIS = 60000;
+
+    /**
+     * Listeners notified about the startup phases of every Anno4j instance.
+     */
+    private static final List<StartupListener> startupListeners = new CopyOnWriteArrayList<>();
+
     /**
      * Logger of this class.
      */
@@ -98,6 +145,73 @@ public class Anno4j implements TransactionCommands {
      */
     private Set<URL> classpath;
 
+    /**
+     * Whether the classpath roots without a class index are scanned, although a class index is present.
+     */
+    private boolean scanUnindexedRoots = Boolean.getBoolean(StaticClassIndex.SCAN_UNINDEXED_PROPERTY);
+
+    /**
+     * Pools of connections used by the convenience methods indexed by the context they operate on.
+     * Empty if pooling is disabled.
+     */
+    private final Map<URI, ConnectionPool> connectionPools = new HashMap<>();
+
+    /**
+     * The maximum number of connections per context that are borrowed at the same time or 0 if pooling is disabled.
+     */
+    private int connectionPoolSize = 0;
+
+    /**
+     * The maximum time in milliseconds to wait for a pooled connection.
+     */
+    private long connectionPoolMaxWaitMillis = 0;
+
+    /**
+     * The pooled transactions of the current thread by context, whose connections were retained after a call for
+     * the objects returned by it. Reused by the next call of the thread, see {@link #borrowTransaction(URI)}.
+     */
+    private final ThreadLocal<Map<URI, Transaction>> retainedTransactions = new ThreadLocal<>();
+
+    /**
+     * The maximum number of resources in the second-level object cache, 0 if disabled.
+     */
+    private int objectCacheSize = Integer.getInteger(OBJECT_CACHE_SIZE_PROPERTY, 0);
+
+    /**
+     * Records the startup phases while this object is constructed, null afterwards.
+     */
+    private StartupRecorder startupRecorder;
+
+    /**
+     * The report of the startup phases of this object.
+     */
+    private StartupReport startupReport;
+
+    /**
+     * The cardinalities of the store the query services optimize their join order with.
+     */
+    private final StoreStatistics statistics = new StoreStatistics();
+
+    /**
+     * The queries compiled by the query services of this object.
+     */
+    private final QueryPlanCache queryPlanCache = new QueryPlanCache();
+
+    /**
+     * The maximum number of contexts queried at the same time by {@link #getQueryExecutor()}.
+     */
+    private int queryParallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * The executor querying multiple contexts in parallel or null if it was not used yet.
+     */
+    private ExecutorService queryExecutor;
+
+    /**
+     * The read-only connections multiple contexts are queried on or null if they were not used yet.
+     */
+    private ReadOnlyConnectionPools contextPools;
+
 
     public Anno4j() throws RepositoryException, RepositoryConfigException {
         this(new SailRepository(new MemoryStore()));
@@ -140,64 +254,149 @@ public class Anno4j implements TransactionCommands {
     }
 
     public Anno4j(Repository repository, IDGenerator idGenerator, URI defaultContext, boolean persistSchemaAnnotations, Set<URL> additionalClasses) throws RepositoryConfigException, RepositoryException {
+        this(repository, idGenerator, defaultContext, persistSchemaAnnotations, additionalClasses,
+                Boolean.getBoolean(StaticClassIndex.SCAN_UNINDEXED_PROPERTY));
+    }
+
+    /**
+     * Creates an Anno4j instance on the given repository.
+     * The annotated classes are read from the build-time class index {@value StaticClassIndex#INDEX_RESOURCE}.
+     * Only the given additional classes are scanned at runtime, unless scanning the classpath roots without an index
+     * is enabled. The whole classpath is only scanned if there is no class index at all.
+     * @param repository The repository to connect to.
+     * @param idGenerator The generator of the IRIs of created objects.
+     * @param defaultContext The context the convenience methods operate on or null for the default graph.
+     * @param persistSchemaAnnotations Whether the schema information implied by schema annotations is persisted.
+     * @param additionalClasses URLs of JARs or class directories that are scanned for annotated classes.
+     * @param scanUnindexedRoots Whether the classpath roots compiled without the class index processor, e.g. JARs
+     *                           of third parties, are scanned for annotated classes too. Defaults to the system
+     *                           property {@value StaticClassIndex#SCAN_UNINDEXED_PROPERTY}.
+     * @throws RepositoryConfigException Thrown if the object repository can't be configured.
+     * @throws RepositoryException Thrown if the repository can't be initialized.
+     */
+    public Anno4j(Repository repository, IDGenerator idGenerator, URI defaultContext, boolean persistSchemaAnnotations, Set<URL> additionalClasses, boolean scanUnindexedRoots) throws RepositoryConfigException, RepositoryException {
         this.idGenerator = idGenerator;
+        this.scanUnindexedRoots = scanUnindexedRoots;
         this.defaultContext = defaultContext;
+        this.startupRecorder = new StartupRecorder(getStartupListeners());
 
-        classpath = new HashSet<>();
-        classpath.addAll(ClasspathHelper.forClassLoader());
-        classpath.addAll(ClasspathHelper.forJavaClassPath());
-        classpath.addAll(ClasspathHelper.forManifest());
-        classpath.addAll(ClasspathHelper.forPackage(""));
-        if(additionalClasses != null) {
-            classpath.addAll(additionalClasses);
-        }
-
-        Reflections annotatedClasses = new Reflections(new ConfigurationBuilder()
-                .setUrls(classpath)
-                .useParallelExecutor()
-                .filterInputsBy(FilterBuilder.parsePackages("-java, -javax, -sun, -com.sun"))
-                .setScanners(new SubTypesScanner(), new TypeAnnotationsScanner(), new MethodAnnotationsScanner(), new FieldAnnotationsScanner()));
-
-        // Bugfix: Searching for Reflections creates a lot ot Threads, that are not closed at the end by themselves,
-        // so we close them manually.
-        annotatedClasses.getConfiguration().getExecutorService().shutdown();
+        startupRecorder.begin(StartupPhase.CLASS_INDEX);
+        ClassIndex annotatedClasses = loadClassIndex(additionalClasses);
+        startupRecorder.end(annotatedClasses.getClassNames().size());
 
         // Index conceptsByIri with @Iri annotation:
+        startupRecorder.begin(StartupPhase.INDEX_CONCEPTS);
         indexConcepts(annotatedClasses);
+        startupRecorder.end(conceptsByIri.size());
 
         // find classes with @Partial annotation
-        this.partialClasses = annotatedClasses.getTypesAnnotatedWith(Partial.class, true);
+        startupRecorder.begin(StartupPhase.PARTIAL_CLASSES);
+        this.partialClasses = annotatedClasses.getTypesAnnotatedWith(Partial.class);
+        startupRecorder.end(partialClasses.size());
 
-        scanForEvaluators(annotatedClasses);
+        startupRecorder.begin(StartupPhase.SCAN_EVALUATORS);
+        int evaluators = scanForEvaluators(annotatedClasses);
+        startupRecorder.end(evaluators);
 
         if(!repository.isInitialized()) {
+            startupRecorder.begin(StartupPhase.INITIALIZE_REPOSITORY);
             repository.initialize();
+            startupRecorder.end(-1);
         }
 
         this.setRepository(repository, additionalClasses, additionalClasses);
 
         // Persist schema information to repository:
         if(persistSchemaAnnotations) {
+            startupRecorder.begin(StartupPhase.PERSIST_SCHEMA);
             persistSchemaAnnotations(annotatedClasses);
+            startupRecorder.end(-1);
         }
+
+        this.startupReport = startupRecorder.complete();
+        this.startupRecorder = null;
+    }
+
+    /**
+     * @return Returns the listeners registered by {@link #addStartupListener(StartupListener)} and as service.
+     */
+    private Collection<StartupListener> getStartupListeners() {
+        Collection<StartupListener> listeners = new ArrayList<>(startupListeners);
+        try {
+            for (StartupListener listener : ServiceLoader.load(StartupListener.class, getClassLoader())) {
+                listeners.add(listener);
+            }
+        } catch (ServiceConfigurationError e) {
+            logger.warn("Could not load startup listener", e);
+        }
+        return listeners;
+    }
+
+    /**
+     * Returns the index of annotated classes. The build-time index written by the
+     * {@link org.openrdf.repository.object.managers.helpers.ClassIndexProcessor} is used if present.
+     * Then only the additional classes are scanned, and the classpath roots without an index file if enabled
+     * by {@link #scanUnindexedRoots}. Otherwise the whole classpath is scanned.
+     * @param additionalClasses URLs that are scanned in addition to the index. They are always scanned,
+     *                          because they are not necessarily visible to the context class loader.
+     * @return Returns the index of annotated classes.
+     */
+    private ClassIndex loadClassIndex(Set<URL> additionalClasses) {
+        StaticClassIndex staticIndex = null;
+        try {
+            staticIndex = StaticClassIndex.load(getClassLoader());
+        } catch (IOException e) {
+            logger.warn("Could not read class index, falling back to classpath scanning", e);
+        }
+
+        classpath = new HashSet<>();
+        if(additionalClasses != null) {
+            classpath.addAll(additionalClasses);
+        }
+
+        if(staticIndex != null) {
+            logger.debug("Using class index from {}", StaticClassIndex.INDEX_RESOURCE);
+            if(scanUnindexedRoots) {
+                // Roots compiled without the index processor, e.g. third-party JARs:
+                classpath.addAll(staticIndex.getUnindexedRoots(ReflectionsClassIndex.getClasspathRoots()));
+            }
+            if(classpath.isEmpty()) {
+                return staticIndex;
+            } else {
+                return new CompositeClassIndex(staticIndex, ReflectionsClassIndex.scan(classpath));
+            }
+        }
+
+        logger.info("No class index {} found, scanning the whole classpath", StaticClassIndex.INDEX_RESOURCE);
+        classpath.addAll(ReflectionsClassIndex.getClasspathRoots());
+
+        return ReflectionsClassIndex.scan(classpath);
+    }
+
+    private ClassLoader getClassLoader() {
+        ClassLoader cl = Thread.currentThread().getContextClassLoader();
+        return (cl != null) ? cl : Anno4j.class.getClassLoader();
     }
 
     /**
      * Persists the schema information implied by schema annotations to the default graph of the connected triplestore.
      * Performs a validation that the schema annotations are consistent.
+     * Only the schema information that changed since the last start against the triplestore is validated and persisted.
      * @param types The types which methods and field should be scanned for schema information.
      * @throws RepositoryException Thrown if an error occurs while persisting schema information.
      * @throws SchemaPersistingManager.InconsistentAnnotationException Thrown if the schema annotations are inconsistent.
      * @throws SchemaPersistingManager.ContradictorySchemaException Thrown if the schema information imposed by annotations contradicts with
      * schema information that is already present in the connected triplestore.
      */
-    private void persistSchemaAnnotations(Reflections types) throws RepositoryException {
+    private void persistSchemaAnnotations(ClassIndex types) throws RepositoryException {
         Transaction transaction = createTransaction();
         transaction.begin();
 
         try {
             SchemaPersistingManager persistingManager = new OWLSchemaPersistingManager(transaction.getConnection());
-            persistingManager.persistSchema(types);
+            if(!persistingManager.persistSchemaChanges(types)) {
+                logger.debug("Schema annotations unchanged, skipping schema persistence");
+            }
 
         } catch (SchemaPersistingManager.InconsistentAnnotationException | SchemaPersistingManager.ContradictorySchemaException e) {
             // Rollback on error and rethrow exception:
@@ -208,8 +407,8 @@ public class Anno4j implements TransactionCommands {
         transaction.commit();
     }
     
-    private void scanForEvaluators(Reflections annotatedClasses) {
-        Set<Class<?>> defaultEvaluatorAnnotations = annotatedClasses.getTypesAnnotatedWith(Evaluator.class, true);
+    private int scanForEvaluators(ClassIndex annotatedClasses) {
+        Set<Class<?>> defaultEvaluatorAnnotations = annotatedClasses.getTypesAnnotatedWith(Evaluator.class);
 
         Map<Class<? extends TestFunction>, Class<QueryEvaluator>> testFunctionEvaluators = new HashMap<>();
         Map<Class<? extends NodeSelector>, Class<QueryEvaluator>> defaultEvaluators = new HashMap<>();
@@ -242,15 +441,17 @@ public class Anno4j implements TransactionCommands {
         evaluatorConfiguration.setTestEvaluators(testEvaluators);
         evaluatorConfiguration.setTestFunctionEvaluators(testFunctionEvaluators);
         evaluatorConfiguration.setFunctionEvaluators(functionEvaluators);
+
+        return defaultEvaluatorAnnotations.size();
     }
 
     /**
      * Indexes all {@link Iri} annotated interfaces by their IRI.
-     * @param reflections Reflections object having an {@link TypeAnnotationsScanner} capturing all classes in classpath.
+     * @param index Index of the annotated classes in the classpath.
      */
-    private void indexConcepts(Reflections reflections) {
+    private void indexConcepts(ClassIndex index) {
         // The conceptsByIri are @Iri annotated interfaces:
-        for(Class<?> concept : reflections.getTypesAnnotatedWith(Iri.class)) {
+        for(Class<?> concept : index.getTypesAnnotatedWith(Iri.class)) {
             // Must be a sub-interface of ResourceObject:
             if(concept.isAnnotationPresent(Iri.class) && concept.isInterface() && ResourceObject.class.isAssignableFrom(concept)) {
                 // Get the conceptsByIri annotation and IRI:
@@ -283,13 +484,38 @@ public class Anno4j implements TransactionCommands {
      */
     @Override
     public void persist(ResourceObject resource) throws RepositoryException {
-        Transaction transaction = createTransaction();
+        persist(resource, defaultContext);
+    }
 
-        if(defaultContext != null) {
-            transaction.setAllContexts(defaultContext);
-        }
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public PersistStatistics persistAll(Collection<? extends ResourceObject> resources) throws RepositoryException {
+        return persistAll(resources, Transaction.DEFAULT_PERSIST_BATCH_SIZE);
+    }
 
-        transaction.persist(resource);
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public PersistStatistics persistAll(Collection<? extends ResourceObject> resources, int batchSize) throws RepositoryException {
+        return persistAll(resources, Transaction.DEFAULT_PERSIST_DEPTH, batchSize);
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public PersistStatistics persistAll(Collection<? extends ResourceObject> resources, int depth, int batchSize) throws RepositoryException {
+        Transaction transaction = borrowTransaction(defaultContext);
+        try {
+            PersistStatistics statistics = transaction.persistAll(resources, depth, batchSize);
+            logger.debug("Persisted {}", statistics);
+            return statistics;
+        } finally {
+            releaseTransaction(transaction);
+        }
     }
 
     /**
@@ -299,9 +525,12 @@ public class Anno4j implements TransactionCommands {
      * @throws RepositoryException
      */
     public void persist(ResourceObject resource, URI context) throws RepositoryException {
-        Transaction transaction = createTransaction();
-        transaction.setAllContexts(context);
-        transaction.persist(resource);
+        Transaction transaction = borrowTransaction(context);
+        try {
+            transaction.persist(resource);
+        } finally {
+            releaseTransaction(transaction);
+        }
     }
 
     /**
@@ -309,26 +538,97 @@ public class Anno4j implements TransactionCommands {
      */
     @Override
     public <T extends ResourceObject> T findByID(Class<T> type, String id) throws RepositoryException {
-        Transaction transaction = createTransaction();
+        Transaction transaction = borrowTransaction(defaultContext);
+        try {
+            return transaction.findByID(type, id);
+        } finally {
+            releaseTransaction(transaction);
+        }
+    }
 
-        if(defaultContext != null) {
-            transaction.setAllContexts(defaultContext);
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public <T extends ResourceObject> T findByID(Class<T> type, URI id) throws RepositoryException {
+        Transaction transaction = borrowTransaction(defaultContext);
+        try {
+            return transaction.findByID(type, id);
+        } finally {
+            releaseTransaction(transaction);
         }
+    }
 
-        return transaction.findByID(type, id);
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public <T extends ResourceObject> Map<URI, T> findByIDs(Class<T> type, Collection<URI> ids) throws RepositoryException {
+        return findByIDs(type, ids, defaultContext);
     }
 
     /**
      * {@inheritDoc }
      */
     @Override
-    public <T extends ResourceObject> T findByID(Class<T> type, URI id) throws RepositoryException {
-        Transaction transaction = createTransaction();
+    public <T extends ResourceObject> T findByID(Class<T> type, String id, FetchPlan plan) throws RepositoryException {
+        Transaction transaction = borrowTransaction(defaultContext);
+        try {
+            return transaction.findByID(type, id, plan);
+        } finally {
+            releaseTransaction(transaction);
+        }
+    }
 
-        if(defaultContext != null) {
-            transaction.setAllContexts(defaultContext);
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public <T extends ResourceObject> Map<URI, T> findByIDs(Class<T> type, Collection<URI> ids, FetchPlan plan) throws RepositoryException {
+        Transaction transaction = borrowTransaction(defaultContext);
+        try {
+            return transaction.findByIDs(type, ids, plan);
+        } finally {
+            releaseTransaction(transaction);
+        }
+    }
+
+    /**
+     * Queries for the instances of the given class with the given IRIs in the given context.
+     * @param type Class with connected RDF type
+     * @param ids The IRIs of the resources to find.
+     * @param context Graph context to query
+     * @return The instances found indexed by their IRI in the order of the given IRIs.
+     * @throws RepositoryException
+     */
+    public <T extends ResourceObject> Map<URI, T> findByIDs(Class<T> type, Collection<URI> ids, URI context) throws RepositoryException {
+        Transaction transaction = borrowTransaction(context);
+        try {
+            return transaction.findByIDs(type, ids);
+        } finally {
+            releaseTransaction(transaction);
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void deleteAll(Collection<? extends Annotation> annotations) throws RepositoryException {
+        deleteAll(annotations, CascadingDelete.DEFAULT_DEPTH, CascadingDelete.DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void deleteAll(Collection<? extends Annotation> annotations, int depth, int batchSize) throws RepositoryException {
+        Transaction transaction = borrowTransaction(defaultContext);
+        try {
+            transaction.deleteAll(annotations, depth, batchSize);
+        } finally {
+            releaseTransaction(transaction);
         }
-        return transaction.findByID(type, id);
     }
 
     /**
@@ -336,9 +636,12 @@ public class Anno4j implements TransactionCommands {
      */
     @Override
     public void clearContext(URI context) throws RepositoryException {
-        Transaction transaction = createTransaction();
-        transaction.clearContext(context);
-        transaction.close();
+        Transaction transaction = borrowTransaction(defaultContext);
+        try {
+            transaction.clearContext(context);
+        } finally {
+            releaseTransaction(transaction);
+        }
     }
 
     /**
@@ -346,9 +649,12 @@ public class Anno4j implements TransactionCommands {
      */
     @Override
     public void clearContext(String context) throws RepositoryException {
-        Transaction transaction = createTransaction();
-        transaction.clearContext(context);
-        transaction.close();
+        Transaction transaction = borrowTransaction(defaultContext);
+        try {
+            transaction.clearContext(context);
+        } finally {
+            releaseTransaction(transaction);
+        }
     }
 
     /**
@@ -356,20 +662,48 @@ public class Anno4j implements TransactionCommands {
      */
     @Override
     public <T extends ResourceObject> List<T> findAll(Class<T> type) throws RepositoryException {
-        Transaction transaction = createTransaction();
+        return findAll(type, defaultContext);
+    }
 
-        if(defaultContext != null) {
-            transaction.setAllContexts(defaultContext);
+    public <T extends ResourceObject> List<T> findAll(Class<T> type, URI context) throws RepositoryException {
+        Transaction transaction = borrowTransaction(context);
+        try {
+            return transaction.findAll(type);
+        } finally {
+            releaseTransaction(transaction);
         }
+    }
 
-        return transaction.findAll(type);
+    /**
+     * {@inheritDoc }
+     * The connection used is returned to its pool once the iterator is closed.
+     */
+    @Override
+    public <T extends ResourceObject> ObjectIterator<T> streamAll(Class<T> type) throws RepositoryException {
+        return streamAll(type, defaultContext);
     }
 
-    public <T extends ResourceObject> List<T> findAll(Class<T> type, URI context) throws RepositoryException {
-        Transaction transaction = createTransaction();
-        transaction.setAllContexts(context);
+    public <T extends ResourceObject> ObjectIterator<T> streamAll(Class<T> type, URI context) throws RepositoryException {
+        Transaction transaction = borrowTransaction(context);
+        try {
+            return transaction.streamAll(type, transaction);
+        } catch (RepositoryException | RuntimeException e) {
+            releaseTransaction(transaction);
+            throw e;
+        }
+    }
 
-        return transaction.findAll(type);
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public <T extends ResourceObject> List<T> findAll(Class<T> type, FetchPlan plan) throws RepositoryException {
+        Transaction transaction = borrowTransaction(defaultContext);
+        try {
+            return transaction.findAll(type, plan);
+        } finally {
+            releaseTransaction(transaction);
+        }
     }
 
     /**
@@ -382,13 +716,7 @@ public class Anno4j implements TransactionCommands {
 
     @Override
     public <T> T createObject(Class<T> clazz, Resource id) throws RepositoryException, IllegalAccessException, InstantiationException {
-        Transaction transaction = createTransaction();
-
-        if(defaultContext != null) {
-            transaction.setAllContexts(defaultContext);
-        }
-
-        return transaction.createObject(clazz, id);
+        return createObject(clazz, defaultContext, id);
     }
 
     /**
@@ -402,10 +730,12 @@ public class Anno4j implements TransactionCommands {
     }
 
     public <T> T createObject(Class<T> clazz, URI context, Resource id) throws RepositoryException, IllegalAccessException, InstantiationException {
-        Transaction transaction = createTransaction();
-        transaction.setAllContexts(context);
-
-        return transaction.createObject(clazz, id);
+        Transaction transaction = borrowTransaction(context);
+        try {
+            return transaction.createObject(clazz, id);
+        } finally {
+            releaseTransaction(transaction);
+        }
     }
 
     /**
@@ -413,13 +743,7 @@ public class Anno4j implements TransactionCommands {
      */
     @Override
     public QueryService createQueryService() throws RepositoryException {
-        Transaction transaction = createTransaction();
-
-        if(defaultContext != null) {
-            transaction.setAllContexts(defaultContext);
-        }
-
-        return transaction.createQueryService();
+        return createQueryService(defaultContext);
     }
 
     /**
@@ -429,9 +753,12 @@ public class Anno4j implements TransactionCommands {
      * @return query service object for specified type
      */
     public QueryService createQueryService(URI context) throws RepositoryException {
-        Transaction transaction = createTransaction();
-        transaction.setAllContexts(context);
-        return transaction.createQueryService();
+        Transaction transaction = borrowTransaction(context);
+        try {
+            return transaction.createQueryService();
+        } finally {
+            releaseTransaction(transaction);
+        }
     }
 
     /**
@@ -465,6 +792,9 @@ public class Anno4j implements TransactionCommands {
      */
     public void setRepository(Repository repository, Set<URL> conceptJars, Set<URL> behaviourJars) throws RepositoryException, RepositoryConfigException {
         this.repository = repository;
+        // Pooled connections belong to the previous repository:
+        closeConnectionPools();
+        closeContextPools();
         // update alibaba wrapper
 
         ObjectRepositoryFactory factory = new ObjectRepositoryFactory();
@@ -477,6 +807,9 @@ public class Anno4j implements TransactionCommands {
             config.addBehaviourJar(behaviourJar);
         }
 
+        config.setProxyCache(System.getProperty(PROXY_CACHE_PROPERTY));
+        config.setScanUnindexedRoots(scanUnindexedRoots);
+
         if(partialClasses != null) {
             for(Class<?> clazz : this.partialClasses){
                 if (!clazz.getSimpleName().endsWith("AbstractClass")) {
@@ -485,8 +818,47 @@ public class Anno4j implements TransactionCommands {
             }
         }
 
-        this.objectRepository = new ObjectRepositoryFactory().createRepository(config, repository);
+        this.objectRepository = createObjectRepositoryFactory().createRepository(config, repository);
         this.objectRepository.setIdGenerator(idGenerator);
+        if(objectCacheSize > 0) {
+            this.objectRepository.setObjectCache(new ObjectCache(objectCacheSize));
+        }
+        if(startupRecorder != null && startupRecorder.isRecording()) {
+            // End of the phase started by the instrumented factory:
+            startupRecorder.end(-1);
+        }
+    }
+
+    /**
+     * Returns the factory creating the object repository. During startup the factory records the role mapping
+     * and the creation of the object repository as separate phases.
+     * @return Returns the factory.
+     */
+    private ObjectRepositoryFactory createObjectRepositoryFactory() {
+        final StartupRecorder recorder = startupRecorder;
+        if(recorder == null) {
+            return new ObjectRepositoryFactory();
+        }
+
+        return new ObjectRepositoryFactory() {
+            private RoleMapper mapper;
+
+            @Override
+            protected RoleMapper createRoleMapper(ValueFactory vf) throws ObjectStoreConfigException {
+                // Called first when the object repository is created, role scanning follows:
+                recorder.begin(StartupPhase.ROLE_MAPPING);
+                mapper = super.createRoleMapper(vf);
+                return mapper;
+            }
+
+            @Override
+            protected LiteralManager createLiteralManager(ValueFactory uf, ValueFactory lf) {
+                // Called after the roles are mapped:
+                recorder.end(mapper.getRoleClasses().size());
+                recorder.begin(StartupPhase.CREATE_REPOSITORY);
+                return super.createLiteralManager(uf, lf);
+            }
+        };
     }
 
     /**
@@ -544,7 +916,8 @@ public class Anno4j implements TransactionCommands {
      * @throws RepositoryException Thrown if there is an error accessing the triplestore.
      */
     public Collection<Class<? extends ResourceObject>> getConcepts(String resource) throws RepositoryException {
-        ObjectConnection connection = getObjectRepository().getConnection();
+        Transaction transaction = borrowTransaction(null);
+        ObjectConnection connection = transaction.getConnection();
         try {
             /*
             Select any class c1 of which the resource is an instance and for which there is no
@@ -580,11 +953,17 @@ public class Anno4j implements TransactionCommands {
 
         } catch (MalformedQueryException | QueryEvaluationException e) {
             throw new RepositoryException(e);
+        } finally {
+            releaseTransaction(transaction);
         }
     }
 
     public Transaction createTransaction() throws RepositoryException {
-        return new Transaction(objectRepository, evaluatorConfiguration);
+        Transaction transaction = new Transaction(objectRepository, evaluatorConfiguration);
+        transaction.setStatistics(statistics);
+        transaction.setQueryPlanCache(queryPlanCache);
+        transaction.setContextPools(getContextPools());
+        return transaction;
     }
 
     /**
@@ -599,6 +978,37 @@ public class Anno4j implements TransactionCommands {
         return transaction;
     }
 
+    /**
+     * Creates a read-only transaction. All reads of the transaction, including those of its query services, are
+     * evaluated against one consistent snapshot of the store, which is renewed by {@link Transaction#begin()},
+     * {@link Transaction#commit()} and {@link Transaction#rollback()}. The transaction keeps no bookkeeping for
+     * written objects and the store can use its cheapest isolation level for reading.
+     * Any modification is rejected with a {@link org.openrdf.repository.RepositoryReadOnlyException}.
+     * The transaction must be closed by the caller.
+     * @return Returns the transaction.
+     * @throws RepositoryException Thrown if an error occurs regarding the connection to the triplestore.
+     */
+    public Transaction createReadOnlyTransaction() throws RepositoryException {
+        Transaction transaction = new Transaction(objectRepository, evaluatorConfiguration, true);
+        transaction.setStatistics(statistics);
+        transaction.setQueryPlanCache(queryPlanCache);
+        transaction.setContextPools(getContextPools());
+        return transaction;
+    }
+
+    /**
+     * Creates a read-only transaction reading the given context.
+     * @param context The context the transaction should read.
+     * @return Returns the transaction.
+     * @throws RepositoryException Thrown if an error occurs regarding the connection to the triplestore.
+     * @see #createReadOnlyTransaction()
+     */
+    public Transaction createReadOnlyTransaction(URI context) throws RepositoryException {
+        Transaction transaction = createReadOnlyTransaction();
+        transaction.setAllContexts(context);
+        return transaction;
+    }
+
     /**
      * Creates a new transaction which provides schema validation services at commit time.
      * Note that the validation assumes that the state present is valid when {@link ValidatedTransaction#begin()}
@@ -631,9 +1041,335 @@ public class Anno4j implements TransactionCommands {
     /**
      * Returns the classpath that is scanned for {@link org.openrdf.annotations.Iri} and
      * {@link Partial} annotated classes.
+     * If the build-time class index is used, only the additionally passed URLs are scanned.
      * @return Returns the classpath scanned.
      */
     public Set<URL> getScannedClasspath() {
         return Collections.unmodifiableSet(classpath);
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the bounded executor for querying multiple contexts in parallel, e.g. by
+     * {@link QueryService#executeInContexts(Class, Collection, ExecutorService)}.
+     * Its daemon threads are started when needed, at most {@link #setQueryParallelism(int)} of them.
+     * @return Returns the executor.
+     */
+    public synchronized ExecutorService getQueryExecutor() {
+        if(queryExecutor == null) {
+            queryExecutor = Executors.newFixedThreadPool(queryParallelism, new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "anno4j-query-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return queryExecutor;
+    }
+
+    /**
+     * Sets the maximum number of contexts queried at the same time by the executor returned by
+     * {@link #getQueryExecutor()}, by default the number of available processors.
+     * The current executor is shut down after its queries are finished. The same number of read-only connections
+     * per context is pooled for these queries.
+     * @param parallelism The maximum number of threads of the executor.
+     */
+    public synchronized void setQueryParallelism(int parallelism) {
+        if(parallelism < 1) {
+            throw new IllegalArgumentException("The parallelism must be positive");
+        }
+        this.queryParallelism = parallelism;
+        if(queryExecutor != null) {
+            queryExecutor.shutdown();
+            queryExecutor = null;
+        }
+        closeContextPools();
+    }
+
+    /**
+     * Returns the pools of read-only connections the query services query multiple contexts on, see
+     * {@link QueryService#executeInContexts(Class, Collection, ExecutorService)}. Each context has at most
+     * {@link #setQueryParallelism(int)} connections.
+     * @return Returns the pools of read-only connections.
+     */
+    private synchronized ReadOnlyConnectionPools getContextPools() {
+        if(contextPools == null) {
+            contextPools = new ReadOnlyConnectionPools(objectRepository, queryParallelism, CONTEXT_QUERY_MAX_WAIT_MILLIS);
+        }
+        return contextPools;
+    }
+
+    private synchronized void closeContextPools() {
+        if(contextPools != null) {
+            contextPools.close();
+            contextPools = null;
+        }
+    }
+
+    /**
+     * Releases the threads and connections kept by this object: the executor returned by {@link #getQueryExecutor()}
+     * is shut down after its queries are finished and all pooled connections are closed. Connections currently in
+     * use are closed when they are returned. This object can still be used afterwards, the resources are then
+     * created again when needed. The repository is not shut down.
+     */
+    public void shutdown() {
+        synchronized (this) {
+            if(queryExecutor != null) {
+                queryExecutor.shutdown();
+                queryExecutor = null;
+            }
+            closeContextPools();
+        }
+        closeConnectionPools();
+    }
+
+    /**
+     * Returns the statistics of the store the query services optimize their join order with.
+     * They are empty until {@link #refreshStatistics()} is called or a maximum age is set by
+     * {@link StoreStatistics#setMaxAge(long)}, so the generic join strategy is applied by default.
+     * @return Returns the statistics of the store.
+     */
+    public StoreStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Returns the cache the query services of this object share their compiled queries by.
+     * @return Returns the cache of compiled queries.
+     */
+    public QueryPlanCache getQueryPlanCache() {
+        return queryPlanCache;
+    }
+
+    /**
+     * Collects the number of triples per predicate and of instances per class of the default context.
+     * Queries compiled afterwards order their triple patterns by the estimated number of matches.
+     * @throws RepositoryException Thrown if the counts can't be queried.
+     */
+    public void refreshStatistics() throws RepositoryException {
+        Transaction transaction = borrowTransaction(defaultContext);
+        try {
+            statistics.refresh(transaction.getConnection());
+        } finally {
+            releaseTransaction(transaction);
+        }
+    }
+
+    /**
+     * Returns the duration, allocated bytes and number of processed items of every phase of the construction
+     * of this object, e.g. the classpath scanning, the role mapping or the persisting of schema annotations.
+     * @return Returns the report of the startup phases.
+     */
+    public StartupReport getStartupReport() {
+        return startupReport;
+    }
+
+    /**
+     * Registers a listener that is notified about the startup phases of all Anno4j instances constructed afterwards.
+     * Listeners can also be registered as a service in <code>META-INF/services/com.github.anno4j.StartupListener</code>.
+     * @param listener The listener to register.
+     */
+    public static void addStartupListener(StartupListener listener) {
+        startupListeners.add(listener);
+    }
+
+    /**
+     * Removes a listener registered by {@link #addStartupListener(StartupListener)}.
+     * @param listener The listener to remove.
+     */
+    public static void removeStartupListener(StartupListener listener) {
+        startupListeners.remove(listener);
+    }
+
+    /**
+     * Enables a bounded pool of connections for the convenience methods of this object.
+     * Each call borrows a connection for the context it operates on and returns it afterwards.
+     * The connections stay open, so that their object factories and prepared queries are reused.
+     * {@link #streamAll(Class)} keeps its connection until the iterator is closed.
+     * <br/>
+     * Objects and query services returned by a call, e.g. by {@link #findByID(Class, String)},
+     * {@link #findAll(Class)}, {@link #createObject(Class)} or {@link #createQueryService()}, keep using its
+     * connection. The connection is then retained for the calling thread, which reuses it for its next calls
+     * on the same context, and is returned to the pool once these objects were garbage collected,
+     * their query service was closed or the thread called {@link #releaseConnections()}.
+     * The pool size must therefore be at least the number of threads that hold such objects at the same time.
+     * Existing pools are closed when this method is called.
+     * @param maxConnections The maximum number of connections per context that are in use at the same time.
+     *                       A value of 0 disables pooling, i.e. every call opens a new connection.
+     * @param maxWaitMillis The maximum time in milliseconds to wait for a connection if all connections are in use.
+     */
+    public void setConnectionPool(int maxConnections, long maxWaitMillis) {
+        if(maxConnections < 0) {
+            throw new IllegalArgumentException("The size of the connection pool must not be negative");
+        }
+        synchronized (connectionPools) {
+            closeConnectionPools();
+            this.connectionPoolSize = maxConnections;
+            this.connectionPoolMaxWaitMillis = maxWaitMillis;
+        }
+    }
+
+    /**
+     * @return Returns true iff the convenience methods use pooled connections.
+     */
+    public boolean isConnectionPoolEnabled() {
+        synchronized (connectionPools) {
+            return connectionPoolSize > 0;
+        }
+    }
+
+    /**
+     * Returns the combined usage statistics of the connection pools, i.e. the number of active and idle connections
+     * and the time callers waited for a connection.
+     * @return Returns the statistics of all pools. All values are 0 if pooling is disabled.
+     */
+    public ConnectionPoolStatistics getConnectionPoolStatistics() {
+        ConnectionPoolStatistics statistics = new ConnectionPoolStatistics(0, 0, 0, 0, 0, 0, 0, 0);
+        synchronized (connectionPools) {
+            for (ConnectionPool pool : connectionPools.values()) {
+                statistics = statistics.add(pool.getStatistics());
+            }
+        }
+        return statistics;
+    }
+
+    /**
+     * Returns the combined usage statistics of the read-only connections multiple contexts are queried on.
+     * @return Returns the statistics of the pools of all contexts. All values are 0 if no context was queried yet.
+     */
+    public ConnectionPoolStatistics getContextPoolStatistics() {
+        ReadOnlyConnectionPools pools;
+        synchronized (this) {
+            pools = contextPools;
+        }
+        return (pools != null) ? pools.getStatistics() : new ConnectionPoolStatistics(0, 0, 0, 0, 0, 0, 0, 0);
+    }
+
+    /**
+     * Enables a second-level cache of the rdf:types and functional property values of resources, which is shared
+     * by all connections of this object. Objects found by their ID or loaded by {@link #findAll(Class)} are then
+     * materialized from the cache without querying the store. Committed changes invalidate the modified subjects.
+     * Changes made to the underlying repository without Anno4j are not noticed.
+     * Existing connection pools are closed when this method is called, because only connections opened afterwards
+     * use the cache.
+     * @param maxSize The maximum number of cached resources. The least recently used resources are evicted first.
+     *                A value of 0 disables the cache.
+     */
+    public void setObjectCache(int maxSize) {
+        if(maxSize < 0) {
+            throw new IllegalArgumentException("The size of the object cache must not be negative");
+        }
+        synchronized (connectionPools) {
+            closeConnectionPools();
+            this.objectCacheSize = maxSize;
+            this.objectRepository.setObjectCache(maxSize > 0 ? new ObjectCache(maxSize) : null);
+        }
+    }
+
+    /**
+     * @return Returns the second-level object cache including its hit ratio or null if it is disabled.
+     */
+    public ObjectCache getObjectCache() {
+        return objectRepository.getObjectCache();
+    }
+
+    /**
+     * Returns the pooled connections retained for the objects and query services the current thread obtained from
+     * the convenience methods of this object, even if they are still reachable. These objects must not be used
+     * afterwards. Threads serving independent requests should call this method once a request is done.
+     * Does nothing if pooling is disabled.
+     * @throws RepositoryException Thrown if a connection can't be returned.
+     */
+    public void releaseConnections() throws RepositoryException {
+        Map<URI, Transaction> retained = retainedTransactions.get();
+        if(retained != null) {
+            for (Transaction transaction : retained.values()) {
+                if(transaction.reclaim()) {
+                    transaction.close();
+                }
+            }
+            retainedTransactions.remove();
+        }
+    }
+
+    /**
+     * Returns a transaction operating on the given context for a single call of a convenience method.
+     * The transaction must be passed to {@link #releaseTransaction(Transaction)} afterwards.
+     * If pooling is enabled, the connection the current thread retained by its previous call on the context is
+     * reused, if it is still retained. Otherwise a connection is borrowed from the pool of the context.
+     * @param context The context to operate on or null for all contexts.
+     * @return Returns a transaction on a pooled connection if pooling is enabled or on a new connection otherwise.
+     * @throws RepositoryException Thrown if no connection can be obtained.
+     */
+    private Transaction borrowTransaction(URI context) throws RepositoryException {
+        ConnectionPool pool = null;
+        synchronized (connectionPools) {
+            if(connectionPoolSize > 0) {
+                pool = connectionPools.get(context);
+                if(pool == null) {
+                    pool = new ConnectionPool(objectRepository, context, connectionPoolSize, connectionPoolMaxWaitMillis);
+                    connectionPools.put(context, pool);
+                }
+            }
+        }
+
+        if(pool != null) {
+            Map<URI, Transaction> retained = retainedTransactions.get();
+            if(retained == null) {
+                retained = new HashMap<>();
+                retainedTransactions.set(retained);
+            }
+            Transaction transaction = retained.get(context);
+            if(transaction != null && transaction.getPool() == pool && transaction.reclaim()) {
+                return transaction;
+            }
+            transaction = new Transaction(pool, evaluatorConfiguration);
+            transaction.setStatistics(statistics);
+            transaction.setQueryPlanCache(queryPlanCache);
+            transaction.setContextPools(getContextPools());
+            retained.put(context, transaction);
+            return transaction;
+        } else {
+            return openTransaction(context);
+        }
+    }
+
+    /**
+     * Returns a transaction on a new connection operating on the given context. Used by the convenience methods
+     * if pooling is disabled.
+     * @param context The context to operate on or null for all contexts.
+     * @return Returns a transaction on a new connection.
+     * @throws RepositoryException Thrown if no connection can be opened.
+     */
+    private Transaction openTransaction(URI context) throws RepositoryException {
+        Transaction transaction = createTransaction();
+        if(context != null) {
+            transaction.setAllContexts(context);
+        }
+        return transaction;
+    }
+
+    /**
+     * Returns the connection of a transaction obtained by {@link #borrowTransaction(URI)} to its pool, or retains
+     * it for the current thread while objects loaded with it are reachable.
+     * Unpooled connections are left open, because the objects returned by the convenience methods still use them.
+     * @param transaction The transaction to release.
+     */
+    private void releaseTransaction(Transaction transaction) {
+        if(transaction.isPooled()) {
+            transaction.release();
+        }
+    }
+
+    private void closeConnectionPools() {
+        synchronized (connectionPools) {
+            for (ConnectionPool pool : connectionPools.values()) {
+                pool.close();
+            }
+            connectionPools.clear();
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package com.github.anno4j;
+
+import org.openrdf.model.URI;
+import org.openrdf.repository.RepositoryException;
+import org.openrdf.repository.object.ObjectConnection;
+import org.openrdf.repository.object.ObjectRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread-safe, bounded pool of {@link ObjectConnection}s operating on a fixed context.
+ * Connections are kept open after they are returned, so that their {@link org.openrdf.repository.object.ObjectFactory}
+ * and their prepared object queries stay warm. Idle connections are handed out last-in first-out.
+ * <br/><br/>
+ * The context of the pool is set on the connections once and must not be changed by the borrower, because
+ * objects loaded by a connection keep reading through it after it was returned.
+ * A connection that is returned while a transaction is active is rolled back.
+ * <br/><br/>
+ * The pool tracks the objects created by its connections. A borrower can
+ * {@link #retain(ObjectConnection, Object)} a connection instead of returning it while objects loaded with it are
+ * still reachable, and {@link #reclaim(ObjectConnection, Object)} it later for further work. A retained connection
+ * goes back to the pool when a borrower is waiting for a connection and the objects bound to it were garbage collected.
+ * <br/><br/>
+ * A read-only pool hands out connections of {@link ObjectRepository#getReadOnlyConnection()}. Their snapshot of the
+ * store is renewed whenever they are borrowed.
+ */
+public class ConnectionPool {
+
+    private static final URI[] ALL_CONTEXTS = new URI[0];
+
+    /**
+     * How often a waiting borrower checks whether a retained connection became unused.
+     */
+    private static final long RECLAIM_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final Logger logger = LoggerFactory.getLogger(ConnectionPool.class);
+
+    private final ObjectRepository objectRepository;
+
+    /**
+     * The context of the pooled connections or null for all contexts.
+     */
+    private final URI context;
+
+    private final int maxConnections;
+
+    private final long maxWaitMillis;
+
+    private final boolean readOnly;
+
+    /**
+     * One permit per connection that may be borrowed.
+     */
+    private final Semaphore permits;
+
+    private final LinkedBlockingDeque<ObjectConnection> idle = new LinkedBlockingDeque<>();
+
+    /**
+     * Connections kept by their borrowers for the objects loaded with them, mapped to the borrower.
+     * They still hold their permit.
+     */
+    private final Map<ObjectConnection, Object> retained = new ConcurrentHashMap<>();
+
+    private final AtomicInteger active = new AtomicInteger();
+
+    private final AtomicLong borrowCount = new AtomicLong();
+
+    private final AtomicLong timeoutCount = new AtomicLong();
+
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    private volatile boolean closed = false;
+
+    /**
+     * @param objectRepository The repository to open connections to.
+     * @param context The context the connections operate on or null for all contexts.
+     * @param maxConnections The maximum number of connections that can be borrowed at the same time.
+     * @param maxWaitMillis The maximum time in milliseconds to wait for a connection to become available.
+     */
+    public ConnectionPool(ObjectRepository objectRepository, URI context, int maxConnections, long maxWaitMillis) {
+        this(objectRepository, context, maxConnections, maxWaitMillis, false);
+    }
+
+    /**
+     * @param objectRepository The repository to open connections to.
+     * @param context The context the connections operate on or null for all contexts.
+     * @param maxConnections The maximum number of connections that can be borrowed at the same time.
+     * @param maxWaitMillis The maximum time in milliseconds to wait for a connection to become available.
+     * @param readOnly Whether the pooled connections are read-only.
+     */
+    public ConnectionPool(ObjectRepository objectRepository, URI context, int maxConnections, long maxWaitMillis,
+                          boolean readOnly) {
+        if(maxConnections < 1) {
+            throw new IllegalArgumentException("A connection pool needs at least one connection");
+        }
+        this.objectRepository = objectRepository;
+        this.context = context;
+        this.maxConnections = maxConnections;
+        this.maxWaitMillis = maxWaitMillis;
+        this.readOnly = readOnly;
+        this.permits = new Semaphore(maxConnections, true);
+    }
+
+    /**
+     * Borrows a connection from the pool. If all connections are in use, waits at most the configured time
+     * for a connection to be returned or for a retained connection to become unused.
+     * The connection must be returned with {@link #release(ObjectConnection)}
+     * or {@link #retain(ObjectConnection, Object)}.
+     * @return Returns a connection operating on the context of this pool.
+     * @throws RepositoryException Thrown if no connection became available in time, the pool is closed
+     * or a new connection can't be opened.
+     */
+    public ObjectConnection borrow() throws RepositoryException {
+        if(closed) {
+            throw new RepositoryException("Connection pool is closed");
+        }
+
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire();
+            while (!acquired) {
+                reclaimUnused();
+                long remaining = deadline - System.nanoTime();
+                if(remaining <= 0) {
+                    break;
+                }
+                acquired = permits.tryAcquire(Math.min(remaining, RECLAIM_INTERVAL_NANOS), TimeUnit.NANOSECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RepositoryException("Interrupted while waiting for a connection", e);
+        }
+        recordWait(System.nanoTime() - start);
+
+        if(!acquired) {
+            timeoutCount.incrementAndGet();
+            throw new RepositoryException("No connection available within " + maxWaitMillis + "ms (" + maxConnections
+                    + " connections in use, " + retained.size() + " of them retained for reachable objects)");
+        }
+
+        try {
+            ObjectConnection connection = idle.pollFirst();
+            while (connection != null && !connection.isOpen()) {
+                connection = idle.pollFirst();
+            }
+            if(connection == null) {
+                connection = openConnection();
+            } else if(readOnly) {
+                // Read the changes committed while the connection was idle:
+                connection.begin();
+            }
+            active.incrementAndGet();
+            borrowCount.incrementAndGet();
+            return connection;
+        } catch (RepositoryException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a borrowed connection to the pool. An active transaction is rolled back and buffered mode is disabled.
+     * If the pool was closed in the meantime, the connection is closed.
+     * @param connection The connection previously obtained by {@link #borrow()}.
+     */
+    public void release(ObjectConnection connection) {
+        active.decrementAndGet();
+        giveBack(connection);
+    }
+
+    /**
+     * Keeps a borrowed connection out of the pool, because objects loaded with it are still reachable.
+     * The borrower can take it back by {@link #reclaim(ObjectConnection, Object)}. Otherwise it is returned to the pool
+     * once these objects were garbage collected and another borrower is waiting.
+     * @param connection The connection previously obtained by {@link #borrow()}.
+     * @param owner The borrower retaining the connection.
+     */
+    public void retain(ObjectConnection connection, Object owner) {
+        retained.put(connection, owner);
+        active.decrementAndGet();
+    }
+
+    /**
+     * Takes back a connection previously retained by {@link #retain(ObjectConnection, Object)}, so that it is
+     * borrowed again.
+     * @param connection The retained connection.
+     * @param owner The borrower that retained the connection.
+     * @return Returns false if the connection was returned to the pool in the meantime or the pool is closed.
+     */
+    public boolean reclaim(ObjectConnection connection, Object owner) {
+        if(!closed && retained.remove(connection, owner)) {
+            active.incrementAndGet();
+            borrowCount.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    private void reclaimUnused() {
+        for (Map.Entry<ObjectConnection, Object> entry : retained.entrySet()) {
+            ObjectConnection connection = entry.getKey();
+            if(!connection.hasLiveObjects() && retained.remove(connection, entry.getValue())) {
+                giveBack(connection);
+            }
+        }
+    }
+
+    private void giveBack(ObjectConnection connection) {
+        try {
+            if(connection.isOpen()) {
+                if(connection.isActive() && !connection.isReadOnly()) {
+                    logger.warn("Connection returned to pool with an active transaction, rolling back");
+                    connection.rollback();
+                }
+                connection.setWriteBehind(false);
+                connection.setTrackingObjects(true);
+                setContexts(connection);
+
+                if(closed) {
+                    connection.close();
+                } else {
+                    idle.offerFirst(connection);
+                }
+            }
+        } catch (RepositoryException e) {
+            logger.warn("Discarding pooled connection", e);
+            closeQuietly(connection);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Closes all idle connections and the retained connections whose objects were garbage collected.
+     * Connections currently borrowed are closed when they are returned.
+     */
+    public void close() {
+        closed = true;
+        ObjectConnection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            closeQuietly(connection);
+        }
+        reclaimUnused();
+    }
+
+    /**
+     * @return Returns the context the pooled connections operate on or null for all contexts.
+     */
+    public URI getContext() {
+        return context;
+    }
+
+    /**
+     * @return Returns true iff the pooled connections are read-only.
+     */
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    /**
+     * @return Returns a snapshot of the usage statistics of this pool.
+     */
+    public ConnectionPoolStatistics getStatistics() {
+        return new ConnectionPoolStatistics(maxConnections, active.get(), idle.size(), retained.size(),
+                borrowCount.get(), timeoutCount.get(), totalWaitNanos.get(), maxWaitNanos.get());
+    }
+
+    private ObjectConnection openConnection() throws RepositoryException {
+        ObjectConnection connection = readOnly ? objectRepository.getReadOnlyConnection() : objectRepository.getConnection();
+        connection.setTrackingObjects(true);
+        setContexts(connection);
+        return connection;
+    }
+
+    private void setContexts(ObjectConnection connection) {
+        if(context != null) {
+            connection.setReadContexts(context);
+            connection.setInsertContext(context);
+            connection.setRemoveContexts(context);
+        } else {
+            connection.setReadContexts(ALL_CONTEXTS);
+            connection.setInsertContext(null);
+            connection.setRemoveContexts(ALL_CONTEXTS);
+        }
+    }
+
+    private void recordWait(long nanos) {
+        totalWaitNanos.addAndGet(nanos);
+        long max = maxWaitNanos.get();
+        while (nanos > max && !maxWaitNanos.compareAndSet(max, nanos)) {
+            max = maxWaitNanos.get();
+        }
+    }
+
+    private void closeQuietly(ObjectConnection connection) {
+        try {
+            connection.close();
+        } catch (RepositoryException e) {
+            logger.warn("Could not close pooled connection", e);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.github.anno4j;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Immutable snapshot of the usage statistics of one or more {@link ConnectionPool}s.
+ */
+public class ConnectionPoolStatistics {
+
+    private final int maxConnections;
+    private final int activeConnections;
+    private final int idleConnections;
+    private final int retainedConnections;
+    private final long borrowCount;
+    private final long timeoutCount;
+    private final long totalWaitNanos;
+    private final long maxWaitNanos;
+
+    public ConnectionPoolStatistics(int maxConnections, int activeConnections, int idleConnections,
+                                    int retainedConnections, long borrowCount, long timeoutCount, long totalWaitNanos, long maxWaitNanos) {
+        this.maxConnections = maxConnections;
+        this.activeConnections = activeConnections;
+        this.idleConnections = idleConnections;
+        this.retainedConnections = retainedConnections;
+        this.borrowCount = borrowCount;
+        this.timeoutCount = timeoutCount;
+        this.totalWaitNanos = totalWaitNanos;
+        this.maxWaitNanos = maxWaitNanos;
+    }
+
+    /**
+     * Combines these statistics with the ones of another pool.
+     * @param other The statistics of the other pool.
+     * @return Returns the sum of both statistics. The maximum wait time is the maximum of both.
+     */
+    public ConnectionPoolStatistics add(ConnectionPoolStatistics other) {
+        return new ConnectionPoolStatistics(maxConnections + other.maxConnections,
+                activeConnections + other.activeConnections,
+                idleConnections + other.idleConnections,
+                retainedConnections + other.retainedConnections,
+                borrowCount + other.borrowCount,
+                timeoutCount + other.timeoutCount,
+                totalWaitNanos + other.totalWaitNanos,
+                Math.max(maxWaitNanos, other.maxWaitNanos));
+    }
+
+    /**
+     * @return Returns the maximum number of connections that can be borrowed at the same time.
+     */
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    /**
+     * @return Returns the number of connections currently borrowed.
+     */
+    public int getActiveConnections() {
+        return activeConnections;
+    }
+
+    /**
+     * @return Returns the number of open connections waiting to be borrowed.
+     */
+    public int getIdleConnections() {
+        return idleConnections;
+    }
+
+    /**
+     * @return Returns the number of returned connections kept out of the pool, because objects loaded with them
+     * are still reachable.
+     */
+    public int getRetainedConnections() {
+        return retainedConnections;
+    }
+
+    /**
+     * @return Returns the number of successful borrows.
+     */
+    public long getBorrowCount() {
+        return borrowCount;
+    }
+
+    /**
+     * @return Returns the number of borrows that failed because no connection became available in time.
+     */
+    public long getTimeoutCount() {
+        return timeoutCount;
+    }
+
+    /**
+     * @return Returns the total time in milliseconds borrowers waited for a connection.
+     */
+    public long getTotalWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(totalWaitNanos);
+    }
+
+    /**
+     * @return Returns the longest time in milliseconds a borrower waited for a connection.
+     */
+    public long getMaxWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxWaitNanos);
+    }
+
+    /**
+     * @return Returns the average time in milliseconds a borrower waited for a connection.
+     */
+    public double getAverageWaitMillis() {
+        long waits = borrowCount + timeoutCount;
+        return (waits > 0) ? totalWaitNanos / (waits * 1000000.0) : 0;
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionPoolStatistics{" +
+                "active=" + activeConnections +
+                ", idle=" + idleConnections +
+                ", retained=" + retainedConnections +
+                ", max=" + maxConnections +
+                ", borrows=" + borrowCount +
+                ", timeouts=" + timeoutCount +
+                ", averageWaitMillis=" + getAverageWaitMillis() +
+                ", maxWaitMillis=" + getMaxWaitMillis() +
+                '}';
+    }
+}
@@ -0,0 +1,144 @@
+package com.github.anno4j;
+
+import org.openrdf.query.QueryEvaluationException;
+import org.openrdf.repository.object.ObjectConnection;
+import org.openrdf.repository.object.exceptions.ObjectStoreException;
+import org.openrdf.result.Result;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazily iterates the objects of a query result, so that only the objects of the current page are kept in memory.
+ * The objects are created while iterating, a page of query results at a time.
+ * Once a page was consumed, its objects are released by the connection, so they can be garbage collected as soon as
+ * the caller drops them.
+ * <br/>
+ * The iterator must be closed if it is not consumed completely, e.g. by a try-with-resources statement.
+ * It is closed automatically once its last object was returned.
+ * Errors while reading the results are thrown as {@link ObjectStoreException}.
+ *
+ * @param <T> The type of the objects.
+ */
+public class ObjectIterator<T> implements Iterator<T>, Closeable {
+
+    /**
+     * The default number of objects released together.
+     */
+    public static final int DEFAULT_PAGE_SIZE = 64;
+
+    private final ObjectConnection connection;
+    private final Result<T> result;
+    private final int pageSize;
+    private final Transaction borrowed;
+    private final List<T> page;
+    private boolean closed;
+
+    /**
+     * @param connection The connection the result was obtained from.
+     * @param result The result to iterate.
+     * @param pageSize The number of objects to release together.
+     */
+    public ObjectIterator(ObjectConnection connection, Result<T> result, int pageSize) {
+        this(connection, result, pageSize, null);
+    }
+
+    /**
+     * @param connection The connection the result was obtained from.
+     * @param result The result to iterate.
+     * @param pageSize The number of objects to release together.
+     * @param borrowed The transaction borrowed for this iterator, which is released once the iterator is closed,
+     *                 or null. Its connection is kept out of the pool while this iterator is open
+     *                 and while objects returned by it are reachable.
+     */
+    ObjectIterator(ObjectConnection connection, Result<T> result, int pageSize, Transaction borrowed) {
+        if(pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        this.connection = connection;
+        this.result = result;
+        this.pageSize = pageSize;
+        this.borrowed = borrowed;
+        this.page = new ArrayList<>(pageSize);
+        connection.track(this);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if(closed) {
+            return false;
+        }
+        try {
+            if(result.hasNext()) {
+                return true;
+            }
+        } catch (QueryEvaluationException e) {
+            closeQuietly();
+            throw new ObjectStoreException(e);
+        }
+        close();
+        return false;
+    }
+
+    @Override
+    public T next() {
+        if(!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        if(page.size() >= pageSize) {
+            connection.release(page);
+            page.clear();
+        }
+        try {
+            T object = result.next();
+            page.add(object);
+            return object;
+        } catch (QueryEvaluationException e) {
+            closeQuietly();
+            throw new ObjectStoreException(e);
+        }
+    }
+
+    /**
+     * Not supported, objects can't be removed from a query result.
+     */
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Closes the underlying query result and releases the remaining objects.
+     * Closing an iterator twice has no effect.
+     */
+    @Override
+    public void close() {
+        if(closed) {
+            return;
+        }
+        closed = true;
+        try {
+            result.close();
+        } catch (QueryEvaluationException e) {
+            throw new ObjectStoreException(e);
+        } finally {
+            connection.release(page);
+            page.clear();
+            connection.untrack(this);
+            if(borrowed != null && borrowed.isPooled()) {
+                borrowed.release();
+            }
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (ObjectStoreException ignored) {
+            // the original error is thrown instead
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.github.anno4j;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Immutable summary of a bulk persist by {@link TransactionCommands#persistAll(java.util.Collection)}.
+ */
+public class PersistStatistics {
+
+    private final int objectCount;
+    private final long statementCount;
+    private final int batchCount;
+    private final long durationNanos;
+
+    public PersistStatistics(int objectCount, long statementCount, int batchCount, long durationNanos) {
+        this.objectCount = objectCount;
+        this.statementCount = statementCount;
+        this.batchCount = batchCount;
+        this.durationNanos = durationNanos;
+    }
+
+    /**
+     * @return Returns the number of objects that were persisted, not counting the objects they refer to.
+     */
+    public int getObjectCount() {
+        return objectCount;
+    }
+
+    /**
+     * @return Returns the number of statements written.
+     */
+    public long getStatementCount() {
+        return statementCount;
+    }
+
+    /**
+     * @return Returns the number of repository adds used to write the statements.
+     */
+    public int getBatchCount() {
+        return batchCount;
+    }
+
+    /**
+     * @return Returns the time in milliseconds spent gathering and writing the statements.
+     */
+    public long getDurationMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(durationNanos);
+    }
+
+    /**
+     * @return Returns the number of statements written per second or 0 if nothing was written.
+     */
+    public double getStatementsPerSecond() {
+        return (durationNanos > 0) ? statementCount * 1000000000.0 / durationNanos : 0;
+    }
+
+    @Override
+    public String toString() {
+        return "PersistStatistics{" +
+                "objects=" + objectCount +
+                ", statements=" + statementCount +
+                ", batches=" + batchCount +
+                ", durationMillis=" + getDurationMillis() +
+                ", statementsPerSecond=" + getStatementsPerSecond() +
+                '}';
+    }
+}
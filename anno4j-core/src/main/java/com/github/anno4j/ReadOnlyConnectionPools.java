@@ -0,0 +1,77 @@
+package com.github.anno4j;
+
+import org.openrdf.model.URI;
+import org.openrdf.repository.RepositoryException;
+import org.openrdf.repository.object.ObjectRepository;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Thread-safe pools of read-only connections indexed by the context they read, e.g. for querying multiple
+ * contexts in parallel by {@link com.github.anno4j.querying.QueryService#executeInContexts}.
+ * The pool of a context is created when it is first requested.
+ */
+public class ReadOnlyConnectionPools {
+
+    private final ObjectRepository objectRepository;
+
+    private final int maxConnections;
+
+    private final long maxWaitMillis;
+
+    private final Map<URI, ConnectionPool> pools = new HashMap<>();
+
+    private boolean closed = false;
+
+    /**
+     * @param objectRepository The repository to open connections to.
+     * @param maxConnections The maximum number of connections per context that can be borrowed at the same time.
+     * @param maxWaitMillis The maximum time in milliseconds to wait for a connection to become available.
+     */
+    public ReadOnlyConnectionPools(ObjectRepository objectRepository, int maxConnections, long maxWaitMillis) {
+        this.objectRepository = objectRepository;
+        this.maxConnections = maxConnections;
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    /**
+     * Returns the pool of read-only connections reading the given context.
+     * @param context The context the connections read.
+     * @return Returns the pool of the context.
+     * @throws RepositoryException Thrown if the pools are closed.
+     */
+    public synchronized ConnectionPool get(URI context) throws RepositoryException {
+        if(closed) {
+            throw new RepositoryException("Connection pools are closed");
+        }
+        ConnectionPool pool = pools.get(context);
+        if(pool == null) {
+            pool = new ConnectionPool(objectRepository, context, maxConnections, maxWaitMillis, true);
+            pools.put(context, pool);
+        }
+        return pool;
+    }
+
+    /**
+     * @return Returns the combined usage statistics of the pools of all contexts.
+     */
+    public synchronized ConnectionPoolStatistics getStatistics() {
+        ConnectionPoolStatistics statistics = new ConnectionPoolStatistics(0, 0, 0, 0, 0, 0, 0, 0);
+        for (ConnectionPool pool : pools.values()) {
+            statistics = statistics.add(pool.getStatistics());
+        }
+        return statistics;
+    }
+
+    /**
+     * Closes the pools of all contexts. Connections currently borrowed are closed when they are returned.
+     */
+    public synchronized void close() {
+        closed = true;
+        for (ConnectionPool pool : pools.values()) {
+            pool.close();
+        }
+        pools.clear();
+    }
+}
@@ -0,0 +1,23 @@
+package com.github.anno4j;
+
+/**
+ * Listener that is notified about the phases of the construction of {@link Anno4j} instances,
+ * e.g. to track startup regressions.
+ * Listeners are registered by {@link Anno4j#addStartupListener(StartupListener)} or as a service
+ * in <code>META-INF/services/com.github.anno4j.StartupListener</code>.
+ * Listeners are called on the constructing thread and should return quickly.
+ */
+public interface StartupListener {
+
+    /**
+     * Called after a phase of the construction has finished.
+     * @param phase The measurement of the finished phase.
+     */
+    void phaseCompleted(StartupPhase phase);
+
+    /**
+     * Called after the construction has finished successfully.
+     * @param report The report of all phases.
+     */
+    void startupCompleted(StartupReport report);
+}
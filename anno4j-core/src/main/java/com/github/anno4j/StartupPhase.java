@@ -0,0 +1,114 @@
+package com.github.anno4j;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measurement of a single phase of the construction of an {@link Anno4j} instance.
+ */
+public class StartupPhase {
+
+    /**
+     * Loading the build-time class index or scanning the classpath for annotated classes.
+     * The items are the classes in the index.
+     */
+    public static final String CLASS_INDEX = "classIndex";
+
+    /**
+     * Indexing the {@link org.openrdf.annotations.Iri} annotated concepts.
+     */
+    public static final String INDEX_CONCEPTS = "indexConcepts";
+
+    /**
+     * Finding the {@link com.github.anno4j.annotations.Partial} behaviours.
+     */
+    public static final String PARTIAL_CLASSES = "partialClasses";
+
+    /**
+     * Registering the LDPath evaluators.
+     */
+    public static final String SCAN_EVALUATORS = "scanForEvaluators";
+
+    /**
+     * Initializing the underlying Sesame repository.
+     */
+    public static final String INITIALIZE_REPOSITORY = "initializeRepository";
+
+    /**
+     * Mapping the concepts and behaviours to RDF types, including the role scanning of the
+     * {@link org.openrdf.repository.object.managers.helpers.RoleClassLoader}.
+     */
+    public static final String ROLE_MAPPING = "roleMapping";
+
+    /**
+     * Creating the object repository, i.e. the class resolver and proxy composition.
+     */
+    public static final String CREATE_REPOSITORY = "createRepository";
+
+    /**
+     * Persisting the schema annotations.
+     */
+    public static final String PERSIST_SCHEMA = "persistSchemaAnnotations";
+
+    private final String name;
+    private final long durationNanos;
+    private final long allocatedBytes;
+    private final int itemCount;
+
+    /**
+     * @param name The name of the phase.
+     * @param durationNanos The wall-clock duration of the phase in nanoseconds.
+     * @param allocatedBytes The bytes allocated by the constructing thread during the phase or -1 if unknown.
+     * @param itemCount The number of items processed in the phase or -1 if the phase has no items.
+     */
+    public StartupPhase(String name, long durationNanos, long allocatedBytes, int itemCount) {
+        this.name = name;
+        this.durationNanos = durationNanos;
+        this.allocatedBytes = allocatedBytes;
+        this.itemCount = itemCount;
+    }
+
+    /**
+     * @return Returns the name of the phase, e.g. {@link #CLASS_INDEX}.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return Returns the wall-clock duration of the phase in nanoseconds.
+     */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /**
+     * @return Returns the wall-clock duration of the phase in milliseconds.
+     */
+    public long getDurationMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(durationNanos);
+    }
+
+    /**
+     * Returns the bytes allocated during the phase. Only allocations of the thread constructing the
+     * {@link Anno4j} instance are counted, e.g. the threads of a parallel classpath scan are not.
+     * @return Returns the allocated bytes or -1 if the JVM does not support measuring allocations.
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * @return Returns the number of items processed in this phase (e.g. concepts indexed)
+     * or -1 if the phase does not process countable items.
+     */
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    @Override
+    public String toString() {
+        return name + ": " + getDurationMillis() + "ms"
+                + (allocatedBytes >= 0 ? ", " + allocatedBytes + " bytes" : "")
+                + (itemCount >= 0 ? ", " + itemCount + " items" : "");
+    }
+}
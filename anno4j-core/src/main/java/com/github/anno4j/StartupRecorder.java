@@ -0,0 +1,100 @@
+package com.github.anno4j;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Records the {@link StartupPhase}s of the construction of an {@link Anno4j} instance and notifies the listeners.
+ * Phases must not be nested.
+ */
+class StartupRecorder {
+
+    private final Logger logger = LoggerFactory.getLogger(StartupRecorder.class);
+
+    private final Collection<StartupListener> listeners;
+
+    private final List<StartupPhase> phases = new ArrayList<>();
+
+    private String currentPhase;
+    private long startNanos;
+    private long startBytes;
+
+    StartupRecorder(Collection<StartupListener> listeners) {
+        this.listeners = listeners;
+    }
+
+    /**
+     * Starts measuring a phase.
+     * @param name The name of the phase.
+     */
+    void begin(String name) {
+        currentPhase = name;
+        startBytes = allocatedBytes();
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * Finishes the measurement of the current phase.
+     * @param itemCount The number of items processed in the phase or -1 if not applicable.
+     */
+    void end(int itemCount) {
+        long duration = System.nanoTime() - startNanos;
+        long bytes = allocatedBytes();
+        StartupPhase phase = new StartupPhase(currentPhase, duration, (bytes >= 0 && startBytes >= 0) ? bytes - startBytes : -1, itemCount);
+        currentPhase = null;
+
+        phases.add(phase);
+        logger.debug("Startup phase {}", phase);
+        for (StartupListener listener : listeners) {
+            try {
+                listener.phaseCompleted(phase);
+            } catch (RuntimeException e) {
+                logger.warn("Startup listener failed", e);
+            }
+        }
+    }
+
+    /**
+     * @return Returns true iff a phase was started and not yet finished.
+     */
+    boolean isRecording() {
+        return currentPhase != null;
+    }
+
+    /**
+     * Creates the report of all finished phases and notifies the listeners.
+     * @return Returns the report.
+     */
+    StartupReport complete() {
+        StartupReport report = new StartupReport(phases);
+        logger.debug("{}", report);
+        for (StartupListener listener : listeners) {
+            try {
+                listener.startupCompleted(report);
+            } catch (RuntimeException e) {
+                logger.warn("Startup listener failed", e);
+            }
+        }
+        return report;
+    }
+
+    /**
+     * @return Returns the bytes allocated by the current thread so far or -1 if not supported by the JVM.
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+            if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()) {
+                return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+}
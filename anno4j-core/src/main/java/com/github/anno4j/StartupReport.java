@@ -0,0 +1,80 @@
+package com.github.anno4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Report of the phases of the construction of an {@link Anno4j} instance in the order they were executed.
+ * See {@link Anno4j#getStartupReport()}.
+ */
+public class StartupReport {
+
+    private final List<StartupPhase> phases;
+
+    public StartupReport(List<StartupPhase> phases) {
+        this.phases = Collections.unmodifiableList(new ArrayList<>(phases));
+    }
+
+    /**
+     * @return Returns the measured phases in execution order.
+     */
+    public List<StartupPhase> getPhases() {
+        return phases;
+    }
+
+    /**
+     * @param name The name of the phase, e.g. {@link StartupPhase#CLASS_INDEX}.
+     * @return Returns the phase with the given name or null if it was not executed.
+     */
+    public StartupPhase getPhase(String name) {
+        for (StartupPhase phase : phases) {
+            if (phase.getName().equals(name)) {
+                return phase;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return Returns the sum of the durations of all phases in nanoseconds.
+     */
+    public long getTotalDurationNanos() {
+        long total = 0;
+        for (StartupPhase phase : phases) {
+            total += phase.getDurationNanos();
+        }
+        return total;
+    }
+
+    /**
+     * @return Returns the sum of the durations of all phases in milliseconds.
+     */
+    public long getTotalDurationMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(getTotalDurationNanos());
+    }
+
+    /**
+     * @return Returns the bytes allocated in all phases or -1 if allocations could not be measured.
+     */
+    public long getTotalAllocatedBytes() {
+        long total = 0;
+        for (StartupPhase phase : phases) {
+            if (phase.getAllocatedBytes() < 0) {
+                return -1;
+            }
+            total += phase.getAllocatedBytes();
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder("Anno4j startup took ").append(getTotalDurationMillis()).append("ms");
+        for (StartupPhase phase : phases) {
+            report.append("\n  ").append(phase);
+        }
+        return report.toString();
+    }
+}
@@ -1,30 +1,111 @@
 package com.github.anno4j;
 
+import com.github.anno4j.model.Annotation;
+import com.github.anno4j.model.CascadingDelete;
 import com.github.anno4j.model.impl.ResourceObject;
+import com.github.anno4j.querying.QueryPlanCache;
 import com.github.anno4j.querying.QueryService;
+import com.github.anno4j.querying.StoreStatistics;
 import com.github.anno4j.querying.evaluation.LDPathEvaluatorConfiguration;
 import org.openrdf.idGenerator.IDGenerator;
+import org.openrdf.model.Model;
 import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
 import org.openrdf.model.URI;
+import org.openrdf.model.Value;
+import org.openrdf.model.impl.LinkedHashModel;
 import org.openrdf.model.impl.URIImpl;
+import org.openrdf.model.vocabulary.RDF;
 import org.openrdf.query.QueryEvaluationException;
 import org.openrdf.repository.RepositoryException;
+import org.openrdf.repository.RepositoryResult;
+import org.openrdf.repository.object.FetchPlan;
 import org.openrdf.repository.object.ObjectConnection;
 import org.openrdf.repository.object.ObjectFactory;
 import org.openrdf.repository.object.ObjectRepository;
 
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class Transaction implements TransactionCommands {
 
     private static final URI[] ALL_CONTEXTS = new URI[0];
 
+    /**
+     * The default maximum number of statements written by a single add of {@link #persistAll(Collection)}.
+     */
+    public static final int DEFAULT_PERSIST_BATCH_SIZE = 10000;
+
+    /**
+     * The default number of references followed from an object by {@link #persistAll(Collection)},
+     * e.g. from an annotation to a target, its selector and a refining selector.
+     */
+    public static final int DEFAULT_PERSIST_DEPTH = 3;
+
     private final ObjectConnection connection;
     private final LDPathEvaluatorConfiguration evaluatorConfiguration;
 
+    /**
+     * The pool the connection was borrowed from or null if the connection is owned by this transaction.
+     */
+    private final ConnectionPool pool;
+
+    /**
+     * The statistics query services optimize their queries with or null.
+     */
+    private StoreStatistics statistics;
+
+    /**
+     * The cache query services share their compiled queries by or null.
+     */
+    private QueryPlanCache planCache;
+
+    /**
+     * The read-only connections query services query multiple contexts on or null.
+     */
+    private ReadOnlyConnectionPools contextPools;
+
     public Transaction(ObjectRepository objectRepository, LDPathEvaluatorConfiguration evaluatorConfiguration) throws RepositoryException {
-        this.connection = objectRepository.getConnection();
+        this(objectRepository, evaluatorConfiguration, false);
+    }
+
+    /**
+     * Creates a transaction on a new connection of the given repository.
+     * @param objectRepository The repository to connect to.
+     * @param evaluatorConfiguration The LDPath evaluators used by query services.
+     * @param readOnly Whether the transaction only reads. A read-only transaction reads from a single snapshot of
+     *                 the store, keeps no bookkeeping for written objects and rejects any modification.
+     * @throws RepositoryException Thrown if no connection can be created.
+     * @see ObjectRepository#getReadOnlyConnection()
+     */
+    public Transaction(ObjectRepository objectRepository, LDPathEvaluatorConfiguration evaluatorConfiguration, boolean readOnly) throws RepositoryException {
+        if(readOnly) {
+            this.connection = objectRepository.getReadOnlyConnection();
+        } else {
+            this.connection = objectRepository.getConnection();
+        }
+        this.evaluatorConfiguration = evaluatorConfiguration;
+        this.pool = null;
+    }
+
+    /**
+     * Creates a transaction on a connection borrowed from the given pool.
+     * The connection is returned to the pool when the transaction is closed.
+     * @param pool The pool to borrow the connection from.
+     * @param evaluatorConfiguration The LDPath evaluators used by query services.
+     * @throws RepositoryException Thrown if no connection can be borrowed.
+     */
+    Transaction(ConnectionPool pool, LDPathEvaluatorConfiguration evaluatorConfiguration) throws RepositoryException {
+        this.connection = pool.borrow();
         this.evaluatorConfiguration = evaluatorConfiguration;
+        this.pool = pool;
     }
 
     /**
@@ -37,10 +118,21 @@ public class Transaction implements TransactionCommands {
         return connection.isActive();
     }
 
+    /**
+     * Begins a new transaction. A read-only transaction starts reading from a new snapshot of the store instead.
+     */
     public void begin() throws RepositoryException {
         connection.begin();
     }
 
+    /**
+     * @return Returns true iff this transaction rejects modifications and reads from a snapshot of the store.
+     * @see Anno4j#createReadOnlyTransaction()
+     */
+    public boolean isReadOnly() {
+        return connection.isReadOnly();
+    }
+
     /**
      * Commits the active transaction. This operation ends the active
      * transaction.
@@ -57,6 +149,37 @@ public class Transaction implements TransactionCommands {
         connection.rollback();
     }
 
+    /**
+     * Enables or disables the buffered (write-behind) mode of this transaction.
+     * While buffered, the statements added and removed by property setters between {@link #begin()} and
+     * {@link #commit()} are recorded in memory and only the net changes are written to the store in one batch
+     * at commit. Reads of the properties and object queries of this transaction see the buffered changes.
+     * Outside of {@link #begin()} and {@link #commit()} changes are written immediately.
+     * Disabling the mode writes the changes buffered so far.
+     * @param buffered Whether changes are buffered until commit.
+     * @throws RepositoryException Thrown if buffered changes can't be written.
+     */
+    public void setBuffered(boolean buffered) throws RepositoryException {
+        connection.setWriteBehind(buffered);
+    }
+
+    /**
+     * @return Returns true iff changes are buffered until commit.
+     * @see #setBuffered(boolean)
+     */
+    public boolean isBuffered() {
+        return connection.isWriteBehind();
+    }
+
+    /**
+     * Writes the changes buffered so far to the store without ending the active transaction.
+     * @throws RepositoryException Thrown if the changes can't be written.
+     * @see #setBuffered(boolean)
+     */
+    public void flush() throws RepositoryException {
+        connection.flush();
+    }
+
     /**
      * {@inheritDoc }
      */
@@ -130,6 +253,116 @@ public class Transaction implements TransactionCommands {
         connection.addObject(resource);
     }
 
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public PersistStatistics persistAll(Collection<? extends ResourceObject> resources) throws RepositoryException {
+        return persistAll(resources, DEFAULT_PERSIST_BATCH_SIZE);
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public PersistStatistics persistAll(Collection<? extends ResourceObject> resources, int batchSize) throws RepositoryException {
+        return persistAll(resources, DEFAULT_PERSIST_DEPTH, batchSize);
+    }
+
+    /**
+     * {@inheritDoc }
+     * Objects already loaded by the connection of this transaction are skipped, like by {@link #persist(ResourceObject)}.
+     * Statements of the persisted graph are copied without their source context into the insert context of this
+     * transaction. In auto-commit mode every batch is committed on its own.
+     */
+    @Override
+    public PersistStatistics persistAll(Collection<? extends ResourceObject> resources, int depth, int batchSize) throws RepositoryException {
+        if(depth < 0) {
+            throw new IllegalArgumentException("Depth must not be negative");
+        }
+        if(batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        long start = System.nanoTime();
+        Model model = new LinkedHashModel();
+        Set<Resource> visited = new HashSet<>();
+        Set<Resource> existing = new HashSet<>();
+        int objects = 0;
+        long statements = 0;
+        int batches = 0;
+
+        for (ResourceObject resource : resources) {
+            ObjectConnection source = resource.getObjectConnection();
+            if(source == connection || !visited.add(resource.getResource())) {
+                continue;
+            }
+            objects++;
+
+            // Walk the graph reachable from the object breadth first, one level of references at a time:
+            Deque<Resource> pending = new ArrayDeque<>();
+            pending.add(resource.getResource());
+            for (int level = 0; pending != null; level++) {
+                Deque<Resource> next = (level < depth) ? new ArrayDeque<Resource>() : null;
+                while (!pending.isEmpty()) {
+                    readStatements(source, pending.poll(), model, visited, existing, next);
+                    if(model.size() >= batchSize) {
+                        statements += model.size();
+                        batches++;
+                        connection.add(model);
+                        model.clear();
+                    }
+                }
+                pending = (next == null || next.isEmpty()) ? null : next;
+            }
+        }
+        if(!model.isEmpty()) {
+            statements += model.size();
+            batches++;
+            connection.add(model);
+        }
+        return new PersistStatistics(objects, statements, batches, System.nanoTime() - start);
+    }
+
+    /**
+     * Adds the explicit statements about a subject to the model and queues the resources it refers to.
+     * The classes of the subject and resources that already exist in the store of this transaction are not followed.
+     * @param visited The resources read or queued so far.
+     * @param existing The referenced resources found in the store of this transaction so far.
+     * @param pending The queue of the referenced resources or null if the maximum depth is reached.
+     */
+    private void readStatements(ObjectConnection source, Resource subject, Model model, Set<Resource> visited,
+                                Set<Resource> existing, Deque<Resource> pending) throws RepositoryException {
+        RepositoryResult<Statement> result = source.getStatements(subject, null, null, false);
+        try {
+            while (result.hasNext()) {
+                Statement statement = result.next();
+                Value object = statement.getObject();
+                model.add(subject, statement.getPredicate(), object);
+                if(pending != null && object instanceof Resource && !RDF.TYPE.equals(statement.getPredicate())) {
+                    Resource reference = (Resource) object;
+                    if(!visited.contains(reference) && !existing.contains(reference)) {
+                        if(exists(reference)) {
+                            existing.add(reference);
+                        } else {
+                            visited.add(reference);
+                            pending.add(reference);
+                        }
+                    }
+                }
+            }
+        } finally {
+            result.close();
+        }
+    }
+
+    /**
+     * @return Returns true if the given resource is an IRI that is the subject of statements in the read contexts of
+     * this transaction. Blank nodes of another store never exist in this one.
+     */
+    private boolean exists(Resource resource) throws RepositoryException {
+        return resource instanceof URI && connection.hasStatement(resource, null, null, false);
+    }
+
     /**
      * {@inheritDoc }
      */
@@ -150,6 +383,60 @@ public class Transaction implements TransactionCommands {
         return findByID(type, id.toString());
     }
 
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public <T extends ResourceObject> Map<URI, T> findByIDs(Class<T> type, Collection<URI> ids) throws RepositoryException {
+        try {
+            Map<URI, T> objects = new LinkedHashMap<>();
+            for (Map.Entry<Resource, T> entry : connection.findObjects(type, ids).entrySet()) {
+                objects.put((URI) entry.getKey(), entry.getValue());
+            }
+            return objects;
+        } catch (QueryEvaluationException e) {
+            throw new RepositoryException("Couldn't evaluate query", e);
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public <T extends ResourceObject> T findByID(Class<T> type, String id, FetchPlan plan) throws RepositoryException {
+        T object = findByID(type, id);
+        if(object != null) {
+            fetch(plan, Collections.singleton(object));
+        }
+        return object;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public <T extends ResourceObject> Map<URI, T> findByIDs(Class<T> type, Collection<URI> ids, FetchPlan plan) throws RepositoryException {
+        Map<URI, T> objects = findByIDs(type, ids);
+        fetch(plan, objects.values());
+        return objects;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void deleteAll(Collection<? extends Annotation> annotations) throws RepositoryException {
+        deleteAll(annotations, CascadingDelete.DEFAULT_DEPTH, CascadingDelete.DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void deleteAll(Collection<? extends Annotation> annotations, int depth, int batchSize) throws RepositoryException {
+        CascadingDelete.delete(connection, annotations, depth, batchSize);
+    }
+
     /**
      * {@inheritDoc }
      */
@@ -178,12 +465,87 @@ public class Transaction implements TransactionCommands {
         }
     }
 
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public <T extends ResourceObject> List<T> findAll(Class<T> type, FetchPlan plan) throws RepositoryException {
+        List<T> objects = findAll(type);
+        fetch(plan, objects);
+        return objects;
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public <T extends ResourceObject> ObjectIterator<T> streamAll(Class<T> type) throws RepositoryException {
+        return streamAll(type, null);
+    }
+
+    /**
+     * Lazily iterates all instances of the given type.
+     * @param type Class with connected RDF type
+     * @param borrowed The transaction to release once the iterator is closed or null.
+     * @return An iterator over all instances of the given RDF type
+     * @throws RepositoryException Thrown if the query can't be evaluated.
+     */
+    <T extends ResourceObject> ObjectIterator<T> streamAll(Class<T> type, Transaction borrowed) throws RepositoryException {
+        try {
+            return new ObjectIterator<>(connection, connection.getObjects(type), ObjectIterator.DEFAULT_PAGE_SIZE, borrowed);
+        } catch (QueryEvaluationException e) {
+            throw new RepositoryException("Couldn't evaluate query" , e);
+        }
+    }
+
+    /**
+     * Loads the property paths of the fetch plan for objects of this transaction.
+     * @param plan The property paths to load.
+     * @param objects The objects loaded by this transaction.
+     * @throws RepositoryException Thrown if the paths can't be loaded.
+     */
+    public void fetch(FetchPlan plan, Collection<?> objects) throws RepositoryException {
+        try {
+            connection.fetch(plan, objects);
+        } catch (QueryEvaluationException e) {
+            throw new RepositoryException("Couldn't evaluate query", e);
+        }
+    }
+
+    /**
+     * @param statistics The statistics of the store the query services of this transaction optimize their queries
+     *                   with or null.
+     */
+    void setStatistics(StoreStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    /**
+     * @param planCache The cache the query services of this transaction share their compiled queries by or null.
+     */
+    void setQueryPlanCache(QueryPlanCache planCache) {
+        this.planCache = planCache;
+    }
+
+    /**
+     * @param contextPools The read-only connections the query services of this transaction query multiple contexts
+     *                     on or null.
+     */
+    void setContextPools(ReadOnlyConnectionPools contextPools) {
+        this.contextPools = contextPools;
+    }
+
     /**
      * {@inheritDoc }
      */
     @Override
     public QueryService createQueryService() {
-        return new QueryService(connection, evaluatorConfiguration);
+        QueryService queryService = new QueryService(connection, evaluatorConfiguration)
+                .useStatistics(statistics)
+                .usePlanCache(planCache)
+                .useContextPools(contextPools);
+        connection.track(queryService);
+        return queryService;
     }
 
     /**
@@ -204,8 +566,49 @@ public class Transaction implements TransactionCommands {
         return connection.addDesignation(object, clazz);
     }
 
+    /**
+     * Closes the connection of this transaction or returns it to its pool, if it was borrowed from one.
+     */
     public void close() throws RepositoryException {
-        connection.close();
+        if(pool != null) {
+            pool.release(connection);
+        } else {
+            connection.close();
+        }
+    }
+
+    /**
+     * Ends a call of {@link Anno4j} on a borrowed connection. The connection stays with this transaction while
+     * objects or query services loaded with it are reachable and is returned to the pool otherwise.
+     */
+    void release() {
+        if(connection.hasLiveObjects()) {
+            pool.retain(connection, this);
+        } else {
+            pool.release(connection);
+        }
+    }
+
+    /**
+     * Borrows the connection of a released transaction again.
+     * @return Returns false if the connection went back to the pool in the meantime.
+     */
+    boolean reclaim() {
+        return pool.reclaim(connection, this);
+    }
+
+    /**
+     * @return Returns the pool the connection was borrowed from or null.
+     */
+    ConnectionPool getPool() {
+        return pool;
+    }
+
+    /**
+     * @return Returns true iff the connection of this transaction was borrowed from a {@link ConnectionPool}.
+     */
+    boolean isPooled() {
+        return pool != null;
     }
 
     public ObjectConnection getConnection() {
@@ -1,13 +1,18 @@
 package com.github.anno4j;
 
+import com.github.anno4j.model.Annotation;
+import com.github.anno4j.model.CascadingDelete;
 import com.github.anno4j.model.impl.ResourceObject;
 import com.github.anno4j.querying.QueryService;
 import org.openrdf.model.Resource;
 import org.openrdf.model.URI;
 import org.openrdf.repository.RepositoryException;
+import org.openrdf.repository.object.FetchPlan;
 import org.openrdf.repository.object.ObjectRepository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface TransactionCommands {
     /**
@@ -17,10 +22,94 @@ public interface TransactionCommands {
      */
     void persist(ResourceObject resource) throws RepositoryException;
 
+    /**
+     * Writes the resource objects and the objects they refer to. All type and property statements are read from the
+     * connections the objects were loaded by and are written with one repository add per
+     * {@link Transaction#DEFAULT_PERSIST_BATCH_SIZE} statements. References are followed up to
+     * {@link Transaction#DEFAULT_PERSIST_DEPTH} times; referenced resources that already exist are not written again.
+     * @param resources resource objects to write
+     * @return Returns the number of statements written and the throughput.
+     * @throws RepositoryException
+     */
+    PersistStatistics persistAll(Collection<? extends ResourceObject> resources) throws RepositoryException;
+
+    /**
+     * Writes the resource objects and the objects they refer to with one repository add per batch of statements.
+     * @param resources resource objects to write
+     * @param batchSize The maximum number of statements written by a single add.
+     * @return Returns the number of statements written and the throughput.
+     * @throws RepositoryException
+     */
+    PersistStatistics persistAll(Collection<? extends ResourceObject> resources, int batchSize) throws RepositoryException;
+
+    /**
+     * Writes the resource objects and the objects they refer to with one repository add per batch of statements.
+     * Referenced resources that already have statements in the target, e.g. shared creators or vocabulary terms,
+     * are neither written nor followed.
+     * @param resources resource objects to write
+     * @param depth The maximum number of references followed from a resource object, 0 to write the resource
+     *              objects only.
+     * @param batchSize The maximum number of statements written by a single add.
+     * @return Returns the number of statements written and the throughput.
+     * @throws RepositoryException
+     */
+    PersistStatistics persistAll(Collection<? extends ResourceObject> resources, int depth, int batchSize) throws RepositoryException;
+
     <T extends ResourceObject> T findByID(Class<T> type, String id) throws RepositoryException;
 
     <T extends ResourceObject> T findByID(Class<T> type, URI id) throws RepositoryException;
 
+    /**
+     * Queries for the instances of the given class with the given IRIs.
+     * The resources are loaded in chunks of fixed size, so large numbers of IRIs need only few queries.
+     * @param type Class with connected RDF type
+     * @param ids The IRIs of the resources to find.
+     * @return The instances found indexed by their IRI in the order of the given IRIs. IRIs of resources that are not
+     * instances of the given type are not contained.
+     * @throws RepositoryException
+     */
+    <T extends ResourceObject> Map<URI, T> findByIDs(Class<T> type, Collection<URI> ids) throws RepositoryException;
+
+    /**
+     * Queries for the instance of the given class with the given IRI and loads the property paths of the fetch plan,
+     * e.g. its bodies and the selectors of its targets, with a single query.
+     * @param type Class with connected RDF type
+     * @param id The IRI of the resource to find.
+     * @param plan The property paths to load together with the instance.
+     * @return The instance or null if the resource is not an instance of the given type.
+     * @throws RepositoryException
+     */
+    <T extends ResourceObject> T findByID(Class<T> type, String id, FetchPlan plan) throws RepositoryException;
+
+    /**
+     * Queries for the instances of the given class with the given IRIs and loads the property paths of the fetch plan
+     * for all of them.
+     * @param type Class with connected RDF type
+     * @param ids The IRIs of the resources to find.
+     * @param plan The property paths to load together with the instances.
+     * @return The instances found indexed by their IRI in the order of the given IRIs.
+     * @throws RepositoryException
+     */
+    <T extends ResourceObject> Map<URI, T> findByIDs(Class<T> type, Collection<URI> ids, FetchPlan plan) throws RepositoryException;
+
+    /**
+     * Deletes the annotations together with their bodies, targets and their selectors, states and styles.
+     * The annotations are deleted with one SPARQL update per {@link CascadingDelete#DEFAULT_BATCH_SIZE} annotations.
+     * @param annotations annotations to delete
+     * @throws RepositoryException
+     */
+    void deleteAll(Collection<? extends Annotation> annotations) throws RepositoryException;
+
+    /**
+     * Deletes the annotations together with the resources they own with one SPARQL update per batch of annotations.
+     * @param annotations annotations to delete
+     * @param depth The maximum number of owning properties (e.g. oa:hasTarget, oa:hasSelector) followed from
+     *              an annotation.
+     * @param batchSize The maximum number of annotations deleted by a single update.
+     * @throws RepositoryException
+     */
+    void deleteAll(Collection<? extends Annotation> annotations, int depth, int batchSize) throws RepositoryException;
+
     /**
      * Removes all triples from the given context.
      * @param context context to clear
@@ -43,6 +132,26 @@ public interface TransactionCommands {
      */
     <T extends ResourceObject> List<T> findAll(Class<T> type) throws RepositoryException;
 
+    /**
+     * Queries for all instances of the RDF class connected with the given class and loads the property paths of the
+     * fetch plan for all of them.
+     * @param type Class with connected RDF type
+     * @param plan The property paths to load together with the instances.
+     * @return All instances of the given RDF type
+     * @throws RepositoryException
+     */
+    <T extends ResourceObject> List<T> findAll(Class<T> type, FetchPlan plan) throws RepositoryException;
+
+    /**
+     * Lazily iterates all instances of the RDF class connected with the given class.
+     * In contrast to {@link #findAll(Class)} the instances are created while iterating and released page by page,
+     * so the iterator must be closed if it is not consumed completely.
+     * @param type Class with connected RDF type
+     * @return An iterator over all instances of the given RDF type
+     * @throws RepositoryException
+     */
+    <T extends ResourceObject> ObjectIterator<T> streamAll(Class<T> type) throws RepositoryException;
+
     /**
      * Create query service
      *
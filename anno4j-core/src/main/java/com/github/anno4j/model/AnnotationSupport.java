@@ -8,14 +8,13 @@ import com.github.anno4j.util.TimeUtils;
 import org.apache.commons.io.IOUtils;
 import org.openrdf.annotations.Iri;
 import org.openrdf.annotations.Precedes;
-import org.openrdf.model.URI;
 import org.openrdf.repository.RepositoryException;
-import org.openrdf.repository.object.ObjectConnection;
 import org.openrdf.repository.object.exceptions.ObjectPersistException;
 import org.openrdf.rio.*;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.Collections;
 import java.util.HashSet;
 
 @Partial
@@ -171,68 +170,15 @@ public abstract class AnnotationSupport extends CreationProvenanceSupport implem
         return out.toString();
     }
 
+    /**
+     * Deletes this annotation together with its bodies, targets and their selectors, states and styles
+     * with a single update.
+     * @see CascadingDelete
+     */
     @Override
     public void delete() {
         try {
-            ObjectConnection connection = getObjectConnection();
-
-            // deleting an existing body
-            if (getBodies() != null) {
-                for (Body body : getBodies()) {
-                    body.delete();
-                }
-                setBodies(null);
-            }
-
-            // deleting existing targets one by one
-            if (getTargets() != null) {
-                for (Target target : getTargets()) {
-                    target.delete();
-                }
-                setTargets(null);
-            }
-
-            // deleting possible provenance information
-            if (this.getSerializedAt() != null) {
-                this.setSerializedAt(null);
-            }
-
-            if (this.getSerializedBy() != null) {
-                this.setSerializedBy(null);
-            }
-
-            if (this.getAnnotatedAt() != null) {
-                this.setAnnotatedAt(null);
-            }
-
-            if (this.getAnnotatedBy() != null) {
-                this.setAnnotatedBy(null);
-            }
-
-            if (this.getCreator() != null) {
-                this.setCreator(null);
-            }
-
-            if (this.getMotivatedBy() != null) {
-                this.setMotivatedBy(null);
-            }
-
-            if (this.getCreated() != null) {
-                this.setCreated(null);
-            }
-
-            if (this.getGenerated() != null) {
-                this.setGenerated(null);
-            }
-
-            if (this.getGenerator() != null) {
-                this.setGenerator(null);
-            }
-
-            // finally removing this annotation
-            connection.removeDesignation(this, (URI) getResource());
-            // explicitly removing the rdf type triple from the repository
-            connection.remove(getResource(), null, null);
+            CascadingDelete.delete(getObjectConnection(), Collections.singleton(this));
         } catch (RepositoryException e) {
             e.printStackTrace();
         }
@@ -0,0 +1,161 @@
+package com.github.anno4j.model;
+
+import com.github.anno4j.model.impl.ResourceObject;
+import com.github.anno4j.model.namespaces.OADM;
+import org.openrdf.model.Resource;
+import org.openrdf.model.URI;
+import org.openrdf.query.MalformedQueryException;
+import org.openrdf.query.QueryLanguage;
+import org.openrdf.query.UpdateExecutionException;
+import org.openrdf.repository.RepositoryException;
+import org.openrdf.repository.object.ObjectConnection;
+import org.openrdf.repository.object.traits.Refreshable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Deletes annotations together with the resources they own, i.e. their bodies, targets, selectors, states and styles,
+ * with a single SPARQL update per batch of annotations.
+ * All triples of the owned resources and all triples referring to them are removed.
+ */
+public class CascadingDelete {
+
+    /**
+     * The default number of owning properties followed from an annotation,
+     * e.g. from an annotation to a target, its selector and a refining selector.
+     */
+    public static final int DEFAULT_DEPTH = 3;
+
+    /**
+     * The default number of annotations deleted by a single update.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 250;
+
+    /**
+     * The properties that link a resource to the resources it owns.
+     */
+    private static final String[] OWNING_PROPERTIES = {
+            OADM.HAS_BODY,
+            OADM.HAS_TARGET,
+            OADM.HAS_SELECTOR,
+            OADM.REFINED_BY,
+            OADM.HAS_STATE,
+            OADM.STYLED_BY
+    };
+
+    private CascadingDelete() {
+    }
+
+    /**
+     * Deletes the given annotations and the resources they own with one update per {@link #DEFAULT_BATCH_SIZE}
+     * annotations, following the owning properties up to {@link #DEFAULT_DEPTH} times.
+     * @param connection The connection to delete from.
+     * @param annotations The annotations to delete.
+     * @throws RepositoryException Thrown if the update can't be executed.
+     */
+    public static void delete(ObjectConnection connection, Collection<? extends ResourceObject> annotations) throws RepositoryException {
+        delete(connection, annotations, DEFAULT_DEPTH, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Deletes the given annotations and the resources they own.
+     * The cached property values of the given objects are discarded afterwards.
+     * @param connection The connection to delete from.
+     * @param annotations The annotations to delete. Their resources must be IRIs.
+     * @param depth The maximum number of owning properties followed from an annotation. A depth of 0 only deletes
+     *              the annotations themselves.
+     * @param batchSize The maximum number of annotations deleted by a single update.
+     * @throws RepositoryException Thrown if the update can't be executed.
+     * @throws IllegalArgumentException Thrown if the depth is negative, the batch size is not positive or an
+     * annotation is a blank node.
+     */
+    public static void delete(ObjectConnection connection, Collection<? extends ResourceObject> annotations, int depth, int batchSize) throws RepositoryException {
+        if(depth < 0) {
+            throw new IllegalArgumentException("The depth must not be negative: " + depth);
+        }
+        if(batchSize <= 0) {
+            throw new IllegalArgumentException("The batch size must be positive: " + batchSize);
+        }
+
+        List<URI> batch = new ArrayList<>(Math.min(batchSize, annotations.size()));
+        for (ResourceObject annotation : annotations) {
+            Resource resource = annotation.getResource();
+            if(!(resource instanceof URI)) {
+                throw new IllegalArgumentException("Only annotations identified by an IRI can be deleted: " + resource);
+            }
+            batch.add((URI) resource);
+            if(batch.size() >= batchSize) {
+                execute(connection, batch, depth);
+                batch.clear();
+            }
+        }
+        if(!batch.isEmpty()) {
+            execute(connection, batch, depth);
+        }
+
+        // The deleted objects must not serve their former property values:
+        for (ResourceObject annotation : annotations) {
+            if(annotation instanceof Refreshable) {
+                ((Refreshable) annotation).refresh();
+            }
+        }
+        connection.release(annotations);
+    }
+
+    private static void execute(ObjectConnection connection, List<URI> annotations, int depth) throws RepositoryException {
+        try {
+            connection.prepareUpdate(QueryLanguage.SPARQL, createUpdate(annotations, depth), null).execute();
+        } catch (MalformedQueryException | UpdateExecutionException e) {
+            throw new RepositoryException("Couldn't delete annotations", e);
+        }
+    }
+
+    /**
+     * Creates the update deleting the given annotations. The resources owned by an annotation are matched with
+     * a property path of {@code depth} optional steps along the owning properties.
+     * @param annotations The IRIs of the annotations to delete.
+     * @param depth The maximum number of owning properties followed.
+     * @return Returns the SPARQL update.
+     */
+    static String createUpdate(Collection<URI> annotations, int depth) {
+        StringBuilder values = new StringBuilder();
+        for (URI annotation : annotations) {
+            values.append(" <").append(annotation.stringValue()).append(">");
+        }
+
+        StringBuilder query = new StringBuilder();
+        query.append("DELETE { ?node ?p ?o . ?s ?q ?node }\n");
+        query.append("WHERE {\n");
+        if(depth == 0) {
+            query.append("  VALUES ?node {").append(values).append(" }\n");
+        } else {
+            query.append("  VALUES ?annotation {").append(values).append(" }\n");
+            query.append("  ?annotation ").append(createOwnedPath(depth)).append(" ?node .\n");
+        }
+        query.append("  { ?node ?p ?o } UNION { ?s ?q ?node }\n");
+        query.append("}");
+        return query.toString();
+    }
+
+    private static String createOwnedPath(int depth) {
+        StringBuilder step = new StringBuilder("(");
+        for (int i = 0; i < OWNING_PROPERTIES.length; i++) {
+            if(i > 0) {
+                step.append("|");
+            }
+            step.append("<").append(OWNING_PROPERTIES[i]).append(">");
+        }
+        step.append(")?");
+
+        StringBuilder path = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            if(i > 0) {
+                path.append("/");
+            }
+            path.append(step);
+        }
+        return path.toString();
+    }
+}
@@ -23,4 +23,19 @@ public class Anno4jNS {
     public final static String EXTERNAL_WEB_RESOURCE = NS + "ExternalWebResource";
 
     public final static String RESOURCE = NS + "Resource";
+
+    /**
+     * Context in which the fingerprints of the schema persisted from annotations are stored.
+     */
+    public final static String SCHEMA_FINGERPRINT_CONTEXT = NS + "SchemaFingerprints";
+
+    /**
+     * Fingerprint of the whole schema persisted from annotations.
+     */
+    public final static String SCHEMA_FINGERPRINT = NS + "schemaFingerprint";
+
+    /**
+     * Fingerprint of a single concept or property whose schema was persisted from annotations.
+     */
+    public final static String SCHEMA_ELEMENT_FINGERPRINT = NS + "schemaElementFingerprint";
 }
@@ -0,0 +1,71 @@
+package com.github.anno4j.querying;
+
+import org.apache.commons.codec.binary.Base64;
+import org.openrdf.model.Value;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.rio.ntriples.NTriplesUtil;
+
+import java.nio.charset.Charset;
+
+/**
+ * Encodes the position after the last instance of a {@link QueryPage} as an opaque string. The token contains the
+ * IRI and the ordering key of the last instance in N-Triples syntax and a hash of the query, so it is rejected by
+ * other queries.
+ */
+class ContinuationToken {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final int queryHash;
+    private final Value root;
+    private final Value key;
+
+    ContinuationToken(String query, Value root, Value key) {
+        this(query.hashCode(), root, key);
+    }
+
+    private ContinuationToken(int queryHash, Value root, Value key) {
+        this.queryHash = queryHash;
+        this.root = root;
+        this.key = key;
+    }
+
+    /**
+     * @param token The encoded token.
+     * @param query The query the token must belong to.
+     * @param vf    The factory to create the values with.
+     * @return the decoded token
+     * @throws IllegalArgumentException Thrown if the token is malformed or was created by another query.
+     */
+    static ContinuationToken decode(String token, String query, ValueFactory vf) {
+        try {
+            String[] parts = new String(Base64.decodeBase64(token), UTF8).split("\n", -1);
+            if (parts.length == 3 && Integer.parseInt(parts[0]) == query.hashCode()) {
+                Value root = NTriplesUtil.parseValue(parts[1], vf);
+                Value key = parts[2].isEmpty() ? null : NTriplesUtil.parseValue(parts[2], vf);
+                return new ContinuationToken(query.hashCode(), root, key);
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid continuation token: " + token, e);
+        }
+        throw new IllegalArgumentException("Invalid continuation token: " + token);
+    }
+
+    String encode() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(queryHash).append('\n');
+        sb.append(NTriplesUtil.toNTriplesString(root)).append('\n');
+        if (key != null) {
+            sb.append(NTriplesUtil.toNTriplesString(key));
+        }
+        return Base64.encodeBase64URLSafeString(sb.toString().getBytes(UTF8));
+    }
+
+    Value getRoot() {
+        return root;
+    }
+
+    Value getKey() {
+        return key;
+    }
+}
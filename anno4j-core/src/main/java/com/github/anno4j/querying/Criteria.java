@@ -1,5 +1,7 @@
 package com.github.anno4j.querying;
 
+import org.openrdf.model.Value;
+
 /**
  * A Criteria represents an object, that encapsulates
  * the constraints passed to the QueryService by the
@@ -29,6 +31,16 @@ public class Criteria {
      */
     private Comparison comparison;
 
+    /**
+     * The placeholder for a value bound after compilation or null if the constraint is given.
+     */
+    private Parameter parameter;
+
+    /**
+     * The RDF term to compare against or null if a textual or numerical constraint is given.
+     */
+    private Value value;
+
     /**
      * Default constructor is required by AliBaba!
      */
@@ -74,6 +86,34 @@ public class Criteria {
         this.isNaN = false;
     }
 
+    /**
+     * Custom constructor for a constraint whose value is bound later, see {@link PreparedQueryService}.
+     *
+     * @param ldpath     The LDPath value
+     * @param parameter  The placeholder for the value
+     * @param comparison The comparison mode, e.g. Comparison.EQ (=)
+     */
+    public Criteria(String ldpath, Parameter parameter, Comparison comparison) {
+        this.ldpath = ldpath;
+        this.comparison = comparison;
+        this.parameter = parameter;
+        this.isNaN = true;
+    }
+
+    /**
+     * Custom constructor for a constraint given as RDF term, e.g. an IRI or a literal with language or datatype.
+     *
+     * @param ldpath     The LDPath value
+     * @param value      The RDF term to compare against
+     * @param comparison The comparison mode, e.g. Comparison.EQ (=)
+     */
+    public Criteria(String ldpath, Value value, Comparison comparison) {
+        this.ldpath = ldpath;
+        this.comparison = comparison;
+        this.value = value;
+        this.isNaN = true;
+    }
+
     /**
      * Constructor without a constraint
      *
@@ -134,6 +174,34 @@ public class Criteria {
         this.constraint = constraint.toString();
     }
 
+    /**
+     * @return the placeholder for the constraint value or null if the constraint is given
+     */
+    public Parameter getParameter() {
+        return parameter;
+    }
+
+    /**
+     * @param parameter The placeholder for the constraint value
+     */
+    public void setParameter(Parameter parameter) {
+        this.parameter = parameter;
+    }
+
+    /**
+     * @return the RDF term to compare against or null if a textual or numerical constraint is given
+     */
+    public Value getValue() {
+        return value;
+    }
+
+    /**
+     * @param value The RDF term to compare against
+     */
+    public void setValue(Value value) {
+        this.value = value;
+    }
+
     /**
      * @return Value of Indicates if the given constraint is a number.
      */
@@ -0,0 +1,127 @@
+package com.github.anno4j.querying;
+
+import com.github.anno4j.querying.evaluation.EvalQuery;
+import info.aduna.iteration.LookAheadIteration;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Value;
+import org.openrdf.query.BindingSet;
+import org.openrdf.query.MalformedQueryException;
+import org.openrdf.query.QueryEvaluationException;
+import org.openrdf.query.TupleQuery;
+import org.openrdf.query.TupleQueryResult;
+import org.openrdf.repository.RepositoryException;
+import org.openrdf.repository.object.ObjectConnection;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Iterates the result of a keyset query page by page. Each page is read completely with its own query, which seeks
+ * past the last instance of the previous page instead of skipping the previous pages with an offset. So no query
+ * result is kept open in between and the cost of a page does not grow with its depth.
+ *
+ * @param <T> Type of the queried instances.
+ */
+class PagedQueryIteration<T> extends LookAheadIteration<T, QueryEvaluationException> {
+
+    private final ObjectConnection connection;
+    private final Class<T> type;
+    private final String query;
+    private final int pageSize;
+    private final Integer limit;
+
+    private long offset;
+    private long fetched;
+    private Resource afterRoot;
+    private Value afterKey;
+    private Iterator<T> page;
+    private boolean lastPage;
+
+    /**
+     * @param connection The connection to evaluate the queries on.
+     * @param type       Type of the queried instances.
+     * @param query      The keyset query without limit.
+     * @param pageSize   The maximum number of instances read by one query.
+     * @param offset     The number of instances skipped by the query of the first page or null.
+     * @param limit      The maximum number of instances to return or null.
+     */
+    PagedQueryIteration(ObjectConnection connection, Class<T> type, String query, int pageSize, Integer offset, Integer limit) {
+        this.connection = connection;
+        this.type = type;
+        this.query = query;
+        this.pageSize = pageSize;
+        this.offset = (offset != null) ? offset : 0;
+        this.limit = limit;
+    }
+
+    @Override
+    protected T getNextElement() throws QueryEvaluationException {
+        while (page == null || !page.hasNext()) {
+            if (lastPage) {
+                return null;
+            }
+            page = fetchPage().iterator();
+        }
+        return page.next();
+    }
+
+    private List<T> fetchPage() throws QueryEvaluationException {
+        long size = pageSize;
+        if (limit != null) {
+            size = Math.min(size, limit - fetched);
+        }
+        if (size <= 0) {
+            lastPage = true;
+            return Collections.emptyList();
+        }
+
+        List<T> objects;
+        try {
+            String q = query + "\nLIMIT " + size;
+            if (offset > 0) {
+                q += "\nOFFSET " + offset;
+            }
+            TupleQuery tupleQuery = connection.getPreparedTupleQuery(q);
+            if (afterRoot != null) {
+                tupleQuery.setBinding(QueryService.AFTER_ROOT_VARIABLE, afterRoot);
+                if (afterKey != null) {
+                    tupleQuery.setBinding(QueryService.AFTER_KEY_VARIABLE, afterKey);
+                }
+            }
+
+            // Object queries write buffered changes first, do the same for the plain query:
+            connection.flush();
+
+            List<Resource> roots = new ArrayList<>(pageSize);
+            TupleQueryResult result = tupleQuery.evaluate();
+            try {
+                while (result.hasNext()) {
+                    BindingSet bindings = result.next();
+                    roots.add((Resource) bindings.getValue(EvalQuery.ROOT_VARIABLE));
+                    afterKey = bindings.getValue(EvalQuery.KEY_VARIABLE);
+                }
+            } finally {
+                result.close();
+            }
+
+            connection.loadTypes(roots);
+            objects = new ArrayList<>(roots.size());
+            for (Resource root : roots) {
+                objects.add(type.cast(connection.getObject(root)));
+            }
+            if (!roots.isEmpty()) {
+                afterRoot = roots.get(roots.size() - 1);
+            }
+        } catch (MalformedQueryException | RepositoryException e) {
+            throw new QueryEvaluationException("Couldn't evaluate query", e);
+        }
+
+        // The offset only applies to the first page, the following pages seek past the last instance:
+        offset = 0;
+        fetched += objects.size();
+        lastPage = objects.size() < size;
+        return objects;
+    }
+}
@@ -0,0 +1,67 @@
+package com.github.anno4j.querying;
+
+import java.util.regex.Pattern;
+
+/**
+ * A named placeholder for the constraint value of a {@link Criteria}. The value is bound with
+ * {@link PreparedQueryService#bind(String, org.openrdf.model.Value)} after the query was compiled,
+ * so the same compiled query can be executed with different values.
+ */
+public final class Parameter {
+
+    /**
+     * Prefix of the SPARQL variables of parameters. Separates them from the variables generated for LDPath.
+     */
+    static final String VARIABLE_PREFIX = "param_";
+
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9_]+");
+
+    private final String name;
+
+    private Parameter(String name) {
+        if (name == null || !NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException("Parameter names may only contain letters, digits and underscores: " + name);
+        }
+        this.name = name;
+    }
+
+    /**
+     * Creates a placeholder for a constraint value, e.g.
+     * {@code addCriteria("oa:hasTarget/oa:hasSource", param("src"))}.
+     *
+     * @param name The name the value is bound to.
+     * @return the parameter
+     */
+    public static Parameter param(String name) {
+        return new Parameter(name);
+    }
+
+    /**
+     * @return the name the value is bound to
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the name of the SPARQL variable the value is bound to
+     */
+    public String getVariableName() {
+        return VARIABLE_PREFIX + name;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Parameter && name.equals(((Parameter) o).name);
+    }
+
+    @Override
+    public int hashCode() {
+        return name.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "?" + name;
+    }
+}
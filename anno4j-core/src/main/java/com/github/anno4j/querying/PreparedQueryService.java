@@ -0,0 +1,105 @@
+package com.github.anno4j.querying;
+
+import com.github.anno4j.model.impl.ResourceObject;
+import org.openrdf.model.Value;
+import org.openrdf.query.QueryEvaluationException;
+import org.openrdf.repository.object.ObjectQuery;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A query of a {@link QueryService} that is compiled and prepared once and executed repeatedly with different values
+ * bound to the {@link Parameter}s of its criteria, e.g.
+ * <pre>
+ * PreparedQueryService&lt;Annotation&gt; query = queryService
+ *         .addCriteria("oa:hasTarget/oa:hasSource", Parameter.param("src"))
+ *         .prepare(Annotation.class);
+ * List&lt;Annotation&gt; annotations = query.bind("src", source).execute();
+ * </pre>
+ * The values are passed to the store as bindings of the prepared query, so the query is not compiled or
+ * parsed again. A prepared query uses the connection of the query service it was created by
+ * and must not be executed concurrently.
+ *
+ * @param <T> Type of the expected result.
+ */
+public class PreparedQueryService<T extends ResourceObject> {
+
+    private final Class<T> type;
+
+    private final ObjectQuery query;
+
+    private final Set<String> parameters;
+
+    PreparedQueryService(Class<T> type, ObjectQuery query, Set<String> parameters) {
+        this.type = type;
+        this.query = query;
+        this.parameters = Collections.unmodifiableSet(new LinkedHashSet<>(parameters));
+    }
+
+    /**
+     * @return the names of the parameters of the criteria
+     */
+    public Set<String> getParameterNames() {
+        return parameters;
+    }
+
+    /**
+     * Binds a value to a parameter, replacing the value bound before.
+     *
+     * @param name  The name of the parameter.
+     * @param value The value, e.g. a URI or a literal.
+     * @return itself to allow chaining.
+     */
+    public PreparedQueryService<T> bind(String name, Value value) {
+        query.setBinding(getVariableName(name), value);
+        return this;
+    }
+
+    /**
+     * Binds an object to a parameter, replacing the value bound before. Resource objects are bound to their
+     * resource, other objects to a literal of their datatype.
+     *
+     * @param name  The name of the parameter.
+     * @param value The object, e.g. a resource object, a string or a number.
+     * @return itself to allow chaining.
+     */
+    public PreparedQueryService<T> bind(String name, Object value) {
+        query.setObject(getVariableName(name), value);
+        return this;
+    }
+
+    /**
+     * Removes the values bound to all parameters.
+     *
+     * @return itself to allow chaining.
+     */
+    public PreparedQueryService<T> clearBindings() {
+        query.clearBindings();
+        return this;
+    }
+
+    /**
+     * Executes the prepared query with the values bound to the parameters.
+     *
+     * @return the result set
+     * @throws IllegalStateException Thrown if a parameter is not bound.
+     */
+    public List<T> execute() throws QueryEvaluationException {
+        for (String name : parameters) {
+            if (query.getBindings().getValue(getVariableName(name)) == null) {
+                throw new IllegalStateException("No value is bound to the parameter " + name);
+            }
+        }
+        return query.evaluate(type).asList();
+    }
+
+    private String getVariableName(String name) {
+        if (!parameters.contains(name)) {
+            throw new IllegalArgumentException("The criteria have no parameter " + name + ", only " + parameters);
+        }
+        return Parameter.VARIABLE_PREFIX + name;
+    }
+}
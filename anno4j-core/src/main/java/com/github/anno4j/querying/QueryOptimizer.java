@@ -4,6 +4,9 @@ import com.hp.hpl.jena.query.QueryFactory;
 import com.hp.hpl.jena.sparql.algebra.*;
 import com.hp.hpl.jena.sparql.algebra.optimize.*;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  *
  */
@@ -44,11 +47,56 @@ public class QueryOptimizer {
      * @return The optimized SPARQL query
      */
     public String optimizeJoinOrder(String sparql) {
+        return optimizeJoinOrder(sparql, null);
+    }
+
+    /**
+     * Optimizes the join order of the query. If statistics of the store are available, the triple patterns are
+     * ordered by their estimated number of matches, see {@link TransformCardinalityOrder}.
+     *
+     * @param sparql     The SPARQL query
+     * @param statistics The statistics of the queried store or null
+     *
+     * @return The optimized SPARQL query
+     */
+    public String optimizeJoinOrder(String sparql, StoreStatistics statistics) {
+        return OpAsQuery.asQuery(reorder(sparql, statistics, null)).serialize();
+    }
+
+    /**
+     * Optimizes the join order of the query like {@link #optimizeJoinOrder(String, StoreStatistics)} and reports
+     * the estimated number of matches of each triple pattern in the chosen order.
+     *
+     * @param sparql     The SPARQL query
+     * @param statistics The statistics of the queried store or null
+     *
+     * @return The optimized SPARQL query followed by the estimated cardinalities
+     */
+    public String explain(String sparql, StoreStatistics statistics) {
+        List<String> estimates = new ArrayList<>();
+        Op op = reorder(sparql, statistics, estimates);
+
+        StringBuilder explanation = new StringBuilder(OpAsQuery.asQuery(op).serialize());
+        if (estimates.isEmpty()) {
+            explanation.append("\n# No statistics available, the generic join strategy was applied.");
+        } else {
+            explanation.append("\n# Estimated cardinalities in join order:");
+            for (String estimate : estimates) {
+                explanation.append("\n# ").append(estimate);
+            }
+        }
+        return explanation.toString();
+    }
+
+    private Op reorder(String sparql, StoreStatistics statistics, List<String> estimates) {
         Op op = Algebra.compile(QueryFactory.create(sparql));
         Transform joinReorder = new TransformJoinStrategy();
         op = Transformer.transform(joinReorder, op);
 
-        return OpAsQuery.asQuery(op).serialize();
+        if (statistics != null && statistics.isAvailable()) {
+            op = Transformer.transform(new TransformCardinalityOrder(statistics, estimates), op);
+        }
+        return op;
     }
 
     /**
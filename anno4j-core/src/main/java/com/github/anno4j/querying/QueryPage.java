@@ -0,0 +1,43 @@
+package com.github.anno4j.querying;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A page of the instances matched by a {@link QueryService}, see {@link QueryService#page(Class, int, String)}.
+ *
+ * @param <T> Type of the instances.
+ */
+public class QueryPage<T> {
+
+    private final List<T> objects;
+
+    private final String continuationToken;
+
+    QueryPage(List<T> objects, String continuationToken) {
+        this.objects = Collections.unmodifiableList(objects);
+        this.continuationToken = continuationToken;
+    }
+
+    /**
+     * @return the instances of this page in the order of the query
+     */
+    public List<T> getObjects() {
+        return objects;
+    }
+
+    /**
+     * @return the token to pass to {@link QueryService#page(Class, int, String)} for the next page or null if this
+     * is the last page
+     */
+    public String getContinuationToken() {
+        return continuationToken;
+    }
+
+    /**
+     * @return true iff there may be more instances after this page
+     */
+    public boolean hasNext() {
+        return continuationToken != null;
+    }
+}
@@ -0,0 +1,118 @@
+package com.github.anno4j.querying;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread-safe cache of the SPARQL queries compiled by the {@link QueryService}. Each {@link com.github.anno4j.Anno4j}
+ * instance owns its cache, see {@link com.github.anno4j.Anno4j#getQueryPlanCache()}. A query is compiled from its root
+ * type, criteria, prefixes, limit and offset by parsing the LDPath criteria, building the Jena algebra and
+ * optimizing its join order. Executing the same query again takes the compiled query from this cache.
+ * The least recently used queries are evicted once the capacity is exceeded.
+ */
+public class QueryPlanCache {
+
+    /**
+     * The default maximum number of cached queries.
+     */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final Map<List<Object>, String> plans;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Creates a cache that holds at most {@link #DEFAULT_CAPACITY} queries.
+     */
+    public QueryPlanCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity The maximum number of cached queries.
+     */
+    public QueryPlanCache(final int capacity) {
+        this.plans = new LinkedHashMap<List<Object>, String>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<Object>, String> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Looks up a compiled query and counts the lookup as hit or miss.
+     * @param key The values the query is compiled from.
+     * @return Returns the compiled SPARQL query or null if it is not cached.
+     */
+    String get(List<Object> key) {
+        String plan;
+        synchronized (plans) {
+            plan = plans.get(key);
+        }
+        if(plan != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        return plan;
+    }
+
+    /**
+     * Caches a compiled query.
+     * @param key The values the query is compiled from. Must not be modified afterwards.
+     * @param plan The compiled SPARQL query.
+     */
+    void put(List<Object> key, String plan) {
+        synchronized (plans) {
+            plans.put(key, plan);
+        }
+    }
+
+    /**
+     * @return Returns the number of executions that used a cached query.
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return Returns the number of executions that had to compile their query.
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return Returns the fraction of executions that used a cached query or 0 if nothing was executed yet.
+     */
+    public double getHitRate() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        return (total > 0) ? (double) hitCount / total : 0;
+    }
+
+    /**
+     * @return Returns the number of cached queries.
+     */
+    public int size() {
+        synchronized (plans) {
+            return plans.size();
+        }
+    }
+
+    /**
+     * Removes all cached queries and resets the hit and miss counts.
+     */
+    public void clear() {
+        synchronized (plans) {
+            plans.clear();
+        }
+        hits.set(0);
+        misses.set(0);
+    }
+}
@@ -1,5 +1,8 @@
 package com.github.anno4j.querying;
 
+import com.github.anno4j.ConnectionPool;
+import com.github.anno4j.ObjectIterator;
+import com.github.anno4j.ReadOnlyConnectionPools;
 import com.github.anno4j.model.Annotation;
 import com.github.anno4j.model.impl.ResourceObject;
 import com.github.anno4j.model.namespaces.*;
@@ -8,6 +11,11 @@ import com.github.anno4j.querying.evaluation.LDPathEvaluatorConfiguration;
 import com.github.anno4j.querying.extension.QueryEvaluator;
 import com.github.anno4j.querying.extension.QueryExtension;
 import com.hp.hpl.jena.query.Query;
+import com.hp.hpl.jena.query.QueryFactory;
+import com.hp.hpl.jena.sparql.expr.*;
+import com.hp.hpl.jena.sparql.expr.aggregate.AggregatorFactory;
+import com.hp.hpl.jena.sparql.syntax.ElementFilter;
+import com.hp.hpl.jena.sparql.syntax.ElementGroup;
 import org.apache.marmotta.ldpath.api.functions.SelectorFunction;
 import org.apache.marmotta.ldpath.api.functions.TestFunction;
 import org.apache.marmotta.ldpath.backend.sesame.SesameValueBackend;
@@ -15,35 +23,102 @@ import org.apache.marmotta.ldpath.model.Constants;
 import org.apache.marmotta.ldpath.parser.Configuration;
 import org.apache.marmotta.ldpath.parser.DefaultConfiguration;
 import org.apache.marmotta.ldpath.parser.ParseException;
+import org.openrdf.model.Literal;
+import org.openrdf.model.Resource;
 import org.openrdf.model.URI;
+import org.openrdf.model.Value;
 import org.openrdf.model.vocabulary.OWL;
 import org.openrdf.model.vocabulary.RDFS;
 import org.openrdf.model.vocabulary.SKOS;
+import org.openrdf.query.BindingSet;
+import org.openrdf.query.BooleanQuery;
 import org.openrdf.query.MalformedQueryException;
 import org.openrdf.query.QueryEvaluationException;
+import org.openrdf.query.QueryLanguage;
+import org.openrdf.query.TupleQuery;
+import org.openrdf.query.TupleQueryResult;
+import org.openrdf.query.algebra.evaluation.util.ValueComparator;
 import org.openrdf.repository.RepositoryException;
 import org.openrdf.repository.object.ObjectConnection;
 import org.openrdf.repository.object.ObjectQuery;
 import org.openrdf.repository.object.ObjectRepository;
+import org.openrdf.result.impl.ResultImpl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
  * The QueryService allows to query triple stores by using criteria. Furthermore
  * this is provided by simple classes. This is why the user does not need to write SPARQL queries
  * by himself.
  *
+ * A query service obtained from {@link com.github.anno4j.Anno4j} with connection pooling enabled keeps its pooled
+ * connection while it, its prepared queries or the objects loaded by it are reachable, or until it is closed.
+ *
  * @author Andreas Eisenkolb (andreas.eisenkolb@gmail.com)
  */
-public class QueryService {
+public class QueryService implements Closeable {
 
     private final Logger logger = LoggerFactory.getLogger(QueryService.class);
 
+    /**
+     * Variables bound to the IRI and ordering key of the last result of the previous page in keyset pagination
+     */
+    static final String AFTER_ROOT_VARIABLE = "after_root";
+    static final String AFTER_KEY_VARIABLE = "after_key";
+
+    /**
+     * Variable bound to the number of instances by a counting query
+     */
+    private static final String COUNT_VARIABLE = "count";
+
+    /**
+     * How a compiled query is paged
+     */
+    private enum PlanMode {
+        /**
+         * Limit and offset of the service are applied, ordered only if requested
+         */
+        RESULT,
+        /**
+         * Ordered by the string values of the key and the IRI and filtered for keyset pagination,
+         * the limit is appended per page
+         */
+        KEYSET,
+        /**
+         * Selects the values of LDPaths along with the instances, like {@link #RESULT}
+         */
+        PROJECTION,
+        /**
+         * Ordered only if requested with the ordering key selected, limit and offset are applied when merging
+         * the results of several contexts
+         */
+        FAN_OUT,
+        /**
+         * Counts the distinct instances, limit and offset are not applied
+         */
+        COUNT,
+        /**
+         * Asks whether any instance matches, limit and offset are not applied
+         */
+        EXISTS
+    }
+
     private ObjectConnection connection;
 
     /**
@@ -70,11 +145,36 @@ public class QueryService {
      */
     private Integer offset = null;
 
+    /**
+     * LDPath whose value orders the results or null to order by the IRI only
+     */
+    private String orderPath = null;
+
+    /**
+     * Direction of the ordering or null if the results are not ordered
+     */
+    private Order order = null;
+
     /**
      * Object to apply optimization strategies to SPARQL queries
      */
     private QueryOptimizer queryOptimizer = null;
 
+    /**
+     * The compiled queries shared with the other query services of the Anno4j instance or null
+     */
+    private QueryPlanCache planCache = null;
+
+    /**
+     * The read-only connections the contexts are queried on by {@link #executeInContexts} or null
+     */
+    private ReadOnlyConnectionPools contextPools = null;
+
+    /**
+     * The cardinalities the join order is optimized with or null
+     */
+    private StoreStatistics statistics = null;
+
     public <T> QueryService(ObjectConnection connection, LDPathEvaluatorConfiguration evaluatorConfiguration) {
         this.connection = connection;
 
@@ -158,6 +258,33 @@ public class QueryService {
         return this;
     }
 
+    /**
+     * Setting a criteria comparing to an RDF term, e.g. an IRI or a literal with language or datatype.
+     * In contrast to textual constraints, equality requires the same term, which lets the store look up
+     * the matching statements in its indexes.
+     *
+     * @param ldpath     Syntax similar to XPath. Beginning from the Annotation object
+     * @param comparison The comparison mode, e.g. Comparison.EQ (=)
+     * @param value      The constraint value
+     * @return itself to allow chaining.
+     */
+    public QueryService addCriteria(String ldpath, Value value, Comparison comparison) {
+        queryServiceDTO.getCriteria().add(new Criteria(ldpath, value, comparison));
+        return this;
+    }
+
+    /**
+     * Setting a criteria that requires the value of the LDPath to be the given RDF term, e.g. an IRI or a literal
+     * with language or datatype. The store can answer it by an index lookup.
+     *
+     * @param ldpath Syntax similar to XPath. Beginning from the Annotation object
+     * @param value  The constraint value
+     * @return itself to allow chaining.
+     */
+    public QueryService addCriteria(String ldpath, Value value) {
+        return addCriteria(ldpath, value, Comparison.EQ);
+    }
+
     /**
      * Setting a criteria for filtering eu.mico.platform.persistence.impl.AnnotationImpl objects. Compared to the
      * other <i>addCriteria</i> function, this function does not need a Comparison statement. Hence, the
@@ -195,6 +322,36 @@ public class QueryService {
         return this;
     }
 
+    /**
+     * Setting a criteria whose constraint value is bound later with
+     * {@link PreparedQueryService#bind(String, org.openrdf.model.Value)}, e.g.
+     * <code>addCriteria("oa:hasTarget/oa:hasSource", Parameter.param("src"))</code>.
+     * The <b>Comparison.EQ</b> statement ("=") will be used automatically.
+     *
+     * @param ldpath    Syntax similar to XPath. Beginning from the Annotation object
+     * @param parameter The placeholder for the constraint value
+     * @return itself to allow chaining.
+     * @see #prepare(Class)
+     */
+    public QueryService addCriteria(String ldpath, Parameter parameter) {
+        return addCriteria(ldpath, parameter, Comparison.EQ);
+    }
+
+    /**
+     * Setting a criteria whose constraint value is bound later with
+     * {@link PreparedQueryService#bind(String, org.openrdf.model.Value)}.
+     *
+     * @param ldpath     Syntax similar to XPath. Beginning from the Annotation object
+     * @param parameter  The placeholder for the constraint value
+     * @param comparison The comparison mode, e.g. Comparison.EQ (=)
+     * @return itself to allow chaining.
+     * @see #prepare(Class)
+     */
+    public QueryService addCriteria(String ldpath, Parameter parameter, Comparison comparison) {
+        queryServiceDTO.getCriteria().add(new Criteria(ldpath, parameter, comparison));
+        return this;
+    }
+
     /**
      * Adding a criteria object to the QueryService
      *
@@ -251,6 +408,96 @@ public class QueryService {
         return this;
     }
 
+    /**
+     * Orders the results by their IRI.
+     *
+     * @param order The direction of the ordering.
+     * @return itself to allow chaining.
+     */
+    public QueryService orderBy(Order order) {
+        return orderBy(null, order);
+    }
+
+    /**
+     * Orders the results ascending by the value of the given LDPath and then by their IRI.
+     * The path should have a single value per result, results without a value are not returned.
+     *
+     * @param ldpath Syntax similar to XPath. Beginning from the queried object
+     * @return itself to allow chaining.
+     */
+    public QueryService orderBy(String ldpath) {
+        return orderBy(ldpath, Order.ASCENDING);
+    }
+
+    /**
+     * Orders the results by the value of the given LDPath and then by their IRI.
+     * The path should have a single value per result, results without a value are not returned.
+     *
+     * @param ldpath Syntax similar to XPath. Beginning from the queried object. Null to order by the IRI only.
+     * @param order  The direction of the ordering.
+     * @return itself to allow chaining.
+     */
+    public QueryService orderBy(String ldpath, Order order) {
+        this.orderPath = ldpath;
+        this.order = order;
+        return this;
+    }
+
+    /**
+     * Setting the statistics of the queried store. The triple patterns of the compiled queries are then ordered
+     * by their estimated number of matches.
+     *
+     * @param statistics The statistics or null to order the patterns by the generic join strategy.
+     * @return itself to allow chaining.
+     */
+    public QueryService useStatistics(StoreStatistics statistics) {
+        this.statistics = statistics;
+        return this;
+    }
+
+    /**
+     * Setting the cache the compiled queries are shared with other query services by.
+     *
+     * @param planCache The cache or null to compile the query on every execution.
+     * @return itself to allow chaining.
+     */
+    public QueryService usePlanCache(QueryPlanCache planCache) {
+        this.planCache = planCache;
+        return this;
+    }
+
+    /**
+     * Setting the pools of read-only connections the contexts are queried on by
+     * {@link #executeInContexts(Class, Collection, ExecutorService)}.
+     *
+     * @param contextPools The pools or null to open a new connection for every context.
+     * @return itself to allow chaining.
+     */
+    public QueryService useContextPools(ReadOnlyConnectionPools contextPools) {
+        this.contextPools = contextPools;
+        return this;
+    }
+
+    /**
+     * @return the statistics the join order is optimized with or null
+     */
+    public StoreStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Compiles the query for instances of the given type like {@link #execute(Class)} without executing it and
+     * reports the estimated number of matches of each triple pattern in the optimized join order.
+     *
+     * @param type Type of the queried instances.
+     * @return the optimized SPARQL query followed by the estimated cardinalities
+     */
+    public String explain(Class<? extends ResourceObject> type) throws ParseException, RepositoryException {
+        URI rootType = getRootType(type);
+        refreshExpiredStatistics();
+        return queryOptimizer.explain(createQuery(rootType, PlanMode.RESULT, Collections.<String>emptyList()), statistics);
+    }
+
     /**
      * Creates and executes the SPARQL query according to the
      * criteria specified by the user.
@@ -269,45 +516,637 @@ public class QueryService {
      * @return the result set
      */
     public <T extends ResourceObject> List<T> execute(Class<T> type) throws ParseException, RepositoryException, MalformedQueryException, QueryEvaluationException {
+        URI rootType = getRootType(type);
+        checkParameters();
+
+        ObjectQuery query = prepareQuery(rootType);
+
+        return (List<T>) query.evaluate().asList();
+    }
+
+    /**
+     * Compiles the criteria into a query that can be executed repeatedly with different values bound to
+     * the parameters of the criteria.
+     *
+     * @param type Type of the expected result.
+     * @param <T>  type Type of the expected result.
+     * @return the prepared query
+     */
+    public <T extends ResourceObject> PreparedQueryService<T> prepare(Class<T> type) throws ParseException, RepositoryException, MalformedQueryException {
+        String q = getPlan(getRootType(type), PlanMode.RESULT);
+        // The bindings of a prepared query are kept between executions, so it gets a query of its own:
+        PreparedQueryService<T> prepared = new PreparedQueryService<>(type, connection.prepareObjectQuery(q), getParameterNames());
+        connection.track(prepared);
+        return prepared;
+    }
+
+    /**
+     * Creates and evaluates the SPARQL query according to the criteria specified by the user and lazily iterates
+     * its result. The objects are created while iterating and released by the connection once consumed,
+     * so only the objects the caller keeps stay in memory.
+     * The iterator must be closed if it is not consumed completely, e.g. by a try-with-resources statement.
+     *
+     * @param type Type of the expected result.
+     * @param <T>  type Type of the expected result.
+     * @return a lazy iterator over the result set
+     */
+    public <T extends ResourceObject> ObjectIterator<T> stream(Class<T> type) throws ParseException, RepositoryException, MalformedQueryException, QueryEvaluationException {
+        URI rootType = getRootType(type);
+        checkParameters();
+
+        ObjectQuery query = prepareQuery(rootType);
+        return new ObjectIterator<>(connection, query.evaluate(type), ObjectIterator.DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * Lazily iterates the result of the query like {@link #stream(Class)}, but fetches it in pages of bounded size.
+     * The instances are ordered like the pages of {@link #page(Class, int, String)} and each page is read with its
+     * own query, which seeks past the last instance of the previous page. So no query result is kept open between
+     * pages, at most one page of objects is created in advance and the cost of a page does not grow with its depth.
+     * Limit and offset of this service are applied to the whole result, the offset is skipped by the first query.
+     *
+     * @param type     Type of the expected result.
+     * @param pageSize The maximum number of instances fetched by one query.
+     * @param <T>      type Type of the expected result.
+     * @return a lazy iterator over the result set
+     */
+    public <T extends ResourceObject> ObjectIterator<T> stream(Class<T> type, int pageSize) throws ParseException, RepositoryException {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        URI rootType = getRootType(type);
+        checkParameters();
+
+        String q = getPlan(rootType, PlanMode.KEYSET);
+        logger.info("\nPAGED QUERY :\n" + q);
+        PagedQueryIteration<T> pages = new PagedQueryIteration<>(connection, type, q, pageSize, offset, limit);
+        return new ObjectIterator<>(connection, new ResultImpl<>(pages), pageSize);
+    }
+
+    /**
+     * Returns a page of the results using keyset pagination. The results are ordered as specified by
+     * {@link #orderBy(String, Order)}, by default ascending by IRI. Instead of skipping the results of the previous
+     * pages with an offset, the query seeks past the last result of the previous page, which is encoded in the
+     * continuation token. So the cost of a page does not grow with its depth.
+     * The values of the ordering path are compared by their string values, because IRIs and literals of different
+     * types can't be compared otherwise. Numeric values are therefore ordered lexically.
+     * Limit and offset of this service are not applied.
+     *
+     * @param type              Type of the expected result.
+     * @param pageSize          The maximum number of results of the page.
+     * @param continuationToken The token of the previous page or null for the first page.
+     * @param <T>               type Type of the expected result.
+     * @return the page of results and the token for the next page
+     * @throws IllegalArgumentException Thrown if the token was not created by an equal query.
+     */
+    public <T extends ResourceObject> QueryPage<T> page(Class<T> type, int pageSize, String continuationToken) throws ParseException, RepositoryException, MalformedQueryException, QueryEvaluationException {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        URI rootType = getRootType(type);
+        checkParameters();
+
+        String plan = getPlan(rootType, PlanMode.KEYSET);
+        TupleQuery query = connection.getPreparedTupleQuery(plan + "\nLIMIT " + pageSize);
+        if (continuationToken != null) {
+            ContinuationToken after = ContinuationToken.decode(continuationToken, plan, connection.getValueFactory());
+            query.setBinding(AFTER_ROOT_VARIABLE, after.getRoot());
+            if (after.getKey() != null) {
+                query.setBinding(AFTER_KEY_VARIABLE, after.getKey());
+            }
+        }
+
+        // Object queries write buffered changes first, do the same for the plain query:
+        connection.flush();
+
+        List<Resource> roots = new ArrayList<>(pageSize);
+        Value lastKey = null;
+        TupleQueryResult result = query.evaluate();
+        try {
+            while (result.hasNext()) {
+                BindingSet bindings = result.next();
+                roots.add((Resource) bindings.getValue(EvalQuery.ROOT_VARIABLE));
+                lastKey = bindings.getValue(EvalQuery.KEY_VARIABLE);
+            }
+        } finally {
+            result.close();
+        }
+
+        connection.loadTypes(roots);
+        List<T> objects = new ArrayList<>(roots.size());
+        for (Resource root : roots) {
+            objects.add(type.cast(connection.getObject(root)));
+        }
+
+        String next = null;
+        if (roots.size() == pageSize) {
+            next = new ContinuationToken(plan, roots.get(roots.size() - 1), lastKey).encode();
+        }
+        return new QueryPage<>(objects, next);
+    }
+
+    /**
+     * Counts the instances of the given type matching the criteria without creating any objects.
+     * The store only reports the number of distinct matches. Limit and offset of this service are not applied,
+     * so the count is the total to page through.
+     *
+     * @param type Type of the counted instances.
+     * @return the number of matching instances
+     */
+    public long count(Class<? extends ResourceObject> type) throws ParseException, RepositoryException, MalformedQueryException, QueryEvaluationException {
+        URI rootType = getRootType(type);
+        checkParameters();
+
+        String q = getPlan(rootType, PlanMode.COUNT);
+        logger.info("\nCOUNT QUERY :\n" + q);
+        TupleQuery query = connection.getPreparedTupleQuery(q);
+
+        // Object queries write buffered changes first, do the same for the plain query:
+        connection.flush();
+
+        TupleQueryResult result = query.evaluate();
+        try {
+            if (!result.hasNext()) {
+                return 0;
+            }
+            Value count = result.next().getValue(COUNT_VARIABLE);
+            return (count != null) ? ((Literal) count).longValue() : 0;
+        } finally {
+            result.close();
+        }
+    }
 
+    /**
+     * Checks whether any instance of the given type matches the criteria without creating any objects.
+     * Limit and offset of this service are not applied.
+     *
+     * @param type Type of the instances.
+     * @return true if at least one instance matches
+     */
+    public boolean exists(Class<? extends ResourceObject> type) throws ParseException, RepositoryException, MalformedQueryException, QueryEvaluationException {
+        URI rootType = getRootType(type);
+        checkParameters();
+
+        String q = getPlan(rootType, PlanMode.EXISTS);
+        logger.info("\nASK QUERY :\n" + q);
+        BooleanQuery query = connection.prepareBooleanQuery(QueryLanguage.SPARQL, q);
+
+        // Object queries write buffered changes first, do the same for the plain query:
+        connection.flush();
+
+        return query.evaluate();
+    }
+
+    /**
+     * Selects the values of the given LDPaths of the matching annotations, see {@link #select(Class, String...)}.
+     *
+     * @param ldpaths The LDPaths whose values are selected.
+     * @return a lazy iterator over the tuples
+     */
+    public TupleIterator select(String... ldpaths) throws ParseException, RepositoryException, MalformedQueryException, QueryEvaluationException {
+        return select(Annotation.class, ldpaths);
+    }
+
+    /**
+     * Selects the values of the given LDPaths of the matching instances with a single query, without creating
+     * any objects. Each result is a {@link Tuple} of the instance's resource and one value per LDPath,
+     * which is null if the instance has no value. An instance with multiple values for a path yields a tuple
+     * for each of them. Limit, offset and ordering of this service are applied to the tuples.
+     * The iterator must be closed if it is not consumed completely, e.g. by a try-with-resources statement.
+     *
+     * @param type    Type of the queried instances.
+     * @param ldpaths The LDPaths whose values are selected.
+     * @return a lazy iterator over the tuples
+     */
+    public TupleIterator select(Class<? extends ResourceObject> type, String... ldpaths) throws ParseException, RepositoryException, MalformedQueryException, QueryEvaluationException {
+        URI rootType = getRootType(type);
+        checkParameters();
+
+        List<String> projection = Collections.unmodifiableList(Arrays.asList(ldpaths.clone()));
+        String q = getPlan(rootType, PlanMode.PROJECTION, projection);
+        logger.info("\nPROJECTION QUERY :\n" + q);
+        TupleQuery query = connection.getPreparedTupleQuery(q);
+
+        // Object queries write buffered changes first, do the same for the plain query:
+        connection.flush();
+
+        TupleIterator tuples = new TupleIterator(query.evaluate(), projection, connection.getObjectFactory());
+        connection.track(tuples);
+        return tuples;
+    }
+
+    /**
+     * Executes the query in each of the given contexts in parallel and merges the results. Each context is queried
+     * on a read-only connection by a task of the executor, which only selects the matching resources. The connection
+     * is borrowed from the pool of the context if pools are set by {@link #useContextPools(ReadOnlyConnectionPools)}.
+     * The resources matched in several contexts are returned once. If an ordering is set by
+     * {@link #orderBy(String, Order)}, the merged results are in that order, otherwise in the order of the contexts.
+     * Limit and offset of this service are applied to the merged results, each context only returns as many results
+     * as needed for them.
+     * The objects are loaded through the connection of this service, which should read all of the given contexts.
+     * Changes not yet committed on that connection are not seen by the queries of the contexts.
+     *
+     * @param type     Type of the expected result.
+     * @param contexts The contexts to query.
+     * @param executor The executor running the queries. Its number of threads bounds the number of contexts
+     *                 queried at the same time.
+     * @param <T>      type Type of the expected result.
+     * @return the merged result set
+     */
+    public <T extends ResourceObject> List<T> executeInContexts(Class<T> type, Collection<URI> contexts, ExecutorService executor) throws ParseException, RepositoryException, MalformedQueryException, QueryEvaluationException {
+        URI rootType = getRootType(type);
+        checkParameters();
+
+        String plan = getPlan(rootType, PlanMode.FAN_OUT);
+        if (limit != null) {
+            long needed = (long) limit + ((offset != null) ? offset : 0);
+            plan += "\nLIMIT " + needed;
+        }
+        logger.info("\nFAN-OUT QUERY (" + contexts.size() + " contexts) :\n" + plan);
+
+        List<Future<List<BindingSet>>> futures = new ArrayList<>(contexts.size());
+        try {
+            for (URI context : new LinkedHashSet<>(contexts)) {
+                ConnectionPool pool = (contextPools != null) ? contextPools.get(context) : null;
+                futures.add(executor.submit(new ContextQuery(connection.getRepository(), pool, context, plan)));
+            }
+
+            List<BindingSet> rows = new ArrayList<>();
+            for (Future<List<BindingSet>> future : futures) {
+                rows.addAll(future.get());
+            }
+            if (order != null) {
+                Collections.sort(rows, new RowComparator(orderPath != null, order == Order.DESCENDING));
+            }
+
+            Set<Resource> roots = new LinkedHashSet<>();
+            for (BindingSet row : rows) {
+                roots.add((Resource) row.getValue(EvalQuery.ROOT_VARIABLE));
+            }
+            List<Resource> merged = new ArrayList<>(roots);
+            int from = Math.min(merged.size(), (offset != null) ? offset : 0);
+            int to = (limit != null) ? Math.min(merged.size(), from + limit) : merged.size();
+            merged = merged.subList(from, to);
+
+            connection.loadTypes(merged);
+            List<T> objects = new ArrayList<>(merged.size());
+            for (Resource root : merged) {
+                objects.add(type.cast(connection.getObject(root)));
+            }
+            return objects;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RepositoryException("Interrupted while querying the contexts", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RepositoryException) {
+                throw (RepositoryException) cause;
+            } else if (cause instanceof MalformedQueryException) {
+                throw (MalformedQueryException) cause;
+            } else if (cause instanceof QueryEvaluationException) {
+                throw (QueryEvaluationException) cause;
+            }
+            throw new RepositoryException("Couldn't evaluate query", cause);
+        } finally {
+            for (Future<List<BindingSet>> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Selects the resources matching a compiled query in a single context on a read-only connection, which is
+     * borrowed from the pool of the context or opened for the query if there is no pool.
+     */
+    private static class ContextQuery implements Callable<List<BindingSet>> {
+
+        private final ObjectRepository repository;
+        private final ConnectionPool pool;
+        private final URI context;
+        private final String query;
+
+        ContextQuery(ObjectRepository repository, ConnectionPool pool, URI context, String query) {
+            this.repository = repository;
+            this.pool = pool;
+            this.context = context;
+            this.query = query;
+        }
+
+        @Override
+        public List<BindingSet> call() throws RepositoryException, MalformedQueryException, QueryEvaluationException {
+            if (pool != null) {
+                ObjectConnection contextConnection = pool.borrow();
+                try {
+                    return select(contextConnection.getPreparedTupleQuery(query));
+                } finally {
+                    pool.release(contextConnection);
+                }
+            }
+            ObjectConnection contextConnection = repository.getReadOnlyConnection();
+            try {
+                contextConnection.setReadContexts(context);
+                return select(contextConnection.prepareTupleQuery(QueryLanguage.SPARQL, query));
+            } finally {
+                contextConnection.close();
+            }
+        }
+
+        private List<BindingSet> select(TupleQuery tupleQuery) throws QueryEvaluationException {
+            List<BindingSet> rows = new ArrayList<>();
+            TupleQueryResult result = tupleQuery.evaluate();
+            try {
+                while (result.hasNext()) {
+                    rows.add(result.next());
+                }
+            } finally {
+                result.close();
+            }
+            return rows;
+        }
+    }
+
+    /**
+     * Orders result rows like the SPARQL query does, i.e. by ordering key and then by the string value of the IRI.
+     */
+    private static class RowComparator implements Comparator<BindingSet> {
+
+        private final ValueComparator values = new ValueComparator();
+        private final boolean keyed;
+        private final boolean descending;
+
+        RowComparator(boolean keyed, boolean descending) {
+            this.keyed = keyed;
+            this.descending = descending;
+        }
+
+        @Override
+        public int compare(BindingSet first, BindingSet second) {
+            int result = 0;
+            if (keyed) {
+                result = values.compare(first.getValue(EvalQuery.KEY_VARIABLE), second.getValue(EvalQuery.KEY_VARIABLE));
+            }
+            if (result == 0) {
+                result = first.getValue(EvalQuery.ROOT_VARIABLE).stringValue().compareTo(second.getValue(EvalQuery.ROOT_VARIABLE).stringValue());
+            }
+            return descending ? -result : result;
+        }
+    }
+
+    private void checkParameters() {
+        if (!getParameterNames().isEmpty()) {
+            throw new IllegalStateException("The criteria have the parameters " + getParameterNames() + ", use prepare(Class) to bind them.");
+        }
+    }
+
+    private URI getRootType(Class<?> type) {
         URI rootType = connection.getObjectFactory().getNameOf(type);
         if (rootType == null) {
             throw new IllegalArgumentException("Can't query for: " + type + " not found in name map. Is @Iri annotation set?");
         }
+        return rootType;
+    }
 
-        Query sparql = EvalQuery.evaluate(queryServiceDTO, rootType);
+    /**
+     * Prepares the compiled query for instances of the given type, compiling it if it is not cached.
+     * The query is parsed once per connection and must only be evaluated right away.
+     *
+     * @param rootType The RDF type of the instances to query.
+     * @return the query prepared on the connection of this service
+     */
+    private ObjectQuery prepareQuery(URI rootType) throws ParseException, RepositoryException, MalformedQueryException {
+        String q = getPlan(rootType, PlanMode.RESULT);
 
-        // LDPath allows distinct. May have bad performance.
-        sparql.setDistinct(true);
+        ObjectQuery query = connection.getPreparedObjectQuery(q);
 
-        if (limit != null) {
-            sparql.setLimit(limit);
+        if (query.getDataset() != null) {
+            logger.info("\nGRAPH CONTEXT = " + query.getDataset().getDefaultGraphs() + "\nFINAL QUERY :\n" + q);
+        } else {
+            logger.info("\nFINAL QUERY :\n" + q);
+        }
+        return query;
+    }
+
+    /**
+     * Returns the compiled query for instances of the given type, compiling it if it is not cached.
+     *
+     * @param rootType The RDF type of the instances to query.
+     * @param mode     How the query is paged.
+     * @return the SPARQL query
+     */
+    private String getPlan(URI rootType, PlanMode mode) throws ParseException, RepositoryException {
+        return getPlan(rootType, mode, Collections.<String>emptyList());
+    }
+
+    /**
+     * Returns the compiled query for instances of the given type, compiling it if it is not cached.
+     *
+     * @param rootType   The RDF type of the instances to query.
+     * @param mode       How the query is paged.
+     * @param projection The LDPaths whose values are selected along with the instances.
+     * @return the SPARQL query
+     */
+    private String getPlan(URI rootType, PlanMode mode, List<String> projection) throws ParseException, RepositoryException {
+        refreshExpiredStatistics();
+
+        if (planCache == null) {
+            return compile(rootType, mode, projection);
         }
+        List<Object> key = createPlanKey(rootType, mode, projection);
+        String q = planCache.get(key);
+        if (q == null) {
+            q = compile(rootType, mode, projection);
+            planCache.put(key, q);
+        }
+        return q;
+    }
 
-        if (offset != null) {
-            sparql.setOffset(offset);
+    /**
+     * Refreshes the statistics if a maximum age is set and they are older.
+     */
+    private void refreshExpiredStatistics() throws RepositoryException {
+        if (statistics != null && statistics.getMaxAge() >= 0 && statistics.isExpired()) {
+            statistics.refresh(connection);
         }
+    }
 
-        // Print with line numbers
-//        sparql.serialize(new IndentedWriter(System.out, true));
-//        System.out.println();
+    /**
+     * @return the names of the parameters of the criteria
+     */
+    private Set<String> getParameterNames() {
+        Set<String> names = new LinkedHashSet<>();
+        for (Criteria criteria : queryServiceDTO.getCriteria()) {
+            if (criteria.getParameter() != null) {
+                names.add(criteria.getParameter().getName());
+            }
+        }
+        return names;
+    }
 
-        String q = sparql.serialize();
-        logger.debug("Initial query:\n" + queryOptimizer.prettyPrint(q));
+    /**
+     * Compiles the criteria into a SPARQL query for instances of the given type:
+     * The LDPath criteria are parsed and evaluated into a Jena query whose join order is optimized.
+     *
+     * @param rootType The RDF type of the instances to query.
+     * @param mode       How the query is paged.
+     * @param projection The LDPaths whose values are selected along with the instances.
+     * @return the SPARQL query
+     */
+    private String compile(URI rootType, PlanMode mode, List<String> projection) throws ParseException {
+        String q = createQuery(rootType, mode, projection);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Initial query:\n" + queryOptimizer.prettyPrint(q));
+        }
 
         // Optimize the join order
-        q = queryOptimizer.optimizeJoinOrder(q);
+        q = queryOptimizer.optimizeJoinOrder(q, statistics);
         logger.debug("Query after join order optimization:\n " + q);
 
-        ObjectQuery query = connection.prepareObjectQuery(q);
+        if (mode == PlanMode.COUNT || mode == PlanMode.EXISTS) {
+            q = createAggregate(QueryFactory.create(q), mode).serialize();
+        }
+
+        return q;
+    }
 
-        if (query.getDataset() != null) {
-            logger.info("\nGRAPH CONTEXT = " + query.getDataset().getDefaultGraphs() + "\nFINAL QUERY :\n" + q);
+    /**
+     * Evaluates the criteria into a SPARQL query for instances of the given type, before its join order is optimized.
+     *
+     * @param rootType   The RDF type of the instances to query.
+     * @param mode       How the query is paged.
+     * @param projection The LDPaths whose values are selected along with the instances.
+     * @return the SPARQL query
+     */
+    private String createQuery(URI rootType, PlanMode mode, List<String> projection) throws ParseException {
+        boolean limited = mode == PlanMode.RESULT || mode == PlanMode.PROJECTION;
+        boolean ordered = mode == PlanMode.KEYSET || ((limited || mode == PlanMode.FAN_OUT) && order != null);
+        Query sparql = EvalQuery.evaluate(queryServiceDTO, rootType, ordered ? orderPath : null, projection);
+
+        // LDPath allows distinct. May have bad performance.
+        sparql.setDistinct(true);
+
+        if (ordered) {
+            boolean descending = order == Order.DESCENDING;
+            int direction = descending ? Query.ORDER_DESCENDING : Query.ORDER_ASCENDING;
+            Expr root = new E_Str(new ExprVar(EvalQuery.ROOT_VARIABLE));
+            if (orderPath != null) {
+                // Keyset pagination compares keys like the seek filter, which can't compare IRIs or mixed types:
+                Expr key = new ExprVar(EvalQuery.KEY_VARIABLE);
+                sparql.addOrderBy(mode == PlanMode.KEYSET ? new E_Str(key) : key, direction);
+            }
+            sparql.addOrderBy(root, direction);
+
+            if ((mode == PlanMode.KEYSET || mode == PlanMode.FAN_OUT) && orderPath != null) {
+                sparql.addResultVar(EvalQuery.KEY_VARIABLE);
+            }
+            if (mode == PlanMode.KEYSET) {
+                ((ElementGroup) sparql.getQueryPattern()).addElementFilter(new ElementFilter(createSeekFilter(root, descending)));
+            }
+        }
+
+        if (limited) {
+            if (limit != null) {
+                sparql.setLimit(limit);
+            }
+
+            if (offset != null) {
+                sparql.setOffset(offset);
+            }
+        }
+
+        return sparql.serialize();
+    }
+
+    /**
+     * Turns the optimized query into one that only counts its distinct instances or asks whether there are any.
+     * The optimized pattern is kept as it is.
+     *
+     * @param optimized The optimized query selecting the instances.
+     * @param mode      Either {@link PlanMode#COUNT} or {@link PlanMode#EXISTS}.
+     * @return the counting or asking query
+     */
+    private Query createAggregate(Query optimized, PlanMode mode) {
+        Query aggregate = QueryFactory.make();
+        aggregate.setPrefixMapping(optimized.getPrefixMapping());
+        aggregate.setQueryPattern(optimized.getQueryPattern());
+
+        if (mode == PlanMode.COUNT) {
+            aggregate.setQuerySelectType();
+            Expr count = aggregate.allocAggregate(AggregatorFactory.createCountExpr(true, new ExprVar(EvalQuery.ROOT_VARIABLE)));
+            aggregate.addResultVar(COUNT_VARIABLE, count);
         } else {
-            logger.info("\nFINAL QUERY :\n" + q);
+            aggregate.setQueryAskType();
         }
+        return aggregate;
+    }
 
-        return (List<T>) query.evaluate().asList();
+    /**
+     * Creates the filter that skips the results up to the one bound to the variables
+     * {@link #AFTER_ROOT_VARIABLE} and {@link #AFTER_KEY_VARIABLE}, or none if they are unbound.
+     *
+     * The keys are compared by their string values like the results are ordered, because the comparison
+     * operators raise type errors for IRIs and literals of different types.
+     *
+     * @param root       The expression ordering the results by their IRI.
+     * @param descending Whether the results are ordered descending.
+     * @return the filter expression
+     */
+    private Expr createSeekFilter(Expr root, boolean descending) {
+        Expr afterRoot = new ExprVar(AFTER_ROOT_VARIABLE);
+        Expr afterRootString = new E_Str(afterRoot);
+        Expr seek = descending ? new E_LessThan(root, afterRootString) : new E_GreaterThan(root, afterRootString);
+
+        if (orderPath != null) {
+            Expr key = new E_Str(new ExprVar(EvalQuery.KEY_VARIABLE));
+            Expr afterKey = new E_Str(new ExprVar(AFTER_KEY_VARIABLE));
+            Expr keyAfter = descending ? new E_LessThan(key, afterKey) : new E_GreaterThan(key, afterKey);
+            seek = new E_LogicalOr(keyAfter, new E_LogicalAnd(new E_Equals(key, afterKey), seek));
+        }
+
+        return new E_LogicalOr(new E_LogicalNot(new E_Bound(afterRoot)), seek);
+    }
+
+    /**
+     * Collects the values a query is compiled from, i.e. the evaluators, the root type, the criteria,
+     * the prefixes, limit, offset and the version of the statistics. Queries with equal keys compile to the same SPARQL query.
+     *
+     * @param rootType The RDF type of the instances to query.
+     * @param mode       How the query is paged.
+     * @param projection The LDPaths whose values are selected along with the instances.
+     * @return the key of the compiled query in the {@link QueryPlanCache}
+     */
+    private List<Object> createPlanKey(URI rootType, PlanMode mode, List<String> projection) {
+        List<Object> key = new ArrayList<>();
+        key.add(queryServiceDTO.getEvaluatorConfiguration());
+        key.add(rootType);
+        for (Criteria criteria : queryServiceDTO.getCriteria()) {
+            key.add(criteria.getLdpath());
+            key.add(criteria.getConstraint());
+            key.add(criteria.getParameter());
+            key.add(criteria.getValue());
+            key.add(criteria.getComparison());
+            key.add(criteria.isNaN());
+        }
+        key.add(new HashMap<>(queryServiceDTO.getPrefixes()));
+        key.add(mode);
+        key.add(orderPath);
+        key.add(order);
+        key.add(projection);
+        key.add(statistics);
+        key.add((statistics != null) ? statistics.getVersion() : null);
+        if (mode == PlanMode.RESULT || mode == PlanMode.PROJECTION) {
+            key.add(limit);
+            key.add(offset);
+        }
+        return key;
+    }
+
+    /**
+     * Declares that this service won't be used anymore. A pooled connection used by the service goes back to its
+     * pool once the objects, prepared queries and iterators obtained from the service are unreachable as well.
+     */
+    @Override
+    public void close() {
+        connection.untrack(this);
     }
 
     public Configuration getConfiguration() {
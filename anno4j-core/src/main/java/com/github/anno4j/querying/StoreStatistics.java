@@ -0,0 +1,275 @@
+package com.github.anno4j.querying;
+
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.graph.Triple;
+import com.hp.hpl.jena.sparql.core.Var;
+import org.openrdf.model.Literal;
+import org.openrdf.model.Value;
+import org.openrdf.model.vocabulary.RDF;
+import org.openrdf.query.BindingSet;
+import org.openrdf.query.MalformedQueryException;
+import org.openrdf.query.QueryEvaluationException;
+import org.openrdf.query.QueryLanguage;
+import org.openrdf.query.TupleQueryResult;
+import org.openrdf.repository.RepositoryConnection;
+import org.openrdf.repository.RepositoryException;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cardinalities of the triples in a store, i.e. the number of triples per predicate and the number of instances per
+ * class, used by the {@link QueryOptimizer} to estimate the number of matches of triple patterns.
+ * The statistics are collected by {@link #refresh(RepositoryConnection)} on demand. If a maximum age is set,
+ * query services refresh them before compiling a query once they are older.
+ * Queries compiled with older statistics are compiled again after a refresh.
+ */
+public class StoreStatistics {
+
+    private static final String TOTAL_QUERY = "SELECT (COUNT(*) AS ?triples) (COUNT(DISTINCT ?s) AS ?subjects) (COUNT(DISTINCT ?o) AS ?objects)\n"
+            + "WHERE { ?s ?p ?o }";
+
+    private static final String PREDICATE_QUERY = "SELECT ?p (COUNT(*) AS ?triples) (COUNT(DISTINCT ?s) AS ?subjects) (COUNT(DISTINCT ?o) AS ?objects)\n"
+            + "WHERE { ?s ?p ?o }\n"
+            + "GROUP BY ?p";
+
+    private static final String CLASS_QUERY = "SELECT ?type (COUNT(DISTINCT ?s) AS ?instances)\n"
+            + "WHERE { ?s <" + RDF.TYPE + "> ?type }\n"
+            + "GROUP BY ?type";
+
+    /**
+     * The counts of the last refresh or null if the statistics were not collected yet.
+     */
+    private volatile Counts counts;
+
+    private final AtomicLong version = new AtomicLong();
+
+    private volatile long maxAge = -1;
+
+    /**
+     * Collects the statistics of the store the connection reads from, replacing the previous ones.
+     * Counting all triples may take a while on large stores.
+     *
+     * @param connection The connection to the store.
+     * @throws RepositoryException Thrown if the counts can't be queried.
+     */
+    public void refresh(RepositoryConnection connection) throws RepositoryException {
+        Counts refreshed = new Counts();
+        try {
+            TupleQueryResult result = connection.prepareTupleQuery(QueryLanguage.SPARQL, TOTAL_QUERY).evaluate();
+            try {
+                if (result.hasNext()) {
+                    refreshed.total = toCounts(result.next());
+                }
+            } finally {
+                result.close();
+            }
+
+            result = connection.prepareTupleQuery(QueryLanguage.SPARQL, PREDICATE_QUERY).evaluate();
+            try {
+                while (result.hasNext()) {
+                    BindingSet bindings = result.next();
+                    refreshed.predicates.put(bindings.getValue("p").stringValue(), toCounts(bindings));
+                }
+            } finally {
+                result.close();
+            }
+
+            result = connection.prepareTupleQuery(QueryLanguage.SPARQL, CLASS_QUERY).evaluate();
+            try {
+                while (result.hasNext()) {
+                    BindingSet bindings = result.next();
+                    refreshed.classes.put(bindings.getValue("type").stringValue(), toLong(bindings.getValue("instances")));
+                }
+            } finally {
+                result.close();
+            }
+        } catch (MalformedQueryException | QueryEvaluationException e) {
+            throw new RepositoryException("Couldn't collect statistics", e);
+        }
+
+        this.counts = refreshed;
+        version.incrementAndGet();
+    }
+
+    /**
+     * Discards the collected statistics, so queries are optimized without them again.
+     */
+    public void clear() {
+        this.counts = null;
+        version.incrementAndGet();
+    }
+
+    /**
+     * @return Returns true if the statistics were collected.
+     */
+    public boolean isAvailable() {
+        return counts != null;
+    }
+
+    /**
+     * @return Returns true if the statistics were not collected yet or are older than the maximum age.
+     */
+    public boolean isExpired() {
+        Counts current = counts;
+        return current == null || (maxAge >= 0 && System.currentTimeMillis() - current.timestamp > maxAge);
+    }
+
+    /**
+     * @return Returns the maximum age in milliseconds after which query services refresh the statistics
+     * or a negative value if they are only refreshed on demand.
+     */
+    public long getMaxAge() {
+        return maxAge;
+    }
+
+    /**
+     * @param maxAge The maximum age in milliseconds after which query services refresh the statistics,
+     *               or a negative value to refresh them only on demand, which is the default.
+     */
+    public void setMaxAge(long maxAge) {
+        this.maxAge = maxAge;
+    }
+
+    /**
+     * @return Returns a number that changes with every refresh.
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * @return Returns the number of triples in the store or 0 if the statistics were not collected.
+     */
+    public long getTripleCount() {
+        Counts current = counts;
+        return (current != null) ? current.total[0] : 0;
+    }
+
+    /**
+     * @param predicate The IRI of the predicate.
+     * @return Returns the number of triples with the predicate or 0 if there are none.
+     */
+    public long getPredicateCount(String predicate) {
+        Counts current = counts;
+        if (current == null || !current.predicates.containsKey(predicate)) {
+            return 0;
+        }
+        return current.predicates.get(predicate)[0];
+    }
+
+    /**
+     * @param type The IRI of the class.
+     * @return Returns the number of instances of the class or 0 if there are none.
+     */
+    public long getClassCount(String type) {
+        Counts current = counts;
+        if (current == null || !current.classes.containsKey(type)) {
+            return 0;
+        }
+        return current.classes.get(type);
+    }
+
+    /**
+     * @return Returns the number of triples per predicate IRI.
+     */
+    public Map<String, Long> getPredicateCounts() {
+        Map<String, Long> predicates = new HashMap<>();
+        Counts current = counts;
+        if (current != null) {
+            for (Map.Entry<String, long[]> entry : current.predicates.entrySet()) {
+                predicates.put(entry.getKey(), entry.getValue()[0]);
+            }
+        }
+        return predicates;
+    }
+
+    /**
+     * @return Returns the number of instances per class IRI.
+     */
+    public Map<String, Long> getClassCounts() {
+        Counts current = counts;
+        return (current != null) ? Collections.unmodifiableMap(current.classes) : Collections.<String, Long>emptyMap();
+    }
+
+    /**
+     * Estimates the number of matches of a triple pattern. The triples with the predicate of the pattern are assumed
+     * to be distributed evenly over their subjects and objects, so binding the subject or the object divides the
+     * count by the number of distinct subjects or objects. Patterns matching instances of a class use the count of
+     * the class.
+     *
+     * @param triple The triple pattern.
+     * @param bound  The variables that are bound when the pattern is evaluated.
+     * @return the estimated number of matches
+     */
+    double estimate(Triple triple, Set<Var> bound) {
+        Counts current = counts;
+        if (current == null) {
+            return 0;
+        }
+        boolean subjectBound = isBound(triple.getSubject(), bound);
+        boolean objectBound = isBound(triple.getObject(), bound);
+
+        long[] stats;
+        if (triple.getPredicate().isURI()) {
+            String predicate = triple.getPredicate().getURI();
+            if (predicate.equals(RDF.TYPE.stringValue()) && triple.getObject().isURI()) {
+                Long instances = current.classes.get(triple.getObject().getURI());
+                double cardinality = (instances != null) ? instances : 0;
+                return subjectBound ? Math.min(1, cardinality) : cardinality;
+            }
+            stats = current.predicates.get(predicate);
+            if (stats == null) {
+                return 0;
+            }
+        } else {
+            stats = current.total;
+        }
+
+        double cardinality = stats[0];
+        if (subjectBound && stats[1] > 0) {
+            cardinality /= stats[1];
+        }
+        if (objectBound && stats[2] > 0) {
+            cardinality /= stats[2];
+        }
+        return cardinality;
+    }
+
+    private static boolean isBound(Node node, Set<Var> bound) {
+        return !node.isVariable() || bound.contains(Var.alloc(node));
+    }
+
+    /**
+     * @return the number of triples, distinct subjects and distinct objects of the bindings
+     */
+    private static long[] toCounts(BindingSet bindings) {
+        return new long[]{
+                toLong(bindings.getValue("triples")),
+                toLong(bindings.getValue("subjects")),
+                toLong(bindings.getValue("objects"))
+        };
+    }
+
+    private static long toLong(Value value) {
+        return (value instanceof Literal) ? ((Literal) value).longValue() : 0;
+    }
+
+    /**
+     * The counts collected by one refresh. The arrays hold the number of triples, distinct subjects and distinct
+     * objects.
+     */
+    private static class Counts {
+
+        private final long timestamp = System.currentTimeMillis();
+
+        private long[] total = new long[3];
+
+        private final Map<String, long[]> predicates = new HashMap<>();
+
+        private final Map<String, Long> classes = new HashMap<>();
+    }
+}
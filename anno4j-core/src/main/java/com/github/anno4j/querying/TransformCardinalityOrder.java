@@ -0,0 +1,82 @@
+package com.github.anno4j.querying;
+
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.graph.Triple;
+import com.hp.hpl.jena.sparql.algebra.Op;
+import com.hp.hpl.jena.sparql.algebra.TransformCopy;
+import com.hp.hpl.jena.sparql.algebra.op.OpBGP;
+import com.hp.hpl.jena.sparql.core.BasicPattern;
+import com.hp.hpl.jena.sparql.core.Var;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reorders the triple patterns of every basic graph pattern by their estimated number of matches.
+ * The pattern with the fewest matches comes first. Each following pattern is the one with the fewest matches given
+ * the variables bound by the previous patterns, preferring patterns that share a variable with them to avoid cross
+ * products.
+ */
+class TransformCardinalityOrder extends TransformCopy {
+
+    private final StoreStatistics statistics;
+
+    private final List<String> estimates;
+
+    /**
+     * @param statistics The statistics to estimate the matches with.
+     * @param estimates  Receives a line per reordered pattern with its estimated matches or null.
+     */
+    TransformCardinalityOrder(StoreStatistics statistics, List<String> estimates) {
+        this.statistics = statistics;
+        this.estimates = estimates;
+    }
+
+    @Override
+    public Op transform(OpBGP opBGP) {
+        List<Triple> remaining = new ArrayList<>(opBGP.getPattern().getList());
+        BasicPattern ordered = new BasicPattern();
+        Set<Var> bound = new HashSet<>();
+
+        while (!remaining.isEmpty()) {
+            Triple best = null;
+            double bestEstimate = 0;
+            boolean bestConnected = false;
+            for (Triple triple : remaining) {
+                boolean connected = isConnected(triple, bound);
+                double estimate = statistics.estimate(triple, bound);
+                if (best == null || (connected && !bestConnected) || (connected == bestConnected && estimate < bestEstimate)) {
+                    best = triple;
+                    bestEstimate = estimate;
+                    bestConnected = connected;
+                }
+            }
+
+            remaining.remove(best);
+            ordered.add(best);
+            addVars(best, bound);
+            if (estimates != null) {
+                estimates.add(String.format("%12.0f  %s", bestEstimate, best));
+            }
+        }
+        return new OpBGP(ordered);
+    }
+
+    private static boolean isConnected(Triple triple, Set<Var> bound) {
+        return isBoundVar(triple.getSubject(), bound) || isBoundVar(triple.getPredicate(), bound) || isBoundVar(triple.getObject(), bound);
+    }
+
+    private static boolean isBoundVar(Node node, Set<Var> bound) {
+        return node.isVariable() && bound.contains(Var.alloc(node));
+    }
+
+    private static void addVars(Triple triple, Set<Var> bound) {
+        for (Node node : new Node[]{triple.getSubject(), triple.getPredicate(), triple.getObject()}) {
+            if (node.isVariable()) {
+                bound.add(Var.alloc(node));
+            }
+        }
+    }
+}
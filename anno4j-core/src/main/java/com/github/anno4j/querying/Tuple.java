@@ -0,0 +1,149 @@
+package com.github.anno4j.querying;
+
+import org.openrdf.model.Literal;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Value;
+import org.openrdf.repository.object.ObjectFactory;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A row of a projection query, i.e. a queried instance and the values of the selected LDPaths.
+ * The values are the raw RDF terms of the query result, no objects are created for them.
+ * Literals can be converted to Java values with {@link #get(int, Class)}.
+ */
+public class Tuple {
+
+    private final Resource resource;
+
+    private final List<String> paths;
+
+    private final Value[] values;
+
+    private final ObjectFactory objectFactory;
+
+    Tuple(Resource resource, List<String> paths, Value[] values, ObjectFactory objectFactory) {
+        this.resource = resource;
+        this.paths = paths;
+        this.values = values;
+        this.objectFactory = objectFactory;
+    }
+
+    /**
+     * @return Returns the resource of the queried instance.
+     */
+    public Resource getResource() {
+        return resource;
+    }
+
+    /**
+     * @return Returns the LDPaths whose values are selected, in the order of their indices.
+     */
+    public List<String> getPaths() {
+        return paths;
+    }
+
+    /**
+     * @return Returns the number of selected values.
+     */
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * @param index The index of the LDPath as passed to {@link QueryService#select(Class, String...)}.
+     * @return Returns the value of the LDPath or null if the instance has none.
+     */
+    public Value getValue(int index) {
+        return values[index];
+    }
+
+    /**
+     * @param ldpath One of the selected LDPaths.
+     * @return Returns the value of the LDPath or null if the instance has none.
+     * @throws IllegalArgumentException Thrown if the LDPath is not selected.
+     */
+    public Value getValue(String ldpath) {
+        return values[indexOf(ldpath)];
+    }
+
+    /**
+     * @param index The index of the LDPath.
+     * @return Returns the lexical form or IRI of the value or null if the instance has none.
+     */
+    public String getString(int index) {
+        Value value = values[index];
+        return (value != null) ? value.stringValue() : null;
+    }
+
+    /**
+     * @param ldpath One of the selected LDPaths.
+     * @return Returns the lexical form or IRI of the value or null if the instance has none.
+     * @throws IllegalArgumentException Thrown if the LDPath is not selected.
+     */
+    public String getString(String ldpath) {
+        return getString(indexOf(ldpath));
+    }
+
+    /**
+     * Returns the value of an LDPath as an instance of the given type. Literals are converted by their datatype
+     * like property values of objects, resources can be returned as {@link Resource} or {@link Value}.
+     *
+     * @param index The index of the LDPath.
+     * @param type  The expected type of the value.
+     * @param <T>   The expected type of the value.
+     * @return Returns the converted value or null if the instance has none.
+     * @throws ClassCastException Thrown if the value can't be converted to the given type.
+     */
+    public <T> T get(int index, Class<T> type) {
+        Value value = values[index];
+        if (value == null || type.isInstance(value)) {
+            return type.cast(value);
+        }
+        if (value instanceof Literal) {
+            Object converted = objectFactory.createObject((Literal) value);
+            if (type.isInstance(converted)) {
+                return type.cast(converted);
+            }
+            if (type.equals(String.class)) {
+                return type.cast(value.stringValue());
+            }
+        }
+        throw new ClassCastException("Can't convert " + value + " to " + type.getName());
+    }
+
+    /**
+     * @param ldpath One of the selected LDPaths.
+     * @param type   The expected type of the value.
+     * @param <T>    The expected type of the value.
+     * @return Returns the converted value or null if the instance has none.
+     * @throws IllegalArgumentException Thrown if the LDPath is not selected.
+     * @throws ClassCastException Thrown if the value can't be converted to the given type.
+     * @see #get(int, Class)
+     */
+    public <T> T get(String ldpath, Class<T> type) {
+        return get(indexOf(ldpath), type);
+    }
+
+    /**
+     * @return Returns the selected values in the order of their LDPaths, null for missing values.
+     */
+    public List<Value> getValues() {
+        return Collections.unmodifiableList(Arrays.asList(values));
+    }
+
+    private int indexOf(String ldpath) {
+        int index = paths.indexOf(ldpath);
+        if (index < 0) {
+            throw new IllegalArgumentException("The LDPath " + ldpath + " is not selected: " + paths);
+        }
+        return index;
+    }
+
+    @Override
+    public String toString() {
+        return resource + " " + Arrays.toString(values);
+    }
+}
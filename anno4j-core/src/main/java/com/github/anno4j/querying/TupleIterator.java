@@ -0,0 +1,110 @@
+package com.github.anno4j.querying;
+
+import com.github.anno4j.querying.evaluation.EvalQuery;
+import org.openrdf.model.Resource;
+import org.openrdf.model.Value;
+import org.openrdf.query.BindingSet;
+import org.openrdf.query.QueryEvaluationException;
+import org.openrdf.query.TupleQueryResult;
+import org.openrdf.repository.object.ObjectFactory;
+import org.openrdf.repository.object.exceptions.ObjectStoreException;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazily iterates the rows of a projection query as {@link Tuple}s. Each row is read from the query result
+ * when it is requested.
+ * <br/>
+ * The iterator must be closed if it is not consumed completely, e.g. by a try-with-resources statement.
+ * It is closed automatically once its last tuple was returned.
+ * Errors while reading the results are thrown as {@link ObjectStoreException}.
+ */
+public class TupleIterator implements Iterator<Tuple>, Closeable {
+
+    private final TupleQueryResult result;
+    private final List<String> paths;
+    private final ObjectFactory objectFactory;
+    private boolean closed;
+
+    /**
+     * @param result        The result of the projection query.
+     * @param paths         The selected LDPaths, in the order of their variables.
+     * @param objectFactory The factory converting literals.
+     */
+    TupleIterator(TupleQueryResult result, List<String> paths, ObjectFactory objectFactory) {
+        this.result = result;
+        this.paths = paths;
+        this.objectFactory = objectFactory;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (closed) {
+            return false;
+        }
+        try {
+            if (result.hasNext()) {
+                return true;
+            }
+        } catch (QueryEvaluationException e) {
+            closeQuietly();
+            throw new ObjectStoreException(e);
+        }
+        close();
+        return false;
+    }
+
+    @Override
+    public Tuple next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        BindingSet bindings;
+        try {
+            bindings = result.next();
+        } catch (QueryEvaluationException e) {
+            closeQuietly();
+            throw new ObjectStoreException(e);
+        }
+        Value[] values = new Value[paths.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = bindings.getValue(EvalQuery.PROJECTION_VARIABLE_PREFIX + i);
+        }
+        return new Tuple((Resource) bindings.getValue(EvalQuery.ROOT_VARIABLE), paths, values, objectFactory);
+    }
+
+    /**
+     * Not supported, tuples can't be removed from a query result.
+     */
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Closes the underlying query result. Closing an iterator twice has no effect.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            result.close();
+        } catch (QueryEvaluationException e) {
+            throw new ObjectStoreException(e);
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (ObjectStoreException ignored) {
+            // the original error is thrown instead
+        }
+    }
+}
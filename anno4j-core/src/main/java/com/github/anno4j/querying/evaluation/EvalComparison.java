@@ -2,59 +2,172 @@ package com.github.anno4j.querying.evaluation;
 
 import com.github.anno4j.querying.Comparison;
 import com.github.anno4j.querying.Criteria;
+import com.github.anno4j.querying.Parameter;
+import com.hp.hpl.jena.datatypes.RDFDatatype;
+import com.hp.hpl.jena.datatypes.TypeMapper;
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.graph.NodeFactory;
 import com.hp.hpl.jena.sparql.core.Var;
 import com.hp.hpl.jena.sparql.expr.*;
 import com.hp.hpl.jena.sparql.expr.nodevalue.NodeValueDouble;
 import com.hp.hpl.jena.sparql.syntax.ElementFilter;
 import com.hp.hpl.jena.sparql.syntax.ElementGroup;
+import org.openrdf.model.Literal;
+import org.openrdf.model.URI;
+import org.openrdf.model.Value;
 
 /**
  * Created by schlegel on 03/06/15.
  */
 public class EvalComparison {
 
+    /**
+     * Adds the filter comparing the variable to a textual or numerical constraint. Textual constraints are compared
+     * to the string value of the variable, i.e. the IRI or the lexical form of a literal regardless of its language
+     * and datatype, with the SPARQL string functions instead of regular expressions.
+     */
     public static void evaluate(ElementGroup elementGroup, Criteria criteria, Var variable, String resolvedConstraint) {
+        Expr var = new ExprVar(variable.asNode());
+        Expr expr;
 
         if (criteria.isNaN()) {
+            Expr string = new E_Str(var);
+            Expr constraint = NodeValue.makeString(resolvedConstraint);
 
-            String constraint = "";
-
-            // Setting the boundaries (\b) to the RegExp, according to the comparison type
             if (Comparison.EQ.equals(criteria.getComparison())) {
-                constraint = "^" + resolvedConstraint + "$";
+                expr = new E_Equals(string, constraint);
             } else if (Comparison.CONTAINS.equals(criteria.getComparison())) {
-                constraint = resolvedConstraint;
+                expr = new E_StrContains(string, constraint);
             } else if (Comparison.STARTS_WITH.equals(criteria.getComparison())) {
-                constraint = "^" + resolvedConstraint;
+                expr = new E_StrStartsWith(string, constraint);
             } else if (Comparison.ENDS_WITH.equals(criteria.getComparison())) {
-                constraint = resolvedConstraint + "$";
+                expr = new E_StrEndsWith(string, constraint);
             } else {
                 throw new IllegalStateException(criteria.getComparison() + " is only allowed on Numbers.");
             }
-
-            if (!constraint.equals("")) {
-                elementGroup.addElementFilter(new ElementFilter(new E_Regex(new E_Str(new ExprVar(variable.asNode())), constraint , "")));
-            }
         } else {
-            Expr expr;
+            Expr number = new NodeValueDouble(Double.parseDouble(resolvedConstraint));
 
             if (criteria.getComparison().equals(Comparison.GT)) {
-                expr = new E_GreaterThan(new ExprVar(variable.asNode()), new NodeValueDouble(Double.parseDouble(resolvedConstraint)));
+                expr = new E_GreaterThan(var, number);
             } else if (criteria.getComparison().equals(Comparison.GTE)) {
-                expr = new E_GreaterThanOrEqual(new ExprVar(variable.asNode()), new NodeValueDouble(Double.parseDouble(resolvedConstraint)));
+                expr = new E_GreaterThanOrEqual(var, number);
             } else if (criteria.getComparison().equals(Comparison.LT)) {
-                expr = new E_LessThan(new ExprVar(variable.asNode()), new NodeValueDouble(Double.parseDouble(resolvedConstraint)));
+                expr = new E_LessThan(var, number);
             } else if (criteria.getComparison().equals(Comparison.LTE)) {
-                expr = new E_LessThanOrEqual(new ExprVar(variable.asNode()), new NodeValueDouble(Double.parseDouble(resolvedConstraint)));
+                expr = new E_LessThanOrEqual(var, number);
             } else if (criteria.getComparison().equals(Comparison.EQ)) {
-                expr = new E_Equals(new ExprVar(variable.asNode()), new ExprVar(criteria.getConstraint()));
+                expr = new E_Equals(var, number);
             } else {
                 throw new IllegalStateException(criteria.getComparison() + " is not allowed on Numbers.");
             }
+        }
+
+        elementGroup.addElementFilter(new ElementFilter(expr));
+    }
 
-            if(expr != null) {
-                elementGroup.addElementFilter(new ElementFilter(expr));
+    /**
+     * Adds the filter comparing the variable to an RDF term. Equality is checked with <code>sameTerm</code>, which
+     * the store can answer by substituting the term into the triple pattern and looking it up in its indexes.
+     * So IRIs only match IRIs and literals only match literals of the same language and datatype.
+     * The textual comparisons compare the string values, but also require the language or datatype of a literal term.
+     * The numerical comparisons compare the terms by the SPARQL operators.
+     */
+    public static void evaluate(ElementGroup elementGroup, Criteria criteria, Var variable, Value value) {
+        Expr var = new ExprVar(variable.asNode());
+        Expr term = NodeValue.makeNode(asNode(value));
+        Expr expr;
+
+        if (criteria.getComparison().equals(Comparison.EQ)) {
+            expr = new E_SameTerm(var, term);
+        } else if (criteria.getComparison().equals(Comparison.CONTAINS)) {
+            expr = new E_StrContains(new E_Str(var), new E_Str(term));
+        } else if (criteria.getComparison().equals(Comparison.STARTS_WITH)) {
+            expr = new E_StrStartsWith(new E_Str(var), new E_Str(term));
+        } else if (criteria.getComparison().equals(Comparison.ENDS_WITH)) {
+            expr = new E_StrEndsWith(new E_Str(var), new E_Str(term));
+        } else if (criteria.getComparison().equals(Comparison.GT)) {
+            expr = new E_GreaterThan(var, term);
+        } else if (criteria.getComparison().equals(Comparison.GTE)) {
+            expr = new E_GreaterThanOrEqual(var, term);
+        } else if (criteria.getComparison().equals(Comparison.LT)) {
+            expr = new E_LessThan(var, term);
+        } else if (criteria.getComparison().equals(Comparison.LTE)) {
+            expr = new E_LessThanOrEqual(var, term);
+        } else {
+            throw new IllegalStateException(criteria.getComparison() + " is not allowed on RDF terms.");
+        }
+        elementGroup.addElementFilter(new ElementFilter(expr));
+
+        boolean textual = Comparison.CONTAINS.equals(criteria.getComparison())
+                || Comparison.STARTS_WITH.equals(criteria.getComparison())
+                || Comparison.ENDS_WITH.equals(criteria.getComparison());
+        if (textual) {
+            if (value instanceof URI) {
+                elementGroup.addElementFilter(new ElementFilter(new E_IsIRI(var)));
+            } else if (((Literal) value).getLanguage() != null) {
+                Expr language = NodeValue.makeString(((Literal) value).getLanguage());
+                elementGroup.addElementFilter(new ElementFilter(new E_LangMatches(new E_Lang(var), language)));
+            } else if (((Literal) value).getDatatype() != null) {
+                Expr datatype = NodeValue.makeNode(NodeFactory.createURI(((Literal) value).getDatatype().stringValue()));
+                elementGroup.addElementFilter(new ElementFilter(new E_SameTerm(new E_Datatype(var), datatype)));
+            } else {
+                elementGroup.addElementFilter(new ElementFilter(new E_IsLiteral(var)));
             }
         }
     }
+
+    /**
+     * Converts an IRI or literal into the corresponding Jena node.
+     *
+     * @throws IllegalArgumentException Thrown if the value is a blank node.
+     */
+    private static Node asNode(Value value) {
+        if (value instanceof URI) {
+            return NodeFactory.createURI(value.stringValue());
+        } else if (value instanceof Literal) {
+            Literal literal = (Literal) value;
+            if (literal.getLanguage() != null) {
+                return NodeFactory.createLiteral(literal.getLabel(), literal.getLanguage(), false);
+            } else if (literal.getDatatype() != null) {
+                RDFDatatype datatype = TypeMapper.getInstance().getSafeTypeByName(literal.getDatatype().stringValue());
+                return NodeFactory.createLiteral(literal.getLabel(), datatype);
+            }
+            return NodeFactory.createLiteral(literal.getLabel());
+        }
+        throw new IllegalArgumentException("Blank nodes can't be used as constraint: " + value);
+    }
+
+    /**
+     * Adds the filter comparing the variable to the value of a parameter. The value is bound to the variable
+     * {@link Parameter#getVariableName()} when the query is evaluated. Equality and the numerical comparisons compare
+     * the RDF terms, the textual comparisons compare the string values.
+     */
+    public static void evaluate(ElementGroup elementGroup, Criteria criteria, Var variable, Parameter parameter) {
+        Expr value = new ExprVar(Var.alloc(parameter.getVariableName()));
+        Expr var = new ExprVar(variable.asNode());
+        Expr expr;
+
+        if (criteria.getComparison().equals(Comparison.EQ)) {
+            expr = new E_Equals(var, value);
+        } else if (criteria.getComparison().equals(Comparison.CONTAINS)) {
+            expr = new E_StrContains(new E_Str(var), new E_Str(value));
+        } else if (criteria.getComparison().equals(Comparison.STARTS_WITH)) {
+            expr = new E_StrStartsWith(new E_Str(var), new E_Str(value));
+        } else if (criteria.getComparison().equals(Comparison.ENDS_WITH)) {
+            expr = new E_StrEndsWith(new E_Str(var), new E_Str(value));
+        } else if (criteria.getComparison().equals(Comparison.GT)) {
+            expr = new E_GreaterThan(var, value);
+        } else if (criteria.getComparison().equals(Comparison.GTE)) {
+            expr = new E_GreaterThanOrEqual(var, value);
+        } else if (criteria.getComparison().equals(Comparison.LT)) {
+            expr = new E_LessThan(var, value);
+        } else if (criteria.getComparison().equals(Comparison.LTE)) {
+            expr = new E_LessThanOrEqual(var, value);
+        } else {
+            throw new IllegalStateException(criteria.getComparison() + " is not allowed on parameters.");
+        }
+
+        elementGroup.addElementFilter(new ElementFilter(expr));
+    }
 }
@@ -9,7 +9,10 @@ import com.hp.hpl.jena.graph.Triple;
 import com.hp.hpl.jena.query.Query;
 import com.hp.hpl.jena.query.QueryFactory;
 import com.hp.hpl.jena.sparql.core.Var;
+import com.hp.hpl.jena.sparql.expr.ExprVar;
+import com.hp.hpl.jena.sparql.syntax.ElementBind;
 import com.hp.hpl.jena.sparql.syntax.ElementGroup;
+import com.hp.hpl.jena.sparql.syntax.ElementOptional;
 import com.hp.hpl.jena.vocabulary.RDF;
 import org.apache.marmotta.ldpath.backend.sesame.SesameValueBackend;
 import org.apache.marmotta.ldpath.parser.LdPathParser;
@@ -17,18 +20,64 @@ import org.apache.marmotta.ldpath.parser.ParseException;
 import org.openrdf.model.URI;
 
 import java.io.StringReader;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 public class EvalQuery {
 
+    /**
+     * The name of the variable the queried instances are bound to.
+     */
+    public static final String ROOT_VARIABLE = "root";
+
+    /**
+     * The name of the variable the value of the ordering path is bound to.
+     */
+    public static final String KEY_VARIABLE = "key";
+
+    /**
+     * The prefix of the variables the values of projected paths are bound to, followed by the index of the path.
+     */
+    public static final String PROJECTION_VARIABLE_PREFIX = "value_";
+
     public static <T extends ResourceObject> Query evaluate(QueryServiceConfiguration queryServiceDTO, URI rootType) throws ParseException {
+        return evaluate(queryServiceDTO, rootType, null);
+    }
+
+    /**
+     * Evaluates the criteria into a query for the instances of the given type.
+     *
+     * @param queryServiceDTO The criteria, prefixes and configuration.
+     * @param rootType        The RDF type of the queried instances.
+     * @param keyPath         An LDPath whose value is bound to {@link #KEY_VARIABLE} or null.
+     *                        Instances without a value are not matched.
+     * @return the query selecting the instances
+     */
+    public static Query evaluate(QueryServiceConfiguration queryServiceDTO, URI rootType, String keyPath) throws ParseException {
+        return evaluate(queryServiceDTO, rootType, keyPath, Collections.<String>emptyList());
+    }
+
+    /**
+     * Evaluates the criteria into a query for the instances of the given type that also selects the values of
+     * the given paths. The value of the i-th path is bound to {@link #PROJECTION_VARIABLE_PREFIX} followed by i.
+     * The paths are optional, so instances without a value are matched with the variable unbound.
+     *
+     * @param queryServiceDTO The criteria, prefixes and configuration.
+     * @param rootType        The RDF type of the queried instances.
+     * @param keyPath         An LDPath whose value is bound to {@link #KEY_VARIABLE} or null.
+     *                        Instances without a value are not matched.
+     * @param projection      The LDPaths whose values are selected.
+     * @return the query selecting the instances and values
+     */
+    public static Query evaluate(QueryServiceConfiguration queryServiceDTO, URI rootType, String keyPath, List<String> projection) throws ParseException {
 
         Query query = QueryFactory.make();
         query.setQuerySelectType();
 
         ElementGroup elementGroup = new ElementGroup();
 
-        Var objectVar = Var.alloc("root");
+        Var objectVar = Var.alloc(ROOT_VARIABLE);
 
         // Creating and adding the first triple - could be something like: "?objectVar rdf:type oa:Annotation
         Triple t1 = new Triple(objectVar, RDF.type.asNode(), NodeFactory.createURI(rootType.toString()));
@@ -41,17 +90,38 @@ public class EvalQuery {
             LdPathParser parser = new LdPathParser(backend, queryServiceDTO.getConfiguration(), new StringReader(c.getLdpath()));
             Var var = LDPathEvaluator.evaluate(parser.parseSelector(queryServiceDTO.getPrefixes()), elementGroup, objectVar, queryServiceDTO.getEvaluatorConfiguration());
 
-            if (c.getConstraint() != null) {
+            if (c.getParameter() != null) {
+                EvalComparison.evaluate(elementGroup, c, var, c.getParameter());
+            } else if (c.getValue() != null) {
+                EvalComparison.evaluate(elementGroup, c, var, c.getValue());
+            } else if (c.getConstraint() != null) {
                 String resolvedConstraint = resolveConstraintPrefix(c.getConstraint(), queryServiceDTO, parser);
                 EvalComparison.evaluate(elementGroup, c, var, resolvedConstraint);
             }
         }
 
+        if (keyPath != null) {
+            LdPathParser parser = new LdPathParser(new SesameValueBackend(), queryServiceDTO.getConfiguration(), new StringReader(keyPath));
+            Var var = LDPathEvaluator.evaluate(parser.parseSelector(queryServiceDTO.getPrefixes()), elementGroup, objectVar, queryServiceDTO.getEvaluatorConfiguration());
+            elementGroup.addElement(new ElementBind(Var.alloc(KEY_VARIABLE), new ExprVar(var)));
+        }
+
+        for (int i = 0; i < projection.size(); i++) {
+            ElementGroup optionalGroup = new ElementGroup();
+            LdPathParser parser = new LdPathParser(new SesameValueBackend(), queryServiceDTO.getConfiguration(), new StringReader(projection.get(i)));
+            Var var = LDPathEvaluator.evaluate(parser.parseSelector(queryServiceDTO.getPrefixes()), optionalGroup, objectVar, queryServiceDTO.getEvaluatorConfiguration());
+            optionalGroup.addElement(new ElementBind(Var.alloc(PROJECTION_VARIABLE_PREFIX + i), new ExprVar(var)));
+            elementGroup.addElement(new ElementOptional(optionalGroup));
+        }
+
         // Adding all generated patterns to the query object
         query.setQueryPattern(elementGroup);
 
         // Choose what we want so select - SELECT ?annotation in this case
         query.addResultVar(objectVar);
+        for (int i = 0; i < projection.size(); i++) {
+            query.addResultVar(PROJECTION_VARIABLE_PREFIX + i);
+        }
 
         // Setting the default prefixes, like rdf: or dc:
         query.getPrefixMapping().setNsPrefixes(queryServiceDTO.getPrefixes());
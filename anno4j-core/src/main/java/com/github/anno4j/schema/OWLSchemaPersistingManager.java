@@ -1,6 +1,7 @@
 package com.github.anno4j.schema;
 
 import com.github.anno4j.annotations.*;
+import com.github.anno4j.model.namespaces.Anno4jNS;
 import com.github.anno4j.model.namespaces.OWL;
 import com.github.anno4j.model.namespaces.RDFS;
 import com.github.anno4j.schema.model.owl.OWLClazz;
@@ -10,24 +11,31 @@ import com.google.common.collect.Sets;
 import org.openrdf.annotations.Iri;
 import org.openrdf.idGenerator.IDGenerator;
 import org.openrdf.model.Resource;
+import org.openrdf.model.Statement;
+import org.openrdf.model.URI;
+import org.openrdf.model.ValueFactory;
 import org.openrdf.model.impl.URIImpl;
 import org.openrdf.query.MalformedQueryException;
 import org.openrdf.query.QueryEvaluationException;
 import org.openrdf.query.Update;
 import org.openrdf.query.UpdateExecutionException;
 import org.openrdf.repository.RepositoryException;
+import org.openrdf.repository.RepositoryResult;
 import org.openrdf.repository.object.ObjectConnection;
 import org.openrdf.repository.object.ObjectFactory;
 import org.openrdf.repository.object.ObjectQuery;
+import org.openrdf.repository.object.managers.helpers.ClassIndex;
 import org.openrdf.result.Result;
-import org.reflections.Reflections;
 
+import java.io.UnsupportedEncodingException;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.AccessibleObject;
 import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
 
 /**
@@ -54,7 +62,119 @@ public class OWLSchemaPersistingManager extends SchemaPersistingManager {
      * @throws ContradictorySchemaException Thrown if the schema information imposed by annotations contradicts with
      * schema information that is already present in the connected triplestore.
      */
-    public void persistSchema(Reflections types) throws InconsistentAnnotationException, RepositoryException {
+    @Override
+    public void persistSchema(ClassIndex types) throws InconsistentAnnotationException, RepositoryException {
+        Collection<AccessibleObject> iriAnnotatedObjects = getIriAnnotatedObjects(types);
+
+        // Check whether schema annotations contradict each other:
+        checkSchemaAnnotationConsistency(iriAnnotatedObjects);
+
+        // Check whether schema annotations contradict information that is already in the triplestore:
+        validateAgainstExistingSchema(iriAnnotatedObjects);
+
+        // Persist the schema information to the triplestore:
+        persistInheritance(types.getTypesAnnotatedWith(Iri.class));
+        persistPropertyCharacteristics(iriAnnotatedObjects);
+        persistPropertyRestrictions(iriAnnotatedObjects);
+    }
+
+    /**
+     * Persists the schema information of those concepts, methods and fields whose annotations changed since the
+     * last call of this method on the connected triplestore.
+     * For this purpose a fingerprint of every concept, method and field and of the whole schema is stored
+     * in the context {@link Anno4jNS#SCHEMA_FINGERPRINT_CONTEXT}. If the fingerprint of the whole schema is unchanged,
+     * neither validation nor persisting is done. Otherwise only the changed elements are validated against
+     * the existing schema and persisted. The consistency of the annotations is always checked for all elements
+     * if something changed.
+     * Note that schema information of removed annotations is not retracted, which is the same for {@link #persistSchema(ClassIndex)}.
+     * @param types The types which methods and field should be scanned for schema information.
+     * @return Returns true if schema information was persisted and false if the schema was unchanged.
+     * @throws RepositoryException Thrown if an error occurs while persisting schema information.
+     * @throws InconsistentAnnotationException Thrown if the schema annotations are inconsistent.
+     * @throws ContradictorySchemaException Thrown if the changed schema information contradicts with
+     * schema information that is already present in the connected triplestore.
+     */
+    @Override
+    public boolean persistSchemaChanges(ClassIndex types) throws InconsistentAnnotationException, RepositoryException {
+        Collection<AccessibleObject> iriAnnotatedObjects = getIriAnnotatedObjects(types);
+        Set<Class<?>> concepts = types.getTypesAnnotatedWith(Iri.class);
+
+        // Fingerprint every element, so that changes can be detected per element:
+        Map<String, Class<?>> conceptsByFingerprint = new HashMap<>();
+        for (Class<?> concept : concepts) {
+            conceptsByFingerprint.put(fingerprint(conceptKey(concept)), concept);
+        }
+        Map<String, AccessibleObject> objectsByFingerprint = new HashMap<>();
+        for (AccessibleObject object : iriAnnotatedObjects) {
+            objectsByFingerprint.put(fingerprint(objectKey(object)), object);
+        }
+        Set<String> elementFingerprints = new TreeSet<>(conceptsByFingerprint.keySet());
+        elementFingerprints.addAll(objectsByFingerprint.keySet());
+
+        StringBuilder schemaKey = new StringBuilder();
+        for (String elementFingerprint : elementFingerprints) {
+            schemaKey.append(elementFingerprint).append('\n');
+        }
+        String schemaFingerprint = fingerprint(schemaKey.toString());
+
+        ObjectConnection connection = getConnection();
+        ValueFactory vf = connection.getValueFactory();
+        URI context = vf.createURI(Anno4jNS.SCHEMA_FINGERPRINT_CONTEXT);
+        URI schemaFingerprintProperty = vf.createURI(Anno4jNS.SCHEMA_FINGERPRINT);
+        URI elementFingerprintProperty = vf.createURI(Anno4jNS.SCHEMA_ELEMENT_FINGERPRINT);
+
+        if(connection.hasStatement(context, schemaFingerprintProperty, vf.createLiteral(schemaFingerprint), false, context)) {
+            return false;
+        }
+
+        // Get the fingerprints of the elements persisted before:
+        Set<String> persistedFingerprints = new HashSet<>();
+        RepositoryResult<Statement> statements = connection.getStatements(context, elementFingerprintProperty, null, false, context);
+        try {
+            while (statements.hasNext()) {
+                persistedFingerprints.add(statements.next().getObject().stringValue());
+            }
+        } finally {
+            statements.close();
+        }
+
+        Collection<Class<?>> changedConcepts = new HashSet<>();
+        for (Map.Entry<String, Class<?>> entry : conceptsByFingerprint.entrySet()) {
+            if(!persistedFingerprints.contains(entry.getKey())) {
+                changedConcepts.add(entry.getValue());
+            }
+        }
+        Collection<AccessibleObject> changedObjects = new HashSet<>();
+        for (Map.Entry<String, AccessibleObject> entry : objectsByFingerprint.entrySet()) {
+            if(!persistedFingerprints.contains(entry.getKey())) {
+                changedObjects.add(entry.getValue());
+            }
+        }
+
+        // Consistency is checked per property IRI, so all annotations are needed:
+        checkSchemaAnnotationConsistency(iriAnnotatedObjects);
+
+        validateAgainstExistingSchema(changedObjects);
+
+        persistInheritance(changedConcepts);
+        persistPropertyCharacteristics(changedObjects);
+        persistPropertyRestrictions(changedObjects);
+
+        // Replace the stored fingerprints:
+        connection.remove(context, null, null, context);
+        connection.add(context, schemaFingerprintProperty, vf.createLiteral(schemaFingerprint), context);
+        for (String elementFingerprint : elementFingerprints) {
+            connection.add(context, elementFingerprintProperty, vf.createLiteral(elementFingerprint), context);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the methods and fields with an {@link Iri} annotation, except those of loaded behaviours.
+     * @param types The index of annotated types, methods and fields.
+     * @return Returns the {@link Iri} annotated methods and fields.
+     */
+    private Collection<AccessibleObject> getIriAnnotatedObjects(ClassIndex types) {
         Collection<AccessibleObject> iriAnnotatedObjects = new HashSet<>();
         // Add methods with @Iri annotation:
         for(AccessibleObject object : types.getMethodsAnnotatedWith(Iri.class)) {
@@ -68,17 +188,62 @@ public class OWLSchemaPersistingManager extends SchemaPersistingManager {
                 iriAnnotatedObjects.add(object);
             }
         }
+        return iriAnnotatedObjects;
+    }
 
-        // Check whether schema annotations contradict each other:
-        checkSchemaAnnotationConsistency(iriAnnotatedObjects);
+    /**
+     * Returns a string describing the schema information of a concept, i.e. its IRI and the IRIs of its
+     * direct super concepts.
+     * @param concept The {@link Iri} annotated concept.
+     * @return Returns the description of the concept.
+     */
+    private String conceptKey(Class<?> concept) {
+        StringBuilder key = new StringBuilder("concept ").append(concept.getName()).append(' ').append(getIriFromObject(concept));
+        Set<String> superConceptIris = new TreeSet<>();
+        for (Class<?> superConcept : concept.getInterfaces()) {
+            if(superConcept.isAnnotationPresent(Iri.class)) {
+                superConceptIris.add(getIriFromObject(superConcept));
+            }
+        }
+        for (String superConceptIri : superConceptIris) {
+            key.append(' ').append(superConceptIri);
+        }
+        return key.toString();
+    }
 
-        // Check whether schema annotations contradict information that is already in the triplestore:
-        validateAgainstExistingSchema(iriAnnotatedObjects);
+    /**
+     * Returns a string describing the schema information of a method or field, i.e. its signature,
+     * the IRI of its declaring concept and all of its annotations.
+     * @param object The {@link Iri} annotated method or field.
+     * @return Returns the description of the object.
+     */
+    private String objectKey(AccessibleObject object) {
+        StringBuilder key = new StringBuilder("property ").append(object.toString());
+        Class<?> declaringClazz = getDeclaringJavaClazz(object);
+        if(declaringClazz != null) {
+            key.append(' ').append(getIriFromObject(declaringClazz));
+        }
+        Set<String> annotations = new TreeSet<>();
+        for (Annotation annotation : object.getAnnotations()) {
+            annotations.add(annotation.toString());
+        }
+        for (String annotation : annotations) {
+            key.append(' ').append(annotation);
+        }
+        return key.toString();
+    }
 
-        // Persist the schema information to the triplestore:
-        persistInheritance(types.getTypesAnnotatedWith(Iri.class));
-        persistPropertyCharacteristics(iriAnnotatedObjects);
-        persistPropertyRestrictions(iriAnnotatedObjects);
+    /**
+     * @param key The string to fingerprint.
+     * @return Returns the SHA-1 hash of the string in hexadecimal representation.
+     */
+    private String fingerprint(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(key.getBytes("UTF-8"));
+            return String.format("%040x", new BigInteger(1, digest));
+        } catch (NoSuchAlgorithmException | UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
     /**
@@ -2,6 +2,8 @@ package com.github.anno4j.schema;
 
 import org.openrdf.repository.RepositoryException;
 import org.openrdf.repository.object.ObjectConnection;
+import org.openrdf.repository.object.managers.helpers.ClassIndex;
+import org.openrdf.repository.object.managers.helpers.ReflectionsClassIndex;
 import org.reflections.Reflections;
 
 /**
@@ -62,7 +64,35 @@ public abstract class SchemaPersistingManager {
      * @throws ContradictorySchemaException Thrown if the schema information imposed by annotations contradicts with
      * schema information that is already present in the connected triplestore.
      */
-    public abstract void persistSchema(Reflections types) throws RepositoryException, InconsistentAnnotationException;
+    public abstract void persistSchema(ClassIndex types) throws RepositoryException, InconsistentAnnotationException;
+
+    /**
+     * Persists the schema information implied by schema annotations to the default graph of the connected triplestore.
+     * Performs a validation that the schema annotations are consistent.
+     * @param types The types which methods and field should be scanned for schema information.
+     * @throws RepositoryException Thrown if an error occurs while persisting schema information.
+     * @throws InconsistentAnnotationException Thrown if the schema annotations are inconsistent.
+     * @throws ContradictorySchemaException Thrown if the schema information imposed by annotations contradicts with
+     * schema information that is already present in the connected triplestore.
+     */
+    public void persistSchema(Reflections types) throws RepositoryException, InconsistentAnnotationException {
+        persistSchema(new ReflectionsClassIndex(types));
+    }
+
+    /**
+     * Persists only the schema information that changed since the last call of this method on the connected triplestore.
+     * Implementations that can't determine the changes persist the whole schema like {@link #persistSchema(ClassIndex)}.
+     * @param types The types which methods and field should be scanned for schema information.
+     * @return Returns true if schema information was persisted and false if the schema was unchanged.
+     * @throws RepositoryException Thrown if an error occurs while persisting schema information.
+     * @throws InconsistentAnnotationException Thrown if the schema annotations are inconsistent.
+     * @throws ContradictorySchemaException Thrown if the changed schema information contradicts with
+     * schema information that is already present in the connected triplestore.
+     */
+    public boolean persistSchemaChanges(ClassIndex types) throws RepositoryException, InconsistentAnnotationException {
+        persistSchema(types);
+        return true;
+    }
 
     /**
      * @param connection Connection to the triplestore that should receive schema information.
@@ -0,0 +1,72 @@
+package com.github.anno4j;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for {@link Anno4j#getStartupReport()} and {@link StartupListener}.
+ */
+public class StartupReportTest {
+
+    @Test
+    public void testStartupPhasesAreRecorded() throws Exception {
+        Anno4j anno4j = new Anno4j();
+        StartupReport report = anno4j.getStartupReport();
+
+        assertNotNull(report);
+        assertNotNull(report.getPhase(StartupPhase.CLASS_INDEX));
+        assertNotNull(report.getPhase(StartupPhase.ROLE_MAPPING));
+        assertNotNull(report.getPhase(StartupPhase.CREATE_REPOSITORY));
+        assertNotNull(report.getPhase(StartupPhase.PERSIST_SCHEMA));
+
+        assertTrue(report.getPhase(StartupPhase.INDEX_CONCEPTS).getItemCount() > 0);
+        // Every concept is an indexed class:
+        assertTrue(report.getPhase(StartupPhase.CLASS_INDEX).getItemCount()
+                >= report.getPhase(StartupPhase.INDEX_CONCEPTS).getItemCount());
+        assertTrue(report.getPhase(StartupPhase.ROLE_MAPPING).getItemCount() > 0);
+
+        long total = 0;
+        for (StartupPhase phase : report.getPhases()) {
+            assertTrue(phase.getDurationNanos() >= 0);
+            total += phase.getDurationNanos();
+        }
+        assertEquals(total, report.getTotalDurationNanos());
+    }
+
+    @Test
+    public void testSchemaPhaseIsSkippedIfDisabled() throws Exception {
+        Anno4j anno4j = new Anno4j(false);
+        assertNull(anno4j.getStartupReport().getPhase(StartupPhase.PERSIST_SCHEMA));
+    }
+
+    @Test
+    public void testListenerIsNotified() throws Exception {
+        final List<StartupPhase> phases = new ArrayList<>();
+        final List<StartupReport> reports = new ArrayList<>();
+        StartupListener listener = new StartupListener() {
+            @Override
+            public void phaseCompleted(StartupPhase phase) {
+                phases.add(phase);
+            }
+
+            @Override
+            public void startupCompleted(StartupReport report) {
+                reports.add(report);
+            }
+        };
+
+        Anno4j.addStartupListener(listener);
+        try {
+            new Anno4j();
+        } finally {
+            Anno4j.removeStartupListener(listener);
+        }
+
+        assertEquals(1, reports.size());
+        assertEquals(reports.get(0).getPhases(), phases);
+    }
+}
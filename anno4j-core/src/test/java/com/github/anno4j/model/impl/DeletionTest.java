@@ -4,6 +4,7 @@ package com.github.anno4j.model.impl;
 import com.github.anno4j.Anno4j;
 import com.github.anno4j.model.Annotation;
 import com.github.anno4j.model.Body;
+import com.github.anno4j.model.CascadingDelete;
 import com.github.anno4j.model.Selector;
 import com.github.anno4j.model.Target;
 import com.github.anno4j.model.impl.targets.SpecificResource;
@@ -20,6 +21,8 @@ import org.openrdf.repository.RepositoryResult;
 import org.openrdf.repository.sail.SailRepository;
 import org.openrdf.sail.memory.MemoryStore;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
@@ -192,6 +195,53 @@ public class DeletionTest {
         assertEquals(0, annotationWithoutTarget.getTargets().size());
     }
 
+    @Test
+    public void deleteAllAnnotations() throws RepositoryException, IllegalAccessException, InstantiationException, ParseException, MalformedQueryException, QueryEvaluationException {
+        List<Annotation> annotations = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Annotation annotation = anno4j.createObject(Annotation.class);
+            annotation.setCreated("2015-01-28T12:00:00Z");
+
+            DeletionTestBody body = anno4j.createObject(DeletionTestBody.class);
+            body.setValue("TestValue" + i);
+            annotation.addBody(body);
+
+            DeletionTestSelector selector = anno4j.createObject(DeletionTestSelector.class);
+            selector.setValue("TestSelectorValue" + i);
+            SpecificResource specificResource = anno4j.createObject(SpecificResource.class);
+            specificResource.setSelector(selector);
+            annotation.addTarget(specificResource);
+
+            annotations.add(annotation);
+        }
+
+        // delete the annotations with two updates
+        anno4j.deleteAll(annotations, CascadingDelete.DEFAULT_DEPTH, 3);
+
+        // checking if there are no statements left (repository should be completely empty)
+        RepositoryResult<Statement> statements = anno4j.getObjectRepository().getConnection().getStatements(null, null, null);
+        assertEquals(false, statements.hasNext());
+        assertEquals(0, annotations.get(0).getBodies().size());
+    }
+
+    @Test
+    public void deleteWithLimitedDepth() throws RepositoryException, IllegalAccessException, InstantiationException, ParseException, MalformedQueryException, QueryEvaluationException {
+        Annotation annotation = anno4j.createObject(Annotation.class);
+
+        DeletionTestSelector selector = anno4j.createObject(DeletionTestSelector.class);
+        selector.setValue("TestSelectorValue");
+        SpecificResource specificResource = anno4j.createObject(SpecificResource.class);
+        specificResource.setSelector(selector);
+        annotation.addTarget(specificResource);
+
+        // only the annotation and its target are deleted
+        anno4j.deleteAll(Collections.singletonList(annotation), 1, CascadingDelete.DEFAULT_BATCH_SIZE);
+
+        assertEquals(0, anno4j.findAll(Annotation.class).size());
+        assertEquals(0, anno4j.findAll(SpecificResource.class).size());
+        assertEquals(1, anno4j.findAll(DeletionTestSelector.class).size());
+    }
+
     /**
      * Body interface for testing purpose
      */
@@ -0,0 +1,92 @@
+package com.github.anno4j.persisting;
+
+import com.github.anno4j.Anno4j;
+import com.github.anno4j.PersistStatistics;
+import com.github.anno4j.Transaction;
+import com.github.anno4j.model.Annotation;
+import com.github.anno4j.model.impl.body.TextualBody;
+import org.junit.Before;
+import org.junit.Test;
+import org.openrdf.model.Resource;
+import org.openrdf.model.URI;
+import org.openrdf.model.impl.URIImpl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for writing object graphs of another repository in bulk.
+ */
+public class PersistAllTest {
+
+    private static final int COUNT = 25;
+
+    private Anno4j source;
+    private Anno4j target;
+    private List<Annotation> annotations;
+
+    @Before
+    public void setUp() throws Exception {
+        source = new Anno4j();
+        target = new Anno4j();
+        annotations = new ArrayList<>();
+        for (int i = 0; i < COUNT; i++) {
+            Annotation annotation = source.createObject(Annotation.class);
+            TextualBody body = source.createObject(TextualBody.class);
+            body.setValue("Body " + i);
+            annotation.addBody(body);
+            annotations.add(annotation);
+        }
+    }
+
+    @Test
+    public void testGraphIsCopied() throws Exception {
+        PersistStatistics statistics = target.persistAll(annotations);
+
+        assertEquals(COUNT, statistics.getObjectCount());
+        assertEquals(1, statistics.getBatchCount());
+        assertTrue(statistics.getStatementCount() >= COUNT * 4);
+        assertEquals(COUNT, target.findAll(Annotation.class).size());
+
+        Annotation copy = target.findByID(Annotation.class, annotations.get(0).getResourceAsString());
+        assertEquals(1, copy.getBodies().size());
+        assertEquals("Body 0", ((TextualBody) copy.getBodies().iterator().next()).getValue());
+    }
+
+    @Test
+    public void testStatementsAreWrittenInBatches() throws Exception {
+        PersistStatistics statistics = target.persistAll(annotations, 10);
+        PersistStatistics single = new Anno4j().persistAll(annotations);
+
+        assertTrue(statistics.getBatchCount() > 1);
+        assertEquals(single.getStatementCount(), statistics.getStatementCount());
+        assertEquals(COUNT, target.findAll(Annotation.class).size());
+    }
+
+    @Test
+    public void testDepthLimitsTheCopiedGraph() throws Exception {
+        target.persistAll(annotations, 0, Transaction.DEFAULT_PERSIST_BATCH_SIZE);
+
+        assertEquals(COUNT, target.findAll(Annotation.class).size());
+        assertEquals(0, target.findAll(TextualBody.class).size());
+    }
+
+    @Test
+    public void testExistingReferencesAreNotCopied() throws Exception {
+        URI shared = new URIImpl("urn:test:shared");
+        target.createObject(TextualBody.class, (Resource) shared).setValue("Target");
+        Annotation annotation = source.createObject(Annotation.class);
+        TextualBody body = source.createObject(TextualBody.class, (Resource) shared);
+        body.setValue("Source");
+        annotation.addBody(body);
+
+        target.persistAll(Collections.singleton(annotation));
+
+        Annotation copy = target.findByID(Annotation.class, annotation.getResourceAsString());
+        assertEquals(1, copy.getBodies().size());
+        assertEquals("Target", ((TextualBody) copy.getBodies().iterator().next()).getValue());
+    }
+}
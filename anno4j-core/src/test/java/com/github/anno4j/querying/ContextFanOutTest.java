@@ -0,0 +1,120 @@
+package com.github.anno4j.querying;
+
+import com.github.anno4j.Anno4j;
+import com.github.anno4j.ConnectionPoolStatistics;
+import com.github.anno4j.model.impl.body.TextualBody;
+import org.junit.Before;
+import org.junit.Test;
+import org.openrdf.model.URI;
+import org.openrdf.model.impl.URIImpl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for executing a query in multiple contexts in parallel.
+ */
+public class ContextFanOutTest {
+
+    private static final int PER_CONTEXT = 4;
+
+    private final List<URI> contexts = Arrays.<URI>asList(
+            new URIImpl("http://www.example.com/tenant1"),
+            new URIImpl("http://www.example.com/tenant2"),
+            new URIImpl("http://www.example.com/tenant3"));
+
+    private Anno4j anno4j;
+
+    @Before
+    public void setUp() throws Exception {
+        this.anno4j = new Anno4j();
+        anno4j.setQueryParallelism(2);
+        for (int c = 0; c < contexts.size(); c++) {
+            for (int i = 0; i < PER_CONTEXT; i++) {
+                TextualBody body = anno4j.createObject(TextualBody.class, contexts.get(c));
+                body.setValue("Body " + c + "-" + i);
+            }
+        }
+    }
+
+    @Test
+    public void testMergesContexts() throws Exception {
+        List<TextualBody> bodies = anno4j.createQueryService()
+                .executeInContexts(TextualBody.class, contexts, anno4j.getQueryExecutor());
+        assertEquals(contexts.size() * PER_CONTEXT, bodies.size());
+        assertEquals(contexts.size() * PER_CONTEXT, new HashSet<>(bodies).size());
+
+        List<TextualBody> subset = anno4j.createQueryService()
+                .executeInContexts(TextualBody.class, contexts.subList(0, 2), anno4j.getQueryExecutor());
+        assertEquals(2 * PER_CONTEXT, subset.size());
+    }
+
+    @Test
+    public void testDeduplicatesResources() throws Exception {
+        URI shared = new URIImpl("http://www.example.com/shared");
+        anno4j.createObject(TextualBody.class, contexts.get(0), shared);
+        anno4j.createObject(TextualBody.class, contexts.get(1), shared);
+
+        List<TextualBody> bodies = anno4j.createQueryService()
+                .executeInContexts(TextualBody.class, contexts, anno4j.getQueryExecutor());
+        assertEquals(contexts.size() * PER_CONTEXT + 1, bodies.size());
+    }
+
+    @Test
+    public void testGlobalOrderWithLimit() throws Exception {
+        List<String> all = new ArrayList<>();
+        for (int c = 0; c < contexts.size(); c++) {
+            for (int i = 0; i < PER_CONTEXT; i++) {
+                all.add("Body " + c + "-" + i);
+            }
+        }
+        Collections.sort(all, Collections.reverseOrder());
+
+        List<TextualBody> bodies = anno4j.createQueryService()
+                .orderBy("rdf:value", Order.DESCENDING)
+                .offset(1)
+                .limit(5)
+                .executeInContexts(TextualBody.class, contexts, anno4j.getQueryExecutor());
+
+        List<String> values = new ArrayList<>();
+        for (TextualBody body : bodies) {
+            values.add(body.getValue());
+        }
+        assertEquals(all.subList(1, 6), values);
+    }
+
+    @Test
+    public void testContextsAreQueriedOnPooledConnections() throws Exception {
+        anno4j.createQueryService().executeInContexts(TextualBody.class, contexts, anno4j.getQueryExecutor());
+        anno4j.createObject(TextualBody.class, contexts.get(0));
+        List<TextualBody> bodies = anno4j.createQueryService()
+                .executeInContexts(TextualBody.class, contexts, anno4j.getQueryExecutor());
+        assertEquals(contexts.size() * PER_CONTEXT + 1, bodies.size());
+
+        ConnectionPoolStatistics statistics = anno4j.getContextPoolStatistics();
+        assertEquals(2 * contexts.size(), statistics.getBorrowCount());
+        assertEquals(0, statistics.getActiveConnections());
+        assertEquals(contexts.size(), statistics.getIdleConnections());
+    }
+
+    @Test
+    public void testShutdownReleasesExecutorAndConnections() throws Exception {
+        ExecutorService executor = anno4j.getQueryExecutor();
+        anno4j.createQueryService().executeInContexts(TextualBody.class, contexts, executor);
+
+        anno4j.shutdown();
+        assertTrue(executor.isShutdown());
+        assertEquals(0, anno4j.getContextPoolStatistics().getIdleConnections());
+
+        List<TextualBody> bodies = anno4j.createQueryService()
+                .executeInContexts(TextualBody.class, contexts, anno4j.getQueryExecutor());
+        assertEquals(contexts.size() * PER_CONTEXT, bodies.size());
+        anno4j.shutdown();
+    }
+}
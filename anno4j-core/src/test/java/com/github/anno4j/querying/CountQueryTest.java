@@ -0,0 +1,63 @@
+package com.github.anno4j.querying;
+
+import com.github.anno4j.Anno4j;
+import com.github.anno4j.model.Annotation;
+import com.github.anno4j.model.impl.body.TextualBody;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for counting and checking the existence of QueryService results.
+ */
+public class CountQueryTest {
+
+    private static final int COUNT = 12;
+
+    private Anno4j anno4j;
+
+    @Before
+    public void setUp() throws Exception {
+        this.anno4j = new Anno4j();
+        for (int i = 0; i < COUNT; i++) {
+            Annotation annotation = anno4j.createObject(Annotation.class);
+            TextualBody body = anno4j.createObject(TextualBody.class);
+            body.setValue((i % 3 == 0) ? "match" : "other");
+            annotation.addBody(body);
+        }
+    }
+
+    @Test
+    public void testCount() throws Exception {
+        assertEquals(COUNT, anno4j.createQueryService().count(Annotation.class));
+        assertEquals(COUNT / 3, anno4j.createQueryService()
+                .addCriteria("oa:hasBody/rdf:value", "match")
+                .count(Annotation.class));
+        assertEquals(0, anno4j.createQueryService()
+                .addCriteria("oa:hasBody/rdf:value", "none")
+                .count(Annotation.class));
+    }
+
+    @Test
+    public void testCountIgnoresLimitAndOffset() throws Exception {
+        assertEquals(COUNT, anno4j.createQueryService().limit(2).offset(3).count(Annotation.class));
+    }
+
+    @Test
+    public void testExists() throws Exception {
+        assertTrue(anno4j.createQueryService().exists(Annotation.class));
+        assertTrue(anno4j.createQueryService()
+                .addCriteria("oa:hasBody/rdf:value", "match")
+                .exists(Annotation.class));
+        assertFalse(anno4j.createQueryService()
+                .addCriteria("oa:hasBody/rdf:value", "none")
+                .exists(Annotation.class));
+    }
+
+    @Test
+    public void testCountMatchesExecute() throws Exception {
+        QueryService queryService = anno4j.createQueryService().addCriteria("oa:hasBody/rdf:value", "other");
+        assertEquals(queryService.execute(Annotation.class).size(), queryService.count(Annotation.class));
+    }
+}
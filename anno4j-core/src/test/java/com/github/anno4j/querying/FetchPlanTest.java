@@ -0,0 +1,109 @@
+package com.github.anno4j.querying;
+
+import com.github.anno4j.Anno4j;
+import com.github.anno4j.model.Annotation;
+import com.github.anno4j.model.Target;
+import com.github.anno4j.model.impl.body.TextualBody;
+import com.github.anno4j.model.impl.selector.FragmentSelector;
+import com.github.anno4j.model.impl.targets.SpecificResource;
+import com.github.anno4j.model.namespaces.OADM;
+import org.junit.Before;
+import org.junit.Test;
+import org.openrdf.model.Resource;
+import org.openrdf.model.URI;
+import org.openrdf.model.impl.URIImpl;
+import org.openrdf.repository.object.FetchPlan;
+import org.openrdf.repository.object.ObjectConnection;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for loading objects with a {@link FetchPlan}.
+ * The store is cleared after loading, so only fetched properties are still readable.
+ */
+public class FetchPlanTest {
+
+    private Anno4j anno4j;
+    private URI id = new URIImpl("http://www.example.com/annotation");
+
+    @Before
+    public void setUp() throws Exception {
+        this.anno4j = new Anno4j();
+
+        Annotation annotation = anno4j.createObject(Annotation.class, (Resource) id);
+        TextualBody body = anno4j.createObject(TextualBody.class);
+        body.setValue("A body");
+        annotation.addBody(body);
+
+        FragmentSelector selector = anno4j.createObject(FragmentSelector.class);
+        selector.setValue("xywh=1,2,3,4");
+        SpecificResource target = anno4j.createObject(SpecificResource.class);
+        target.setSelector(selector);
+        annotation.addTarget(target);
+    }
+
+    @Test
+    public void testPathsAreLoaded() throws Exception {
+        FetchPlan plan = new FetchPlan()
+                .path(OADM.HAS_BODY)
+                .path(OADM.HAS_TARGET, OADM.HAS_SELECTOR);
+
+        Annotation annotation = anno4j.findByID(Annotation.class, id.stringValue(), plan);
+        clearStore();
+
+        assertEquals(1, annotation.getBodies().size());
+        assertTrue(annotation.getBodies().iterator().next() instanceof TextualBody);
+        assertEquals(1, annotation.getTargets().size());
+        Target target = annotation.getTargets().iterator().next();
+        assertTrue(target instanceof SpecificResource);
+        assertTrue(((SpecificResource) target).getSelector() instanceof FragmentSelector);
+    }
+
+    @Test
+    public void testOtherPropertiesAreReadOnDemand() throws Exception {
+        FetchPlan plan = new FetchPlan().path(OADM.HAS_BODY);
+
+        Annotation annotation = anno4j.findByID(Annotation.class, id.stringValue(), plan);
+        clearStore();
+
+        assertEquals(1, annotation.getBodies().size());
+        assertTrue(annotation.getTargets().isEmpty());
+    }
+
+    @Test
+    public void testEmptyPathsAreLoaded() throws Exception {
+        URI other = new URIImpl("http://www.example.com/other");
+        anno4j.createObject(Annotation.class, (Resource) other);
+        FetchPlan plan = new FetchPlan().path(OADM.HAS_BODY);
+
+        Map<URI, Annotation> annotations = anno4j.findByIDs(Annotation.class, Collections.singletonList(other), plan);
+        anno4j.findByID(Annotation.class, other.stringValue()).addBody(anno4j.createObject(TextualBody.class));
+
+        assertTrue(annotations.get(other).getBodies().isEmpty());
+    }
+
+    @Test
+    public void testFindAll() throws Exception {
+        FetchPlan plan = new FetchPlan().path(OADM.HAS_TARGET, OADM.HAS_SELECTOR);
+
+        List<Annotation> annotations = anno4j.findAll(Annotation.class, plan);
+        clearStore();
+
+        assertEquals(1, annotations.size());
+        SpecificResource target = (SpecificResource) annotations.get(0).getTargets().iterator().next();
+        assertNotNull(target.getSelector());
+    }
+
+    private void clearStore() throws Exception {
+        ObjectConnection connection = anno4j.getObjectRepository().getConnection();
+        try {
+            connection.clear();
+        } finally {
+            connection.close();
+        }
+    }
+}
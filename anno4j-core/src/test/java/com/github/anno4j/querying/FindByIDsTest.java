@@ -0,0 +1,71 @@
+package com.github.anno4j.querying;
+
+import com.github.anno4j.Anno4j;
+import com.github.anno4j.model.Annotation;
+import com.github.anno4j.model.impl.agent.Person;
+import org.junit.Before;
+import org.junit.Test;
+import org.openrdf.model.Resource;
+import org.openrdf.model.URI;
+import org.openrdf.model.impl.URIImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for {@link Anno4j#findByIDs(Class, java.util.Collection)}.
+ */
+public class FindByIDsTest {
+
+    private Anno4j anno4j;
+
+    @Before
+    public void setUp() throws Exception {
+        this.anno4j = new Anno4j();
+    }
+
+    @Test
+    public void testFindManyInChunks() throws Exception {
+        List<URI> ids = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            URI id = new URIImpl("http://www.example.com/annotation" + i);
+            anno4j.createObject(Annotation.class, (Resource) id);
+            ids.add(id);
+        }
+
+        Map<URI, Annotation> annotations = anno4j.findByIDs(Annotation.class, ids);
+
+        assertEquals(150, annotations.size());
+        assertEquals(ids, new ArrayList<>(annotations.keySet()));
+        for (Map.Entry<URI, Annotation> entry : annotations.entrySet()) {
+            assertEquals(entry.getKey().stringValue(), entry.getValue().getResourceAsString());
+        }
+    }
+
+    @Test
+    public void testMissingAndForeignResources() throws Exception {
+        URI annotation = new URIImpl("http://www.example.com/annotation");
+        URI person = new URIImpl("http://www.example.com/person");
+        URI missing = new URIImpl("http://www.example.com/missing");
+        anno4j.createObject(Annotation.class, (Resource) annotation);
+        anno4j.createObject(Person.class, (Resource) person);
+
+        List<URI> ids = new ArrayList<>();
+        ids.add(missing);
+        ids.add(person);
+        ids.add(annotation);
+        ids.add(annotation);
+
+        Map<URI, Annotation> annotations = anno4j.findByIDs(Annotation.class, ids);
+        assertEquals(1, annotations.size());
+        assertNotNull(annotations.get(annotation));
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        assertTrue(anno4j.findByIDs(Annotation.class, new ArrayList<URI>()).isEmpty());
+    }
+}
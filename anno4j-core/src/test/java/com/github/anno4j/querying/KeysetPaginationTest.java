@@ -0,0 +1,130 @@
+package com.github.anno4j.querying;
+
+import com.github.anno4j.Anno4j;
+import com.github.anno4j.model.Annotation;
+import com.github.anno4j.model.impl.ResourceObject;
+import com.github.anno4j.model.impl.body.TextualBody;
+import com.github.anno4j.model.impl.targets.SpecificResource;
+import org.junit.Before;
+import org.junit.Test;
+import org.openrdf.model.impl.URIImpl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for paging through the results of the QueryService with continuation tokens.
+ */
+public class KeysetPaginationTest {
+
+    private static final int COUNT = 25;
+
+    private Anno4j anno4j;
+
+    @Before
+    public void setUp() throws Exception {
+        anno4j = new Anno4j();
+        for (int i = 0; i < COUNT; i++) {
+            anno4j.createObject(Annotation.class);
+            TextualBody body = anno4j.createObject(TextualBody.class);
+            body.setValue(String.format("Body %02d", i));
+        }
+    }
+
+    @Test
+    public void testPagesByIRI() throws Exception {
+        List<String> ids = new ArrayList<>();
+        List<Integer> sizes = new ArrayList<>();
+        String token = null;
+        do {
+            QueryPage<Annotation> page = anno4j.createQueryService().page(Annotation.class, 10, token);
+            sizes.add(page.getObjects().size());
+            for (Annotation annotation : page.getObjects()) {
+                ids.add(annotation.getResourceAsString());
+            }
+            token = page.getContinuationToken();
+        } while (token != null);
+
+        assertEquals(COUNT, ids.size());
+        assertEquals(COUNT, new HashSet<>(ids).size());
+        List<String> sorted = new ArrayList<>(ids);
+        Collections.sort(sorted);
+        assertEquals(sorted, ids);
+        assertEquals(10, (int) sizes.get(0));
+        assertEquals(5, (int) sizes.get(2));
+    }
+
+    @Test
+    public void testPagesByPathDescending() throws Exception {
+        List<String> values = new ArrayList<>();
+        String token = null;
+        do {
+            QueryPage<TextualBody> page = anno4j.createQueryService()
+                    .orderBy("rdf:value", Order.DESCENDING)
+                    .page(TextualBody.class, 7, token);
+            for (TextualBody body : page.getObjects()) {
+                values.add(body.getValue());
+            }
+            token = page.getContinuationToken();
+        } while (token != null);
+
+        assertEquals(COUNT, values.size());
+        assertEquals("Body 24", values.get(0));
+        assertEquals("Body 00", values.get(COUNT - 1));
+        List<String> sorted = new ArrayList<>(values);
+        Collections.sort(sorted, Collections.reverseOrder());
+        assertEquals(sorted, values);
+    }
+
+    @Test
+    public void testPagesByIRIPath() throws Exception {
+        int targets = 12;
+        for (int i = 0; i < targets; i++) {
+            // Created in another order than the sources are ordered:
+            int index = (i * 5) % targets;
+            SpecificResource target = anno4j.createObject(SpecificResource.class);
+            target.setSource(anno4j.createObject(ResourceObject.class, new URIImpl(String.format("http://www.example.com/source/%02d", index))));
+            anno4j.createObject(Annotation.class).addTarget(target);
+        }
+
+        List<String> sources = new ArrayList<>();
+        String token = null;
+        do {
+            QueryPage<Annotation> page = anno4j.createQueryService()
+                    .orderBy("oa:hasTarget/oa:hasSource")
+                    .page(Annotation.class, 5, token);
+            for (Annotation annotation : page.getObjects()) {
+                SpecificResource target = (SpecificResource) annotation.getTargets().iterator().next();
+                sources.add(target.getSource().getResource().stringValue());
+            }
+            token = page.getContinuationToken();
+        } while (token != null);
+
+        assertEquals(targets, sources.size());
+        assertEquals("http://www.example.com/source/00", sources.get(0));
+        assertEquals("http://www.example.com/source/11", sources.get(targets - 1));
+        List<String> sorted = new ArrayList<>(sources);
+        Collections.sort(sorted);
+        assertEquals(sorted, sources);
+    }
+
+    @Test
+    public void testLastFullPageHasEmptySuccessor() throws Exception {
+        QueryPage<Annotation> page = anno4j.createQueryService().page(Annotation.class, COUNT, null);
+        assertTrue(page.hasNext());
+
+        QueryPage<Annotation> next = anno4j.createQueryService().page(Annotation.class, COUNT, page.getContinuationToken());
+        assertTrue(next.getObjects().isEmpty());
+        assertFalse(next.hasNext());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTokenOfOtherQueryIsRejected() throws Exception {
+        String token = anno4j.createQueryService().page(Annotation.class, 10, null).getContinuationToken();
+        anno4j.createQueryService().orderBy("rdf:value").page(TextualBody.class, 10, token);
+    }
+}
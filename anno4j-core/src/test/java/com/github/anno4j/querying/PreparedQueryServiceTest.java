@@ -0,0 +1,95 @@
+package com.github.anno4j.querying;
+
+import com.github.anno4j.Anno4j;
+import com.github.anno4j.model.Annotation;
+import com.github.anno4j.model.impl.ResourceObject;
+import com.github.anno4j.model.impl.body.TextualBody;
+import com.github.anno4j.model.impl.targets.SpecificResource;
+import org.junit.Before;
+import org.junit.Test;
+import org.openrdf.model.impl.URIImpl;
+
+import java.util.List;
+
+import static com.github.anno4j.querying.Parameter.param;
+import static org.junit.Assert.*;
+
+/**
+ * Test for queries executed repeatedly with different parameter values.
+ */
+public class PreparedQueryServiceTest {
+
+    private static final String PAGE = "http://www.example.com/page";
+    private static final int COUNT = 3;
+
+    private Anno4j anno4j;
+
+    @Before
+    public void setUp() throws Exception {
+        anno4j = new Anno4j();
+        for (int i = 0; i < COUNT; i++) {
+            ResourceObject source = anno4j.createObject(ResourceObject.class);
+            source.setResourceAsString(PAGE + i);
+            SpecificResource target = anno4j.createObject(SpecificResource.class);
+            target.setSource(source);
+
+            TextualBody body = anno4j.createObject(TextualBody.class);
+            body.setValue("Body " + i);
+
+            Annotation annotation = anno4j.createObject(Annotation.class);
+            annotation.addTarget(target);
+            annotation.addBody(body);
+        }
+    }
+
+    @Test
+    public void testBindDifferentValues() throws Exception {
+        anno4j.getQueryPlanCache().clear();
+        PreparedQueryService<Annotation> query = anno4j.createQueryService()
+                .addCriteria("oa:hasTarget/oa:hasSource", param("src"))
+                .prepare(Annotation.class);
+        assertEquals(1, anno4j.getQueryPlanCache().getMissCount());
+
+        for (int i = 0; i < COUNT; i++) {
+            List<Annotation> result = query.bind("src", new URIImpl(PAGE + i)).execute();
+            assertEquals(1, result.size());
+            SpecificResource target = (SpecificResource) result.get(0).getTargets().iterator().next();
+            assertEquals(PAGE + i, target.getSource().getResource().stringValue());
+        }
+        assertEquals(0, query.bind("src", new URIImpl(PAGE + "unknown")).execute().size());
+    }
+
+    @Test
+    public void testTextualComparison() throws Exception {
+        PreparedQueryService<Annotation> query = anno4j.createQueryService()
+                .addCriteria("oa:hasBody/rdf:value", param("text"), Comparison.STARTS_WITH)
+                .prepare(Annotation.class);
+
+        assertEquals(COUNT, query.bind("text", "Body").execute().size());
+        assertEquals(1, query.bind("text", "Body 1").execute().size());
+        assertEquals(0, query.bind("text", "Other").execute().size());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testUnboundParameter() throws Exception {
+        anno4j.createQueryService()
+                .addCriteria("oa:hasTarget/oa:hasSource", param("src"))
+                .prepare(Annotation.class)
+                .execute();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testExecuteRequiresPrepare() throws Exception {
+        anno4j.createQueryService()
+                .addCriteria("oa:hasTarget/oa:hasSource", param("src"))
+                .execute();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownParameter() throws Exception {
+        anno4j.createQueryService()
+                .addCriteria("oa:hasTarget/oa:hasSource", param("src"))
+                .prepare(Annotation.class)
+                .bind("other", "value");
+    }
+}
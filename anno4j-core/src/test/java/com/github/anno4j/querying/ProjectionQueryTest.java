@@ -0,0 +1,118 @@
+package com.github.anno4j.querying;
+
+import com.github.anno4j.Anno4j;
+import com.github.anno4j.model.Annotation;
+import com.github.anno4j.model.impl.ResourceObject;
+import com.github.anno4j.model.impl.agent.Person;
+import com.github.anno4j.model.impl.body.TextualBody;
+import com.github.anno4j.model.impl.targets.SpecificResource;
+import org.junit.Before;
+import org.junit.Test;
+import org.openrdf.model.Literal;
+import org.openrdf.model.URI;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for selecting values of LDPaths with the QueryService.
+ */
+public class ProjectionQueryTest {
+
+    private static final int COUNT = 5;
+
+    private static final String SOURCE = "http://example.org/source";
+
+    private Anno4j anno4j;
+
+    @Before
+    public void setUp() throws Exception {
+        this.anno4j = new Anno4j();
+        for (int i = 0; i < COUNT; i++) {
+            Annotation annotation = anno4j.createObject(Annotation.class);
+
+            ResourceObject source = anno4j.createObject(ResourceObject.class);
+            source.setResourceAsString(SOURCE + i);
+            SpecificResource target = anno4j.createObject(SpecificResource.class);
+            target.setSource(source);
+            annotation.addTarget(target);
+
+            if (i % 2 == 0) {
+                Person creator = anno4j.createObject(Person.class);
+                creator.setName("Creator " + i);
+                annotation.setCreator(creator);
+            }
+        }
+    }
+
+    @Test
+    public void testSelect() throws Exception {
+        Map<String, Tuple> tuples = new HashMap<>();
+        try (TupleIterator iterator = anno4j.createQueryService().select("oa:hasTarget/oa:hasSource", "dcterms:creator/foaf:name")) {
+            while (iterator.hasNext()) {
+                Tuple tuple = iterator.next();
+                tuples.put(tuple.getString(0), tuple);
+            }
+        }
+
+        assertEquals(COUNT, tuples.size());
+        for (int i = 0; i < COUNT; i++) {
+            Tuple tuple = tuples.get(SOURCE + i);
+            assertNotNull(tuple.getResource());
+            assertEquals(2, tuple.size());
+            assertTrue(tuple.getValue("oa:hasTarget/oa:hasSource") instanceof URI);
+            if (i % 2 == 0) {
+                assertEquals("Creator " + i, tuple.get(1, String.class));
+                assertTrue(tuple.getValue(1) instanceof Literal);
+            } else {
+                assertNull(tuple.getValue("dcterms:creator/foaf:name"));
+            }
+        }
+    }
+
+    @Test
+    public void testSelectAppliesCriteriaAndLimit() throws Exception {
+        int count = 0;
+        try (TupleIterator iterator = anno4j.createQueryService()
+                .addCriteria("dcterms:creator/foaf:name", "Creator 2")
+                .select("dcterms:creator/foaf:name")) {
+            while (iterator.hasNext()) {
+                assertEquals("Creator 2", iterator.next().getString(0));
+                count++;
+            }
+        }
+        assertEquals(1, count);
+
+        count = 0;
+        try (TupleIterator iterator = anno4j.createQueryService().limit(2).select("oa:hasTarget/oa:hasSource")) {
+            while (iterator.hasNext()) {
+                iterator.next();
+                count++;
+            }
+        }
+        assertEquals(2, count);
+    }
+
+    @Test
+    public void testSelectOtherType() throws Exception {
+        TextualBody body = anno4j.createObject(TextualBody.class);
+        body.setValue("text");
+
+        try (TupleIterator iterator = anno4j.createQueryService().select(TextualBody.class, "rdf:value")) {
+            assertTrue(iterator.hasNext());
+            Tuple tuple = iterator.next();
+            assertEquals(body.getResource(), tuple.getResource());
+            assertEquals("text", tuple.get("rdf:value", String.class));
+            assertFalse(iterator.hasNext());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownPath() throws Exception {
+        try (TupleIterator iterator = anno4j.createQueryService().select("oa:hasTarget/oa:hasSource")) {
+            iterator.next().getValue("rdf:value");
+        }
+    }
+}
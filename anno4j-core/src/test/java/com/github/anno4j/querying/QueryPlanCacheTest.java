@@ -0,0 +1,89 @@
+package com.github.anno4j.querying;
+
+import com.github.anno4j.Anno4j;
+import com.github.anno4j.model.Annotation;
+import com.github.anno4j.model.impl.selector.FragmentSelector;
+import com.github.anno4j.model.impl.targets.SpecificResource;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for the reuse of compiled queries by the QueryService.
+ */
+public class QueryPlanCacheTest {
+
+    private static final String CRITERIA = "oa:hasTarget/oa:hasSelector[is-a oa:FragmentSelector]";
+
+    private Anno4j anno4j;
+    private QueryPlanCache cache;
+
+    @Before
+    public void setUp() throws Exception {
+        anno4j = new Anno4j();
+        cache = anno4j.getQueryPlanCache();
+
+        Annotation annotation = anno4j.createObject(Annotation.class);
+        SpecificResource target = anno4j.createObject(SpecificResource.class);
+        target.setSelector(anno4j.createObject(FragmentSelector.class));
+        annotation.addTarget(target);
+        anno4j.createObject(Annotation.class);
+    }
+
+    @Test
+    public void testRepeatedQueryIsCached() throws Exception {
+        List<Annotation> first = anno4j.createQueryService().addCriteria(CRITERIA).execute();
+        assertEquals(0, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        List<Annotation> second = anno4j.createQueryService().addCriteria(CRITERIA).execute();
+        assertEquals(1, cache.getHitCount());
+        assertEquals(0.5, cache.getHitRate(), 0.0001);
+        assertEquals(first, second);
+        assertEquals(1, second.size());
+    }
+
+    @Test
+    public void testDifferentQueriesAreNotShared() throws Exception {
+        assertEquals(1, anno4j.createQueryService().addCriteria(CRITERIA).execute().size());
+        assertEquals(2, anno4j.createQueryService().execute().size());
+        assertEquals(1, anno4j.createQueryService().limit(1).execute().size());
+
+        assertEquals(0, cache.getHitCount());
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    public void testCacheIsOwnedByInstance() throws Exception {
+        anno4j.createQueryService().addCriteria(CRITERIA).execute();
+
+        Anno4j other = new Anno4j();
+        assertNotSame(cache, other.getQueryPlanCache());
+        other.createQueryService().addCriteria(CRITERIA).execute();
+        assertEquals(0, other.getQueryPlanCache().getHitCount());
+        assertEquals(1, other.getQueryPlanCache().getMissCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() throws Exception {
+        QueryPlanCache small = new QueryPlanCache(2);
+        List<Object> a = Collections.<Object>singletonList("a");
+        List<Object> b = Collections.<Object>singletonList("b");
+        List<Object> c = Arrays.<Object>asList("c", 1);
+        small.put(a, "A");
+        small.put(b, "B");
+        assertEquals("A", small.get(a));
+        small.put(c, "C");
+
+        assertEquals(2, small.size());
+        assertNull(small.get(b));
+        assertEquals("A", small.get(a));
+        assertEquals("C", small.get(c));
+    }
+}
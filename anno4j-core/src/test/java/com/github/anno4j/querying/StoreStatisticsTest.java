@@ -0,0 +1,89 @@
+package com.github.anno4j.querying;
+
+import com.github.anno4j.Anno4j;
+import com.github.anno4j.model.Annotation;
+import com.github.anno4j.model.impl.body.TextualBody;
+import com.github.anno4j.model.namespaces.OADM;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for collecting store statistics and ordering the triple patterns of queries by them.
+ */
+public class StoreStatisticsTest {
+
+    private static final int COUNT = 30;
+
+    private static final int WITH_BODY = 2;
+
+    private Anno4j anno4j;
+
+    @Before
+    public void setUp() throws Exception {
+        this.anno4j = new Anno4j();
+        for (int i = 0; i < COUNT; i++) {
+            Annotation annotation = anno4j.createObject(Annotation.class);
+            if (i < WITH_BODY) {
+                TextualBody body = anno4j.createObject(TextualBody.class);
+                body.setValue("Body " + i);
+                annotation.addBody(body);
+            }
+        }
+    }
+
+    @Test
+    public void testRefresh() throws Exception {
+        StoreStatistics statistics = anno4j.getStatistics();
+        assertFalse(statistics.isAvailable());
+        long version = statistics.getVersion();
+
+        anno4j.refreshStatistics();
+
+        assertTrue(statistics.isAvailable());
+        assertNotEquals(version, statistics.getVersion());
+        assertEquals(COUNT, statistics.getClassCount(OADM.ANNOTATION));
+        assertEquals(WITH_BODY, statistics.getPredicateCount(OADM.HAS_BODY));
+        assertTrue(statistics.getTripleCount() > COUNT);
+
+        statistics.clear();
+        assertFalse(statistics.isAvailable());
+    }
+
+    @Test
+    public void testSelectivePatternComesFirst() throws Exception {
+        anno4j.refreshStatistics();
+        String explanation = anno4j.createQueryService()
+                .addCriteria("oa:hasBody/rdf:value")
+                .explain(Annotation.class);
+
+        String[] lines = explanation.split("\n");
+        int first = -1;
+        for (int i = 0; i < lines.length; i++) {
+            if (lines[i].startsWith("# Estimated cardinalities")) {
+                first = i + 1;
+            }
+        }
+        assertTrue(explanation, first > 0);
+        assertTrue(explanation, lines[first].contains("hasBody"));
+
+        assertEquals(WITH_BODY, anno4j.createQueryService().addCriteria("oa:hasBody/rdf:value").execute().size());
+    }
+
+    @Test
+    public void testExplainWithoutStatistics() throws Exception {
+        String explanation = anno4j.createQueryService().explain(Annotation.class);
+        assertTrue(explanation.contains("No statistics available"));
+    }
+
+    @Test
+    public void testExpiredStatisticsAreRefreshed() throws Exception {
+        StoreStatistics statistics = anno4j.getStatistics();
+        statistics.setMaxAge(0);
+        Thread.sleep(5);
+
+        anno4j.createQueryService().execute();
+        assertTrue(statistics.isAvailable());
+    }
+}
@@ -0,0 +1,81 @@
+package com.github.anno4j.querying;
+
+import com.github.anno4j.Anno4j;
+import com.github.anno4j.ObjectIterator;
+import com.github.anno4j.model.Annotation;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for lazily iterating all instances of a type.
+ */
+public class StreamAllTest {
+
+    private static final int COUNT = 150;
+
+    private Anno4j anno4j;
+
+    @Before
+    public void setUp() throws Exception {
+        this.anno4j = new Anno4j();
+        for (int i = 0; i < COUNT; i++) {
+            anno4j.createObject(Annotation.class);
+        }
+    }
+
+    @Test
+    public void testAllObjectsAreIterated() throws Exception {
+        Set<String> ids = new HashSet<>();
+        try (ObjectIterator<Annotation> iterator = anno4j.streamAll(Annotation.class)) {
+            while (iterator.hasNext()) {
+                ids.add(iterator.next().getResourceAsString());
+            }
+        }
+
+        assertEquals(COUNT, ids.size());
+        assertEquals(COUNT, anno4j.findAll(Annotation.class).size());
+    }
+
+    @Test
+    public void testPartiallyConsumedIteratorReleasesConnection() throws Exception {
+        anno4j.setConnectionPool(1, 1000);
+
+        try (ObjectIterator<Annotation> iterator = anno4j.streamAll(Annotation.class)) {
+            assertNotNull(iterator.next());
+            assertEquals(1, anno4j.getConnectionPoolStatistics().getActiveConnections());
+        }
+
+        assertEquals(0, anno4j.getConnectionPoolStatistics().getActiveConnections());
+        assertEquals(COUNT, anno4j.findAll(Annotation.class).size());
+
+        anno4j.releaseConnections();
+        assertEquals(1, anno4j.getConnectionPoolStatistics().getIdleConnections());
+    }
+
+    @Test
+    public void testExhaustedIteratorIsClosed() throws Exception {
+        anno4j.setConnectionPool(1, 1000);
+
+        ObjectIterator<Annotation> iterator = anno4j.streamAll(Annotation.class);
+        int count = 0;
+        while (iterator.hasNext()) {
+            iterator.next();
+            count++;
+        }
+
+        assertEquals(COUNT, count);
+        assertEquals(0, anno4j.getConnectionPoolStatistics().getActiveConnections());
+        try {
+            iterator.next();
+            fail();
+        } catch (NoSuchElementException e) {
+            // expected
+        }
+    }
+}
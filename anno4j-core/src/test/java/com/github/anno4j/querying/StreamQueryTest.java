@@ -0,0 +1,104 @@
+package com.github.anno4j.querying;
+
+import com.github.anno4j.Anno4j;
+import com.github.anno4j.ObjectIterator;
+import com.github.anno4j.model.Annotation;
+import com.github.anno4j.model.impl.body.TextualBody;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for lazily iterating the results of the QueryService.
+ */
+public class StreamQueryTest {
+
+    private static final int COUNT = 20;
+
+    private Anno4j anno4j;
+
+    @Before
+    public void setUp() throws Exception {
+        this.anno4j = new Anno4j();
+        for (int i = 0; i < COUNT; i++) {
+            anno4j.createObject(Annotation.class);
+        }
+    }
+
+    @Test
+    public void testStream() throws Exception {
+        List<String> ids = collect(anno4j.createQueryService().stream(Annotation.class));
+
+        assertEquals(COUNT, ids.size());
+        assertEquals(COUNT, new HashSet<>(ids).size());
+    }
+
+    @Test
+    public void testStreamInPages() throws Exception {
+        List<String> ids = collect(anno4j.createQueryService().stream(Annotation.class, 3));
+
+        assertEquals(COUNT, ids.size());
+        assertEquals(COUNT, new HashSet<>(ids).size());
+        List<String> sorted = new ArrayList<>(ids);
+        Collections.sort(sorted);
+        assertEquals(sorted, ids);
+    }
+
+    @Test
+    public void testPagesRespectLimitAndOffset() throws Exception {
+        List<String> all = collect(anno4j.createQueryService().stream(Annotation.class, 4));
+        List<String> ids = collect(anno4j.createQueryService().offset(5).limit(7).stream(Annotation.class, 4));
+
+        assertEquals(all.subList(5, 12), ids);
+    }
+
+    @Test
+    public void testPagesSeekPastEqualKeys() throws Exception {
+        for (int i = 0; i < COUNT; i++) {
+            TextualBody body = anno4j.createObject(TextualBody.class);
+            body.setValue("Body " + (i % 3));
+        }
+
+        List<String> expected = new ArrayList<>();
+        for (TextualBody body : anno4j.createQueryService().orderBy("rdf:value", Order.DESCENDING).execute(TextualBody.class)) {
+            expected.add(body.getResourceAsString());
+        }
+        List<String> ids = new ArrayList<>();
+        try (ObjectIterator<TextualBody> iterator = anno4j.createQueryService()
+                .orderBy("rdf:value", Order.DESCENDING)
+                .stream(TextualBody.class, 4)) {
+            while (iterator.hasNext()) {
+                ids.add(iterator.next().getResourceAsString());
+            }
+        }
+
+        assertEquals(COUNT, ids.size());
+        assertEquals(expected, ids);
+    }
+
+    @Test
+    public void testPartiallyConsumedStream() throws Exception {
+        try (ObjectIterator<Annotation> iterator = anno4j.createQueryService().stream(Annotation.class, 5)) {
+            assertNotNull(iterator.next());
+        }
+        assertEquals(COUNT, anno4j.createQueryService().execute().size());
+    }
+
+    private List<String> collect(ObjectIterator<Annotation> iterator) {
+        List<String> ids = new ArrayList<>();
+        try {
+            while (iterator.hasNext()) {
+                ids.add(iterator.next().getResourceAsString());
+            }
+        } finally {
+            iterator.close();
+        }
+        return ids;
+    }
+}
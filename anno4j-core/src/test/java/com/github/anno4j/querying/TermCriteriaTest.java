@@ -0,0 +1,81 @@
+package com.github.anno4j.querying;
+
+import com.github.anno4j.Anno4j;
+import com.github.anno4j.model.Annotation;
+import com.github.anno4j.model.impl.body.TextualBody;
+import org.junit.Before;
+import org.junit.Test;
+import org.openrdf.model.ValueFactory;
+import org.openrdf.model.impl.ValueFactoryImpl;
+import org.openrdf.model.vocabulary.RDF;
+import org.openrdf.model.vocabulary.XMLSchema;
+import org.openrdf.repository.RepositoryConnection;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for criteria comparing to strings without regular expressions and to RDF terms.
+ */
+public class TermCriteriaTest {
+
+    private static final String VALUE = "ex:anno.(1)";
+
+    private final ValueFactory vf = ValueFactoryImpl.getInstance();
+
+    private Anno4j anno4j;
+
+    private Annotation annotation;
+
+    @Before
+    public void setUp() throws Exception {
+        this.anno4j = new Anno4j();
+        annotation = anno4j.createObject(Annotation.class);
+        Annotation other = anno4j.createObject(Annotation.class);
+
+        TextualBody body = anno4j.createObject(TextualBody.class);
+        body.setValue(VALUE);
+        annotation.addBody(body);
+
+        TextualBody otherBody = anno4j.createObject(TextualBody.class);
+        otherBody.setValue("ex:annox(1)");
+        other.addBody(otherBody);
+
+        TextualBody language = anno4j.createObject(TextualBody.class);
+        RepositoryConnection connection = anno4j.getObjectRepository().getConnection();
+        try {
+            connection.add(language.getResource(), RDF.VALUE, vf.createLiteral("Hello", "en"));
+        } finally {
+            connection.close();
+        }
+        other.addBody(language);
+    }
+
+    @Test
+    public void testSpecialCharactersAreNotPatterns() throws Exception {
+        assertEquals(1, anno4j.createQueryService().addCriteria("oa:hasBody/rdf:value", VALUE).count(Annotation.class));
+        assertEquals(1, anno4j.createQueryService().addCriteria("oa:hasBody/rdf:value", ".(1)", Comparison.ENDS_WITH).count(Annotation.class));
+        assertEquals(2, anno4j.createQueryService().addCriteria("oa:hasBody/rdf:value", "ex:anno", Comparison.STARTS_WITH).count(Annotation.class));
+        assertEquals(0, anno4j.createQueryService().addCriteria("oa:hasBody/rdf:value", "anno.*", Comparison.CONTAINS).count(Annotation.class));
+    }
+
+    @Test
+    public void testStringEqualityIgnoresLanguage() throws Exception {
+        assertEquals(1, anno4j.createQueryService().addCriteria("oa:hasBody/rdf:value", "Hello").count(Annotation.class));
+    }
+
+    @Test
+    public void testTermEquality() throws Exception {
+        assertEquals(1, anno4j.createQueryService().addCriteria("oa:hasBody/rdf:value", vf.createLiteral("Hello", "en")).count(Annotation.class));
+        assertEquals(0, anno4j.createQueryService().addCriteria("oa:hasBody/rdf:value", vf.createLiteral("Hello", "de")).count(Annotation.class));
+        assertEquals(0, anno4j.createQueryService().addCriteria("oa:hasBody/rdf:value", vf.createLiteral("Hello")).count(Annotation.class));
+
+        assertEquals(1, anno4j.createQueryService().addCriteria(".", annotation.getResource()).count(Annotation.class));
+    }
+
+    @Test
+    public void testTextualComparisonOfTerms() throws Exception {
+        assertEquals(1, anno4j.createQueryService().addCriteria("oa:hasBody/rdf:value", vf.createLiteral("Hel", "en"), Comparison.STARTS_WITH).count(Annotation.class));
+        assertEquals(0, anno4j.createQueryService().addCriteria("oa:hasBody/rdf:value", vf.createLiteral("Hel", "de"), Comparison.STARTS_WITH).count(Annotation.class));
+        assertEquals(0, anno4j.createQueryService().addCriteria("oa:hasBody/rdf:value", vf.createLiteral("Hel", XMLSchema.STRING), Comparison.STARTS_WITH).count(Annotation.class));
+    }
+}
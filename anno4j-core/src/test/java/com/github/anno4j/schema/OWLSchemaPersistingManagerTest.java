@@ -18,6 +18,8 @@ import org.openrdf.model.Resource;
 import org.openrdf.model.impl.URIImpl;
 import org.openrdf.query.BooleanQuery;
 import org.openrdf.query.QueryLanguage;
+import org.openrdf.query.TupleQueryResult;
+import org.openrdf.repository.object.managers.helpers.ReflectionsClassIndex;
 import org.reflections.Reflections;
 import org.reflections.scanners.FieldAnnotationsScanner;
 import org.reflections.scanners.MethodAnnotationsScanner;
@@ -28,6 +30,7 @@ import org.reflections.util.ConfigurationBuilder;
 
 import java.util.Set;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -255,4 +258,45 @@ public class OWLSchemaPersistingManagerTest {
         }
         assertTrue(exceptionThrown);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testUnchangedSchemaIsSkipped() throws Exception {
+        Anno4j anno4j = new Anno4j(false);
+
+        Reflections types = new Reflections(
+                new ConfigurationBuilder()
+                        .setUrls(
+                                ClasspathHelper.forClass(Person.class, ClasspathHelper.staticClassLoader()),
+                                ClasspathHelper.forClass(PersonSupport.class, ClasspathHelper.staticClassLoader())
+                        )
+                        .setScanners(new MethodAnnotationsScanner(), new FieldAnnotationsScanner(), new TypeAnnotationsScanner(), new SubTypesScanner())
+        );
+
+        Transaction transaction = anno4j.createTransaction();
+        transaction.begin();
+        SchemaPersistingManager persistingManager = new OWLSchemaPersistingManager(transaction.getConnection());
+        assertTrue(persistingManager.persistSchemaChanges(new ReflectionsClassIndex(types)));
+        transaction.commit();
+
+        String q = QUERY_PREFIX + "ASK { <http://example.de/#has_boss> a owl:TransitiveProperty . }";
+        assertTrue(transaction.getConnection().prepareBooleanQuery(QueryLanguage.SPARQL, q).evaluate());
+        long restrictions = countRestrictions(transaction);
+
+        // Persisting the same schema again must not touch the triplestore:
+        transaction.begin();
+        assertFalse(persistingManager.persistSchemaChanges(new ReflectionsClassIndex(types)));
+        transaction.commit();
+
+        assertEquals(restrictions, countRestrictions(transaction));
+    }
+
+    private long countRestrictions(Transaction transaction) throws Exception {
+        TupleQueryResult result = transaction.getConnection().prepareTupleQuery(QueryLanguage.SPARQL,
+                QUERY_PREFIX + "SELECT (COUNT(?r) AS ?count) { ?r a owl:Restriction . }").evaluate();
+        try {
+            return Long.parseLong(result.next().getValue("count").stringValue());
+        } finally {
+            result.close();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.github.anno4j.transaction;
+
+import com.github.anno4j.Anno4j;
+import com.github.anno4j.Transaction;
+import com.github.anno4j.model.Annotation;
+import com.github.anno4j.model.impl.body.TextualBody;
+import org.junit.Before;
+import org.junit.Test;
+import org.openrdf.model.Resource;
+import org.openrdf.repository.RepositoryConnection;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for transactions buffering their changes until commit.
+ */
+public class BufferedTransactionTest {
+
+    private Anno4j anno4j;
+    private Transaction transaction;
+
+    @Before
+    public void setUp() throws Exception {
+        this.anno4j = new Anno4j();
+        this.transaction = anno4j.createTransaction();
+        transaction.setBuffered(true);
+    }
+
+    @Test
+    public void testChangesAreWrittenAtCommit() throws Exception {
+        transaction.begin();
+        TextualBody body = transaction.createObject(TextualBody.class);
+        body.setValue("first");
+        body.setValue("second");
+
+        assertFalse(hasStatements(body.getResource()));
+        assertEquals("second", body.getValue());
+
+        transaction.commit();
+
+        assertTrue(hasStatements(body.getResource()));
+        TextualBody stored = anno4j.findByID(TextualBody.class, body.getResourceAsString());
+        assertEquals("second", stored.getValue());
+    }
+
+    @Test
+    public void testRemovesOfStoredObjectsAreWritten() throws Exception {
+        Annotation annotation = anno4j.createObject(Annotation.class);
+        annotation.setGenerated("2015-01-28T12:00:00Z");
+        annotation.setSerializedAt("2015-01-28T13:00:00Z");
+
+        transaction.begin();
+        Annotation loaded = transaction.findByID(Annotation.class, annotation.getResourceAsString());
+        loaded.setGenerated("2016-01-28T12:00:00Z");
+        loaded.setSerializedAt("2016-01-28T13:00:00Z");
+        transaction.commit();
+
+        Annotation stored = anno4j.findByID(Annotation.class, annotation.getResourceAsString());
+        assertEquals("2016-01-28T12:00:00Z", stored.getGenerated());
+        assertEquals("2016-01-28T13:00:00Z", stored.getSerializedAt());
+    }
+
+    @Test
+    public void testQueriesSeeBufferedChanges() throws Exception {
+        transaction.begin();
+        transaction.createObject(Annotation.class);
+
+        assertEquals(1, transaction.findAll(Annotation.class).size());
+        transaction.commit();
+        assertEquals(1, anno4j.findAll(Annotation.class).size());
+    }
+
+    @Test
+    public void testRollbackDiscardsBufferedChanges() throws Exception {
+        transaction.begin();
+        transaction.createObject(Annotation.class);
+        transaction.rollback();
+
+        assertEquals(0, transaction.findAll(Annotation.class).size());
+        assertEquals(0, anno4j.findAll(Annotation.class).size());
+    }
+
+    @Test
+    public void testChangesOutsideTransactionAreWrittenImmediately() throws Exception {
+        TextualBody body = transaction.createObject(TextualBody.class);
+        body.setValue("value");
+
+        assertTrue(hasStatements(body.getResource()));
+    }
+
+    /**
+     * Checks the store underneath the buffer of the transaction.
+     */
+    private boolean hasStatements(Resource subject) throws Exception {
+        RepositoryConnection store = transaction.getConnection().getDelegate();
+        return store.hasStatement(subject, null, null, false);
+    }
+}
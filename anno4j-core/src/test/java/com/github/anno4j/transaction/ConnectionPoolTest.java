@@ -0,0 +1,263 @@
+package com.github.anno4j.transaction;
+
+import com.github.anno4j.Anno4j;
+import com.github.anno4j.ConnectionPool;
+import com.github.anno4j.ConnectionPoolStatistics;
+import com.github.anno4j.ObjectIterator;
+import com.github.anno4j.model.Annotation;
+import com.github.anno4j.querying.QueryService;
+import org.junit.Before;
+import org.junit.Test;
+import org.openrdf.model.URI;
+import org.openrdf.model.impl.URIImpl;
+import org.openrdf.repository.RepositoryException;
+import org.openrdf.repository.object.ObjectConnection;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class ConnectionPoolTest {
+
+    private Anno4j anno4j;
+    private URI subgraph = new URIImpl("http://www.example.com/TESTGRAPH");
+
+    @Before
+    public void setUp() throws Exception {
+        this.anno4j = new Anno4j();
+    }
+
+    @Test
+    public void testConnectionsAreReused() throws Exception {
+        anno4j.setConnectionPool(2, 1000);
+        assertTrue(anno4j.isConnectionPoolEnabled());
+
+        for (int i = 0; i < 10; i++) {
+            anno4j.createObject(Annotation.class);
+        }
+        for (int i = 0; i < 10; i++) {
+            assertEquals(10, count(anno4j.streamAll(Annotation.class)));
+        }
+
+        anno4j.releaseConnections();
+
+        ConnectionPoolStatistics statistics = anno4j.getConnectionPoolStatistics();
+        assertEquals(20, statistics.getBorrowCount());
+        assertEquals(0, statistics.getActiveConnections());
+        assertEquals(0, statistics.getRetainedConnections());
+        assertEquals(1, statistics.getIdleConnections());
+        assertEquals(0, statistics.getTimeoutCount());
+    }
+
+    @Test
+    public void testPoolsAreSeparatedByContext() throws Exception {
+        anno4j.setConnectionPool(2, 1000);
+
+        anno4j.createObject(Annotation.class, subgraph);
+        anno4j.createObject(Annotation.class);
+
+        assertEquals(1, count(anno4j.streamAll(Annotation.class, subgraph)));
+        assertEquals(2, count(anno4j.streamAll(Annotation.class)));
+        anno4j.releaseConnections();
+        assertEquals(2, anno4j.getConnectionPoolStatistics().getIdleConnections());
+    }
+
+    @Test
+    public void testReturnedObjectsKeepTheirConnection() throws Exception {
+        anno4j.setConnectionPool(1, 100);
+        anno4j.createObject(Annotation.class);
+
+        List<Annotation> annotations = anno4j.findAll(Annotation.class);
+        ConnectionPoolStatistics statistics = anno4j.getConnectionPoolStatistics();
+        assertEquals(0, statistics.getActiveConnections());
+        assertEquals(1, statistics.getRetainedConnections());
+
+        // The thread holding the objects keeps using their connection:
+        assertEquals(1, count(anno4j.streamAll(Annotation.class)));
+        assertEquals(1, anno4j.getConnectionPoolStatistics().getRetainedConnections());
+
+        // Other threads can't borrow it while the objects are in use:
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(streamAllTask()).get();
+            fail("Connection of the reachable objects should not be borrowed");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof RepositoryException);
+        }
+        assertEquals(1, anno4j.getConnectionPoolStatistics().getTimeoutCount());
+        assertNotNull(annotations.get(0).getResourceAsString());
+
+        anno4j.releaseConnections();
+        assertEquals(1, (int) executor.submit(streamAllTask()).get());
+        executor.shutdown();
+    }
+
+    @Test
+    public void testClosedQueryServiceReturnsItsConnection() throws Exception {
+        anno4j.setConnectionPool(1, 1000);
+
+        QueryService queryService = anno4j.createQueryService();
+        assertEquals(1, anno4j.getConnectionPoolStatistics().getRetainedConnections());
+        queryService.close();
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        assertEquals(0, (int) executor.submit(streamAllTask()).get());
+        executor.shutdown();
+        assertEquals(0, anno4j.getConnectionPoolStatistics().getTimeoutCount());
+    }
+
+    @Test
+    public void testObjectsAreUsedConcurrentlyByTheirThreads() throws Exception {
+        anno4j.setConnectionPool(2, 10000);
+        for (int i = 0; i < 10; i++) {
+            Annotation annotation = anno4j.createObject(Annotation.class);
+            annotation.setGenerated("2015-01-28T12:00:00Z");
+        }
+        anno4j.releaseConnections();
+
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            futures.add(executor.submit(new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    start.await();
+                    try {
+                        List<Annotation> annotations = anno4j.findAll(Annotation.class);
+                        int read = 0;
+                        for (int j = 0; j < 50; j++) {
+                            for (Annotation annotation : annotations) {
+                                assertEquals("2015-01-28T12:00:00Z", annotation.getGenerated());
+                                read++;
+                            }
+                            // Reuses the connection retained for the annotations:
+                            assertEquals(10, count(anno4j.streamAll(Annotation.class)));
+                        }
+                        return read;
+                    } finally {
+                        anno4j.releaseConnections();
+                    }
+                }
+            }));
+        }
+        start.countDown();
+        for (Future<Integer> future : futures) {
+            assertEquals(500, (int) future.get());
+        }
+        executor.shutdown();
+
+        ConnectionPoolStatistics statistics = anno4j.getConnectionPoolStatistics();
+        assertEquals(0, statistics.getActiveConnections());
+        assertEquals(0, statistics.getRetainedConnections());
+        assertTrue(statistics.getIdleConnections() <= 2);
+        assertEquals(0, statistics.getTimeoutCount());
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        anno4j.setConnectionPool(4, 10000);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            futures.add(executor.submit(new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    try {
+                        anno4j.createObject(Annotation.class);
+                        return count(anno4j.streamAll(Annotation.class));
+                    } finally {
+                        anno4j.releaseConnections();
+                    }
+                }
+            }));
+        }
+        for (Future<Integer> future : futures) {
+            assertTrue(future.get() > 0);
+        }
+        executor.shutdown();
+
+        assertEquals(40, anno4j.findAll(Annotation.class).size());
+        anno4j.releaseConnections();
+
+        ConnectionPoolStatistics statistics = anno4j.getConnectionPoolStatistics();
+        assertEquals(0, statistics.getActiveConnections());
+        assertEquals(0, statistics.getRetainedConnections());
+        assertTrue(statistics.getIdleConnections() <= 4);
+        assertEquals(0, statistics.getTimeoutCount());
+    }
+
+    @Test
+    public void testBorrowTimesOut() throws Exception {
+        ConnectionPool pool = new ConnectionPool(anno4j.getObjectRepository(), null, 1, 10);
+
+        ObjectConnection connection = pool.borrow();
+        try {
+            pool.borrow();
+            fail("Pool should be exhausted");
+        } catch (RepositoryException e) {
+            // expected
+        }
+        assertEquals(1, pool.getStatistics().getTimeoutCount());
+
+        pool.release(connection);
+        assertSame(connection, pool.borrow());
+        pool.close();
+    }
+
+    @Test
+    public void testActiveTransactionIsRolledBack() throws Exception {
+        ConnectionPool pool = new ConnectionPool(anno4j.getObjectRepository(), null, 1, 10);
+
+        ObjectConnection connection = pool.borrow();
+        connection.begin();
+        connection.addDesignation(connection.getObjectFactory().createObject(new URIImpl("urn:test:1"), Annotation.class), Annotation.class);
+        pool.release(connection);
+
+        assertFalse(connection.isActive());
+        assertEquals(0, anno4j.findAll(Annotation.class).size());
+        pool.close();
+        assertFalse(connection.isOpen());
+    }
+
+    @Test
+    public void testDisablePool() throws Exception {
+        anno4j.setConnectionPool(2, 1000);
+        anno4j.createObject(Annotation.class);
+
+        anno4j.setConnectionPool(0, 0);
+        assertFalse(anno4j.isConnectionPoolEnabled());
+        assertEquals(0, anno4j.getConnectionPoolStatistics().getBorrowCount());
+        assertEquals(1, anno4j.findAll(Annotation.class).size());
+    }
+
+    private Callable<Integer> streamAllTask() {
+        return new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                return count(anno4j.streamAll(Annotation.class));
+            }
+        };
+    }
+
+    private static int count(ObjectIterator<Annotation> iterator) throws Exception {
+        try {
+            int count = 0;
+            while (iterator.hasNext()) {
+                iterator.next();
+                count++;
+            }
+            return count;
+        } finally {
+            iterator.close();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.github.anno4j.transaction;
+
+import com.github.anno4j.Anno4j;
+import com.github.anno4j.Transaction;
+import com.github.anno4j.model.Annotation;
+import com.github.anno4j.model.impl.body.TextualBody;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openrdf.repository.RepositoryReadOnlyException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test for transactions reading from a snapshot of the store.
+ */
+public class ReadOnlyTransactionTest {
+
+    private Anno4j anno4j;
+    private Transaction transaction;
+
+    @Before
+    public void setUp() throws Exception {
+        this.anno4j = new Anno4j();
+        TextualBody body = anno4j.createObject(TextualBody.class);
+        body.setValue("value");
+        this.transaction = anno4j.createReadOnlyTransaction();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        transaction.close();
+    }
+
+    @Test
+    public void testReadsStoredObjects() throws Exception {
+        assertTrue(transaction.isReadOnly());
+        assertEquals(1, transaction.findAll(TextualBody.class).size());
+        assertEquals("value", transaction.findAll(TextualBody.class).get(0).getValue());
+        assertEquals(1, transaction.createQueryService().execute(TextualBody.class).size());
+    }
+
+    @Test(expected = RepositoryReadOnlyException.class)
+    public void testCreateObjectIsRejected() throws Exception {
+        transaction.createObject(Annotation.class);
+    }
+
+    @Test(expected = RepositoryReadOnlyException.class)
+    public void testSetterIsRejected() throws Exception {
+        TextualBody body = transaction.findAll(TextualBody.class).get(0);
+        try {
+            body.setValue("changed");
+        } catch (RuntimeException e) {
+            // property setters wrap repository exceptions
+            if (e.getCause() instanceof RepositoryReadOnlyException) {
+                throw (RepositoryReadOnlyException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    @Test
+    public void testBeginRenewsSnapshot() throws Exception {
+        assertEquals(0, transaction.findAll(Annotation.class).size());
+        anno4j.createObject(Annotation.class);
+
+        transaction.begin();
+        assertEquals(1, transaction.findAll(Annotation.class).size());
+    }
+}